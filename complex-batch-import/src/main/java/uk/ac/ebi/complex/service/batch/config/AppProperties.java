@@ -34,4 +34,40 @@ public class AppProperties {
 
     @Value("${dry.run.mode}")
     private boolean dryRunMode;
+
+    @Value("${import.threads:1}")
+    private int importThreads;
+
+    @Value("${complex.cluster.max.states:100000}")
+    private int complexClusterMaxStates;
+
+    @Value("${complex.index.enabled:false}")
+    private boolean complexIndexEnabled;
+
+    @Value("${bulk.persistence.mode:false}")
+    private boolean bulkPersistenceMode;
+
+    @Value("${bulk.persistence.batch.size:50}")
+    private int bulkPersistenceBatchSize;
+
+    @Value("${complex.ac.sequence:}")
+    private String complexAcSequence;
+
+    @Value("${complex.ac.block.size:100}")
+    private int complexAcBlockSize;
+
+    @Value("${uniprot.mapping.cache.file:}")
+    private String uniprotMappingCacheFile;
+
+    @Value("${uniprot.mapping.cache.ttl.days:30}")
+    private int uniprotMappingCacheTtlDays;
+
+    @Value("${uniprot.mapping.max.concurrent.jobs:4}")
+    private int uniprotMappingMaxConcurrentJobs;
+
+    @Value("${uniprot.mapping.local.file:}")
+    private String uniprotMappingLocalFile;
+
+    @Value("${uniprot.mapping.local.deleted.file:}")
+    private String uniprotMappingLocalDeletedFile;
 }
@@ -20,12 +20,30 @@ import psidev.psi.mi.jami.batch.BasicChunkLoggerListener;
 import psidev.psi.mi.jami.batch.MIBatchJobManager;
 import psidev.psi.mi.jami.batch.SimpleJobListener;
 import psidev.psi.mi.jami.batch.SimpleJobRegistry;
+import uk.ac.ebi.complex.service.batch.listener.ComplexAcGeneratorListener;
+import uk.ac.ebi.complex.service.batch.listener.ComplexIndexListener;
+import uk.ac.ebi.complex.service.batch.listener.ReferenceDataCacheListener;
+import uk.ac.ebi.complex.service.batch.manager.ComplexAcGenerator;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
+import uk.ac.ebi.complex.service.batch.service.LocalUniProtMappingService;
+import uk.ac.ebi.complex.service.batch.service.UniProtMappingCache;
+import uk.ac.ebi.complex.service.batch.service.UniProtMappingIndex;
+import uk.ac.ebi.complex.service.batch.service.UniProtMappingService;
+import uk.ac.ebi.complex.service.finder.ComplexIndex;
+import uk.ac.ebi.complex.service.finder.FinderMetrics;
+import uk.ac.ebi.complex.service.finder.FinderMetricsListener;
+import uk.ac.ebi.complex.service.finder.SimpleFinderMetrics;
 import uk.ac.ebi.intact.jami.context.IntactConfiguration;
 import uk.ac.ebi.intact.jami.context.UserContext;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
 import uk.ac.ebi.intact.jami.model.extension.IntactSource;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 
 @Configuration
@@ -98,6 +116,76 @@ public class BatchImportConfig {
         return new SimpleJobListener();
     }
 
+    @Bean
+    public FinderMetrics finderMetrics() {
+        return new SimpleFinderMetrics();
+    }
+
+    @Bean
+    public FinderMetricsListener finderMetricsListener(FinderMetrics finderMetrics) {
+        return new FinderMetricsListener(finderMetrics);
+    }
+
+    @Bean
+    public ComplexIndex complexIndex(IntactDao intactDao) {
+        return new ComplexIndex(intactDao);
+    }
+
+    @Bean
+    public ComplexIndexListener complexIndexListener(
+            ComplexIndex complexIndex,
+            PlatformTransactionManager jamiTransactionManager,
+            AppProperties appProperties) {
+
+        return new ComplexIndexListener(complexIndex, jamiTransactionManager, appProperties.isComplexIndexEnabled());
+    }
+
+    @Bean
+    public ReferenceDataCache referenceDataCache(IntactDao intactDao) {
+        return new ReferenceDataCache(intactDao);
+    }
+
+    @Bean(destroyMethod = "discardUnusedAcs")
+    public ComplexAcGenerator complexAcGenerator(IntactDao intactDao, AppProperties appProperties) {
+        return new ComplexAcGenerator(
+                intactDao,
+                appProperties.getComplexAcSequence(),
+                appProperties.getComplexAcBlockSize());
+    }
+
+    @Bean
+    public ComplexAcGeneratorListener complexAcGeneratorListener(ComplexAcGenerator complexAcGenerator) {
+        return new ComplexAcGeneratorListener(complexAcGenerator);
+    }
+
+    @Bean
+    public ReferenceDataCacheListener referenceDataCacheListener(ReferenceDataCache referenceDataCache) {
+        return new ReferenceDataCacheListener(referenceDataCache);
+    }
+
+    @Bean
+    public UniProtMappingCache uniProtMappingCache(AppProperties appProperties) throws IOException {
+        String cacheFile = appProperties.getUniprotMappingCacheFile();
+        return new UniProtMappingCache(
+                cacheFile != null && !cacheFile.isBlank() ? new File(cacheFile) : null,
+                Duration.ofDays(appProperties.getUniprotMappingCacheTtlDays()));
+    }
+
+    @Bean
+    public UniProtMappingService uniProtMappingService(
+            UniProtMappingCache uniProtMappingCache,
+            AppProperties appProperties) throws IOException {
+
+        String localFile = appProperties.getUniprotMappingLocalFile();
+        if (localFile != null && !localFile.isBlank()) {
+            String deletedFile = appProperties.getUniprotMappingLocalDeletedFile();
+            return new LocalUniProtMappingService(UniProtMappingIndex.open(
+                    new File(localFile),
+                    deletedFile != null && !deletedFile.isBlank() ? new File(deletedFile) : null));
+        }
+        return new UniProtMappingService(uniProtMappingCache, appProperties.getUniprotMappingMaxConcurrentJobs());
+    }
+
     @Bean
     public MIBatchJobManager psiMIJobManager(
             JobRepositoryFactoryBean basicBatchJobRepository,
@@ -141,12 +229,20 @@ public class BatchImportConfig {
         factoryBean.setPersistenceUnitName("intact-jami");
         factoryBean.setPersistenceXmlLocation("classpath*:/META-INF/jami-persistence.xml");
         factoryBean.setDataSource(dataSource);
-        factoryBean.setJpaPropertyMap(Map.of(
+        Map<String, Object> jpaProperties = new HashMap<>(Map.of(
                 "hibernate.generate_statistics", true,
                 "hibernate.format_sql", false,
                 "hibernate.hbm2ddl.auto", appProperties.getHbm2ddl(),
                 "hibernate.default_schema", "intact"
         ));
+        if (appProperties.isBulkPersistenceMode()) {
+            // Batching can only be set for the whole persistence unit
+            jpaProperties.put("hibernate.jdbc.batch_size", appProperties.getBulkPersistenceBatchSize());
+            jpaProperties.put("hibernate.jdbc.batch_versioned_data", true);
+            jpaProperties.put("hibernate.order_inserts", true);
+            jpaProperties.put("hibernate.order_updates", true);
+        }
+        factoryBean.setJpaPropertyMap(jpaProperties);
         HibernateJpaVendorAdapter jpaVendorAdapter = new HibernateJpaVendorAdapter();
         jpaVendorAdapter.setDatabasePlatform(appProperties.getDbDialect());
         jpaVendorAdapter.setShowSql(false);
@@ -162,6 +258,8 @@ public class BatchImportConfig {
         dataSource.setUrl(appProperties.getDbUrl());
         dataSource.setUsername(appProperties.getDbUsername());
         dataSource.setPassword(appProperties.getDbPassword());
+        // Each import thread holds a connection while processing, on top of the one of the step
+        dataSource.setMaxActive(Math.max(dataSource.getMaxActive(), appProperties.getImportThreads() + 2));
         return dataSource;
     }
 
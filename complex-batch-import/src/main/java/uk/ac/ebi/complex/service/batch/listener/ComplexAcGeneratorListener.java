@@ -0,0 +1,34 @@
+package uk.ac.ebi.complex.service.batch.listener;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import uk.ac.ebi.complex.service.batch.manager.ComplexAcGenerator;
+
+import java.util.List;
+
+/**
+ * Discards the complex ACs reserved and not used at the end of each step, and records them in the execution context of
+ * the step, so the gaps left in the complex ACs are saved in the job repository.
+ */
+@RequiredArgsConstructor
+public class ComplexAcGeneratorListener implements StepExecutionListener {
+
+    public static final String UNUSED_ACS_KEY = "complex_unused_acs";
+
+    private final ComplexAcGenerator complexAcGenerator;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        List<String> unusedAcs = complexAcGenerator.discardUnusedAcs();
+        if (!unusedAcs.isEmpty()) {
+            stepExecution.getExecutionContext().putString(UNUSED_ACS_KEY, String.join(",", unusedAcs));
+        }
+        return null;
+    }
+}
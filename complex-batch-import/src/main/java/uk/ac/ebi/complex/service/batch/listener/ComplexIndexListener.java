@@ -0,0 +1,49 @@
+package uk.ac.ebi.complex.service.batch.listener;
+
+import lombok.extern.log4j.Log4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import uk.ac.ebi.complex.service.finder.ComplexIndex;
+
+/**
+ * Builds the complex index at the start of each step, when it is enabled, and clears it at the end of the step, so it
+ * is not kept in memory for the steps not looking for complexes.
+ * <p>
+ * The index is built in its own read-only transaction, as its persistence context is cleared while it is built.
+ */
+@Log4j
+public class ComplexIndexListener implements StepExecutionListener {
+
+    private final ComplexIndex complexIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public ComplexIndexListener(ComplexIndex complexIndex, PlatformTransactionManager transactionManager, boolean enabled) {
+        this.complexIndex = complexIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        if (enabled) {
+            long start = System.currentTimeMillis();
+            transactionTemplate.execute(status -> {
+                complexIndex.build();
+                return null;
+            });
+            log.info(stepExecution.getStepName() + " - complex index built with " + complexIndex.size() +
+                    " complexes in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        complexIndex.clear();
+        return null;
+    }
+}
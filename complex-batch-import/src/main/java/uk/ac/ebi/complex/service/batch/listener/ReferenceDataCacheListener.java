@@ -0,0 +1,26 @@
+package uk.ac.ebi.complex.service.batch.listener;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
+
+/**
+ * Warms up the reference data cache at the start of each step, before any item is read.
+ */
+@RequiredArgsConstructor
+public class ReferenceDataCacheListener implements StepExecutionListener {
+
+    private final ReferenceDataCache referenceDataCache;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        referenceDataCache.warmUp();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        return null;
+    }
+}
@@ -8,6 +8,9 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 
+/**
+ * Writer of report files. Lines are written in a synchronized way, so reports can be written from multiple threads.
+ */
 public abstract class ReportWriter {
 
     private final ICSVWriter csvWriter;
@@ -28,15 +31,15 @@ public abstract class ReportWriter {
         }
     }
 
-    protected void writeLine(String[] line) {
+    protected synchronized void writeLine(String[] line) {
         csvWriter.writeNext(line);
     }
 
-    public void flush() throws IOException {
+    public synchronized void flush() throws IOException {
         this.csvWriter.flush();
     }
 
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
         this.csvWriter.close();
     }
 }
@@ -0,0 +1,177 @@
+package uk.ac.ebi.complex.service.batch.manager;
+
+import lombok.extern.log4j.Log4j;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.ComplexAcValue;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Generator of Complex Portal ACs for new complexes, reserving them from the database in blocks.
+ * <p>
+ * If a sequence is set, a block of values is taken from it, and ACs are handed out from memory until the block is used.
+ * The values are taken with the sequence statements of the Hibernate dialect, with one query for the whole block on
+ * PostgreSQL. Dialects only give the statement for one value, and repeating it in one query needs a database specific
+ * row generator, like generate_series on PostgreSQL, so one query per value is run on other databases.
+ * <p>
+ * The first AC is generated with {@link ComplexAcValue}, and gives the format of the ACs. After each block, one more AC
+ * is generated with {@link ComplexAcValue}, and handed out after the block. The values of the block must be between the
+ * two ACs generated with {@link ComplexAcValue} before and after it, which is only true if the sequence is the one
+ * behind {@link ComplexAcValue}, so a sequence giving values colliding with its ACs is detected.
+ * <p>
+ * Values are only taken from the sequence, so they are never reused, even after a restart. Values reserved and not
+ * used cannot be given back to the sequence, so they are left as gaps, and they are returned and logged by
+ * {@link #discardUnusedAcs()}, called at the end of each step to record them. If no sequence is set, each AC is
+ * generated with {@link ComplexAcValue}.
+ * <p>
+ * The generator is thread-safe.
+ */
+@Log4j
+public class ComplexAcGenerator {
+
+    private static final Pattern SEQUENCE_NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_.]*");
+    private static final Pattern AC_PATTERN = Pattern.compile("(.*?)(\\d+)");
+
+    private final IntactDao intactDao;
+    private final String sequenceName;
+    private final int blockSize;
+    private final Function<EntityManager, String> complexAcValueGenerator;
+
+    private final Deque<Long> reservedValues = new ArrayDeque<>();
+    private String acPrefix;
+    private long lastValue;
+    private long reservedCount;
+    private long usedCount;
+
+    public ComplexAcGenerator(IntactDao intactDao, String sequenceName, int blockSize) {
+        this(intactDao, sequenceName, blockSize, ComplexAcValue::getNextComplexAcValue);
+    }
+
+    ComplexAcGenerator(IntactDao intactDao,
+                       String sequenceName,
+                       int blockSize,
+                       Function<EntityManager, String> complexAcValueGenerator) {
+        if (sequenceName != null && !sequenceName.isBlank() && !SEQUENCE_NAME_PATTERN.matcher(sequenceName).matches()) {
+            throw new IllegalArgumentException("Invalid complex AC sequence name: " + sequenceName);
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Complex AC block size must be greater than 0: " + blockSize);
+        }
+        this.intactDao = intactDao;
+        this.sequenceName = sequenceName != null && !sequenceName.isBlank() ? sequenceName : null;
+        this.blockSize = blockSize;
+        this.complexAcValueGenerator = complexAcValueGenerator;
+    }
+
+    public synchronized String nextAc() {
+        if (sequenceName == null || blockSize == 1) {
+            return complexAcValueGenerator.apply(intactDao.getEntityManager());
+        }
+        if (acPrefix == null) {
+            String firstAc = complexAcValueGenerator.apply(intactDao.getEntityManager());
+            acPrefix = getAcPrefix(firstAc);
+            lastValue = getAcValue(firstAc);
+            return firstAc;
+        }
+        if (reservedValues.isEmpty()) {
+            reserveBlock();
+        }
+        usedCount++;
+        return acPrefix + reservedValues.poll();
+    }
+
+    /**
+     * Discards the ACs reserved and not used, so they are never handed out, and returns them. They are not given back
+     * to the sequence, so they are left as gaps, and they are logged and returned, so they can be recorded.
+     */
+    public synchronized List<String> discardUnusedAcs() {
+        List<String> unusedAcs = reservedValues.stream()
+                .map(value -> acPrefix + value)
+                .collect(Collectors.toList());
+        reservedValues.clear();
+        if (!unusedAcs.isEmpty()) {
+            log.info("Complex ACs reserved, not used and left as gaps: " + String.join(",", unusedAcs));
+        }
+        return unusedAcs;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Complex AC generator: sequence=" + sequenceName + ", blockSize=" + blockSize +
+                ", reserved=" + reservedCount + ", used=" + usedCount + ", available=" + reservedValues.size();
+    }
+
+    private void reserveBlock() {
+        List<Long> values = nextSequenceValues();
+        if (values.isEmpty()) {
+            throw new IllegalStateException("Sequence " + sequenceName + " returned no values");
+        }
+        values.sort(Long::compare);
+        String nextAc = complexAcValueGenerator.apply(intactDao.getEntityManager());
+        long nextValue = getAcValue(nextAc);
+        // Values must come from the same sequence as the ACs generated by ComplexAcValue, so they are between the last
+        // AC generated by ComplexAcValue before the block, and the one generated after it
+        if (!acPrefix.equals(getAcPrefix(nextAc)) || values.get(0) <= lastValue || values.get(values.size() - 1) >= nextValue) {
+            throw new IllegalStateException("Sequence " + sequenceName + " is not the sequence of the complex ACs: " +
+                    "values from " + values.get(0) + " to " + values.get(values.size() - 1) +
+                    " not between complex ACs " + acPrefix + lastValue + " and " + nextAc);
+        }
+        values.add(nextValue);
+        lastValue = nextValue;
+        reservedValues.addAll(values);
+        reservedCount += values.size();
+        log.info("Reserved " + values.size() + " complex ACs, from " + acPrefix + values.get(0) +
+                " to " + acPrefix + lastValue);
+    }
+
+    private static String getAcPrefix(String ac) {
+        return matchAc(ac).group(1);
+    }
+
+    private static long getAcValue(String ac) {
+        return Long.parseLong(matchAc(ac).group(2));
+    }
+
+    private static Matcher matchAc(String ac) {
+        Matcher matcher = AC_PATTERN.matcher(ac);
+        if (!matcher.matches()) {
+            throw new IllegalStateException("Complex AC with unexpected format: " + ac);
+        }
+        return matcher;
+    }
+
+    private List<Long> nextSequenceValues() {
+        EntityManager entityManager = intactDao.getEntityManager();
+        Dialect dialect = ((SessionFactoryImplementor) entityManager.unwrap(Session.class).getSessionFactory())
+                .getDialect();
+        List<Long> values = new ArrayList<>();
+        if (dialect instanceof PostgreSQL81Dialect) {
+            // The whole block is taken with one query
+            Query query = entityManager.createNativeQuery(
+                    "select " + dialect.getSelectSequenceNextValString(sequenceName) + " from generate_series(1, ?1)");
+            query.setParameter(1, blockSize);
+            for (Object value : query.getResultList()) {
+                values.add(((Number) value).longValue());
+            }
+        } else {
+            for (int i = 0; i < blockSize; i++) {
+                Query query = entityManager.createNativeQuery(dialect.getSequenceNextValString(sequenceName));
+                values.add(((Number) query.getSingleResult()).longValue());
+            }
+        }
+        return values;
+    }
+}
@@ -21,7 +21,6 @@ import uk.ac.ebi.complex.service.batch.exception.SourceNotFoundException;
 import uk.ac.ebi.complex.service.batch.exception.UserNotFoundException;
 import uk.ac.ebi.complex.service.batch.model.ComplexToImport;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
-import uk.ac.ebi.intact.jami.model.ComplexAcValue;
 import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
 import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
 import uk.ac.ebi.intact.jami.model.extension.IntactModelledParticipant;
@@ -39,12 +38,18 @@ import uk.ac.ebi.intact.jami.synchronizer.PersisterException;
 import uk.ac.ebi.intact.jami.synchronizer.SynchronizerException;
 import uk.ac.ebi.intact.jami.utils.IntactUtils;
 
+import javax.persistence.Query;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Log4j
@@ -70,15 +75,17 @@ public abstract class ComplexManager<T, R extends ComplexToImport<T>> {
     public static final String ML_ECO_CODE = "ECO:0008004";
     public static final String COMP_EVIDENCE_ECO_CODE = "ECO:0007653";
 
+    private static final int PROTEIN_IDS_BATCH_SIZE = 500;
+
     private final IntactDao intactDao;
     private final UniprotProteinFetcher uniprotProteinFetcher;
     private final AppProperties appProperties;
+    private final ReferenceDataCache referenceDataCache;
+    private final ComplexAcGenerator complexAcGenerator;
 
-    private final Map<String, IntactCvTerm> cvTermMap = new HashMap<>();
-    private final Map<String, IntactSource> sourceMap = new HashMap<>();
-    private final Map<String, IntactProtein> proteinMap = new HashMap<>();
-    private final Map<String, User> userMap = new HashMap<>();
-    private final Map<Integer, IntactOrganism> organismMap = new HashMap<>();
+    // Proteins in the database are cached by AC, and new proteins fetched from UniProt by object, as they have no AC
+    private final Map<String, String> proteinAcMap = new ConcurrentHashMap<>();
+    private final Map<String, IntactProtein> proteinMap = new ConcurrentHashMap<>();
 
     public static String getEcoCodeExpectedForComplex(IntactComplex complex) {
         if (complex.isPredictedComplex()) {
@@ -92,6 +99,10 @@ public abstract class ComplexManager<T, R extends ComplexToImport<T>> {
         return null;
     }
 
+    public IntactComplex getExistingComplex(String complexAc) {
+        return intactDao.getComplexDao().getLatestComplexVersionByComplexAc(complexAc);
+    }
+
     public abstract boolean doesComplexHasIdentityXref(R newComplex, IntactComplex existingComplex);
 
     public abstract boolean doesComplexNeedUpdating(R newComplex, IntactComplex existingComplex);
@@ -135,6 +146,80 @@ public abstract class ComplexManager<T, R extends ComplexToImport<T>> {
         return complex;
     }
 
+    /**
+     * Resolves the proteins of the new complexes of a chunk in bulk, so {@link #newComplex(ComplexToImport)} does not
+     * need to look them up one by one. Proteins are looked up in the database with IN queries, and the ones not found
+     * are fetched from UniProt in one request. Proteins not resolved unambiguously are left to be resolved individually,
+     * when the complexes are created.
+     */
+    public void prefetchProteins(Collection<String> proteinIds) throws BridgeFailedException {
+        Set<String> proteinIdsToFetch = proteinIds.stream()
+                .filter(proteinId -> !proteinAcMap.containsKey(proteinId) && !proteinMap.containsKey(proteinId))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (proteinIdsToFetch.isEmpty()) {
+            return;
+        }
+
+        Map<String, Set<String>> proteinAcsById = new HashMap<>();
+        List<String> proteinIdsList = new ArrayList<>(proteinIdsToFetch);
+        for (int i = 0; i < proteinIdsList.size(); i += PROTEIN_IDS_BATCH_SIZE) {
+            List<String> batch = proteinIdsList.subList(i, Math.min(i + PROTEIN_IDS_BATCH_SIZE, proteinIdsList.size()));
+            for (Object[] row : getProteinAcsByIdentity(batch)) {
+                proteinAcsById.computeIfAbsent((String) row[0], k -> new HashSet<>()).add((String) row[1]);
+            }
+        }
+        int proteinsInDatabase = 0;
+        for (Map.Entry<String, Set<String>> proteinAcs : proteinAcsById.entrySet()) {
+            if (proteinAcs.getValue().size() == 1) {
+                proteinAcMap.put(proteinAcs.getKey(), proteinAcs.getValue().iterator().next());
+                proteinsInDatabase++;
+            }
+        }
+        proteinIdsToFetch.removeAll(proteinAcsById.keySet());
+
+        int proteinsFromUniprot = 0;
+        if (!proteinIdsToFetch.isEmpty()) {
+            // Proteins are keyed by the requested ids, matched against all their UniProt ACs, so secondary ACs and
+            // isoform ids are resolved too. Ids matching several proteins are not cached, so they still fail when the
+            // complexes are created, as when they are fetched one by one.
+            Map<String, List<Protein>> uniprotProteinsById = new HashMap<>();
+            for (Protein protein : uniprotProteinFetcher.fetchByIdentifiers(proteinIdsToFetch)) {
+                for (String uniprotAc : getUniprotAcs(protein)) {
+                    if (proteinIdsToFetch.contains(uniprotAc)) {
+                        uniprotProteinsById.computeIfAbsent(uniprotAc, k -> new ArrayList<>()).add(protein);
+                    }
+                }
+            }
+            for (String proteinId : proteinIdsToFetch) {
+                List<Protein> uniprotProteins = uniprotProteinsById.get(proteinId);
+                if (uniprotProteins != null && uniprotProteins.size() == 1) {
+                    try {
+                        proteinMap.put(proteinId, intactDao.getSynchronizerContext()
+                                .getProteinSynchronizer()
+                                .convertToPersistentObject(uniprotProteins.get(0)));
+                        proteinsFromUniprot++;
+                    } catch (FinderException | SynchronizerException | PersisterException e) {
+                        log.warn("Protein '" + proteinId + "' fetched from UniProt could not be converted, " +
+                                "it will be fetched again: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        log.info("Prefetched proteins: " + proteinsInDatabase + " from the database, " + proteinsFromUniprot +
+                " from UniProt");
+    }
+
+    private static Set<String> getUniprotAcs(Protein protein) {
+        Set<String> uniprotAcs = new HashSet<>();
+        if (protein.getUniprotkb() != null) {
+            uniprotAcs.add(protein.getUniprotkb());
+        }
+        for (Xref xref : XrefUtils.collectAllXrefsHavingDatabase(protein.getIdentifiers(), Xref.UNIPROTKB_MI, Xref.UNIPROTKB)) {
+            uniprotAcs.add(xref.getId());
+        }
+        return uniprotAcs;
+    }
+
     protected boolean doesComplexEcoCodeNeedUpdating(IntactComplex complex) {
         String expectedEcoCode = getEcoCodeExpectedForComplex(complex);
         if (expectedEcoCode != null) {
@@ -247,14 +332,19 @@ public abstract class ComplexManager<T, R extends ComplexToImport<T>> {
         complex.setStatus(LifeCycleStatus.READY_FOR_RELEASE);
     }
 
-    private IntactProtein getIntactProtein(String proteinId) throws BridgeFailedException, FinderException, SynchronizerException, PersisterException, ProteinException {
+    IntactProtein getIntactProtein(String proteinId) throws BridgeFailedException, FinderException, SynchronizerException, PersisterException, ProteinException {
+        if (proteinAcMap.containsKey(proteinId)) {
+            return intactDao.getEntityManager().getReference(IntactProtein.class, proteinAcMap.get(proteinId));
+        }
         if (proteinMap.containsKey(proteinId)) {
             return proteinMap.get(proteinId);
         }
         Collection<IntactProtein> proteinByXref = intactDao.getProteinDao().getByXrefQualifier(Xref.IDENTITY, Xref.IDENTITY_MI, proteinId);
         if (!proteinByXref.isEmpty()) {
             if (proteinByXref.size() == 1) {
-                return proteinByXref.iterator().next();
+                IntactProtein intactProtein = proteinByXref.iterator().next();
+                proteinAcMap.put(proteinId, intactProtein.getAc());
+                return intactProtein;
             }
             throw new ProteinException("Multiple proteins found in the DB for protein id '" + proteinId + "'");
         } else {
@@ -273,6 +363,18 @@ public abstract class ComplexManager<T, R extends ComplexToImport<T>> {
         }
     }
 
+    private List<Object[]> getProteinAcsByIdentity(Collection<String> proteinIds) {
+        Query query = intactDao.getEntityManager().createQuery("select distinct xref.id, protein.ac " +
+                "from IntactProtein protein " +
+                "join protein.dbXrefs as xref " +
+                "join xref.qualifier as qualifier " +
+                "where qualifier.identifier = :identityMi " +
+                "and xref.id in (:proteinIds)");
+        query.setParameter("identityMi", Xref.IDENTITY_MI);
+        query.setParameter("proteinIds", proteinIds);
+        return query.getResultList();
+    }
+
     private void setComplexComponents(R newComplex, IntactComplex complex) throws BridgeFailedException, FinderException, SynchronizerException, PersisterException, ProteinException {
         for (String uniprotAc: newComplex.getProteinIds()) {
             IntactProtein intactProtein = getIntactProtein(uniprotAc);
@@ -285,7 +387,7 @@ public abstract class ComplexManager<T, R extends ComplexToImport<T>> {
         IntactCvTerm qualifier = findCvTerm(IntactUtils.QUALIFIER_OBJCLASS, Xref.COMPLEX_PRIMARY_MI);
         // In future versions we may need to increase the version
         String version = "1";
-        String acValue = ComplexAcValue.getNextComplexAcValue(intactDao.getEntityManager());
+        String acValue = complexAcGenerator.nextAc();
         InteractorXref xref = new InteractorXref(database, acValue, version, qualifier);
         complex.getIdentifiers().add(xref);
     }
@@ -325,62 +427,19 @@ public abstract class ComplexManager<T, R extends ComplexToImport<T>> {
     }
 
     protected IntactCvTerm findCvTerm(String clazz, String id) throws CvTermNotFoundException {
-        String key = clazz + "_" + id;
-        if (cvTermMap.containsKey(key)) {
-            return cvTermMap.get(key);
-        }
-        IntactCvTerm cvTerm = intactDao.getCvTermDao().getByUniqueIdentifier(id, clazz);
-        if (cvTerm != null) {
-            cvTermMap.put(key, cvTerm);
-            return cvTerm;
-        }
-        throw new CvTermNotFoundException("CV Term not found with class '" + clazz + "' and id '" + id + "'");
+        return referenceDataCache.findCvTerm(clazz, id);
     }
 
     protected IntactSource findSource(String id) throws SourceNotFoundException {
-        if (sourceMap.containsKey(id)) {
-            return sourceMap.get(id);
-        }
-        IntactSource source = intactDao.getSourceDao().getByMIIdentifier(id);
-        if (source != null) {
-            sourceMap.put(id, source);
-            return source;
-        }
-        Collection<IntactSource> sourcesByXref = intactDao.getSourceDao().getByXref(id);
-        if (sourcesByXref != null && !sourcesByXref.isEmpty()) {
-            List<IntactSource> sourcesWithIdentifier = sourcesByXref.stream()
-                    .filter(sourceByXref -> sourceByXref.getIdentifiers().stream().anyMatch(xrefId -> id.equals(xrefId.getId())))
-                    .collect(Collectors.toList());
-            if (sourcesWithIdentifier.size() == 1) {
-                sourceMap.put(id, sourcesWithIdentifier.get(0));
-                return sourcesWithIdentifier.get(0);
-            }
-        }
-        throw new SourceNotFoundException("Source not found with id '" + id + "'");
+        return referenceDataCache.findSource(id);
     }
 
     private User findUser(String username) throws UserNotFoundException {
-        if (userMap.containsKey(username)) {
-            return userMap.get(username);
-        }
-        User user = intactDao.getUserDao().getByLogin(username);
-        if (user != null) {
-            userMap.put(username, user);
-            return user;
-        }
-        throw new UserNotFoundException("User not found with username '" + username + "'");
+        return referenceDataCache.findUser(username);
     }
 
     private IntactOrganism findOrganism(int taxId) throws OrganismNotFoundException {
-        if (organismMap.containsKey(taxId)) {
-            return organismMap.get(taxId);
-        }
-        IntactOrganism organism = intactDao.getOrganismDao().getByTaxidOnly(taxId);
-        if (organism != null) {
-            organismMap.put(taxId, organism);
-            return organism;
-        }
-        throw new OrganismNotFoundException("Organism not found with tax id '" + taxId + "'");
+        return referenceDataCache.findOrganism(taxId);
     }
 
     private boolean isCvTermWithId(CvTerm cvTerm, String id) {
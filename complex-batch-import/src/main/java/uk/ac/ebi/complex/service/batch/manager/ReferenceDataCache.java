@@ -0,0 +1,160 @@
+package uk.ac.ebi.complex.service.batch.manager;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j;
+import uk.ac.ebi.complex.service.batch.exception.CvTermNotFoundException;
+import uk.ac.ebi.complex.service.batch.exception.OrganismNotFoundException;
+import uk.ac.ebi.complex.service.batch.exception.SourceNotFoundException;
+import uk.ac.ebi.complex.service.batch.exception.UserNotFoundException;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
+import uk.ac.ebi.intact.jami.model.extension.IntactOrganism;
+import uk.ac.ebi.intact.jami.model.extension.IntactSource;
+import uk.ac.ebi.intact.jami.model.user.User;
+
+import javax.persistence.Query;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Cache of the CV terms, sources, organisms and users used by the managers, processors and writers of the imports,
+ * shared by all of them, so each one is only looked up once.
+ * <p>
+ * Only the ACs are cached, and entities are always returned as references from the current entity manager, also the
+ * first time they are looked up, so they are always attached to the current session, and the cache can be used from
+ * multiple threads. The ACs of all the CV terms with a unique identifier are loaded with one query by {@link #warmUp()},
+ * called at the start of each step, or on the first lookup. CV terms sharing the same class and identifier are not
+ * cached by the warm-up, and are looked up as if they were not in it. Anything else is looked up on demand and then
+ * cached.
+ */
+@Log4j
+@RequiredArgsConstructor
+public class ReferenceDataCache {
+
+    private final IntactDao intactDao;
+
+    private final Map<String, String> cvTermAcs = new ConcurrentHashMap<>();
+    private final Map<String, String> sourceAcs = new ConcurrentHashMap<>();
+    private final Map<Integer, String> organismAcs = new ConcurrentHashMap<>();
+    private final Map<String, String> userAcs = new ConcurrentHashMap<>();
+
+    private volatile boolean warmedUp = false;
+
+    public synchronized void warmUp() {
+        if (warmedUp) {
+            return;
+        }
+        Query query = intactDao.getEntityManager().createQuery("select cv.objClass, cv.identifier, cv.ac " +
+                "from IntactCvTerm cv " +
+                "where cv.identifier is not null");
+        List<Object[]> cvTerms = query.getResultList();
+        Set<String> duplicatedKeys = new TreeSet<>();
+        for (Object[] cvTerm : cvTerms) {
+            String key = getCvTermKey((String) cvTerm[0], (String) cvTerm[1]);
+            String ac = (String) cvTerm[2];
+            String otherAc = cvTermAcs.putIfAbsent(key, ac);
+            if (otherAc != null && !otherAc.equals(ac)) {
+                duplicatedKeys.add(key);
+            }
+        }
+        // Which of the CV terms with the same class and identifier to use is left to the DAO
+        cvTermAcs.keySet().removeAll(duplicatedKeys);
+        if (!duplicatedKeys.isEmpty()) {
+            log.warn("CV terms with the same class and identifier not cached: " + duplicatedKeys);
+        }
+        warmedUp = true;
+        log.info("Reference data cache warmed up with " + cvTermAcs.size() + " CV terms");
+    }
+
+    public IntactCvTerm findCvTerm(String clazz, String id) throws CvTermNotFoundException {
+        if (!warmedUp) {
+            warmUp();
+        }
+        String key = getCvTermKey(clazz, id);
+        String ac = cvTermAcs.get(key);
+        if (ac != null) {
+            return getReference(IntactCvTerm.class, ac);
+        }
+        // Not in the warm-up query, as the id is an identifier xref of the term, or more than one term has the id
+        IntactCvTerm cvTerm = intactDao.getCvTermDao().getByUniqueIdentifier(id, clazz);
+        if (cvTerm != null) {
+            cvTermAcs.put(key, cvTerm.getAc());
+            return getReference(IntactCvTerm.class, cvTerm.getAc());
+        }
+        throw new CvTermNotFoundException("CV Term not found with class '" + clazz + "' and id '" + id + "'");
+    }
+
+    public IntactSource findSource(String id) throws SourceNotFoundException {
+        String ac = sourceAcs.get(id);
+        if (ac != null) {
+            return getReference(IntactSource.class, ac);
+        }
+        IntactSource source = intactDao.getSourceDao().getByMIIdentifier(id);
+        if (source != null) {
+            sourceAcs.put(id, source.getAc());
+            return getReference(IntactSource.class, source.getAc());
+        }
+        Collection<IntactSource> sourcesByXref = intactDao.getSourceDao().getByXref(id);
+        if (sourcesByXref != null && !sourcesByXref.isEmpty()) {
+            List<IntactSource> sourcesWithIdentifier = sourcesByXref.stream()
+                    .filter(sourceByXref -> sourceByXref.getIdentifiers().stream().anyMatch(xrefId -> id.equals(xrefId.getId())))
+                    .collect(Collectors.toList());
+            if (sourcesWithIdentifier.size() == 1) {
+                sourceAcs.put(id, sourcesWithIdentifier.get(0).getAc());
+                return getReference(IntactSource.class, sourcesWithIdentifier.get(0).getAc());
+            }
+        }
+        throw new SourceNotFoundException("Source not found with id '" + id + "'");
+    }
+
+    public IntactOrganism findOrganism(int taxId) throws OrganismNotFoundException {
+        String ac = organismAcs.get(taxId);
+        if (ac != null) {
+            return getReference(IntactOrganism.class, ac);
+        }
+        IntactOrganism organism = intactDao.getOrganismDao().getByTaxidOnly(taxId);
+        if (organism != null) {
+            organismAcs.put(taxId, organism.getAc());
+            return getReference(IntactOrganism.class, organism.getAc());
+        }
+        throw new OrganismNotFoundException("Organism not found with tax id '" + taxId + "'");
+    }
+
+    public User findUser(String username) throws UserNotFoundException {
+        String ac = userAcs.get(username);
+        if (ac != null) {
+            return getReference(User.class, ac);
+        }
+        User user = intactDao.getUserDao().getByLogin(username);
+        if (user != null) {
+            userAcs.put(username, user.getAc());
+            return getReference(User.class, user.getAc());
+        }
+        throw new UserNotFoundException("User not found with username '" + username + "'");
+    }
+
+    public synchronized void clear() {
+        cvTermAcs.clear();
+        sourceAcs.clear();
+        organismAcs.clear();
+        userAcs.clear();
+        warmedUp = false;
+    }
+
+    /**
+     * Returns the entity with the given AC as a reference of the current entity manager, which is the entity itself if
+     * it has already been loaded in the current session.
+     */
+    private <T> T getReference(Class<T> entityClass, String ac) {
+        return intactDao.getEntityManager().getReference(entityClass, ac);
+    }
+
+    private static String getCvTermKey(String clazz, String id) {
+        return clazz + "_" + id;
+    }
+}
@@ -3,7 +3,7 @@ package uk.ac.ebi.complex.service.batch.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.complex.service.finder.ComplexSummary;
 
 import java.util.Collection;
 import java.util.List;
@@ -13,7 +13,8 @@ import java.util.List;
 @NoArgsConstructor
 public class ComplexWithMatches<T, R extends ComplexToImport<T>> {
     private R complexToImport;
-    private Collection<IntactComplex> complexesWithExactMatch;
-    private Collection<IntactComplex> complexesToAddSubsetXref;
-    private Collection<List<IntactComplex>> complexesToAddComplexClusterXref;
+    // Only summaries of the matching complexes are kept, entities are loaded by the writer when needed
+    private Collection<ComplexSummary> complexesWithExactMatch;
+    private Collection<ComplexSummary> complexesToAddSubsetXref;
+    private Collection<List<ComplexSummary>> complexesToAddComplexClusterXref;
 }
@@ -0,0 +1,18 @@
+package uk.ac.ebi.complex.service.batch.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ComplexWithOldXrefIds {
+    private IntactComplex complex;
+    private Set<String> identityXrefIds;
+    private Set<String> subsetXrefIds;
+    private Set<String> complexClusterXrefIds;
+}
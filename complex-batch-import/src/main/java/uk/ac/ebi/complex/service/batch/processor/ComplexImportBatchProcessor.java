@@ -1,29 +1,26 @@
 package uk.ac.ebi.complex.service.batch.processor;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
+import lombok.Builder;
 import lombok.experimental.SuperBuilder;
 import lombok.extern.log4j.Log4j;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamException;
 import org.springframework.util.Assert;
+import uk.ac.ebi.complex.service.finder.ComplexClusterSolver;
 import uk.ac.ebi.complex.service.finder.ComplexFinder;
 import uk.ac.ebi.complex.service.finder.ComplexFinderOptions;
 import uk.ac.ebi.complex.service.finder.ComplexFinderResult;
+import uk.ac.ebi.complex.service.finder.ComplexSummary;
 import uk.ac.ebi.complex.service.batch.logging.ErrorsReportWriter;
 import uk.ac.ebi.complex.service.batch.logging.ProcessReportWriter;
 import uk.ac.ebi.complex.service.batch.manager.ComplexManager;
-import uk.ac.ebi.complex.service.batch.model.ComplexCluster;
 import uk.ac.ebi.complex.service.batch.model.ComplexWithMatches;
 import uk.ac.ebi.complex.service.batch.model.ComplexToImport;
-import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
 import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -34,6 +31,8 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
 
     private final ComplexFinder complexFinder;
     private final ComplexManager<T, R> complexManager;
+    @Builder.Default
+    private final ComplexClusterSolver complexClusterSolver = new ComplexClusterSolver();
 
     private ProcessReportWriter exactMatchesReportWriter;
     private ProcessReportWriter multipleExactMatchesReportWriter;
@@ -44,7 +43,7 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
     @Override
     public ComplexWithMatches<T, R> process(R item) throws Exception {
         try {
-            ComplexFinderResult<IntactComplex> complexFinderResult = this.complexFinder.findComplexWithMatchingProteins(
+            ComplexFinderResult<ComplexSummary> complexFinderResult = this.complexFinder.findComplexSummariesWithMatchingProteins(
                     item.getProteinIds(),
                     ComplexFinderOptions.builder()
                             .checkPredictedComplexes(true)
@@ -52,7 +51,7 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
                             .checkPartialMatches(true)
                             .build());
 
-            List<ComplexFinderResult.ExactMatch<IntactComplex>> exactMatchesToConsider = complexFinderResult.getExactMatches()
+            List<ComplexFinderResult.ExactMatch<ComplexSummary>> exactMatchesToConsider = complexFinderResult.getExactMatches()
                     .stream()
                     .filter(match -> {
                         if (LifeCycleStatus.RELEASED.equals(match.getComplex().getStatus()) ||
@@ -60,12 +59,13 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
                             return true;
                         }
                         // We only consider released or ready for released complexes, or those complexes already
-                        // with the matching id
-                        return complexManager.doesComplexHasIdentityXref(item, match.getComplex());
+                        // with the matching id. Only for these we need to load the complex from the database.
+                        return complexManager.doesComplexHasIdentityXref(
+                                item, complexManager.getExistingComplex(match.getComplexAc()));
                     })
                     .collect(Collectors.toList());
 
-            List<ComplexFinderResult.ExactMatch<IntactComplex>> exactMatchesNotOnHold = exactMatchesToConsider
+            List<ComplexFinderResult.ExactMatch<ComplexSummary>> exactMatchesNotOnHold = exactMatchesToConsider
                     .stream()
                     .filter(match -> LifeCycleStatus.RELEASED.equals(match.getComplex().getStatus()) ||
                             LifeCycleStatus.READY_FOR_RELEASE.equals(match.getComplex().getStatus()))
@@ -82,7 +82,7 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
                 logNoMatches(item);
             }
 
-            List<ComplexFinderResult.PartialMatch<IntactComplex>> subsetOfComplexes = complexFinderResult.getPartialMatches()
+            List<ComplexFinderResult.PartialMatch<ComplexSummary>> subsetOfComplexes = complexFinderResult.getPartialMatches()
                     .stream()
                     .filter(match -> ComplexFinderResult.MatchType.PARTIAL_MATCH_SUBSET_OF_COMPLEX.equals(match.getMatchType()))
                     .filter(match -> LifeCycleStatus.RELEASED.equals(match.getComplex().getStatus()) ||
@@ -93,17 +93,18 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
                 logPartialMatches(item, ComplexFinderResult.MatchType.PARTIAL_MATCH_SUBSET_OF_COMPLEX, subsetOfComplexes);
             }
 
-            List<ComplexFinderResult.PartialMatch<IntactComplex>> supersetOfComplexes = complexFinderResult.getPartialMatches()
+            List<ComplexFinderResult.PartialMatch<ComplexSummary>> supersetOfComplexes = complexFinderResult.getPartialMatches()
                     .stream()
                     .filter(match -> ComplexFinderResult.MatchType.PARTIAL_MATCH_PROTEINS_MISSING_IN_COMPLEX.equals(match.getMatchType()))
                     .filter(match -> LifeCycleStatus.RELEASED.equals(match.getComplex().getStatus()) ||
                             LifeCycleStatus.READY_FOR_RELEASE.equals(match.getComplex().getStatus()))
                     .collect(Collectors.toList());
 
-            Collection<List<IntactComplex>> clusterGroupComplexes;
+            Collection<List<ComplexSummary>> clusterGroupComplexes;
             if (!supersetOfComplexes.isEmpty()) {
                 logPartialMatches(item, ComplexFinderResult.MatchType.PARTIAL_MATCH_PROTEINS_MISSING_IN_COMPLEX, supersetOfComplexes);
                 clusterGroupComplexes = findMatchesForComplexCluster(
+                        item,
                         Set.copyOf(item.getProteinIds()),
                         supersetOfComplexes);
             } else {
@@ -171,119 +172,34 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
                 new File(reportDirectory, "process_errors" + extension), sep, header);
     }
 
-    private Collection<List<IntactComplex>> findMatchesForComplexCluster(
+    private Collection<List<ComplexSummary>> findMatchesForComplexCluster(
+            R item,
             Set<String> proteins,
-            List<ComplexFinderResult.PartialMatch<IntactComplex>> matches) {
-
-        ComplexCluster emptyCluster = new ComplexCluster(
-                List.of(),
-                Set.of(),
-                proteins);
-
-        List<ComplexCluster> complexClusters = checkAndMergeMatches(emptyCluster, matches);
-
-        // We do not want complex clusters that are a superset of another complex cluster, so we sort them by size,
-        // and process them from smallest to largest, adding only those clusters for which we already do not have
-        // a cluster with a subset of the complexes
-        complexClusters.sort(Comparator.comparingInt(xs -> xs.getComplexAcs().size()));
-        List<ComplexCluster> filteredClusters = new ArrayList<>();
-        for (ComplexCluster clusterA : complexClusters) {
-            if (filteredClusters.stream().noneMatch(clusterB -> doesClusterContainAnotherCluster(clusterA, clusterB))) {
-                filteredClusters.add(clusterA);
-            }
+            List<ComplexFinderResult.PartialMatch<ComplexSummary>> matches) {
+
+        ComplexClusterSolver.Solution<ComplexSummary> solution = complexClusterSolver.findClusters(proteins, matches);
+        if (solution.isTruncated()) {
+            log.warn("Search of complex clusters stopped after " + solution.getExploredStates() + " states for " +
+                    "complexes with ids: " + String.join(",", item.getComplexIds()));
         }
 
-        return filteredClusters.stream()
-                .map(cluster -> matches.stream()
-                        .filter(match -> cluster.getComplexAcs().contains(match.getComplexAc()))
+        return solution.getClusters().stream()
+                .map(cluster -> cluster.stream()
+                        .map(ComplexFinderResult.PartialMatch::getComplexAc)
+                        .collect(Collectors.toSet()))
+                .map(complexAcs -> matches.stream()
+                        .filter(match -> complexAcs.contains(match.getComplexAc()))
                         .map(ComplexFinderResult.PartialMatch::getComplex)
                         .collect(Collectors.toList()))
                 .distinct()
                 .collect(Collectors.toList());
     }
 
-    private boolean doesClusterContainAnotherCluster(ComplexCluster clusterA, ComplexCluster clusterB) {
-        return clusterA.getComplexAcs().containsAll(clusterB.getComplexAcs());
-    }
-
-    private List<ComplexCluster> checkAndMergeMatches(
-            ComplexCluster complexCluster,
-            List<ComplexFinderResult.PartialMatch<IntactComplex>> matchesToCheck) {
-
-        Set<String> proteinsFromAllMatchesToCheck = matchesToCheck.stream()
-                .flatMap(match -> match.getMatchingProteins().stream())
-                .collect(Collectors.toSet());
-
-        if (proteinsFromAllMatchesToCheck.size() < complexCluster.getMissingProteins().size() ||
-                !proteinsFromAllMatchesToCheck.containsAll(complexCluster.getMissingProteins())) {
-            return new ArrayList<>();
-        }
-
-        List<ComplexCluster> complexClusters = new ArrayList<>();
-
-        for (int i = 0; i < matchesToCheck.size(); i++) {
-            ComplexFinderResult.PartialMatch<IntactComplex> matchToCheck = matchesToCheck.get(i);
-            ComplexCluster mergedComplexCluster = checkAndMergeMatchIntoCluster(
-                    complexCluster,
-                    matchToCheck);
-            if (mergedComplexCluster != null) {
-                if (mergedComplexCluster.getMissingProteins().isEmpty()) {
-                    complexClusters.add(mergedComplexCluster);
-                } else if (matchesToCheck.size() > 1) {
-                    List<ComplexCluster> mergedClusters = checkAndMergeMatches(
-                            mergedComplexCluster,
-                            matchesToCheck.subList(i + 1, matchesToCheck.size()));
-                    complexClusters.addAll(mergedClusters);
-                }
-            }
-        }
-
-        return complexClusters;
-    }
-
-    private ComplexCluster checkAndMergeMatchIntoCluster(
-            ComplexCluster complexCluster,
-            ComplexFinderResult.PartialMatch<IntactComplex> matchToCheck) {
-
-        // If the new complex to match does not have any protein that is missing from the cluster, then we do not
-        // consider it
-        if (matchToCheck.getMatchingProteins().stream().noneMatch(protein -> complexCluster.getMissingProteins().contains(protein))) {
-            return null;
-        }
-
-        // If the new complex does not have any protein in common with the proteins already in the cluster, then
-        // we do not consider it, unless the cluster has not been initialised yet
-        if (!complexCluster.getMatchingProteins().isEmpty() &&
-                complexCluster.getMatchingProteins().stream().noneMatch(protein -> matchToCheck.getMatchingProteins().contains(protein))) {
-            return null;
-        }
-
-        Set<String> matchingProteins = ImmutableSet.<String>builder()
-                .addAll(complexCluster.getMatchingProteins())
-                .addAll(matchToCheck.getMatchingProteins())
-                .build();
-
-        Set<String> missingProteins = complexCluster.getMissingProteins()
-                .stream()
-                .filter(protein -> !matchingProteins.contains(protein))
-                .collect(Collectors.toSet());
-
-        List<String> complexAcs = ImmutableList.<String>builder()
-                .addAll(complexCluster.getComplexAcs())
-                .add(matchToCheck.getComplexAc())
-                .build();
-
-        return new ComplexCluster(
-                complexAcs,
-                matchingProteins,
-                missingProteins);
-    }
-
     private void logSingleExactMatch(
             R item,
-            List<ComplexFinderResult.ExactMatch<IntactComplex>> exactMatches) throws IOException {
+            List<ComplexFinderResult.ExactMatch<ComplexSummary>> exactMatches) throws IOException {
 
-        ComplexFinderResult.ExactMatch<IntactComplex> complexMatch = exactMatches.iterator().next();
+        ComplexFinderResult.ExactMatch<ComplexSummary> complexMatch = exactMatches.iterator().next();
         exactMatchesReportWriter.write(
                 List.of(complexMatch.getMatchType()),
                 item.getComplexIds(),
@@ -294,7 +210,7 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
 
     private void logMultipleExactMatches(
             R item,
-            List<ComplexFinderResult.ExactMatch<IntactComplex>> exactMatches) throws IOException {
+            List<ComplexFinderResult.ExactMatch<ComplexSummary>> exactMatches) throws IOException {
 
         multipleExactMatchesReportWriter.write(
                 exactMatches.stream().map(ComplexFinderResult.ExactMatch::getMatchType).collect(Collectors.toList()),
@@ -315,9 +231,9 @@ public class ComplexImportBatchProcessor<T, R extends ComplexToImport<T>> extend
     private void logPartialMatches(
             R item,
             ComplexFinderResult.MatchType matchType,
-            Collection<ComplexFinderResult.PartialMatch<IntactComplex>> partialMatches) throws IOException {
+            Collection<ComplexFinderResult.PartialMatch<ComplexSummary>> partialMatches) throws IOException {
 
-        for (ComplexFinderResult.PartialMatch<IntactComplex> complexMatch : partialMatches) {
+        for (ComplexFinderResult.PartialMatch<ComplexSummary> complexMatch : partialMatches) {
             int totalNumberOfProteins = complexMatch.getMatchingProteins().size() +
                     complexMatch.getExtraProteinsInComplex().size() +
                     complexMatch.getProteinMissingInComplex().size();
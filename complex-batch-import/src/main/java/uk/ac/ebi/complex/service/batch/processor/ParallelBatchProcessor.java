@@ -0,0 +1,96 @@
+package uk.ac.ebi.complex.service.batch.processor;
+
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Processor that processes the items with a pool of threads, returning a future with the result of each item, to be
+ * unwrapped by a {@link uk.ac.ebi.complex.service.batch.writer.ParallelBatchWriter}.
+ * <p>
+ * Items are still read and written by the step thread, in the chunk transaction, so restarts work as with the
+ * delegate. Each item is processed in a read-only transaction on a thread of the pool, with its own entity manager, so
+ * the delegate must only read from the database, and must be thread-safe. With one thread, items are processed by the
+ * step thread, in the chunk transaction, as without this processor.
+ */
+public class ParallelBatchProcessor<I, O> implements ItemProcessor<I, Future<O>>, ItemStream {
+
+    private final ItemProcessor<I, O> delegate;
+    private final int threads;
+    private final TransactionTemplate transactionTemplate;
+
+    private ExecutorService executorService;
+
+    public ParallelBatchProcessor(
+            ItemProcessor<I, O> delegate,
+            int threads,
+            PlatformTransactionManager transactionManager) {
+
+        this.delegate = delegate;
+        this.threads = threads;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public Future<O> process(I item) throws Exception {
+        if (executorService == null) {
+            return CompletableFuture.completedFuture(delegate.process(item));
+        }
+        return executorService.submit(() -> processInTransaction(item));
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (threads > 1 && executorService == null) {
+            executorService = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("complex-import-"));
+        }
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (executorService != null) {
+            executorService.shutdown();
+            executorService = null;
+        }
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+
+    private O processInTransaction(I item) throws Exception {
+        try {
+            return transactionTemplate.execute(status -> {
+                try {
+                    return delegate.process(item);
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new UndeclaredThrowableException(e);
+                }
+            });
+        } catch (UndeclaredThrowableException e) {
+            throw (Exception) e.getUndeclaredThrowable();
+        }
+    }
+}
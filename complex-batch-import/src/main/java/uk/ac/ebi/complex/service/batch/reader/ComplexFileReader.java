@@ -3,18 +3,28 @@ package uk.ac.ebi.complex.service.batch.reader;
 import com.opencsv.CSVParserBuilder;
 import com.opencsv.CSVReader;
 import com.opencsv.CSVReaderBuilder;
+import com.opencsv.ICSVParser;
 import lombok.AllArgsConstructor;
 import lombok.experimental.SuperBuilder;
 import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
 import uk.ac.ebi.complex.service.batch.model.ComplexToImport;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 @AllArgsConstructor
 @SuperBuilder
@@ -44,5 +54,105 @@ public abstract class ComplexFileReader<T, R extends ComplexToImport<T>> {
         return complexes;
     }
 
+    /**
+     * Opens the file to read the complexes lazily, starting at the given byte offset, as returned by
+     * {@link ComplexFileIterator#getOffset()}. The header is only skipped when starting at the beginning of the file.
+     * Complexes must be written one per line, as {@link uk.ac.ebi.complex.service.batch.writer.ComplexFileWriter}
+     * does.
+     */
+    public ComplexFileIterator openComplexesFromFile(File inputFile, long offset) throws IOException {
+        return new ComplexFileIterator(inputFile, offset);
+    }
+
     protected abstract R complexFromStringArray(String[] csvLine);
+
+    /**
+     * Iterator over the complexes of a file, keeping the byte offset of the end of the last complex returned.
+     */
+    public class ComplexFileIterator implements Iterator<R>, Closeable {
+
+        private final InputStream inputStream;
+        private final ICSVParser parser;
+        private final ByteArrayOutputStream lineBuffer = new ByteArrayOutputStream();
+
+        private long offset;
+        private long nextOffset;
+        private R nextComplex;
+
+        private ComplexFileIterator(File inputFile, long offset) throws IOException {
+            FileInputStream fileStream = new FileInputStream(inputFile);
+            fileStream.getChannel().position(offset);
+            this.inputStream = new BufferedInputStream(fileStream);
+            this.parser = new CSVParserBuilder().withSeparator(fileConfiguration.getSeparator().charAt(0)).build();
+            this.offset = offset;
+            this.nextOffset = offset;
+
+            if (offset == 0 && fileConfiguration.isHeader()) {
+                readLine();
+            }
+            this.nextComplex = readNextComplex();
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextComplex != null;
+        }
+
+        @Override
+        public R next() {
+            if (nextComplex == null) {
+                throw new NoSuchElementException();
+            }
+            R complex = nextComplex;
+            offset = nextOffset;
+            try {
+                nextComplex = readNextComplex();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return complex;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+
+        private R readNextComplex() throws IOException {
+            String line;
+            while ((line = readLine()) != null) {
+                String[] csvLine = parser.parseLine(line);
+                if (csvLine.length > 1 || (csvLine.length == 1 && !csvLine[0].isEmpty())) {
+                    return complexFromStringArray(csvLine);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Reads the next line, counting its bytes, including the line terminator, so the offset can be restored by
+         * seeking the file.
+         */
+        private String readLine() throws IOException {
+            lineBuffer.reset();
+            int b;
+            while ((b = inputStream.read()) != -1) {
+                nextOffset++;
+                if (b == '\n') {
+                    return toLine();
+                }
+                lineBuffer.write(b);
+            }
+            return lineBuffer.size() > 0 ? toLine() : null;
+        }
+
+        private String toLine() {
+            String line = lineBuffer.toString(StandardCharsets.UTF_8);
+            return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+        }
+    }
 }
@@ -14,18 +14,17 @@ import uk.ac.ebi.complex.service.batch.model.ComplexToImport;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Iterator;
 
 @RequiredArgsConstructor
 public class ComplexImportBatchReader<T, R extends ComplexToImport<T>> implements ItemReader<R>, ItemStream {
 
     private static final String COUNT_OPTION = "complex_count";
+    private static final String OFFSET_OPTION = "complex_offset";
 
     private final FileConfiguration fileConfiguration;
     private final ComplexFileReader<T, R> complexFileReader;
 
-    private Iterator<R> complexIterator;
+    private ComplexFileReader<T, R>.ComplexFileIterator complexIterator;
     private int complexCount = 0;
 
     @Override
@@ -42,17 +41,21 @@ public class ComplexImportBatchReader<T, R extends ComplexToImport<T>> implement
         try {
             // TODO: should we have a filter on the confidence score?
             File inputFile = fileConfiguration.outputPath().toFile();
-            Collection<R> complexes = complexFileReader.readComplexesFromFile(inputFile);
-            this.complexIterator = complexes.iterator();
 
-            // the job has been restarted, we update iterator
-            if (executionContext.containsKey(COUNT_OPTION)){
+            // the job has been restarted, we seek the file to the last checkpoint
+            long offset = executionContext.containsKey(OFFSET_OPTION) ? executionContext.getLong(OFFSET_OPTION) : 0;
+            this.complexIterator = complexFileReader.openComplexesFromFile(inputFile, offset);
+
+            if (executionContext.containsKey(COUNT_OPTION)) {
                 this.complexCount = executionContext.getInt(COUNT_OPTION);
 
-                int count = 0;
-                while (count < this.complexCount && this.complexIterator.hasNext()) {
-                    this.complexIterator.next();
-                    count++;
+                // checkpoint saved without offset, we skip the complexes already read
+                if (!executionContext.containsKey(OFFSET_OPTION)) {
+                    int count = 0;
+                    while (count < this.complexCount && this.complexIterator.hasNext()) {
+                        this.complexIterator.next();
+                        count++;
+                    }
                 }
             }
         } catch (IOException e) {
@@ -64,10 +67,20 @@ public class ComplexImportBatchReader<T, R extends ComplexToImport<T>> implement
     public void update(ExecutionContext executionContext) throws ItemStreamException {
         Assert.notNull(executionContext, "ExecutionContext must not be null");
         executionContext.put(COUNT_OPTION, complexCount);
+        if (complexIterator != null) {
+            executionContext.putLong(OFFSET_OPTION, complexIterator.getOffset());
+        }
     }
 
     @Override
     public void close() throws ItemStreamException {
-
+        if (complexIterator != null) {
+            try {
+                complexIterator.close();
+            } catch (IOException e) {
+                throw new ItemStreamException("Input file could not be closed: " + fileConfiguration.getInputFileName(), e);
+            }
+            complexIterator = null;
+        }
     }
 }
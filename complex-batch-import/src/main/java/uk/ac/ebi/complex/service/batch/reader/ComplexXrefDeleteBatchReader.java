@@ -0,0 +1,250 @@
+package uk.ac.ebi.complex.service.batch.reader;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.NonTransientResourceException;
+import org.springframework.batch.item.ParseException;
+import org.springframework.batch.item.UnexpectedInputException;
+import org.springframework.util.Assert;
+import psidev.psi.mi.jami.model.Xref;
+import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.exception.CvTermNotFoundException;
+import uk.ac.ebi.complex.service.batch.manager.ComplexManager;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
+import uk.ac.ebi.complex.service.batch.model.ComplexWithOldXrefIds;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
+import uk.ac.ebi.intact.jami.utils.IntactUtils;
+
+import javax.persistence.Query;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Reader of the complexes with identity, subset or complex cluster xrefs of the given database that are not in the
+ * complexes_to_update and complexes_unchanged reports of the import, so they have to be deleted.
+ * <p>
+ * When the reader is opened, the xrefs of the database and the Complex Portal ACs of the complexes are loaded with two
+ * queries and compared with the reports, so only the complexes with old xrefs are then loaded, in pages sorted by AC.
+ * The last AC read is saved in the execution context, so the complexes already read are skipped on restart.
+ */
+@Log4j
+@RequiredArgsConstructor
+public class ComplexXrefDeleteBatchReader implements ItemReader<ComplexWithOldXrefIds>, ItemStream {
+
+    private static final String LAST_AC_OPTION = "complex_last_ac";
+
+    private static final Map<String, String> QUALIFIER_MIS = Map.of(
+            Xref.IDENTITY, Xref.IDENTITY_MI,
+            ComplexManager.SUBSET_QUALIFIER, ComplexManager.SUBSET_QUALIFIER_MI,
+            ComplexManager.COMPLEX_CLUSTER_QUALIFIER, ComplexManager.COMPLEX_CLUSTER_QUALIFIER_MI);
+
+    private final IntactDao intactDao;
+    private final ReferenceDataCache referenceDataCache;
+    private final FileConfiguration fileConfiguration;
+    private final String databaseId;
+    private final int pageSize;
+
+    // Ids of the old xrefs, by qualifier MI, by AC of the complexes
+    private NavigableMap<String, Map<String, Set<String>>> oldXrefIdsByComplexAc;
+    private Deque<ComplexWithOldXrefIds> complexesInPage;
+    private String lastReadAc;
+    private String lastPageAc;
+
+    @Override
+    public ComplexWithOldXrefIds read() throws Exception, UnexpectedInputException, ParseException, NonTransientResourceException {
+        // pages can be empty if the complexes were deleted after the reader was opened
+        while (complexesInPage.isEmpty()) {
+            if (!readNextPage()) {
+                return null;
+            }
+        }
+        ComplexWithOldXrefIds nextObject = complexesInPage.poll();
+        this.lastReadAc = nextObject.getComplex().getAc();
+        return nextObject;
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        Assert.notNull(executionContext, "ExecutionContext must not be null");
+
+        Map<String, Map<String, Set<String>>> complexAcsByImportedXrefs = new HashMap<>();
+        File reportDirectory = new File(fileConfiguration.getReportDirectory());
+        String extension = fileConfiguration.getExtension();
+        try {
+            readComplexesFromFile(new File(reportDirectory, "complexes_to_update" + extension), complexAcsByImportedXrefs);
+            readComplexesFromFile(new File(reportDirectory, "complexes_unchanged" + extension), complexAcsByImportedXrefs);
+        } catch (IOException e) {
+            throw new ItemStreamException("Report file could not be opened", e);
+        }
+
+        IntactCvTerm database = getDatabase();
+        Map<String, String> complexAcs = getComplexAcs(database);
+        this.oldXrefIdsByComplexAc = new TreeMap<>();
+        for (Object[] complexXref : getComplexXrefs(database)) {
+            String ac = (String) complexXref[0];
+            String xrefId = (String) complexXref[1];
+            String qualifierMi = (String) complexXref[2];
+            // complexes without a Complex Portal AC cannot be in the reports, so all their xrefs are old
+            String complexAc = complexAcs.get(ac);
+            Set<String> importedComplexAcs = complexAcsByImportedXrefs
+                    .getOrDefault(qualifierMi, Map.of())
+                    .getOrDefault(xrefId, Set.of());
+            if (complexAc == null || !importedComplexAcs.contains(complexAc)) {
+                oldXrefIdsByComplexAc
+                        .computeIfAbsent(ac, key -> new HashMap<>())
+                        .computeIfAbsent(qualifierMi, key -> new HashSet<>())
+                        .add(xrefId);
+            }
+        }
+        log.info("Complexes with old xrefs of " + databaseId + ": " + oldXrefIdsByComplexAc.size());
+
+        this.complexesInPage = new ArrayDeque<>();
+        // the job has been restarted, we skip the complexes already read
+        this.lastReadAc = executionContext.containsKey(LAST_AC_OPTION) ? executionContext.getString(LAST_AC_OPTION) : null;
+        this.lastPageAc = this.lastReadAc;
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        Assert.notNull(executionContext, "ExecutionContext must not be null");
+        if (lastReadAc != null) {
+            executionContext.putString(LAST_AC_OPTION, lastReadAc);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        this.oldXrefIdsByComplexAc = null;
+        this.complexesInPage = null;
+    }
+
+    private boolean readNextPage() {
+        Map<String, Map<String, Set<String>>> remainingComplexes = lastPageAc != null
+                ? oldXrefIdsByComplexAc.tailMap(lastPageAc, false)
+                : oldXrefIdsByComplexAc;
+        List<String> acs = new ArrayList<>();
+        for (String ac : remainingComplexes.keySet()) {
+            if (acs.size() == pageSize) {
+                break;
+            }
+            acs.add(ac);
+        }
+        if (acs.isEmpty()) {
+            return false;
+        }
+        this.lastPageAc = acs.get(acs.size() - 1);
+
+        Query query = intactDao.getEntityManager().createQuery("select complex " +
+                "from IntactComplex complex " +
+                "where complex.ac in (:acs) " +
+                "order by complex.ac");
+        query.setParameter("acs", acs);
+        List<IntactComplex> complexes = query.getResultList();
+        for (IntactComplex complex : complexes) {
+            Map<String, Set<String>> oldXrefIds = oldXrefIdsByComplexAc.get(complex.getAc());
+            complexesInPage.add(new ComplexWithOldXrefIds(
+                    complex,
+                    oldXrefIds.getOrDefault(Xref.IDENTITY_MI, Set.of()),
+                    oldXrefIds.getOrDefault(ComplexManager.SUBSET_QUALIFIER_MI, Set.of()),
+                    oldXrefIds.getOrDefault(ComplexManager.COMPLEX_CLUSTER_QUALIFIER_MI, Set.of())));
+        }
+        return true;
+    }
+
+    private IntactCvTerm getDatabase() {
+        try {
+            // The database may not have an MI identifier, so it is looked up as when the xrefs are created
+            return referenceDataCache.findCvTerm(IntactUtils.DATABASE_OBJCLASS, databaseId);
+        } catch (CvTermNotFoundException e) {
+            throw new ItemStreamException("Database of the xrefs to delete not found", e);
+        }
+    }
+
+    private List<Object[]> getComplexXrefs(IntactCvTerm database) {
+        Query query = intactDao.getEntityManager().createQuery("select distinct complex.ac, xref.id, qualifier.identifier " +
+                "from IntactComplex complex " +
+                "join complex.dbXrefs as xref " +
+                "join xref.qualifier as qualifier " +
+                "where xref.database.ac = :databaseAc " +
+                "and qualifier.identifier in (:qualifierMis)");
+        query.setParameter("databaseAc", database.getAc());
+        query.setParameter("qualifierMis", QUALIFIER_MIS.values());
+        return query.getResultList();
+    }
+
+    private Map<String, String> getComplexAcs(IntactCvTerm database) {
+        // Separate query, as joining the complex-primary xrefs with the xrefs of the database would skip the complexes
+        // without a Complex Portal AC. Only the complexes with xrefs of the database are loaded.
+        Query query = intactDao.getEntityManager().createQuery("select distinct complex.ac, complexXref.id " +
+                "from IntactComplex complex " +
+                "join complex.dbXrefs as complexXref " +
+                "join complexXref.database as complexDatabase " +
+                "join complexXref.qualifier as complexQualifier " +
+                "where complexDatabase.identifier = :complexPortalMi " +
+                "and complexQualifier.identifier = :complexPrimaryMi " +
+                "and exists (select xref.ac from IntactComplex databaseComplex " +
+                "join databaseComplex.dbXrefs as xref " +
+                "join xref.qualifier as qualifier " +
+                "where databaseComplex.ac = complex.ac " +
+                "and xref.database.ac = :databaseAc " +
+                "and qualifier.identifier in (:qualifierMis))");
+        query.setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+        query.setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+        query.setParameter("databaseAc", database.getAc());
+        query.setParameter("qualifierMis", QUALIFIER_MIS.values());
+        List<Object[]> complexXrefs = query.getResultList();
+
+        Map<String, String> complexAcs = new HashMap<>();
+        for (Object[] complexXref : complexXrefs) {
+            complexAcs.put((String) complexXref[0], (String) complexXref[1]);
+        }
+        return complexAcs;
+    }
+
+    private void readComplexesFromFile(File inputFile, Map<String, Map<String, Set<String>>> complexAcsByImportedXrefs) throws IOException {
+        BufferedReader reader = new BufferedReader(new FileReader(inputFile));
+        CSVReader csvReader = new CSVReaderBuilder(reader)
+                .withCSVParser(new CSVParserBuilder().withSeparator(fileConfiguration.getSeparator().charAt(0)).build())
+                .build();
+
+        if (fileConfiguration.isHeader()) {
+            csvReader.skip(1);
+        }
+
+        csvReader.forEach(csvLine -> {
+            if (csvLine.length > 1 || (csvLine.length == 1 && !csvLine[0].isEmpty())) {
+                String id = csvLine[0];
+                String[] complexIds = csvLine[2].split(" ");
+                String qualifierMi = QUALIFIER_MIS.get(csvLine[3]);
+                if (qualifierMi != null) {
+                    Set<String> complexAcs = complexAcsByImportedXrefs
+                            .computeIfAbsent(qualifierMi, key -> new HashMap<>())
+                            .computeIfAbsent(id, key -> new HashSet<>());
+                    complexAcs.addAll(List.of(complexIds));
+                }
+            }
+        });
+        csvReader.close();
+    }
+}
@@ -0,0 +1,59 @@
+package uk.ac.ebi.complex.service.batch.service;
+
+import lombok.extern.log4j.Log4j;
+import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link UniProtMappingService} that maps identifiers with a local {@link UniProtMappingIndex}, instead of the UniProt
+ * idmapping service, for environments without access to UniProt.
+ * <p>
+ * Results are filtered with the same rules as the UniProt idmapping results. Gene names are only mapped to the primary
+ * gene names of the entries.
+ */
+@Log4j
+public class LocalUniProtMappingService extends UniProtMappingService {
+
+    private final UniProtMappingIndex index;
+
+    public LocalUniProtMappingService(UniProtMappingIndex index) {
+        // Lookups in the index are faster than in the cache, so no cache is used
+        super(null);
+        this.index = index;
+    }
+
+    @Override
+    protected Map<String, List<UniprotProtein>> fetchMappings(
+            Collection<String> ids,
+            String from,
+            String to,
+            String taxId,
+            Collection<String> failedIds) {
+
+        if (!UNIPROTKB_TYPE.equals(to)) {
+            throw new IllegalArgumentException("Unsupported UniProt mapping target: " + to);
+        }
+
+        Map<String, List<UniprotProtein>> result = new HashMap<>();
+        for (String id : ids) {
+            List<UniprotProtein> proteins;
+            if (UNIPROT_AC_ID_TYPE.equals(from)) {
+                proteins = index.getByAccession(id);
+            } else if (GENE_NAME_TYPE.equals(from)) {
+                proteins = index.getByGeneName(id, taxId);
+            } else {
+                throw new IllegalArgumentException("Unsupported UniProt mapping source: " + from);
+            }
+            if (proteins != null) {
+                result.put(id, proteins);
+            }
+        }
+        log.info("UniProt mappings from " + from + " to " + to + " found in " + index + ": " + result.size() +
+                " of " + ids.size());
+        return result;
+    }
+}
@@ -0,0 +1,243 @@
+package uk.ac.ebi.complex.service.batch.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.log4j.Log4j;
+import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File-backed cache of the results of the UniProt idmapping service, so identifiers already mapped by a previous run,
+ * or by a different import, are not submitted again.
+ * <p>
+ * Mappings are kept by source type, target type, tax id and identifier, and expire after the given time to live.
+ * Identifiers UniProt could not map are cached as well, as unmapped, with the same time to live, so they are not
+ * submitted again by every run.
+ * <p>
+ * The cache file has one JSON entry per line, new entries are appended to it, and it is compacted when loaded, removing
+ * expired and replaced entries. The file can be shared by imports running at the same time, so it is only read or
+ * written holding an exclusive lock on a lock file next to it. If no file is given, the cache is disabled, and every
+ * identifier is a miss.
+ */
+@Log4j
+public class UniProtMappingCache {
+
+    private final File cacheFile;
+    private final Duration timeToLive;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, CachedMapping> mappings = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public UniProtMappingCache(File cacheFile, Duration timeToLive) throws IOException {
+        this.cacheFile = cacheFile;
+        this.timeToLive = timeToLive;
+        if (cacheFile != null) {
+            load();
+        }
+    }
+
+    public boolean isEnabled() {
+        return cacheFile != null;
+    }
+
+    /**
+     * Returns the proteins the identifier was mapped to, or null if it is not in the cache, it is cached as unmapped or
+     * the mapping has expired.
+     */
+    public List<UniprotProtein> get(String from, String to, String taxId, String id) {
+        CachedMapping mapping = getMapping(from, to, taxId, id);
+        return mapping != null && !mapping.isUnmapped() ? new ArrayList<>(mapping.getProteins()) : null;
+    }
+
+    /**
+     * Returns the cached mapping of the identifier, which can be unmapped, or null if it is not in the cache or the
+     * mapping has expired.
+     */
+    public CachedMapping getMapping(String from, String to, String taxId, String id) {
+        CachedMapping mapping = isEnabled() ? mappings.get(getKey(from, to, taxId, id)) : null;
+        if (mapping == null || isExpired(mapping)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return mapping;
+    }
+
+    public void putAll(String from, String to, String taxId, Map<String, List<UniprotProtein>> idMappings) {
+        putAll(from, to, taxId, idMappings, List.of());
+    }
+
+    /**
+     * Caches the mappings of the identifiers, and the identifiers that could not be mapped as unmapped.
+     */
+    public synchronized void putAll(
+            String from,
+            String to,
+            String taxId,
+            Map<String, List<UniprotProtein>> idMappings,
+            Collection<String> unmappedIds) {
+
+        if (!isEnabled() || (idMappings.isEmpty() && unmappedIds.isEmpty())) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        List<CachedMapping> newMappings = new ArrayList<>();
+        for (Map.Entry<String, List<UniprotProtein>> idMapping : idMappings.entrySet()) {
+            newMappings.add(new CachedMapping(
+                    getKey(from, to, taxId, idMapping.getKey()), timestamp, new ArrayList<>(idMapping.getValue())));
+        }
+        for (String unmappedId : unmappedIds) {
+            newMappings.add(new CachedMapping(getKey(from, to, taxId, unmappedId), timestamp, null));
+        }
+
+        for (CachedMapping mapping : newMappings) {
+            mappings.put(mapping.getKey(), mapping);
+        }
+        try {
+            append(newMappings);
+        } catch (IOException e) {
+            // Mappings are still cached in memory for this run
+            log.error("Error writing UniProt mappings to cache file " + cacheFile, e);
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return mappings.size();
+    }
+
+    @Override
+    public String toString() {
+        if (!isEnabled()) {
+            return "UniProt mapping cache disabled";
+        }
+        return String.format("UniProt mapping cache %s: size=%d, hits=%d, misses=%d",
+                cacheFile, size(), getHits(), getMisses());
+    }
+
+    private void load() throws IOException {
+        File parent = cacheFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory for UniProt mapping cache: " + parent);
+        }
+        // The cache file is not changed by other imports while it is read and compacted
+        synchronized (UniProtMappingCache.class) {
+            try (FileChannel lockChannel = openLockFile(); FileLock ignored = lockChannel.lock()) {
+                if (cacheFile.exists()) {
+                    readAndCompact();
+                }
+            }
+        }
+    }
+
+    private void append(List<CachedMapping> newMappings) throws IOException {
+        // Appends from other imports sharing the file are not interleaved with these lines
+        synchronized (UniProtMappingCache.class) {
+            try (FileChannel lockChannel = openLockFile();
+                 FileLock ignored = lockChannel.lock();
+                 BufferedWriter writer = Files.newBufferedWriter(
+                         cacheFile.toPath(), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (CachedMapping mapping : newMappings) {
+                    writer.write(mapper.writeValueAsString(mapping));
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the lock file of the cache file. The cache file itself is not locked, as it is replaced when compacted.
+     * File locks are held by the whole JVM, so they are also taken inside a lock on the class.
+     */
+    private FileChannel openLockFile() throws IOException {
+        return FileChannel.open(
+                new File(cacheFile.getPath() + ".lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    private void readAndCompact() throws IOException {
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines++;
+                CachedMapping mapping = mapper.readValue(line, CachedMapping.class);
+                if (!isExpired(mapping)) {
+                    mappings.put(mapping.getKey(), mapping);
+                } else {
+                    mappings.remove(mapping.getKey());
+                }
+            }
+        }
+        log.info("Loaded " + mappings.size() + " UniProt mappings from cache file " + cacheFile);
+
+        if (lines > mappings.size()) {
+            compact();
+        }
+    }
+
+    private void compact() throws IOException {
+        File tempFile = new File(cacheFile.getPath() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+            for (CachedMapping mapping : mappings.values()) {
+                writer.write(mapper.writeValueAsString(mapping));
+                writer.newLine();
+            }
+        }
+        Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private boolean isExpired(CachedMapping mapping) {
+        return System.currentTimeMillis() - mapping.getTimestamp() > timeToLive.toMillis();
+    }
+
+    private static String getKey(String from, String to, String taxId, String id) {
+        return String.join("\t", from, to, taxId != null ? taxId : "", id);
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CachedMapping {
+        private String key;
+        private long timestamp;
+        // Null if UniProt could not map the identifier
+        private List<UniprotProtein> proteins;
+
+        @JsonIgnore
+        public boolean isUnmapped() {
+            return proteins == null;
+        }
+    }
+}
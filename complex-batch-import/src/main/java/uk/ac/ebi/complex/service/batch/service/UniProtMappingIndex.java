@@ -0,0 +1,410 @@
+package uk.ac.ebi.complex.service.batch.service;
+
+import com.google.common.io.CountingOutputStream;
+import lombok.extern.log4j.Log4j;
+import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only index of UniProt entries, built from a locally downloaded UniProtKB TSV file, to map UniProt accessions,
+ * entry names and gene names without calling the UniProt idmapping service.
+ * <p>
+ * The TSV file must have a header line and the columns accession, reviewed, id, gene_primary, organism_id, sec_acc, in
+ * that order, as returned by the UniProtKB stream endpoint with
+ * {@code format=tsv&fields=accession,reviewed,id,gene_primary,organism_id,sec_acc}. Optionally, a file with deleted
+ * accessions, one per line, as in the UniProt delac_sp.txt and delac_tr.txt files, can be given, so deleted accessions
+ * are mapped to no entries.
+ * <p>
+ * The index is written next to the TSV file, with the .idx extension, and is rebuilt when older than any of its source
+ * files. It has the entries, followed by the keys, each one pointing to an entry, followed by a table with the offsets of
+ * the keys sorted by key. The index file is memory-mapped, and keys are found with a binary search over the table, so
+ * lookups do not need to load the index in memory, and can be done from multiple threads. While the index is built,
+ * only the offsets of the keys are kept in memory. The index file cannot be larger than 2GB, so the TSV file should be
+ * limited to the organisms needed.
+ */
+@Log4j
+public class UniProtMappingIndex {
+
+    public static final String INDEX_EXTENSION = ".idx";
+
+    private static final int MAGIC = 0x55504d49;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int DELETED_ENTRY = -1;
+    private static final int ENTRY_COLUMNS = 6;
+
+    private static final byte ACCESSION_KEY = 'A';
+    private static final byte GENE_NAME_KEY = 'G';
+    private static final Pattern UNIPROT_AC_PATTERN = Pattern.compile(
+            "[OPQ][0-9][A-Z0-9]{3}[0-9]|[A-NR-Z][0-9]([A-Z][A-Z0-9]{2}[0-9]){1,2}");
+
+    private final File indexFile;
+    private final MappedByteBuffer buffer;
+    private final int keyCount;
+    private final int tableOffset;
+
+    private UniProtMappingIndex(File indexFile) throws IOException {
+        this.indexFile = indexFile;
+        try (RandomAccessFile file = new RandomAccessFile(indexFile, "r");
+             FileChannel channel = file.getChannel()) {
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid UniProt mapping index file: " + indexFile);
+        }
+        this.keyCount = buffer.getInt(8);
+        this.tableOffset = buffer.getInt(16);
+    }
+
+    /**
+     * Opens the index of the given UniProt entries file, building it if it does not exist or is out of date.
+     */
+    public static UniProtMappingIndex open(File entriesFile, File deletedAccessionsFile) throws IOException {
+        File indexFile = new File(entriesFile.getPath() + INDEX_EXTENSION);
+        if (!indexFile.exists()
+                || indexFile.lastModified() < entriesFile.lastModified()
+                || (deletedAccessionsFile != null && indexFile.lastModified() < deletedAccessionsFile.lastModified())) {
+            build(entriesFile, deletedAccessionsFile, indexFile);
+        }
+        UniProtMappingIndex index = new UniProtMappingIndex(indexFile);
+        log.info("Opened UniProt mapping index " + indexFile + " with " + index.size() + " keys");
+        return index;
+    }
+
+    /**
+     * Returns the entries with the given primary or secondary accession, or entry name. Isoform accessions are mapped
+     * to the entries of their canonical accession. Returns an empty list if the accession has been deleted, and null
+     * if it is not in the index.
+     */
+    public List<UniprotProtein> getByAccession(String id) {
+        List<UniprotProtein> proteins = find(getKey(ACCESSION_KEY, id));
+        int isoformSeparator = id.indexOf('-');
+        if (proteins == null && isoformSeparator > 0) {
+            proteins = find(getKey(ACCESSION_KEY, id.substring(0, isoformSeparator)));
+        }
+        return proteins;
+    }
+
+    /**
+     * Returns the entries of the given organism with the given primary gene name, or null if there are none.
+     */
+    public List<UniprotProtein> getByGeneName(String geneName, String taxId) {
+        return find(getKey(GENE_NAME_KEY, taxId + "\t" + geneName));
+    }
+
+    public int size() {
+        return keyCount;
+    }
+
+    @Override
+    public String toString() {
+        return "UniProt mapping index " + indexFile + ": keys=" + keyCount;
+    }
+
+    private List<UniprotProtein> find(byte[] key) {
+        // Lower bound of the key, so all the entries with the same key are found
+        int low = 0;
+        int high = keyCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareKey(getKeyOffset(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        List<UniprotProtein> proteins = null;
+        for (int i = low; i < keyCount; i++) {
+            int keyOffset = getKeyOffset(i);
+            if (compareKey(keyOffset, key) != 0) {
+                break;
+            }
+            if (proteins == null) {
+                proteins = new ArrayList<>();
+            }
+            int entryOffset = buffer.getInt(keyOffset + 2 + key.length);
+            if (entryOffset != DELETED_ENTRY) {
+                proteins.add(readEntry(entryOffset));
+            }
+        }
+        return proteins;
+    }
+
+    private int getKeyOffset(int index) {
+        return buffer.getInt(tableOffset + index * Integer.BYTES);
+    }
+
+    private int compareKey(int keyOffset, byte[] key) {
+        int length = Short.toUnsignedInt(buffer.getShort(keyOffset));
+        int commonLength = Math.min(length, key.length);
+        for (int i = 0; i < commonLength; i++) {
+            int comparison = Byte.compareUnsigned(buffer.get(keyOffset + 2 + i), key[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+
+    private UniprotProtein readEntry(int offset) {
+        boolean reviewed = buffer.get(offset) != 0;
+        int organism = buffer.getInt(offset + 1);
+        int position = offset + 5;
+        String proteinAc = readString(position);
+        position += 2 + Short.toUnsignedInt(buffer.getShort(position));
+        String proteinName = readString(position);
+        position += 2 + Short.toUnsignedInt(buffer.getShort(position));
+        String geneName = readString(position);
+        return new UniprotProtein(proteinAc, proteinName, geneName, organism, reviewed);
+    }
+
+    private String readString(int offset) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(offset))];
+        // Read from a duplicate, as the index is shared by threads, and absolute bulk gets need JDK 13
+        ByteBuffer string = buffer.duplicate();
+        string.position(offset + 2);
+        string.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void build(File entriesFile, File deletedAccessionsFile, File indexFile) throws IOException {
+        log.info("Building UniProt mapping index " + indexFile + " from " + entriesFile);
+        File tempFile = new File(indexFile.getPath() + ".tmp");
+        File keysFile = new File(indexFile.getPath() + ".keys.tmp");
+
+        try {
+            int entries = 0;
+            try (CountingOutputStream counter = new CountingOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)));
+                 DataOutputStream output = new DataOutputStream(counter);
+                 IndexKeys keys = new IndexKeys(keysFile, indexFile)) {
+
+                // Header, with the offsets of the keys and table written at the end
+                output.write(new byte[HEADER_SIZE]);
+
+                try (BufferedReader reader = Files.newBufferedReader(entriesFile.toPath(), StandardCharsets.UTF_8)) {
+                    // Skip header
+                    reader.readLine();
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] columns = line.split("\t", -1);
+                        if (columns.length < ENTRY_COLUMNS) {
+                            continue;
+                        }
+                        int entryOffset = checkOffset(counter.getCount(), indexFile);
+                        String accession = columns[0];
+                        String entryName = columns[2];
+                        String geneName = columns[3];
+                        String organism = columns[4];
+                        output.writeBoolean("reviewed".equals(columns[1]));
+                        output.writeInt(Integer.parseInt(organism));
+                        writeString(output, accession);
+                        writeString(output, entryName);
+                        writeString(output, geneName);
+                        entries++;
+
+                        keys.add(getKey(ACCESSION_KEY, accession), entryOffset);
+                        if (!entryName.isEmpty()) {
+                            keys.add(getKey(ACCESSION_KEY, entryName), entryOffset);
+                        }
+                        for (String secondaryAccession : splitValues(columns[5])) {
+                            keys.add(getKey(ACCESSION_KEY, secondaryAccession), entryOffset);
+                        }
+                        // Entries with multiple genes have all their primary gene names, separated by semicolons
+                        for (String gene : splitValues(geneName)) {
+                            keys.add(getKey(GENE_NAME_KEY, organism + "\t" + gene), entryOffset);
+                        }
+                    }
+                }
+
+                if (deletedAccessionsFile != null) {
+                    try (BufferedReader reader = Files.newBufferedReader(
+                            deletedAccessionsFile.toPath(), StandardCharsets.UTF_8)) {
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            String accession = line.trim();
+                            if (UNIPROT_AC_PATTERN.matcher(accession).matches()) {
+                                keys.add(getKey(ACCESSION_KEY, accession), DELETED_ENTRY);
+                            }
+                        }
+                    }
+                }
+                keys.flush();
+
+                // The keys are copied after the entries as they were written, followed by the table of their offsets
+                int keysOffset = checkOffset(counter.getCount(), indexFile);
+                Files.copy(keysFile.toPath(), output);
+                int tableOffset = checkOffset(counter.getCount(), indexFile);
+                keys.sort();
+                for (int i = 0; i < keys.size(); i++) {
+                    output.writeInt(checkOffset((long) keysOffset + keys.getOffset(i), indexFile));
+                }
+                output.flush();
+                checkOffset(counter.getCount(), indexFile);
+
+                try (RandomAccessFile file = new RandomAccessFile(tempFile, "rw")) {
+                    file.writeInt(MAGIC);
+                    file.writeInt(VERSION);
+                    file.writeInt(keys.size());
+                    file.writeInt(keysOffset);
+                    file.writeInt(tableOffset);
+                }
+                log.info("Indexed " + entries + " UniProt entries with " + keys.size() + " keys");
+            }
+
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(keysFile.toPath());
+        }
+    }
+
+    private static int checkOffset(long offset, File indexFile) throws IOException {
+        // Offsets in the index are ints, so it cannot be larger than 2GB
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("UniProt mapping index larger than 2GB: " + indexFile);
+        }
+        return (int) offset;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static List<String> splitValues(String values) {
+        List<String> splitValues = new ArrayList<>();
+        for (String value : values.split(";")) {
+            String trimmedValue = value.trim();
+            if (!trimmedValue.isEmpty()) {
+                splitValues.add(trimmedValue);
+            }
+        }
+        return splitValues;
+    }
+
+    private static byte[] getKey(byte keyType, String value) {
+        byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+        byte[] key = new byte[valueBytes.length + 1];
+        key[0] = keyType;
+        System.arraycopy(valueBytes, 0, key, 1, valueBytes.length);
+        return key;
+    }
+
+    /**
+     * Keys of the index, written to their own file while the entries are written, so only their offsets are kept in
+     * memory. Each key has its length, its bytes and the offset of its entry.
+     */
+    private static class IndexKeys implements Closeable {
+        private final File keysFile;
+        private final File indexFile;
+        private final CountingOutputStream counter;
+        private final DataOutputStream output;
+        private int[] offsets = new int[1024];
+        private int size;
+
+        IndexKeys(File keysFile, File indexFile) throws IOException {
+            this.keysFile = keysFile;
+            this.indexFile = indexFile;
+            this.counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(keysFile)));
+            this.output = new DataOutputStream(counter);
+        }
+
+        void add(byte[] key, int entryOffset) throws IOException {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[size++] = checkOffset(counter.getCount(), indexFile);
+            output.writeShort(key.length);
+            output.write(key);
+            output.writeInt(entryOffset);
+        }
+
+        void flush() throws IOException {
+            output.flush();
+        }
+
+        int getOffset(int index) {
+            return offsets[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Sorts the offsets by the keys they point to, comparing the keys in the memory-mapped keys file.
+         */
+        void sort() throws IOException {
+            try (RandomAccessFile file = new RandomAccessFile(keysFile, "r");
+                 FileChannel channel = file.getChannel()) {
+                sort(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.close();
+        }
+
+        /**
+         * Sorts the offsets by the keys they point to, with a merge sort, so offsets of equal keys keep the order they
+         * were written in.
+         */
+        private void sort(ByteBuffer keys) {
+            int[] source = Arrays.copyOf(offsets, size);
+            int[] target = new int[size];
+            for (int width = 1; width < size; width *= 2) {
+                for (int low = 0; low < size; low += 2 * width) {
+                    int middle = Math.min(low + width, size);
+                    int high = Math.min(low + 2 * width, size);
+                    int left = low;
+                    int right = middle;
+                    for (int i = low; i < high; i++) {
+                        if (left < middle && (right >= high || compareKeys(keys, source[left], source[right]) <= 0)) {
+                            target[i] = source[left++];
+                        } else {
+                            target[i] = source[right++];
+                        }
+                    }
+                }
+                int[] sorted = target;
+                target = source;
+                source = sorted;
+            }
+            offsets = source;
+        }
+
+        private static int compareKeys(ByteBuffer keys, int offset1, int offset2) {
+            int length1 = Short.toUnsignedInt(keys.getShort(offset1));
+            int length2 = Short.toUnsignedInt(keys.getShort(offset2));
+            int commonLength = Math.min(length1, length2);
+            for (int i = 0; i < commonLength; i++) {
+                int comparison = Byte.compareUnsigned(keys.get(offset1 + 2 + i), keys.get(offset2 + 2 + i));
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return Integer.compare(length1, length2);
+        }
+    }
+}
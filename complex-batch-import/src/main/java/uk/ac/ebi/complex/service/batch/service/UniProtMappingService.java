@@ -2,44 +2,55 @@ package uk.ac.ebi.complex.service.batch.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
 import lombok.extern.log4j.Log4j;
 import org.apache.commons.io.Charsets;
-import org.apache.commons.lang3.stream.Streams;
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.entity.mime.content.StringBody;
-import org.springframework.stereotype.Component;
 import uk.ac.ebi.complex.service.batch.model.UniProt;
 import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.StringReader;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import static uk.ac.ebi.complex.service.batch.model.UniProt.IdMapping.Poll.POLL_URL;
 import static uk.ac.ebi.complex.service.batch.model.UniProt.IdMapping.Result.RESULT_URL;
 
 @Log4j
-@Component
 public class UniProtMappingService {
 
     // Custom mappings between gene names and protein ids that cannot be resolved programmatically
@@ -54,11 +65,64 @@ public class UniProtMappingService {
             .put("GNAS", "Q5JWF2")
             .build();
 
-    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    protected static final String UNIPROT_AC_ID_TYPE = "UniProtKB_AC-ID";
+    protected static final String GENE_NAME_TYPE = "Gene_Name";
+    protected static final String UNIPROTKB_TYPE = "UniProtKB";
+    protected static final String HUMAN_TAX_ID = "9606";
+
+    public static final int DEFAULT_MAX_CONCURRENT_JOBS = 4;
+
+    private static final int CHUNK_SIZE = 2_000;
+    private static final int RESULT_COLUMNS = 7;
+    private static final Duration INITIAL_POLL_DELAY = Duration.ofMillis(500);
+    private static final Duration MAX_POLL_DELAY = Duration.ofSeconds(15);
+    private static final Duration JOB_TIMEOUT = Duration.ofHours(1);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(10);
+
+    private final ExecutorService executor;
+    private final HttpClient client;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final UniProtMappingCache mappingCache;
+    private final int maxConcurrentJobs;
+    private final AtomicLong failedChunks = new AtomicLong();
+
+    public UniProtMappingService() {
+        this(null, DEFAULT_MAX_CONCURRENT_JOBS);
+    }
+
+    public UniProtMappingService(UniProtMappingCache mappingCache, int maxConcurrentJobs) {
+        if (maxConcurrentJobs <= 0) {
+            throw new IllegalArgumentException("Max concurrent jobs must be greater than 0: " + maxConcurrentJobs);
+        }
+        this.mappingCache = mappingCache;
+        this.maxConcurrentJobs = maxConcurrentJobs;
+        // Own daemon threads for the poll delays and reading the results, so the common pool is not used.
+        // The HTTP client keeps its own executor, so reading a result never blocks the threads delivering it
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxConcurrentJobs, runnable -> {
+            Thread thread = new Thread(runnable, "uniprot-mapping-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    /**
+     * Constructor for subclasses that do not use the UniProt idmapping service, overriding
+     * {@link #fetchMappings(Collection, String, String, String, Collection)}.
+     */
+    protected UniProtMappingService(UniProtMappingCache mappingCache) {
+        this.mappingCache = mappingCache;
+        this.maxConcurrentJobs = 0;
+        this.executor = null;
+        this.client = null;
+    }
 
     public Map<String, List<UniprotProtein>> mapIds(Collection<String> ids) {
-        Map<String, List<UniprotProtein>> allMappings = mapToUniprotProteins(ids, this::mapUniprotAcsHttpEntity);
+        Map<String, List<UniprotProtein>> allMappings = mapToUniprotProteins(
+                ids, UNIPROT_AC_ID_TYPE, UNIPROTKB_TYPE, null);
 
         // UniProt mapping API returns too many results
         // To reduce the results, we filter our reviewed entries
@@ -76,7 +140,8 @@ public class UniProtMappingService {
     }
 
     public Map<String, List<UniprotProtein>> mapGenes(Collection<String> geneNames) {
-        Map<String, List<UniprotProtein>> allMappings = mapToUniprotProteins(geneNames, this::mapGeneNamescHttpEntity);
+        Map<String, List<UniprotProtein>> allMappings = mapToUniprotProteins(
+                geneNames, GENE_NAME_TYPE, UNIPROTKB_TYPE, HUMAN_TAX_ID);
 
         // UniProt mapping API returns too many results when mapping genes
         // To reduce the results, we filter our reviewed entries and/or proteins with the primary
@@ -121,35 +186,87 @@ public class UniProtMappingService {
         return filteredMappings;
     }
 
-    public Map<String, List<UniprotProtein>> mapToUniprotProteins(
+    private Map<String, List<UniprotProtein>> mapToUniprotProteins(
             Collection<String> ids,
-            Function<Collection<String>, HttpEntity> entityFunction) {
+            String from,
+            String to,
+            String taxId) {
+
+        if (mappingCache == null || !mappingCache.isEnabled()) {
+            return fetchMappings(ids, from, to, taxId, new HashSet<>());
+        }
 
+        // Only the identifiers not found in the cache, as mapped or unmapped, are submitted to UniProt
         Map<String, List<UniprotProtein>> result = new HashMap<>();
+        Set<String> idsToMap = new HashSet<>();
+        int unmappedIds = 0;
+        for (String id : ids) {
+            UniProtMappingCache.CachedMapping mapping = mappingCache.getMapping(from, to, taxId, id);
+            if (mapping == null) {
+                idsToMap.add(id);
+            } else if (mapping.isUnmapped()) {
+                unmappedIds++;
+            } else {
+                result.put(id, new ArrayList<>(mapping.getProteins()));
+            }
+        }
+        log.info("UniProt mappings from " + from + " to " + to + " found in cache: " + result.size() +
+                ", unmapped in cache: " + unmappedIds + ", identifiers to map: " + idsToMap.size());
+
+        if (!idsToMap.isEmpty()) {
+            Set<String> failedIds = new HashSet<>();
+            Map<String, List<UniprotProtein>> newMappings = fetchMappings(idsToMap, from, to, taxId, failedIds);
+            // Identifiers of failed chunks are not cached, the rest of the identifiers missing from the results
+            // could not be mapped
+            Set<String> newUnmappedIds = new HashSet<>(idsToMap);
+            newUnmappedIds.removeAll(newMappings.keySet());
+            newUnmappedIds.removeAll(failedIds);
+            mappingCache.putAll(from, to, taxId, newMappings, newUnmappedIds);
+            result.putAll(newMappings);
+        }
+        log.info(mappingCache);
+        return result;
+    }
 
-        Collection<Collection<String>> collection = divideCollection(ids, 2_000);
-        Streams.of(collection)
-                .parallel()
-                .forEach(chunk -> {
-                    try {
-                        String jobId = submit(entityFunction.apply(chunk));
-                        var status = UniProt.IdMapping.Poll.Result.Status.RUNNING;
-                        int counter = 0;
-                        do {
-                            Thread.sleep(1000);
-                            status = pollStatus(jobId);
-                            log.info("Job '" + jobId + "' with status '" + status + "'");
-                            counter++;
-                        } while (!status.equals(UniProt.IdMapping.Poll.Result.Status.FINISHED) || counter == 3600); // Limit to 1 hour
-                        log.info("Fetching results for job '" + jobId + "'");
-                        fetchResult(jobId).forEach((key, value) -> result.merge(key, value, (v1, v2) -> {
-                            v1.addAll(v2);
-                            return v1;
-                        }));
-                    } catch (IOException | InterruptedException e) {
-                        log.error(e.getMessage());
-                    }
-                });
+    /**
+     * Maps the identifiers with the UniProt idmapping service. Identifiers that cannot be mapped are not included in
+     * the result, and identifiers of deleted entries are mapped to an empty list. The identifiers of the chunks that
+     * failed are added to the failed identifiers, so they are not taken as unmapped.
+     */
+    protected Map<String, List<UniprotProtein>> fetchMappings(
+            Collection<String> ids,
+            String from,
+            String to,
+            String taxId,
+            Collection<String> failedIds) {
+        return mapToUniprotProteins(ids, chunk -> mapIdsHttpEntity(chunk, from, to, taxId), failedIds);
+    }
+
+    public Map<String, List<UniprotProtein>> mapToUniprotProteins(
+            Collection<String> ids,
+            Function<Collection<String>, HttpEntity> entityFunction) {
+        return mapToUniprotProteins(ids, entityFunction, new HashSet<>());
+    }
+
+    public Map<String, List<UniprotProtein>> mapToUniprotProteins(
+            Collection<String> ids,
+            Function<Collection<String>, HttpEntity> entityFunction,
+            Collection<String> failedIds) {
+
+        Map<String, List<UniprotProtein>> result = new ConcurrentHashMap<>();
+        Queue<String> failedChunkIds = new ConcurrentLinkedQueue<>();
+
+        // Chunks are mapped by a fixed number of workers, each one taking the next chunk when its job is done
+        Queue<Collection<String>> chunks = new ConcurrentLinkedQueue<>(divideCollection(ids, CHUNK_SIZE));
+        CompletableFuture<?>[] workers = IntStream.range(0, Math.min(maxConcurrentJobs, chunks.size()))
+                .mapToObj(i -> mapNextChunk(chunks, entityFunction, result, failedChunkIds))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(workers).join();
+        failedIds.addAll(failedChunkIds);
+        if (!failedChunkIds.isEmpty()) {
+            log.warn("Identifiers not mapped, as their chunks failed: " + failedChunkIds.size() +
+                    ", failed chunks so far: " + getFailedChunks());
+        }
 
         Map<String, String> directs = result.entrySet()
                 .stream()
@@ -163,88 +280,209 @@ public class UniProtMappingService {
         return result;
     }
 
-    private String submit(HttpEntity entity) throws IOException, InterruptedException {
-        InputStream content = entity.getContent();
+    private CompletableFuture<Void> mapNextChunk(
+            Queue<Collection<String>> chunks,
+            Function<Collection<String>, HttpEntity> entityFunction,
+            Map<String, List<UniprotProtein>> result,
+            Queue<String> failedChunkIds) {
+
+        Collection<String> chunk = chunks.poll();
+        if (chunk == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // Errors building the request of the chunk are handled as errors of the chunk
+        return CompletableFuture.completedFuture(chunk)
+                .thenCompose(ids -> mapChunk(entityFunction.apply(ids)))
+                .thenAccept(mappings -> mappings.forEach((key, value) -> result.merge(key, value, (v1, v2) -> {
+                    List<UniprotProtein> proteins = new ArrayList<>(v1);
+                    proteins.addAll(v2);
+                    return proteins;
+                })))
+                .exceptionally(e -> {
+                    log.error("Error mapping ids to UniProt: " + e.getMessage(), e);
+                    failedChunks.incrementAndGet();
+                    failedChunkIds.addAll(chunk);
+                    return null;
+                })
+                .thenCompose(ignored -> mapNextChunk(chunks, entityFunction, result, failedChunkIds));
+    }
+
+    private CompletableFuture<Map<String, List<UniprotProtein>>> mapChunk(HttpEntity entity) {
+        long deadline = System.nanoTime() + JOB_TIMEOUT.toNanos();
+        return submit(entity)
+                .thenCompose(jobId -> waitUntilFinished(jobId, INITIAL_POLL_DELAY, deadline))
+                .thenCompose(this::fetchResult);
+    }
+
+    /**
+     * Polls the status of the job, doubling the delay between polls up to a maximum, until it is finished or the job
+     * timeout is reached.
+     */
+    private CompletableFuture<String> waitUntilFinished(String jobId, Duration delay, long deadline) {
+        Executor delayedExecutor = CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS, executor);
+        return CompletableFuture.supplyAsync(() -> jobId, delayedExecutor)
+                .thenCompose(this::pollStatus)
+                .thenCompose(status -> {
+                    log.info("Job '" + jobId + "' with status '" + status + "'");
+                    if (UniProt.IdMapping.Poll.Result.Status.FINISHED.equals(status)) {
+                        log.info("Fetching results for job '" + jobId + "'");
+                        return CompletableFuture.completedFuture(jobId);
+                    }
+                    if (System.nanoTime() - deadline > 0) {
+                        return CompletableFuture.failedFuture(new TimeoutException(
+                                "Job '" + jobId + "' not finished after " + JOB_TIMEOUT.toMinutes() + " minutes"));
+                    }
+                    Duration nextDelay = delay.multipliedBy(2);
+                    return waitUntilFinished(
+                            jobId,
+                            nextDelay.compareTo(MAX_POLL_DELAY) < 0 ? nextDelay : MAX_POLL_DELAY,
+                            deadline);
+                });
+    }
+
+    private CompletableFuture<String> submit(HttpEntity entity) {
+        InputStream content;
+        try {
+            content = entity.getContent();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
         HttpRequest request = HttpRequest.newBuilder()
+                .timeout(REQUEST_TIMEOUT)
                 .POST(HttpRequest.BodyPublishers.ofInputStream(() -> content))
                 .header("Content-Type", entity.getContentType().getValue())
                 .header("Accept", "application/json")
                 .uri(URI.create("https://rest.uniprot.org/idmapping/run"))
                 .build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        var result = mapper.readValue(response.body(), UniProt.IdMapping.Submit.Result.class);
-        return result.getJobId();
-    }
-
-    private HttpEntity mapUniprotAcsHttpEntity(Collection<String> ids) {
-        return MultipartEntityBuilder.create()
-                .addPart("from", new StringBody("UniProtKB_AC-ID", ContentType.TEXT_PLAIN))
-                .addPart("to", new StringBody("UniProtKB", ContentType.TEXT_PLAIN))
-                .addPart("ids", new StringBody(String.join(",", ids), ContentType.TEXT_PLAIN))
-                .setCharset(Charsets.UTF_8)
-                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> readValue(response.body(), UniProt.IdMapping.Submit.Result.class).getJobId());
     }
 
-    private HttpEntity mapGeneNamescHttpEntity(Collection<String> ids) {
-        return MultipartEntityBuilder.create()
-                .addPart("from", new StringBody("Gene_Name", ContentType.TEXT_PLAIN))
-                .addPart("to", new StringBody("UniProtKB", ContentType.TEXT_PLAIN))
-                .addPart("ids", new StringBody(String.join(",", ids), ContentType.TEXT_PLAIN))
-                .addPart("taxId", new StringBody("9606", ContentType.TEXT_PLAIN))
+    private HttpEntity mapIdsHttpEntity(Collection<String> ids, String from, String to, String taxId) {
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create()
+                .addPart("from", new StringBody(from, ContentType.TEXT_PLAIN))
+                .addPart("to", new StringBody(to, ContentType.TEXT_PLAIN))
+                .addPart("ids", new StringBody(String.join(",", ids), ContentType.TEXT_PLAIN));
+        if (taxId != null) {
+            builder.addPart("taxId", new StringBody(taxId, ContentType.TEXT_PLAIN));
+        }
+        return builder
                 .setCharset(Charsets.UTF_8)
                 .build();
     }
 
-    private UniProt.IdMapping.Poll.Result.Status pollStatus(String jobId) throws IOException, InterruptedException {
+    private CompletableFuture<UniProt.IdMapping.Poll.Result.Status> pollStatus(String jobId) {
         HttpRequest request = HttpRequest.newBuilder()
+                .timeout(REQUEST_TIMEOUT)
                 .GET()
                 .uri(URI.create(POLL_URL + jobId))
                 .build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        var result = mapper.readValue(response.body(), UniProt.IdMapping.Poll.Result.class);
-        return result.getJobStatus();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> readValue(response.body(), UniProt.IdMapping.Poll.Result.class).getJobStatus());
     }
 
-    private Map<String, List<UniprotProtein>> fetchResult(String jobId) throws IOException, InterruptedException {
-        Map<String, List<UniprotProtein>> result = new HashMap<>();
+    private <T> T readValue(String content, Class<T> valueType) {
+        try {
+            return mapper.readValue(content, valueType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
+    private CompletableFuture<Map<String, List<UniprotProtein>>> fetchResult(String jobId) {
         Map<String, String> params = Map.of(
                 "format", "tsv",
                 "fields", String.join(",", List.of("accession", "reviewed", "id", "protein_name", "gene_primary", "organism_id"))
         );
 
         HttpRequest request = HttpRequest.newBuilder()
+                .timeout(REQUEST_TIMEOUT)
                 .GET()
+                .header("Accept-Encoding", "gzip")
                 .uri(URI.create(RESULT_URL + jobId + urlEncode(params)))
                 .build();
-        var response = client.send(request, HttpResponse.BodyHandlers.ofString());
-
-        try (CSVReader csvReader = new CSVReaderBuilder(new BufferedReader(new StringReader(response.body())))
-                .withCSVParser(new CSVParserBuilder().withSeparator('\t').build())
-                .build()) {
-            csvReader.skip(1);
-            Streams.of(csvReader.iterator()).forEach(line -> {
-                String from = line[0];
-                String entry = line[1];
-                String reviewed = line[2];
-                String name = line[3];
-                String proteinName = line[4];
-                String geneName = line[5];
-                String organism = line[6];
-
-                List<UniprotProtein> mappings = result.computeIfAbsent(from, k -> new ArrayList<>());
-                if (!proteinName.equals("deleted")) {
-                    mappings.add(new UniprotProtein(entry, name, geneName, Integer.valueOf(organism), "reviewed".equals(reviewed)));
-                }
-            });
+        // The result is parsed while it is read, without keeping the whole response in memory
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApplyAsync(this::parseResult, executor);
+    }
 
-        } catch (IOException ignored) {
+    private Map<String, List<UniprotProtein>> parseResult(HttpResponse<InputStream> response) {
+        return parseResult(response.body(), isGzipped(response));
+    }
+
+    /**
+     * Parses the TSV result of a job, with the columns from, accession, reviewed, id, protein_name, gene_primary and
+     * organism_id. Lines without all the columns are skipped, and identifiers mapped to deleted entries are mapped to an
+     * empty list.
+     */
+    static Map<String, List<UniprotProtein>> parseResult(InputStream body, boolean gzipped) {
+        Map<String, List<UniprotProtein>> result = new HashMap<>();
 
+        try (InputStream content = body;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     gzipped ? new GZIPInputStream(content) : content, StandardCharsets.UTF_8))) {
+
+            // Skip header
+            reader.readLine();
+            String line;
+            int[] tabs = new int[RESULT_COLUMNS - 1];
+            while ((line = reader.readLine()) != null) {
+                if (findTabs(line, tabs)) {
+                    String from = line.substring(0, tabs[0]);
+                    List<UniprotProtein> mappings = result.computeIfAbsent(from, k -> new ArrayList<>());
+                    // Deleted entries have 'deleted' as protein name
+                    if (!isField(line, tabs[3], tabs[4], "deleted")) {
+                        mappings.add(new UniprotProtein(
+                                line.substring(tabs[0] + 1, tabs[1]),
+                                line.substring(tabs[2] + 1, tabs[3]),
+                                line.substring(tabs[4] + 1, tabs[5]),
+                                Integer.valueOf(line.substring(tabs[5] + 1)),
+                                isField(line, tabs[1], tabs[2], "reviewed")));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
 
         return result;
     }
 
+    private static boolean isGzipped(HttpResponse<?> response) {
+        return response.headers()
+                .firstValue("Content-Encoding")
+                .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+                .orElse(false);
+    }
+
+    static boolean isField(String line, int startTab, int endTab, String value) {
+        return endTab - startTab - 1 == value.length() && line.startsWith(value, startTab + 1);
+    }
+
+    /**
+     * Finds the positions of the tabs separating the columns of the line, returning false if the line does not have
+     * the expected number of columns.
+     */
+    static boolean findTabs(String line, int[] tabs) {
+        int position = -1;
+        for (int i = 0; i < tabs.length; i++) {
+            position = line.indexOf('\t', position + 1);
+            if (position < 0) {
+                return false;
+            }
+            tabs[i] = position;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of chunks of identifiers that failed to be mapped since the service was created. The
+     * identifiers of those chunks are missing from the results, and are not cached.
+     */
+    public long getFailedChunks() {
+        return failedChunks.get();
+    }
+
     private List<UniprotProtein> filterReviewedProteins(List<UniprotProtein> proteins) {
         return proteins.stream()
                 .filter(UniprotProtein::isReviewed)
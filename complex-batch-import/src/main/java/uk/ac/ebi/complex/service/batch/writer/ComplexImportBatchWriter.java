@@ -1,9 +1,13 @@
 package uk.ac.ebi.complex.service.batch.writer;
 
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.experimental.SuperBuilder;
 import lombok.extern.log4j.Log4j;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamException;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import psidev.psi.mi.jami.model.Complex;
 import psidev.psi.mi.jami.model.Xref;
 import uk.ac.ebi.complex.service.batch.logging.ErrorsReportWriter;
@@ -11,15 +15,21 @@ import uk.ac.ebi.complex.service.batch.logging.WriteReportWriter;
 import uk.ac.ebi.complex.service.batch.manager.ComplexManager;
 import uk.ac.ebi.complex.service.batch.model.ComplexWithMatches;
 import uk.ac.ebi.complex.service.batch.model.ComplexToImport;
+import uk.ac.ebi.complex.service.finder.ComplexIndex;
+import uk.ac.ebi.complex.service.finder.ComplexSummary;
 import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
 import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Log4j
@@ -27,6 +37,8 @@ import java.util.stream.Collectors;
 public class ComplexImportBatchWriter<T, R extends ComplexToImport<T>> extends AbstractBatchWriter<ComplexWithMatches<T, R>, Complex> {
 
     private final ComplexManager<T, R> complexManager;
+    // Optional, kept up to date with the complexes saved when set
+    private final ComplexIndex complexIndex;
 
     private WriteReportWriter newComplexesReportWriter;
     private WriteReportWriter updatedComplexesReportWriter;
@@ -35,9 +47,15 @@ public class ComplexImportBatchWriter<T, R extends ComplexToImport<T>> extends A
     private WriteReportWriter complexesUnchangedReportWriter;
     private ErrorsReportWriter errorReportWriter;
 
+    private PersistenceStatistics.Listener statisticsListener;
+    @Getter(AccessLevel.PACKAGE)
+    private PersistenceStatistics totalPersistenceStatistics;
+
     @Override
     public void open(ExecutionContext executionContext) throws ItemStreamException {
         super.open(executionContext);
+        this.statisticsListener = new PersistenceStatistics.Listener();
+        this.totalPersistenceStatistics = PersistenceStatistics.EMPTY;
     }
 
     @Override
@@ -58,6 +76,7 @@ public class ComplexImportBatchWriter<T, R extends ComplexToImport<T>> extends A
     @Override
     public void close() throws ItemStreamException {
         super.close();
+        log.info("Complexes saved in total in the step: " + totalPersistenceStatistics);
         try {
             this.newComplexesReportWriter.close();
             this.updatedComplexesReportWriter.close();
@@ -72,10 +91,15 @@ public class ComplexImportBatchWriter<T, R extends ComplexToImport<T>> extends A
 
     @Override
     public void write(List<? extends ComplexWithMatches<T, R>> items) throws Exception {
-        Map<String, IntactComplex> newComplexes = new HashMap<>();
-        Map<String, IntactComplex> updatedIdentityComplexes = new HashMap<>();
-        Map<String, IntactComplex> updatedSubsetComplexes = new HashMap<>();
-        Map<String, IntactComplex> updatedComplexClusterComplexes = new HashMap<>();
+        ComplexesToSave newComplexes = new ComplexesToSave();
+        ComplexesToSave updatedIdentityComplexes = new ComplexesToSave();
+        ComplexesToSave updatedSubsetComplexes = new ComplexesToSave();
+        ComplexesToSave updatedComplexClusterComplexes = new ComplexesToSave();
+        Map<String, IntactComplex> existingComplexes = new HashMap<>();
+
+        if (!appProperties.isDryRunMode()) {
+            prefetchNewComplexProteins(items);
+        }
 
         for (ComplexWithMatches<T, R> complexWithMatches: items) {
             R complexToImport = complexWithMatches.getComplexToImport();
@@ -83,58 +107,63 @@ public class ComplexImportBatchWriter<T, R extends ComplexToImport<T>> extends A
             try {
                 // Exact matches
                 if (!complexWithMatches.getComplexesWithExactMatch().isEmpty()) {
-                    for (IntactComplex existingComplex : complexWithMatches.getComplexesWithExactMatch()) {
-                        boolean isComplexNotOnHold = LifeCycleStatus.RELEASED.equals(existingComplex.getStatus()) ||
-                                LifeCycleStatus.READY_FOR_RELEASE.equals(existingComplex.getStatus());
+                    for (ComplexSummary existingComplexSummary : complexWithMatches.getComplexesWithExactMatch()) {
+                        boolean isComplexNotOnHold = LifeCycleStatus.RELEASED.equals(existingComplexSummary.getStatus()) ||
+                                LifeCycleStatus.READY_FOR_RELEASE.equals(existingComplexSummary.getStatus());
+                        IntactComplex existingComplex = isComplexNotOnHold
+                                ? getExistingComplex(existingComplexSummary, existingComplexes)
+                                : null;
 
                         if (isComplexNotOnHold && complexManager.doesComplexNeedUpdating(complexToImport, existingComplex)) {
                             if (appProperties.isDryRunMode()) {
                                 String expectedEcoCode = ComplexManager.getEcoCodeExpectedForComplex(existingComplex);
-                                logComplexesToUpdate(complexToImport, List.of(existingComplex), Xref.IDENTITY, expectedEcoCode);
+                                logComplexesToUpdate(complexToImport, List.of(existingComplexSummary), Xref.IDENTITY, expectedEcoCode);
                             } else {
-                                updatedIdentityComplexes.put(
-                                        complexToImport.getComplexIds().iterator().next(),
+                                updatedIdentityComplexes.add(
+                                        complexToImport,
                                         complexManager.mergeComplexWithExistingComplex(complexToImport, existingComplex));
                             }
                         } else {
-                            logUnchangedComplexes(complexToImport, List.of(existingComplex), Xref.IDENTITY);
+                            logUnchangedComplexes(complexToImport, List.of(existingComplexSummary), Xref.IDENTITY);
                         }
                     }
                 } else {
                     if (appProperties.isDryRunMode()) {
                         logNewComplexToCreate(complexToImport);
                     } else {
-                        newComplexes.put(
-                                complexToImport.getComplexIds().iterator().next(),
+                        newComplexes.add(
+                                complexToImport,
                                 complexManager.newComplex(complexToImport));
                     }
                 }
 
                 // Subset matches
-                for (IntactComplex existingComplex : complexWithMatches.getComplexesToAddSubsetXref()) {
+                for (ComplexSummary existingComplexSummary : complexWithMatches.getComplexesToAddSubsetXref()) {
+                    IntactComplex existingComplex = getExistingComplex(existingComplexSummary, existingComplexes);
                     if (complexManager.doesComplexNeedSubsetXref(complexToImport, existingComplex)) {
                         if (appProperties.isDryRunMode()) {
-                            logComplexesToUpdate(complexToImport, List.of(existingComplex), ComplexManager.SUBSET_QUALIFIER, null);
+                            logComplexesToUpdate(complexToImport, List.of(existingComplexSummary), ComplexManager.SUBSET_QUALIFIER, null);
                         } else {
-                            updatedSubsetComplexes.put(
-                                    complexToImport.getComplexIds().iterator().next(),
+                            updatedSubsetComplexes.add(
+                                    complexToImport,
                                     complexManager.addSubsetXrefs(complexToImport, existingComplex));
                         }
                     } else {
-                        logUnchangedComplexes(complexToImport, List.of(existingComplex), ComplexManager.SUBSET_QUALIFIER);
+                        logUnchangedComplexes(complexToImport, List.of(existingComplexSummary), ComplexManager.SUBSET_QUALIFIER);
                     }
 
                 }
 
                 // Complex cluster matches
-                for (List<IntactComplex> complexCluster : complexWithMatches.getComplexesToAddComplexClusterXref()) {
+                for (List<ComplexSummary> complexCluster : complexWithMatches.getComplexesToAddComplexClusterXref()) {
                     boolean complexToUpdateFound = false;
-                    for (IntactComplex existingComplex : complexCluster) {
+                    for (ComplexSummary existingComplexSummary : complexCluster) {
+                        IntactComplex existingComplex = getExistingComplex(existingComplexSummary, existingComplexes);
                         if (complexManager.doesComplexNeedComplexClusterXref(complexToImport, existingComplex)) {
                             complexToUpdateFound = true;
                             if (!appProperties.isDryRunMode()) {
-                                updatedComplexClusterComplexes.put(
-                                        complexToImport.getComplexIds().iterator().next(),
+                                updatedComplexClusterComplexes.add(
+                                        complexToImport,
                                         complexManager.addComplexClusterXrefs(complexToImport, existingComplex));
                             }
                         }
@@ -155,10 +184,36 @@ public class ComplexImportBatchWriter<T, R extends ComplexToImport<T>> extends A
         }
 
         if (!appProperties.isDryRunMode()) {
-            this.intactService.saveOrUpdate(newComplexes.values());
-            this.intactService.saveOrUpdate(updatedIdentityComplexes.values());
-            this.intactService.saveOrUpdate(updatedSubsetComplexes.values());
-            this.intactService.saveOrUpdate(updatedComplexClusterComplexes.values());
+            statisticsListener.listen(intactService.getIntactDao());
+            PersistenceStatistics statisticsBefore = statisticsListener.getStatistics();
+            if (appProperties.isBulkPersistenceMode()) {
+                // All the complexes are saved at once, so each complex is only synchronised once, and statements are
+                // batched by Hibernate in one flush
+                Map<String, IntactComplex> complexesToSave = new LinkedHashMap<>();
+                for (ComplexesToSave complexes : List.of(
+                        newComplexes, updatedIdentityComplexes, updatedSubsetComplexes, updatedComplexClusterComplexes)) {
+                    complexes.getComplexesByAc().forEach(complexesToSave::putIfAbsent);
+                }
+                this.intactService.saveOrUpdate(complexesToSave.values());
+                this.intactService.getIntactDao().getEntityManager().flush();
+            } else {
+                this.intactService.saveOrUpdate(newComplexes.getComplexes());
+                this.intactService.saveOrUpdate(updatedIdentityComplexes.getComplexes());
+                this.intactService.saveOrUpdate(updatedSubsetComplexes.getComplexes());
+                this.intactService.saveOrUpdate(updatedComplexClusterComplexes.getComplexes());
+            }
+
+            // Subset and complex cluster xrefs do not change what is indexed, so only new complexes and complexes
+            // updated with identity xrefs are refreshed
+            Set<String> complexAcsToRefresh = new HashSet<>(newComplexes.getComplexesByAc().keySet());
+            complexAcsToRefresh.addAll(updatedIdentityComplexes.getComplexesByAc().keySet());
+            afterCommit(() -> {
+                // Statements run when the transaction is committed are counted with the chunk
+                logPersistenceStatistics(statisticsListener.getStatistics().minus(statisticsBefore));
+                if (complexIndex != null) {
+                    complexIndex.refresh(complexAcsToRefresh);
+                }
+            });
 
             for (ComplexWithMatches<T, R> complexWithMatches : items) {
                 R complexToImport = complexWithMatches.getComplexToImport();
@@ -194,6 +249,38 @@ public class ComplexImportBatchWriter<T, R extends ComplexToImport<T>> extends A
         this.errorReportWriter = new ErrorsReportWriter(new File(reportDirectory, "write_errors" + extension), separator, header);
     }
 
+    private void prefetchNewComplexProteins(List<? extends ComplexWithMatches<T, R>> items) {
+        Set<String> proteinIds = items.stream()
+                .filter(complexWithMatches -> complexWithMatches.getComplexesWithExactMatch().isEmpty())
+                .flatMap(complexWithMatches -> complexWithMatches.getComplexToImport().getProteinIds().stream())
+                .collect(Collectors.toSet());
+        if (!proteinIds.isEmpty()) {
+            try {
+                complexManager.prefetchProteins(proteinIds);
+            } catch (Exception e) {
+                // Proteins not prefetched are resolved one by one when creating the complexes
+                log.warn("Error prefetching proteins of new complexes: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Runs the action once the chunk transaction is committed, so the complex index is not refreshed with changes that
+     * are rolled back. Without a transaction, the action is run straight away.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     private void logNewComplexToCreate(R complex) throws IOException {
         complexesToCreateReportWriter.write(
                 complex.getComplexIds(),
@@ -201,77 +288,103 @@ public class ComplexImportBatchWriter<T, R extends ComplexToImport<T>> extends A
                 Xref.IDENTITY);
     }
 
-    private void logComplexesToUpdate(R complex, Collection<IntactComplex> existingComplexes, String qualifier, String ecoCode) throws IOException {
+    private IntactComplex getExistingComplex(ComplexSummary complexSummary, Map<String, IntactComplex> existingComplexes) {
+        // Complexes are loaded once per chunk, so all the changes to the same complex are made on the same entity
+        return existingComplexes.computeIfAbsent(complexSummary.getComplexAc(), complexManager::getExistingComplex);
+    }
+
+    private void logComplexesToUpdate(R complex, Collection<ComplexSummary> existingComplexes, String qualifier, String ecoCode) throws IOException {
         complexesToUpdateReportWriter.write(
                 complex.getComplexIds(),
                 complex.getProteinIds(),
-                existingComplexes.stream().map(IntactComplex::getComplexAc).collect(Collectors.toList()),
+                existingComplexes.stream().map(ComplexSummary::getComplexAc).collect(Collectors.toList()),
                 qualifier,
                 ecoCode != null ? ecoCode : "");
     }
 
-    private void logUnchangedComplexes(R complex, Collection<IntactComplex> existingComplexes, String qualifier) throws IOException {
+    private void logUnchangedComplexes(R complex, Collection<ComplexSummary> existingComplexes, String qualifier) throws IOException {
         complexesUnchangedReportWriter.write(
                 complex.getComplexIds(),
                 complex.getProteinIds(),
-                existingComplexes.stream().map(IntactComplex::getComplexAc).collect(Collectors.toList()),
+                existingComplexes.stream().map(ComplexSummary::getComplexAc).collect(Collectors.toList()),
                 qualifier,
                 "");
     }
 
-    private void logNewComplexes(R complex, Map<String, IntactComplex> newComplexes) throws IOException {
-        if (!newComplexes.isEmpty()) {
-            String complexId = complex.getComplexIds().iterator().next();
+    private void logNewComplexes(R complex, ComplexesToSave newComplexes) throws IOException {
+        List<String> complexAcs = newComplexes.getComplexAcs(complex);
+        if (!complexAcs.isEmpty()) {
             newComplexesReportWriter.write(
                     complex.getComplexIds(),
                     complex.getProteinIds(),
-                    newComplexes.entrySet()
-                            .stream()
-                            .filter(e -> complexId.equals(e.getKey()))
-                            .map(e -> e.getValue().getComplexAc())
-                            .collect(Collectors.toList()),
+                    complexAcs,
                     Xref.IDENTITY,
                     ComplexManager.ML_ECO_CODE);
         }
     }
 
-    private void logUpdatedComplexes(R complex, Map<String, IntactComplex> existingComplexes, String qualifier) throws IOException {
-        if (!existingComplexes.isEmpty()) {
-            String complexId = complex.getComplexIds().iterator().next();
+    private void logUpdatedComplexes(R complex, ComplexesToSave existingComplexes, String qualifier) throws IOException {
+        List<String> complexAcs = existingComplexes.getComplexAcs(complex);
+        if (!complexAcs.isEmpty()) {
             updatedComplexesReportWriter.write(
                     complex.getComplexIds(),
                     complex.getProteinIds(),
-                    existingComplexes.entrySet()
-                            .stream()
-                            .filter(e -> complexId.equals(e.getKey()))
-                            .map(e -> e.getValue().getComplexAc())
-                            .collect(Collectors.toList()),
+                    complexAcs,
                     qualifier,
                     "");
         }
     }
 
-    private void logUpdatedComplexesWithIdentity(R complex, Map<String, IntactComplex> existingComplexes) throws IOException {
-        if (!existingComplexes.isEmpty()) {
-            String complexId = complex.getComplexIds().iterator().next();
-            if (existingComplexes.containsKey(complexId)) {
-                IntactComplex existingComplex = existingComplexes.get(complexId);
-                if (existingComplex.isPredictedComplex()) {
-                    updatedComplexesReportWriter.write(
-                            complex.getComplexIds(),
-                            complex.getProteinIds(),
-                            List.of(existingComplex.getComplexAc()),
-                            Xref.IDENTITY,
-                            "");
-                } else {
-                    updatedComplexesReportWriter.write(
-                            complex.getComplexIds(),
-                            complex.getProteinIds(),
-                            List.of(existingComplex.getComplexAc()),
-                            Xref.IDENTITY,
-                            existingComplex.getEvidenceType().getMIIdentifier());
-                }
+    private void logUpdatedComplexesWithIdentity(R complex, ComplexesToSave existingComplexes) throws IOException {
+        for (String complexAc : existingComplexes.getComplexAcs(complex)) {
+            IntactComplex existingComplex = existingComplexes.getComplexesByAc().get(complexAc);
+            if (existingComplex.isPredictedComplex()) {
+                updatedComplexesReportWriter.write(
+                        complex.getComplexIds(),
+                        complex.getProteinIds(),
+                        List.of(existingComplex.getComplexAc()),
+                        Xref.IDENTITY,
+                        "");
+            } else {
+                updatedComplexesReportWriter.write(
+                        complex.getComplexIds(),
+                        complex.getProteinIds(),
+                        List.of(existingComplex.getComplexAc()),
+                        Xref.IDENTITY,
+                        existingComplex.getEvidenceType().getMIIdentifier());
+            }
+        }
+    }
+
+    private void logPersistenceStatistics(PersistenceStatistics chunkStatistics) {
+        totalPersistenceStatistics = totalPersistenceStatistics.plus(chunkStatistics);
+        log.info("Complexes saved" + (appProperties.isBulkPersistenceMode() ? " in bulk" : "") + ": " + chunkStatistics);
+    }
+
+    /**
+     * Complexes to save in a chunk, keyed by complex AC, so each complex is saved once even if it is changed for
+     * multiple complexes to import, with the ACs of the complexes changed for each complex to import, for the reports.
+     */
+    @Getter
+    private static class ComplexesToSave {
+        private final Map<String, IntactComplex> complexesByAc = new LinkedHashMap<>();
+        private final Map<String, List<String>> complexAcsByImportId = new HashMap<>();
+
+        private void add(ComplexToImport<?> complexToImport, IntactComplex complex) {
+            complexesByAc.put(complex.getComplexAc(), complex);
+            List<String> complexAcs = complexAcsByImportId.computeIfAbsent(
+                    complexToImport.getComplexIds().iterator().next(), key -> new ArrayList<>());
+            if (!complexAcs.contains(complex.getComplexAc())) {
+                complexAcs.add(complex.getComplexAc());
             }
         }
+
+        private List<String> getComplexAcs(ComplexToImport<?> complexToImport) {
+            return complexAcsByImportId.getOrDefault(complexToImport.getComplexIds().iterator().next(), List.of());
+        }
+
+        private Collection<IntactComplex> getComplexes() {
+            return complexesByAc.values();
+        }
     }
 }
@@ -0,0 +1,63 @@
+package uk.ac.ebi.complex.service.batch.writer;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStream;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Writer that waits for the items processed by a {@link uk.ac.ebi.complex.service.batch.processor.ParallelBatchProcessor}
+ * and writes them with the delegate, in the order they were read. Items filtered by the processor are not written.
+ */
+@RequiredArgsConstructor
+public class ParallelBatchWriter<T> implements ItemWriter<Future<T>>, ItemStream {
+
+    private final ItemWriter<T> delegate;
+
+    @Override
+    public void write(List<? extends Future<T>> items) throws Exception {
+        List<T> processedItems = new ArrayList<>();
+        for (Future<T> item : items) {
+            try {
+                T processedItem = item.get();
+                if (processedItem != null) {
+                    processedItems.add(processedItem);
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            }
+        }
+        delegate.write(processedItems);
+    }
+
+    @Override
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).open(executionContext);
+        }
+    }
+
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).update(executionContext);
+        }
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        if (delegate instanceof ItemStream) {
+            ((ItemStream) delegate).close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package uk.ac.ebi.complex.service.batch.writer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+
+/**
+ * Statements run to save each chunk, counted by a listener of the Hibernate session of the writer, so statements run by
+ * other threads or steps at the same time, e.g. queries of the processors, are not counted.
+ * <p>
+ * Statements added to a JDBC batch are prepared once and executed with the batch, so the round trips to the database are
+ * the statements executed on their own plus the batches executed.
+ */
+@Getter
+@AllArgsConstructor
+class PersistenceStatistics {
+
+    static final PersistenceStatistics EMPTY = new PersistenceStatistics(0, 0, 0, 0, 0);
+
+    private final long preparedStatementCount;
+    private final long executedStatementCount;
+    private final long executedBatchCount;
+    private final long flushCount;
+    private final long flushedEntityCount;
+
+    PersistenceStatistics plus(PersistenceStatistics other) {
+        return new PersistenceStatistics(
+                preparedStatementCount + other.preparedStatementCount,
+                executedStatementCount + other.executedStatementCount,
+                executedBatchCount + other.executedBatchCount,
+                flushCount + other.flushCount,
+                flushedEntityCount + other.flushedEntityCount);
+    }
+
+    PersistenceStatistics minus(PersistenceStatistics other) {
+        return new PersistenceStatistics(
+                preparedStatementCount - other.preparedStatementCount,
+                executedStatementCount - other.executedStatementCount,
+                executedBatchCount - other.executedBatchCount,
+                flushCount - other.flushCount,
+                flushedEntityCount - other.flushedEntityCount);
+    }
+
+    @Override
+    public String toString() {
+        return "prepared statements=" + preparedStatementCount + ", executed statements=" + executedStatementCount +
+                ", executed JDBC batches=" + executedBatchCount + ", flushes=" + flushCount +
+                ", flushed entities=" + flushedEntityCount;
+    }
+
+    /**
+     * Listener of the events of a session, which are all raised by the thread using the session.
+     * <p>
+     * Listeners cannot be removed from a session, they are discarded with it, so the same listener is added once to each
+     * session, and the statements of a chunk are the difference between the statistics before and after the chunk.
+     */
+    static class Listener extends BaseSessionEventListener {
+
+        // Last session the listener was added to
+        private Session session;
+        private long preparedStatementCount;
+        private long executedStatementCount;
+        private long executedBatchCount;
+        private long flushCount;
+        private long flushedEntityCount;
+
+        /**
+         * Starts counting the statements run by the current session of the entity manager, if not counted already.
+         */
+        void listen(IntactDao intactDao) {
+            Session currentSession = intactDao.getEntityManager().unwrap(Session.class);
+            if (currentSession != session) {
+                currentSession.addEventListeners(this);
+                session = currentSession;
+            }
+        }
+
+        @Override
+        public void jdbcPrepareStatementStart() {
+            preparedStatementCount++;
+        }
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            executedStatementCount++;
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            executedBatchCount++;
+        }
+
+        @Override
+        public void flushEnd(int numberOfEntities, int numberOfCollections) {
+            flushCount++;
+            flushedEntityCount += numberOfEntities;
+        }
+
+        PersistenceStatistics getStatistics() {
+            return new PersistenceStatistics(
+                    preparedStatementCount, executedStatementCount, executedBatchCount, flushCount, flushedEntityCount);
+        }
+    }
+}
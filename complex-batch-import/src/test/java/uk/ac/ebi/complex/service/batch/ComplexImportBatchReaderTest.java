@@ -0,0 +1,116 @@
+package uk.ac.ebi.complex.service.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.model.ComplexToImport;
+import uk.ac.ebi.complex.service.batch.reader.ComplexFileReader;
+import uk.ac.ebi.complex.service.batch.reader.ComplexImportBatchReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ComplexImportBatchReaderTest {
+
+    private static final String COMPLEXES = String.join("\n",
+            "complex_ids\tconfidence\tprotein_ids",
+            "CPX-1\t1\tP12345|Q12345",
+            "",
+            "CPX-2\t2\tP23456|Q23456\r",
+            "CPX-3\t3\tP34567|Q34567",
+            "CPX-4\t4\tP45678|Q45678");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadAll() throws Exception {
+        FileConfiguration fileConfiguration = writeComplexes();
+        ComplexImportBatchReader<Integer, ComplexToImport<Integer>> reader = newReader(fileConfiguration);
+
+        reader.open(new ExecutionContext());
+        List<String> complexIds = readAll(reader);
+        reader.close();
+
+        assertEquals(List.of("CPX-1", "CPX-2", "CPX-3", "CPX-4"), complexIds);
+    }
+
+    @Test
+    public void testRestartFromOffset() throws Exception {
+        FileConfiguration fileConfiguration = writeComplexes();
+        ExecutionContext executionContext = new ExecutionContext();
+
+        ComplexImportBatchReader<Integer, ComplexToImport<Integer>> reader = newReader(fileConfiguration);
+        reader.open(executionContext);
+        reader.read();
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+
+        ComplexImportBatchReader<Integer, ComplexToImport<Integer>> restartedReader = newReader(fileConfiguration);
+        restartedReader.open(executionContext);
+        List<String> complexIds = readAll(restartedReader);
+        restartedReader.close();
+
+        assertEquals(List.of("CPX-3", "CPX-4"), complexIds);
+    }
+
+    @Test
+    public void testRestartFromCountOnly() throws Exception {
+        FileConfiguration fileConfiguration = writeComplexes();
+        ExecutionContext executionContext = new ExecutionContext();
+        executionContext.putInt("complex_count", 3);
+
+        ComplexImportBatchReader<Integer, ComplexToImport<Integer>> reader = newReader(fileConfiguration);
+        reader.open(executionContext);
+        List<String> complexIds = readAll(reader);
+        reader.close();
+
+        assertEquals(List.of("CPX-4"), complexIds);
+    }
+
+    private FileConfiguration writeComplexes() throws IOException {
+        FileConfiguration fileConfiguration = FileConfiguration.builder()
+                .inputFileName("complexes.tsv")
+                .reportDirectory(tempDir.toString())
+                .outputFileName("output")
+                .separator("\t")
+                .header(true)
+                .build();
+        Files.writeString(fileConfiguration.outputPath(), COMPLEXES);
+        return fileConfiguration;
+    }
+
+    private static ComplexImportBatchReader<Integer, ComplexToImport<Integer>> newReader(
+            FileConfiguration fileConfiguration) {
+
+        ComplexFileReader<Integer, ComplexToImport<Integer>> complexFileReader =
+                new ComplexFileReader<>(fileConfiguration) {
+                    @Override
+                    protected ComplexToImport<Integer> complexFromStringArray(String[] csvLine) {
+                        return new ComplexToImport<>(
+                                List.of(csvLine[0]),
+                                Integer.parseInt(csvLine[1]),
+                                List.of(csvLine[2].split("\\|")));
+                    }
+                };
+        return new ComplexImportBatchReader<>(fileConfiguration, complexFileReader);
+    }
+
+    private static List<String> readAll(ComplexImportBatchReader<Integer, ComplexToImport<Integer>> reader)
+            throws Exception {
+
+        List<String> complexIds = new ArrayList<>();
+        ComplexToImport<Integer> complex;
+        while ((complex = reader.read()) != null) {
+            complexIds.add(complex.getComplexIds().iterator().next());
+        }
+        return complexIds;
+    }
+}
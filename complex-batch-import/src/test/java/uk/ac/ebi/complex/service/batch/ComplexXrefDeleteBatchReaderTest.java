@@ -0,0 +1,302 @@
+package uk.ac.ebi.complex.service.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import psidev.psi.mi.jami.model.Xref;
+import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.exception.CvTermNotFoundException;
+import uk.ac.ebi.complex.service.batch.manager.ComplexManager;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
+import uk.ac.ebi.complex.service.batch.model.ComplexWithOldXrefIds;
+import uk.ac.ebi.complex.service.batch.reader.ComplexXrefDeleteBatchReader;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ComplexXrefDeleteBatchReaderTest {
+
+    private static final String DATABASE_ID = "MI:0469";
+    private static final String DATABASE_AC = "EBI-0469";
+    private static final String HEADER = "ids\tproteins\tcomplex_acs\txref_qualifier\teco_code";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadComplexesWithOldXrefs() throws Exception {
+        FakeDatabase database = newDatabase();
+        ComplexXrefDeleteBatchReader reader = newReader(database, writeReports(), 50);
+
+        reader.open(new ExecutionContext());
+        List<ComplexWithOldXrefIds> complexes = readAll(reader);
+        reader.close();
+
+        assertEquals(List.of("EBI-2", "EBI-3", "EBI-4"), getAcs(complexes));
+
+        // the identity xref P2 is imported for CPX-1 only, the subset xref P3 is imported for CPX-2
+        assertEquals(Set.of("P2"), complexes.get(0).getIdentityXrefIds());
+        assertEquals(Set.of(), complexes.get(0).getSubsetXrefIds());
+        assertEquals(Set.of(), complexes.get(0).getComplexClusterXrefIds());
+
+        // complexes without a Complex Portal AC cannot be in the reports
+        assertEquals(Set.of("P1"), complexes.get(1).getIdentityXrefIds());
+
+        // P4 is imported for CPX-4 as an identity xref, not as a complex cluster xref
+        assertEquals(Set.of(), complexes.get(2).getIdentityXrefIds());
+        assertEquals(Set.of("P4"), complexes.get(2).getComplexClusterXrefIds());
+    }
+
+    @Test
+    public void testReadComplexWithoutComplexAcAndXrefNotInReports() throws Exception {
+        FakeDatabase database = newDatabase();
+        database.addComplex("EBI-7", null);
+        database.addXref("EBI-7", "P7", ComplexManager.SUBSET_QUALIFIER_MI);
+        ComplexXrefDeleteBatchReader reader = newReader(database, writeReports(), 50);
+
+        reader.open(new ExecutionContext());
+        List<ComplexWithOldXrefIds> complexes = readAll(reader);
+        reader.close();
+
+        assertEquals(List.of("EBI-2", "EBI-3", "EBI-4", "EBI-7"), getAcs(complexes));
+        assertEquals(Set.of("P7"), complexes.get(3).getSubsetXrefIds());
+    }
+
+    @Test
+    public void testReadInPages() throws Exception {
+        FakeDatabase database = newDatabase();
+        ComplexXrefDeleteBatchReader reader = newReader(database, writeReports(), 2);
+
+        reader.open(new ExecutionContext());
+        List<ComplexWithOldXrefIds> complexes = readAll(reader);
+        reader.close();
+
+        assertEquals(List.of("EBI-2", "EBI-3", "EBI-4"), getAcs(complexes));
+        assertEquals(List.of(List.of("EBI-2", "EBI-3"), List.of("EBI-4")), database.pages);
+    }
+
+    @Test
+    public void testSkipComplexesDeletedAfterOpen() throws Exception {
+        FakeDatabase database = newDatabase();
+        ComplexXrefDeleteBatchReader reader = newReader(database, writeReports(), 1);
+
+        reader.open(new ExecutionContext());
+        database.complexes.remove("EBI-3");
+        List<ComplexWithOldXrefIds> complexes = readAll(reader);
+        reader.close();
+
+        assertEquals(List.of("EBI-2", "EBI-4"), getAcs(complexes));
+    }
+
+    @Test
+    public void testRestartFromLastAc() throws Exception {
+        FakeDatabase database = newDatabase();
+        FileConfiguration fileConfiguration = writeReports();
+        ExecutionContext executionContext = new ExecutionContext();
+
+        ComplexXrefDeleteBatchReader reader = newReader(database, fileConfiguration, 2);
+        reader.open(executionContext);
+        reader.read();
+        reader.update(executionContext);
+        reader.close();
+
+        assertEquals("EBI-2", executionContext.getString("complex_last_ac"));
+
+        database.pages.clear();
+        ComplexXrefDeleteBatchReader restartedReader = newReader(database, fileConfiguration, 2);
+        restartedReader.open(executionContext);
+        List<ComplexWithOldXrefIds> complexes = readAll(restartedReader);
+        restartedReader.close();
+
+        assertEquals(List.of("EBI-3", "EBI-4"), getAcs(complexes));
+        assertEquals(List.of(List.of("EBI-3", "EBI-4")), database.pages);
+    }
+
+    private FakeDatabase newDatabase() {
+        FakeDatabase database = new FakeDatabase();
+        database.addComplex("EBI-1", "CPX-1");
+        database.addXref("EBI-1", "P1", Xref.IDENTITY_MI);
+        database.addComplex("EBI-2", "CPX-2");
+        database.addXref("EBI-2", "P2", Xref.IDENTITY_MI);
+        database.addXref("EBI-2", "P3", ComplexManager.SUBSET_QUALIFIER_MI);
+        database.addComplex("EBI-3", null);
+        database.addXref("EBI-3", "P1", Xref.IDENTITY_MI);
+        database.addComplex("EBI-4", "CPX-4");
+        database.addXref("EBI-4", "P4", ComplexManager.COMPLEX_CLUSTER_QUALIFIER_MI);
+        database.addComplex("EBI-5", "CPX-5");
+        database.addXref("EBI-5", "P5", Xref.IDENTITY_MI);
+        // complex without xrefs of the database
+        database.addComplex("EBI-6", "CPX-6");
+        return database;
+    }
+
+    private FileConfiguration writeReports() throws IOException {
+        Files.writeString(tempDir.resolve("complexes_to_update.tsv"), String.join("\n",
+                HEADER,
+                "P1\tP12345\tCPX-1\t" + Xref.IDENTITY + "\tECO:0000353",
+                "P2\tP23456\tCPX-1\t" + Xref.IDENTITY + "\tECO:0000353",
+                "P3\tP34567\tCPX-2 CPX-3\t" + ComplexManager.SUBSET_QUALIFIER + "\tECO:0000353"));
+        Files.writeString(tempDir.resolve("complexes_unchanged.tsv"), String.join("\n",
+                HEADER,
+                "P5\tP56789\tCPX-5\t" + Xref.IDENTITY + "\tECO:0000353",
+                "P4\tP45678\tCPX-4\t" + Xref.IDENTITY + "\tECO:0000353"));
+        return FileConfiguration.builder()
+                .reportDirectory(tempDir.toString())
+                .separator("\t")
+                .header(true)
+                .build();
+    }
+
+    private static ComplexXrefDeleteBatchReader newReader(FakeDatabase database,
+                                                          FileConfiguration fileConfiguration,
+                                                          int pageSize) {
+        IntactDao intactDao = database.newIntactDao();
+        ReferenceDataCache referenceDataCache = new ReferenceDataCache(intactDao) {
+            @Override
+            public IntactCvTerm findCvTerm(String clazz, String id) throws CvTermNotFoundException {
+                assertEquals(DATABASE_ID, id);
+                IntactCvTerm cvTerm = new IntactCvTerm("database");
+                cvTerm.setAc(DATABASE_AC);
+                return cvTerm;
+            }
+        };
+        return new ComplexXrefDeleteBatchReader(intactDao, referenceDataCache, fileConfiguration, DATABASE_ID, pageSize);
+    }
+
+    private static List<ComplexWithOldXrefIds> readAll(ComplexXrefDeleteBatchReader reader) throws Exception {
+        List<ComplexWithOldXrefIds> complexes = new ArrayList<>();
+        ComplexWithOldXrefIds complex;
+        while ((complex = reader.read()) != null) {
+            complexes.add(complex);
+        }
+        return complexes;
+    }
+
+    private static List<String> getAcs(List<ComplexWithOldXrefIds> complexes) {
+        return complexes.stream()
+                .map(complex -> complex.getComplex().getAc())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Fake of the entity manager, that answers the queries of the reader from the complexes and xrefs added to it and
+     * records the ACs of the pages of complexes loaded.
+     */
+    private static class FakeDatabase {
+
+        private final Map<String, IntactComplex> complexes = new TreeMap<>();
+        private final Map<String, String> complexAcs = new HashMap<>();
+        private final List<Object[]> xrefs = new ArrayList<>();
+        private final List<List<String>> pages = new ArrayList<>();
+
+        void addComplex(String ac, String complexAc) {
+            IntactComplex complex = new IntactComplex("complex");
+            complex.setAc(ac);
+            complexes.put(ac, complex);
+            if (complexAc != null) {
+                complexAcs.put(ac, complexAc);
+            }
+        }
+
+        void addXref(String ac, String id, String qualifierMi) {
+            xrefs.add(new Object[]{ac, id, qualifierMi});
+        }
+
+        IntactDao newIntactDao() {
+            EntityManager entityManager = newProxy(EntityManager.class, (method, args) -> {
+                if (method.equals("createQuery")) {
+                    return newQuery((String) args[0]);
+                }
+                throw new UnsupportedOperationException(method);
+            });
+            return newProxy(IntactDao.class, (method, args) -> {
+                if (method.equals("getEntityManager")) {
+                    return entityManager;
+                }
+                throw new UnsupportedOperationException(method);
+            });
+        }
+
+        private Query newQuery(String queryString) {
+            Map<String, Object> parameters = new HashMap<>();
+            Query[] query = new Query[1];
+            query[0] = newProxy(Query.class, (method, args) -> {
+                if (method.equals("setParameter")) {
+                    parameters.put((String) args[0], args[1]);
+                    return query[0];
+                } else if (method.equals("getResultList")) {
+                    return getResultList(queryString, parameters);
+                }
+                throw new UnsupportedOperationException(method);
+            });
+            return query[0];
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<?> getResultList(String queryString, Map<String, Object> parameters) {
+            if (queryString.contains(":complexPrimaryMi")) {
+                assertEquals(Xref.COMPLEX_PORTAL_MI, parameters.get("complexPortalMi"));
+                assertEquals(Xref.COMPLEX_PRIMARY_MI, parameters.get("complexPrimaryMi"));
+                // only the complexes with xrefs of the database are loaded
+                assertEquals(DATABASE_AC, parameters.get("databaseAc"));
+                Set<String> acsWithXrefs = xrefs.stream()
+                        .map(xref -> (String) xref[0])
+                        .collect(Collectors.toSet());
+                return complexAcs.entrySet().stream()
+                        .filter(entry -> acsWithXrefs.contains(entry.getKey()))
+                        .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                        .collect(Collectors.toList());
+            } else if (queryString.contains(":databaseAc")) {
+                assertEquals(DATABASE_AC, parameters.get("databaseAc"));
+                Collection<String> qualifierMis = (Collection<String>) parameters.get("qualifierMis");
+                return xrefs.stream()
+                        .filter(xref -> qualifierMis.contains((String) xref[2]))
+                        .collect(Collectors.toList());
+            } else if (queryString.contains(":acs")) {
+                List<String> acs = (List<String>) parameters.get("acs");
+                pages.add(List.copyOf(acs));
+                return complexes.values().stream()
+                        .filter(complex -> acs.contains(complex.getAc()))
+                        .collect(Collectors.toList());
+            }
+            throw new UnsupportedOperationException(queryString);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T newProxy(Class<T> type, ProxyHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Fake" + type.getSimpleName();
+                    default:
+                        return handler.invoke(method.getName(), args);
+                }
+            });
+        }
+    }
+
+    private interface ProxyHandler {
+        Object invoke(String method, Object[] args);
+    }
+}
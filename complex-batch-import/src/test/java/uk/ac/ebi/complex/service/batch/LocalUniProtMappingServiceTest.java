@@ -0,0 +1,115 @@
+package uk.ac.ebi.complex.service.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
+import uk.ac.ebi.complex.service.batch.service.LocalUniProtMappingService;
+import uk.ac.ebi.complex.service.batch.service.UniProtMappingIndex;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalUniProtMappingServiceTest {
+
+    private static final String ENTRIES = String.join("\n",
+            "Entry\tReviewed\tEntry Name\tGene Names (primary)\tOrganism (ID)\tSecondary Accession",
+            "Q9BXJ9\treviewed\tNAA15_HUMAN\tNAA15\t9606\tQ9H8P6; Q6N069",
+            "P68251\treviewed\t1433B_BOVIN\tYWHAB\t9913\tP29358",
+            "P68250\treviewed\t1433B_SHEEP\tYWHAB\t9940\tP29358",
+            "O43687\treviewed\tAKA7A_HUMAN\tAKAP7\t9606\t",
+            "Q6JBY9\tunreviewed\tQ6JBY9_HUMAN\tAKAP7\t9606\t",
+            "O75150\treviewed\tBRE1B_HUMAN\tRNF40\t9606\t");
+
+    private static final String DELETED_ACCESSIONS = String.join("\n",
+            "Deleted accessions",
+            "__________________",
+            "F5GXM8");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testMapIds() throws IOException {
+        LocalUniProtMappingService service = new LocalUniProtMappingService(openIndex());
+
+        Map<String, List<UniprotProtein>> mapping = service.mapIds(
+                List.of("Q9H8P6", "P29358", "F5GXM8", "O75150-3", "NAA15_HUMAN", "A0A000"));
+
+        assertEquals(List.of("Q9BXJ9"), getProteinAcs(mapping.get("Q9H8P6")));
+        assertEquals(Set.of("P68251", "P68250"), Set.copyOf(getProteinAcs(mapping.get("P29358"))));
+        assertEquals(List.of(), mapping.get("F5GXM8"), "Deleted entries should not map to anything");
+        assertEquals(List.of("O75150"), getProteinAcs(mapping.get("O75150-3")));
+        assertEquals(List.of("Q9BXJ9"), getProteinAcs(mapping.get("NAA15_HUMAN")));
+        assertFalse(mapping.containsKey("A0A000"), "Unknown identifiers should not be mapped");
+    }
+
+    @Test
+    public void testMapGenes() throws IOException {
+        LocalUniProtMappingService service = new LocalUniProtMappingService(openIndex());
+
+        Map<String, List<UniprotProtein>> mapping = service.mapGenes(List.of("AKAP7", "NAA15", "YWHAB"));
+
+        assertEquals(List.of("O43687"), getProteinAcs(mapping.get("AKAP7")), "Reviewed entries should be kept");
+        UniprotProtein protein = mapping.get("NAA15").get(0);
+        assertEquals(new UniprotProtein("Q9BXJ9", "NAA15_HUMAN", "NAA15", 9606, true), protein);
+        assertFalse(mapping.containsKey("YWHAB"), "Genes should only be mapped to human entries");
+    }
+
+    @Test
+    public void testIndexIsReused() throws IOException {
+        UniProtMappingIndex index = openIndex();
+        File indexFile = tempDir.resolve("uniprot.tsv" + UniProtMappingIndex.INDEX_EXTENSION).toFile();
+        long lastModified = indexFile.lastModified();
+
+        UniProtMappingIndex reopenedIndex = openIndex();
+
+        assertEquals(lastModified, indexFile.lastModified());
+        assertEquals(index.size(), reopenedIndex.size());
+    }
+
+    @Test
+    public void testIndexWithManyKeys() throws IOException {
+        // Entries written in reverse order of accession, so the keys have to be sorted
+        StringBuilder entries = new StringBuilder("Entry\tReviewed\tEntry Name\tGene Names (primary)\tOrganism (ID)\tSecondary Accession\n");
+        for (int i = 4999; i >= 0; i--) {
+            entries.append(String.format("P%05d\treviewed\tE%05d_HUMAN\tGENE%d\t9606\t\n", i, i, i % 100));
+        }
+        Path entriesFile = tempDir.resolve("many.tsv");
+        Files.writeString(entriesFile, entries);
+
+        UniProtMappingIndex index = UniProtMappingIndex.open(entriesFile.toFile(), null);
+
+        assertEquals(5000 * 3, index.size());
+        for (int i = 0; i < 5000; i += 7) {
+            String accession = String.format("P%05d", i);
+            assertEquals(List.of(accession), getProteinAcs(index.getByAccession(accession)));
+            assertEquals(List.of(accession), getProteinAcs(index.getByAccession(String.format("E%05d_HUMAN", i))));
+        }
+        assertEquals(50, index.getByGeneName("GENE42", "9606").size());
+        assertNull(index.getByAccession("P99999"));
+        assertFalse(Files.exists(tempDir.resolve("many.tsv" + UniProtMappingIndex.INDEX_EXTENSION + ".keys.tmp")),
+                "The keys file should be deleted once the index is built");
+    }
+
+    private UniProtMappingIndex openIndex() throws IOException {
+        Path entriesFile = tempDir.resolve("uniprot.tsv");
+        Path deletedFile = tempDir.resolve("delac_sp.txt");
+        if (!Files.exists(entriesFile)) {
+            Files.writeString(entriesFile, ENTRIES);
+            Files.writeString(deletedFile, DELETED_ACCESSIONS);
+        }
+        return UniProtMappingIndex.open(entriesFile.toFile(), deletedFile.toFile());
+    }
+
+    private static List<String> getProteinAcs(List<UniprotProtein> proteins) {
+        return proteins.stream().map(UniprotProtein::getProteinAc).collect(Collectors.toList());
+    }
+}
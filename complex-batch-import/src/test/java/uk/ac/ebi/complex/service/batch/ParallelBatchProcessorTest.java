@@ -0,0 +1,176 @@
+package uk.ac.ebi.complex.service.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import uk.ac.ebi.complex.service.batch.processor.ParallelBatchProcessor;
+import uk.ac.ebi.complex.service.batch.writer.ParallelBatchWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the items processed by a pool of threads and written by the step thread, with a transaction manager
+ * recording the transactions used to process each item.
+ */
+public class ParallelBatchProcessorTest {
+
+    private final RecordingTransactionManager transactionManager = new RecordingTransactionManager();
+    // Transaction and thread each item is processed in, 0 when processed outside a transaction
+    private final Map<Integer, Integer> transactionsByItem = new ConcurrentHashMap<>();
+    private final Map<Integer, Thread> threadsByItem = new ConcurrentHashMap<>();
+    private final List<List<String>> writtenChunks = new ArrayList<>();
+
+    private ParallelBatchProcessor<Integer, String> processor;
+
+    @AfterEach
+    public void closeProcessor() {
+        if (processor != null) {
+            processor.close();
+        }
+    }
+
+    @Test
+    public void testItemsAreWrittenInTheOrderTheyAreRead() throws Exception {
+        processor = newProcessor(4);
+
+        // later items are processed faster, so they are done before the earlier ones
+        writeChunk(IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toList()));
+
+        List<String> expectedItems = IntStream.rangeClosed(1, 20)
+                .filter(item -> item % 5 != 0)
+                .mapToObj(ParallelBatchProcessorTest::processed)
+                .collect(Collectors.toList());
+        assertEquals(List.of(expectedItems), writtenChunks);
+    }
+
+    @Test
+    public void testEachItemIsProcessedInItsOwnReadOnlyTransaction() throws Exception {
+        processor = newProcessor(4);
+
+        writeChunk(IntStream.rangeClosed(1, 20).boxed().collect(Collectors.toList()));
+
+        assertEquals(20, transactionsByItem.size());
+        assertEquals(20, new HashSet<>(transactionsByItem.values()).size());
+        assertEquals(20, transactionManager.readOnlyTransactions.get());
+        assertEquals(20, transactionManager.committedTransactions.get());
+        assertFalse(threadsByItem.containsValue(Thread.currentThread()));
+    }
+
+    @Test
+    public void testWorkerExceptionsReachTheStep() throws Exception {
+        processor = newProcessor(4);
+
+        IOException exception = assertThrows(IOException.class, () -> writeChunk(List.of(1, 2, 13, 4)));
+
+        assertEquals("Item 13 could not be processed", exception.getMessage());
+        assertEquals(List.of(), writtenChunks);
+        assertEquals(1, transactionManager.rolledBackTransactions.get());
+    }
+
+    @Test
+    public void testWorkerRuntimeExceptionsReachTheStep() throws Exception {
+        processor = newProcessor(4);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> writeChunk(List.of(1, 2, 14, 4)));
+
+        assertEquals("Item 14 is not valid", exception.getMessage());
+        assertEquals(List.of(), writtenChunks);
+    }
+
+    @Test
+    public void testSingleThreadProcessesItemsInTheStepThread() throws Exception {
+        processor = newProcessor(1);
+
+        writeChunk(List.of(3, 2, 1));
+
+        assertEquals(List.of(List.of(processed(3), processed(2), processed(1))), writtenChunks);
+        assertEquals(Collections.nCopies(3, Thread.currentThread()), new ArrayList<>(threadsByItem.values()));
+        assertEquals(Collections.nCopies(3, 0), new ArrayList<>(transactionsByItem.values()));
+        assertEquals(0, transactionManager.transactions.get());
+    }
+
+    private void writeChunk(List<Integer> items) throws Exception {
+        List<Future<String>> processedItems = new ArrayList<>();
+        for (Integer item : items) {
+            processedItems.add(processor.process(item));
+        }
+        new ParallelBatchWriter<String>(chunk -> writtenChunks.add(new ArrayList<>(chunk))).write(processedItems);
+    }
+
+    private ParallelBatchProcessor<Integer, String> newProcessor(int threads) {
+        ParallelBatchProcessor<Integer, String> newProcessor = new ParallelBatchProcessor<>(item -> {
+            Integer transaction = transactionManager.getCurrentTransaction();
+            transactionsByItem.put(item, transaction != null ? transaction : 0);
+            threadsByItem.put(item, Thread.currentThread());
+            Thread.sleep(100 - item * 5L);
+            if (item == 13) {
+                throw new IOException("Item 13 could not be processed");
+            }
+            if (item == 14) {
+                throw new IllegalStateException("Item 14 is not valid");
+            }
+            // multiples of 5 are filtered
+            return item % 5 == 0 ? null : processed(item);
+        }, threads, transactionManager);
+        newProcessor.open(new ExecutionContext());
+        return newProcessor;
+    }
+
+    private static String processed(int item) {
+        return "processed-" + item;
+    }
+
+    /**
+     * Transaction manager numbering the transactions, with the transaction of each thread.
+     */
+    private static class RecordingTransactionManager implements PlatformTransactionManager {
+
+        private final AtomicInteger transactions = new AtomicInteger();
+        private final AtomicInteger readOnlyTransactions = new AtomicInteger();
+        private final AtomicInteger committedTransactions = new AtomicInteger();
+        private final AtomicInteger rolledBackTransactions = new AtomicInteger();
+        private final ThreadLocal<Integer> currentTransaction = new ThreadLocal<>();
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            assertNull(currentTransaction.get(), "Transaction already started by the thread");
+            currentTransaction.set(transactions.incrementAndGet());
+            if (definition.isReadOnly()) {
+                readOnlyTransactions.incrementAndGet();
+            }
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            currentTransaction.remove();
+            committedTransactions.incrementAndGet();
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            currentTransaction.remove();
+            rolledBackTransactions.incrementAndGet();
+        }
+
+        private Integer getCurrentTransaction() {
+            return currentTransaction.get();
+        }
+    }
+}
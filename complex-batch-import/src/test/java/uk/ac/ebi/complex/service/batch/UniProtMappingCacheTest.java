@@ -0,0 +1,130 @@
+package uk.ac.ebi.complex.service.batch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
+import uk.ac.ebi.complex.service.batch.service.UniProtMappingCache;
+import uk.ac.ebi.complex.service.batch.service.UniProtMappingService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UniProtMappingCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testMappingsArePersisted() throws IOException {
+        File cacheFile = tempDir.resolve("cache/uniprot-mappings.jsonl").toFile();
+        UniprotProtein protein = new UniprotProtein("Q9BXJ9", "NAA15_HUMAN", "NAA15", 9606, true);
+
+        UniProtMappingCache cache = new UniProtMappingCache(cacheFile, Duration.ofDays(1));
+        cache.putAll("UniProtKB_AC-ID", "UniProtKB", null, Map.of("Q9H8P6", List.of(protein), "F5GXM8", List.of()));
+
+        UniProtMappingCache reloadedCache = new UniProtMappingCache(cacheFile, Duration.ofDays(1));
+        assertEquals(List.of(protein), reloadedCache.get("UniProtKB_AC-ID", "UniProtKB", null, "Q9H8P6"));
+        assertEquals(List.of(), reloadedCache.get("UniProtKB_AC-ID", "UniProtKB", null, "F5GXM8"));
+        assertNull(reloadedCache.get("Gene_Name", "UniProtKB", "9606", "Q9H8P6"), "Mappings should be cached by type and tax id");
+        assertNull(reloadedCache.get("UniProtKB_AC-ID", "UniProtKB", null, "P29358"));
+        assertEquals(2, reloadedCache.getHits());
+        assertEquals(2, reloadedCache.getMisses());
+    }
+
+    @Test
+    public void testExpiredMappingsAreIgnored() throws IOException {
+        File cacheFile = tempDir.resolve("uniprot-mappings.jsonl").toFile();
+        UniProtMappingCache cache = new UniProtMappingCache(cacheFile, Duration.ZERO.minusMillis(1));
+        cache.putAll("Gene_Name", "UniProtKB", "9606", Map.of("NAA15", List.of()));
+
+        assertNull(cache.get("Gene_Name", "UniProtKB", "9606", "NAA15"));
+        assertEquals(0, new UniProtMappingCache(cacheFile, Duration.ZERO.minusMillis(1)).size());
+    }
+
+    @Test
+    public void testDisabledCache() throws IOException {
+        UniProtMappingCache cache = new UniProtMappingCache(null, Duration.ofDays(1));
+        cache.putAll("Gene_Name", "UniProtKB", "9606", Map.of("NAA15", List.of()));
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.get("Gene_Name", "UniProtKB", "9606", "NAA15"));
+    }
+
+    @Test
+    public void testUnmappedIdsAreCached() throws IOException {
+        File cacheFile = tempDir.resolve("uniprot-mappings.jsonl").toFile();
+        UniProtMappingCache cache = new UniProtMappingCache(cacheFile, Duration.ofDays(1));
+        cache.putAll("Gene_Name", "UniProtKB", "9606", Map.of(), List.of("NOT_A_GENE"));
+
+        UniProtMappingCache reloadedCache = new UniProtMappingCache(cacheFile, Duration.ofDays(1));
+        assertNull(reloadedCache.get("Gene_Name", "UniProtKB", "9606", "NOT_A_GENE"));
+        assertTrue(reloadedCache.getMapping("Gene_Name", "UniProtKB", "9606", "NOT_A_GENE").isUnmapped());
+        assertNull(reloadedCache.getMapping("Gene_Name", "UniProtKB", "9606", "NAA15"));
+        assertTrue(new File(cacheFile.getPath() + ".lock").exists(), "The cache file should be written holding a lock");
+    }
+
+    @Test
+    public void testOnlyIdsNotCachedAreMapped() throws IOException {
+        File cacheFile = tempDir.resolve("uniprot-mappings.jsonl").toFile();
+        UniprotProtein protein = new UniprotProtein("Q9BXJ9", "NAA15_HUMAN", "NAA15", 9606, true);
+        StubUniProtMappingService service = new StubUniProtMappingService(
+                new UniProtMappingCache(cacheFile, Duration.ofDays(1)), Map.of("Q9BXJ9", List.of(protein)), "P29358");
+
+        Map<String, List<UniprotProtein>> mappings = service.mapIds(List.of("Q9BXJ9", "F5GXM8", "P29358"));
+        assertEquals(Map.of("Q9BXJ9", List.of(protein)), mappings);
+        assertEquals(List.of(List.of("F5GXM8", "P29358", "Q9BXJ9")), service.submittedIds);
+
+        // The unmapped id is not submitted again, the id that failed is
+        mappings = service.mapIds(List.of("Q9BXJ9", "F5GXM8", "P29358"));
+        assertEquals(Map.of("Q9BXJ9", List.of(protein)), mappings);
+        assertEquals(List.of("P29358"), service.submittedIds.get(1));
+    }
+
+    private static class StubUniProtMappingService extends UniProtMappingService {
+
+        private final Map<String, List<UniprotProtein>> mappings;
+        private final String failedId;
+        private final List<List<String>> submittedIds = new ArrayList<>();
+
+        StubUniProtMappingService(
+                UniProtMappingCache mappingCache,
+                Map<String, List<UniprotProtein>> mappings,
+                String failedId) {
+
+            super(mappingCache);
+            this.mappings = mappings;
+            this.failedId = failedId;
+        }
+
+        @Override
+        protected Map<String, List<UniprotProtein>> fetchMappings(
+                Collection<String> ids,
+                String from,
+                String to,
+                String taxId,
+                Collection<String> failedIds) {
+
+            List<String> sortedIds = new ArrayList<>(ids);
+            sortedIds.sort(null);
+            submittedIds.add(sortedIds);
+            Map<String, List<UniprotProtein>> result = new HashMap<>();
+            for (String id : ids) {
+                if (id.equals(failedId)) {
+                    failedIds.add(id);
+                } else if (mappings.containsKey(id)) {
+                    result.put(id, mappings.get(id));
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package uk.ac.ebi.complex.service.batch.manager;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepExecution;
+import uk.ac.ebi.complex.service.batch.listener.ComplexAcGeneratorListener;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the generator on an in-memory H2 database, where the ACs of each block are taken with one query per value.
+ * The ACs of ComplexAcValue are generated from the complex_ac_seq sequence.
+ */
+public class ComplexAcGeneratorTest {
+
+    private static final String SEQUENCE = "complex_ac_seq";
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private EntityManager entityManager;
+    private IntactDao intactDao;
+
+    @BeforeAll
+    public static void createEntityManagerFactory() {
+        entityManagerFactory = Persistence.createEntityManagerFactory("complex-batch-import-test");
+    }
+
+    @AfterAll
+    public static void closeEntityManagerFactory() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    public void createSequences() {
+        entityManager = entityManagerFactory.createEntityManager();
+        intactDao = newIntactDao(entityManager);
+        entityManager.getTransaction().begin();
+        entityManager.createNativeQuery("drop sequence if exists " + SEQUENCE).executeUpdate();
+        entityManager.createNativeQuery("create sequence " + SEQUENCE + " start with 1000").executeUpdate();
+        entityManager.createNativeQuery("drop sequence if exists higher_seq").executeUpdate();
+        entityManager.createNativeQuery("create sequence higher_seq start with 5000").executeUpdate();
+        entityManager.createNativeQuery("drop sequence if exists lower_seq").executeUpdate();
+        entityManager.createNativeQuery("create sequence lower_seq start with 1").executeUpdate();
+        entityManager.getTransaction().commit();
+    }
+
+    @AfterEach
+    public void closeEntityManager() {
+        entityManager.close();
+    }
+
+    @Test
+    public void testReserveBlocksWithOneQueryPerValue() {
+        ComplexAcGenerator generator = newGenerator(SEQUENCE, 5);
+
+        List<String> acs = nextAcs(generator, 20);
+
+        // first AC and the AC after each block generated as with ComplexAcValue, the others taken in blocks of 5
+        assertEquals(acsBetween(1000, 1019), acs);
+        assertEquals(acsBetween(1020, 1024), generator.discardUnusedAcs());
+    }
+
+    @Test
+    public void testWithoutSequence() {
+        ComplexAcGenerator generator = newGenerator(null, 5);
+
+        assertEquals(acsBetween(1000, 1004), nextAcs(generator, 5));
+        assertEquals(List.of(), generator.discardUnusedAcs());
+    }
+
+    @Test
+    public void testSequenceWithHigherValuesIsRejected() {
+        ComplexAcGenerator generator = newGenerator("higher_seq", 5);
+
+        assertEquals("CPX-1000", generator.nextAc());
+        assertThrows(IllegalStateException.class, generator::nextAc);
+    }
+
+    @Test
+    public void testSequenceWithLowerValuesIsRejected() {
+        ComplexAcGenerator generator = newGenerator("lower_seq", 5);
+
+        assertEquals("CPX-1000", generator.nextAc());
+        assertThrows(IllegalStateException.class, generator::nextAc);
+    }
+
+    @Test
+    public void testConcurrentNextAcGivesNoDuplicates() throws Exception {
+        ComplexAcGenerator generator = newGenerator(SEQUENCE, 7);
+        ConcurrentLinkedQueue<String> acs = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> acs.addAll(nextAcs(generator, 100))));
+            }
+            // ACs generated at the same time as with ComplexAcValue, as by another import
+            EntityManager otherEntityManager = entityManagerFactory.createEntityManager();
+            try {
+                for (int i = 0; i < 50; i++) {
+                    acs.add(nextComplexAcValue(otherEntityManager));
+                }
+            } finally {
+                otherEntityManager.close();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(850, acs.size());
+        assertEquals(850, new HashSet<>(acs).size());
+    }
+
+    @Test
+    public void testRestartDoesNotReuseAcs() {
+        ComplexAcGenerator generator = newGenerator(SEQUENCE, 10);
+        List<String> acs = nextAcs(generator, 3);
+        List<String> unusedAcs = generator.discardUnusedAcs();
+
+        assertEquals(acsBetween(1000, 1002), acs);
+        assertEquals(acsBetween(1003, 1011), unusedAcs);
+
+        // the job is restarted with a new generator, the ACs reserved before are never handed out again
+        ComplexAcGenerator restartedGenerator = newGenerator(SEQUENCE, 10);
+        List<String> restartedAcs = nextAcs(restartedGenerator, 15);
+
+        assertEquals(acsBetween(1012, 1026), restartedAcs);
+        // the ACs discarded are not handed out by the same generator either
+        String nextAc = generator.nextAc();
+        assertFalse(acs.contains(nextAc) || unusedAcs.contains(nextAc) || restartedAcs.contains(nextAc));
+    }
+
+    @Test
+    public void testUnusedAcsAreSavedInStepExecutionContext() {
+        ComplexAcGenerator generator = newGenerator(SEQUENCE, 5);
+        nextAcs(generator, 3);
+        ComplexAcGeneratorListener listener = new ComplexAcGeneratorListener(generator);
+        StepExecution stepExecution = new StepExecution("importStep", new JobExecution(1L));
+
+        listener.beforeStep(stepExecution);
+        listener.afterStep(stepExecution);
+
+        assertEquals("CPX-1003,CPX-1004,CPX-1005,CPX-1006",
+                stepExecution.getExecutionContext().getString(ComplexAcGeneratorListener.UNUSED_ACS_KEY));
+    }
+
+    private ComplexAcGenerator newGenerator(String sequenceName, int blockSize) {
+        return new ComplexAcGenerator(intactDao, sequenceName, blockSize, ComplexAcGeneratorTest::nextComplexAcValue);
+    }
+
+    private static List<String> nextAcs(ComplexAcGenerator generator, int count) {
+        List<String> acs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            acs.add(generator.nextAc());
+        }
+        return acs;
+    }
+
+    private static List<String> acsBetween(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(value -> "CPX-" + value)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Generates an AC as ComplexAcValue, from the complex AC sequence.
+     */
+    private static String nextComplexAcValue(EntityManager entityManager) {
+        Number value = (Number) entityManager
+                .createNativeQuery("select next value for " + SEQUENCE)
+                .getSingleResult();
+        return "CPX-" + value.longValue();
+    }
+
+    private static IntactDao newIntactDao(EntityManager entityManager) {
+        return (IntactDao) Proxy.newProxyInstance(
+                IntactDao.class.getClassLoader(),
+                new Class<?>[]{IntactDao.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getEntityManager")) {
+                        return entityManager;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,301 @@
+package uk.ac.ebi.complex.service.batch.manager;
+
+import org.junit.jupiter.api.Test;
+import psidev.psi.mi.jami.bridges.uniprot.UniprotProteinFetcher;
+import psidev.psi.mi.jami.model.Protein;
+import psidev.psi.mi.jami.model.Xref;
+import psidev.psi.mi.jami.model.impl.DefaultCvTerm;
+import psidev.psi.mi.jami.model.impl.DefaultProtein;
+import psidev.psi.mi.jami.model.impl.DefaultXref;
+import uk.ac.ebi.complex.service.batch.model.ComplexToImport;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that prefetching the proteins of a chunk resolves each protein id as fetching it on its own would.
+ */
+public class ComplexManagerTest {
+
+    private static final List<String> PROTEIN_IDS = List.of(
+            // in the database, once and twice
+            "P00001", "P00002",
+            // in UniProt, by primary AC, secondary AC and isoform id
+            "P00003", "Q00003", "P00004-2",
+            // secondary AC of two proteins in UniProt
+            "Q00005",
+            // not found
+            "P00007");
+
+    @Test
+    public void testPrefetchResolvesProteinsAsFetchingThemOneByOne() throws Exception {
+        FakeDatabase singleFetchDatabase = new FakeDatabase();
+        FakeUniprotProteinFetcher singleFetchFetcher = new FakeUniprotProteinFetcher();
+        ComplexManager<Object, ComplexToImport<Object>> singleFetchManager = newManager(singleFetchDatabase, singleFetchFetcher);
+
+        FakeDatabase prefetchDatabase = new FakeDatabase();
+        FakeUniprotProteinFetcher prefetchFetcher = new FakeUniprotProteinFetcher();
+        ComplexManager<Object, ComplexToImport<Object>> prefetchManager = newManager(prefetchDatabase, prefetchFetcher);
+        prefetchManager.prefetchProteins(PROTEIN_IDS);
+
+        for (String proteinId : PROTEIN_IDS) {
+            assertEquals(getIntactProtein(singleFetchManager, proteinId), getIntactProtein(prefetchManager, proteinId), proteinId);
+        }
+
+        // only the ids that could not be resolved unambiguously are fetched again
+        assertEquals(List.of(List.of("P00003", "Q00003", "P00004-2", "Q00005", "P00007")), prefetchFetcher.bulkFetches);
+        assertEquals(List.of("Q00005", "P00007"), prefetchFetcher.singleFetches);
+        assertEquals(List.of("P00002", "Q00005", "P00007"), prefetchDatabase.singleLookups);
+    }
+
+    @Test
+    public void testPrefetchedProteinsAreNotFetchedAgain() throws Exception {
+        FakeUniprotProteinFetcher fetcher = new FakeUniprotProteinFetcher();
+        ComplexManager<Object, ComplexToImport<Object>> manager = newManager(new FakeDatabase(), fetcher);
+
+        manager.prefetchProteins(List.of("P00001", "Q00003"));
+        manager.prefetchProteins(List.of("P00001", "Q00003", "P00004-2"));
+
+        assertEquals(List.of(List.of("Q00003"), List.of("P00004-2")), fetcher.bulkFetches);
+        assertEquals("uniprot:P00003", getIntactProtein(manager, "Q00003"));
+        assertEquals("uniprot:P00004-2", getIntactProtein(manager, "P00004-2"));
+        assertEquals(List.of(), fetcher.singleFetches);
+    }
+
+    private static String getIntactProtein(ComplexManager<Object, ComplexToImport<Object>> manager, String proteinId) {
+        try {
+            IntactProtein protein = manager.getIntactProtein(proteinId);
+            return protein.getAc() != null ? "database:" + protein.getAc() : "uniprot:" + protein.getUniprotkb();
+        } catch (Exception e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    private static ComplexManager<Object, ComplexToImport<Object>> newManager(FakeDatabase database, UniprotProteinFetcher fetcher) {
+        return new ComplexManager<Object, ComplexToImport<Object>>(database.newIntactDao(), fetcher, null, null, null) {
+            @Override
+            public boolean doesComplexHasIdentityXref(ComplexToImport<Object> newComplex, IntactComplex existingComplex) {
+                return false;
+            }
+
+            @Override
+            public boolean doesComplexNeedUpdating(ComplexToImport<Object> newComplex, IntactComplex existingComplex) {
+                return false;
+            }
+
+            @Override
+            public boolean doesComplexNeedSubsetXref(ComplexToImport<Object> newComplex, IntactComplex existingComplex) {
+                return false;
+            }
+
+            @Override
+            public boolean doesComplexNeedComplexClusterXref(ComplexToImport<Object> newComplex, IntactComplex existingComplex) {
+                return false;
+            }
+
+            @Override
+            public IntactComplex addSubsetXrefs(ComplexToImport<Object> newComplex, IntactComplex existingComplex) {
+                return existingComplex;
+            }
+
+            @Override
+            public IntactComplex addComplexClusterXrefs(ComplexToImport<Object> newComplex, IntactComplex existingComplex) {
+                return existingComplex;
+            }
+
+            @Override
+            protected void addIdentityXrefs(ComplexToImport<Object> newComplex, IntactComplex existingComplex) {
+            }
+
+            @Override
+            protected void addConfidenceAnnotation(ComplexToImport<Object> newComplex, IntactComplex exsitingComplex) {
+            }
+
+            @Override
+            protected void setComplexSource(IntactComplex complex) {
+            }
+        };
+    }
+
+    private static Protein newUniprotProtein(String uniprotAc, String... secondaryAcs) {
+        Protein protein = new DefaultProtein("protein");
+        protein.setUniprotkb(uniprotAc);
+        for (String secondaryAc : secondaryAcs) {
+            protein.getIdentifiers().add(new DefaultXref(
+                    new DefaultCvTerm(Xref.UNIPROTKB, Xref.UNIPROTKB_MI),
+                    secondaryAc,
+                    new DefaultCvTerm(Xref.SECONDARY, Xref.SECONDARY_MI)));
+        }
+        return protein;
+    }
+
+    /**
+     * UniProt with the same proteins for single and bulk fetches, recording the ids fetched.
+     */
+    private static class FakeUniprotProteinFetcher extends UniprotProteinFetcher {
+
+        private final Map<String, List<Protein>> proteinsById = new HashMap<>();
+        private final List<Collection<String>> bulkFetches = new ArrayList<>();
+        private final List<String> singleFetches = new ArrayList<>();
+
+        private FakeUniprotProteinFetcher() {
+            Protein protein3 = newUniprotProtein("P00003", "Q00003");
+            Protein isoform4 = newUniprotProtein("P00004-2");
+            Protein protein5 = newUniprotProtein("P00005", "Q00005");
+            Protein protein6 = newUniprotProtein("P00006", "Q00005");
+            proteinsById.put("P00003", List.of(protein3));
+            proteinsById.put("Q00003", List.of(protein3));
+            proteinsById.put("P00004-2", List.of(isoform4));
+            proteinsById.put("Q00005", List.of(protein5, protein6));
+        }
+
+        @Override
+        public Collection<Protein> fetchByIdentifier(String identifier) {
+            singleFetches.add(identifier);
+            return proteinsById.getOrDefault(identifier, List.of());
+        }
+
+        @Override
+        public Collection<Protein> fetchByIdentifiers(Collection<String> identifiers) {
+            bulkFetches.add(new ArrayList<>(identifiers));
+            // each protein is returned once, even when several ids match it
+            Map<Protein, Boolean> proteins = new IdentityHashMap<>();
+            for (String identifier : identifiers) {
+                proteinsById.getOrDefault(identifier, List.of()).forEach(protein -> proteins.put(protein, true));
+            }
+            return new ArrayList<>(proteins.keySet());
+        }
+    }
+
+    /**
+     * Database with proteins by identity xref id, recording the ids looked up one by one.
+     */
+    private static class FakeDatabase {
+
+        private final Map<String, List<String>> proteinAcsById = new LinkedHashMap<>();
+        private final List<String> singleLookups = new ArrayList<>();
+
+        private FakeDatabase() {
+            proteinAcsById.put("P00001", List.of("EBI-1"));
+            proteinAcsById.put("P00002", List.of("EBI-2", "EBI-3"));
+        }
+
+        IntactDao newIntactDao() {
+            return newProxy(IntactDao.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getEntityManager":
+                        return newProxy(EntityManager.class, this::answerEntityManager);
+                    case "getProteinDao":
+                        return newProxy(method.getReturnType(), this::answerProteinDao);
+                    case "getSynchronizerContext":
+                        return newProxy(method.getReturnType(), (contextMethod, contextArgs) -> {
+                            if (contextMethod.getName().equals("getProteinSynchronizer")) {
+                                return newProxy(contextMethod.getReturnType(), FakeDatabase::answerProteinSynchronizer);
+                            }
+                            throw new UnsupportedOperationException(contextMethod.getName());
+                        });
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+        }
+
+        private Object answerEntityManager(Method method, Object[] args) {
+            switch (method.getName()) {
+                case "createQuery":
+                    return newIdentityQuery();
+                case "getReference":
+                    return newDatabaseProtein((String) args[1]);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private Object answerProteinDao(Method method, Object[] args) {
+            if (method.getName().equals("getByXrefQualifier")) {
+                String proteinId = (String) args[2];
+                singleLookups.add(proteinId);
+                return proteinAcsById.getOrDefault(proteinId, List.of())
+                        .stream()
+                        .map(FakeDatabase::newDatabaseProtein)
+                        .collect(Collectors.toList());
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+
+        private static Object answerProteinSynchronizer(Method method, Object[] args) {
+            if (method.getName().equals("convertToPersistentObject")) {
+                IntactProtein protein = new IntactProtein("protein");
+                protein.setUniprotkb(((Protein) args[0]).getUniprotkb());
+                return protein;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }
+
+        @SuppressWarnings("unchecked")
+        private Query newIdentityQuery() {
+            Map<String, Object> parameters = new HashMap<>();
+            Query[] query = new Query[1];
+            query[0] = newProxy(Query.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "setParameter":
+                        parameters.put((String) args[0], args[1]);
+                        return query[0];
+                    case "getResultList":
+                        assertEquals(Xref.IDENTITY_MI, parameters.get("identityMi"));
+                        List<Object[]> rows = new ArrayList<>();
+                        for (String proteinId : (Collection<String>) parameters.get("proteinIds")) {
+                            for (String proteinAc : proteinAcsById.getOrDefault(proteinId, List.of())) {
+                                rows.add(new Object[]{proteinId, proteinAc});
+                            }
+                        }
+                        return rows;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+            return query[0];
+        }
+
+        private static IntactProtein newDatabaseProtein(String ac) {
+            IntactProtein protein = new IntactProtein("protein");
+            protein.setAc(ac);
+            return protein;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newProxy(Class<T> type, ProxyHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Fake" + type.getSimpleName();
+                default:
+                    return handler.invoke(method, args);
+            }
+        });
+    }
+
+    private interface ProxyHandler {
+        Object invoke(Method method, Object[] args);
+    }
+}
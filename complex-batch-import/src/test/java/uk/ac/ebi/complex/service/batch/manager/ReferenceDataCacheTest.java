@@ -0,0 +1,165 @@
+package uk.ac.ebi.complex.service.batch.manager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.complex.service.batch.exception.CvTermNotFoundException;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the CV terms cached by the warm-up query, with a fake DAO recording the queries and lookups of CV terms.
+ */
+public class ReferenceDataCacheTest {
+
+    private static final List<Object[]> CV_TERMS = List.of(
+            new Object[]{"topic", "MI:0001", "EBI-1"},
+            // same class and identifier, with different ACs
+            new Object[]{"topic", "MI:0002", "EBI-2"},
+            new Object[]{"topic", "MI:0002", "EBI-3"},
+            // same identifier, with another class
+            new Object[]{"database", "MI:0001", "EBI-4"},
+            // same CV term returned twice
+            new Object[]{"topic", "MI:0005", "EBI-5"},
+            new Object[]{"topic", "MI:0005", "EBI-5"});
+
+    // CV terms found by the DAO when not cached, by identifier
+    private final Map<String, IntactCvTerm> cvTermsById = new HashMap<>();
+    // References returned by the entity manager, by AC, as the same entity is returned in a session
+    private final Map<String, IntactCvTerm> references = new HashMap<>();
+    private final List<String> queries = new ArrayList<>();
+    private final List<String> cvTermLookups = new ArrayList<>();
+
+    private ReferenceDataCache referenceDataCache;
+
+    @BeforeEach
+    public void createCache() {
+        cvTermsById.put("MI:0002", newCvTerm("EBI-3"));
+        cvTermsById.put("MI:0009", newCvTerm("EBI-9"));
+        referenceDataCache = new ReferenceDataCache(newIntactDao());
+    }
+
+    @Test
+    public void testWarmUpQueryRunsOnce() throws Exception {
+        referenceDataCache.warmUp();
+        referenceDataCache.warmUp();
+        referenceDataCache.findCvTerm("topic", "MI:0001");
+
+        assertEquals(1, queries.size());
+
+        // the cache is warmed up again after being cleared, on the first lookup
+        referenceDataCache.clear();
+        referenceDataCache.findCvTerm("topic", "MI:0001");
+        referenceDataCache.findCvTerm("database", "MI:0001");
+
+        assertEquals(2, queries.size());
+        assertEquals(List.of(), cvTermLookups);
+    }
+
+    @Test
+    public void testDuplicatedCvTermsAreSkipped() throws Exception {
+        referenceDataCache.warmUp();
+
+        assertEquals("EBI-3", referenceDataCache.findCvTerm("topic", "MI:0002").getAc());
+        assertEquals("EBI-3", referenceDataCache.findCvTerm("topic", "MI:0002").getAc());
+        // looked up by the DAO once, and then cached
+        assertEquals(List.of("topic_MI:0002"), cvTermLookups);
+
+        // the same CV term returned twice is not a duplicate
+        assertEquals("EBI-5", referenceDataCache.findCvTerm("topic", "MI:0005").getAc());
+        assertEquals("EBI-4", referenceDataCache.findCvTerm("database", "MI:0001").getAc());
+        assertEquals(List.of("topic_MI:0002"), cvTermLookups);
+    }
+
+    @Test
+    public void testReferencesAreReturnedForCachedAndMissingCvTerms() throws Exception {
+        IntactCvTerm cachedCvTerm = referenceDataCache.findCvTerm("topic", "MI:0001");
+        assertSame(references.get("EBI-1"), cachedCvTerm);
+
+        // CV term not in the warm-up query, found by the DAO, and returned as a reference the first time too
+        IntactCvTerm missingCvTerm = referenceDataCache.findCvTerm("topic", "MI:0009");
+        assertSame(references.get("EBI-9"), missingCvTerm);
+        assertNotSame(cvTermsById.get("MI:0009"), missingCvTerm);
+        assertSame(missingCvTerm, referenceDataCache.findCvTerm("topic", "MI:0009"));
+
+        assertThrows(CvTermNotFoundException.class, () -> referenceDataCache.findCvTerm("topic", "MI:0010"));
+        assertEquals(List.of("topic_MI:0009", "topic_MI:0010"), cvTermLookups);
+    }
+
+    private static IntactCvTerm newCvTerm(String ac) {
+        IntactCvTerm cvTerm = new IntactCvTerm(ac);
+        cvTerm.setAc(ac);
+        return cvTerm;
+    }
+
+    private IntactDao newIntactDao() {
+        return newProxy(IntactDao.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getEntityManager":
+                    return newProxy(EntityManager.class, this::answerEntityManager);
+                case "getCvTermDao":
+                    return newProxy(method.getReturnType(), this::answerCvTermDao);
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private Object answerEntityManager(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "createQuery":
+                queries.add((String) args[0]);
+                return newProxy(Query.class, (queryMethod, queryArgs) -> {
+                    if (queryMethod.getName().equals("getResultList")) {
+                        return CV_TERMS;
+                    }
+                    throw new UnsupportedOperationException(queryMethod.getName());
+                });
+            case "getReference":
+                assertEquals(IntactCvTerm.class, args[0]);
+                return references.computeIfAbsent((String) args[1], ReferenceDataCacheTest::newCvTerm);
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private Object answerCvTermDao(Method method, Object[] args) {
+        if (method.getName().equals("getByUniqueIdentifier")) {
+            String id = (String) args[0];
+            String clazz = (String) args[1];
+            cvTermLookups.add(clazz + "_" + id);
+            return "topic".equals(clazz) ? cvTermsById.get(id) : null;
+        }
+        throw new UnsupportedOperationException(method.getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newProxy(Class<T> type, ProxyHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Fake" + type.getSimpleName();
+                default:
+                    return handler.invoke(method, args);
+            }
+        });
+    }
+
+    private interface ProxyHandler {
+        Object invoke(Method method, Object[] args);
+    }
+}
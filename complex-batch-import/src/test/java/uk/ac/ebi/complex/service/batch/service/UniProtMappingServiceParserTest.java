@@ -0,0 +1,158 @@
+package uk.ac.ebi.complex.service.batch.service;
+
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UniProtMappingServiceParserTest {
+
+    private static final String HEADER = "From\tEntry\tReviewed\tEntry Name\tProtein names\tGene Names (primary)\tOrganism (ID)";
+
+    private static final String RESULT = String.join("\n",
+            HEADER,
+            "Q9H8P6\tQ9BXJ9\treviewed\tNAA15_HUMAN\tN-alpha-acetyltransferase 15, NatA auxiliary subunit\tNAA15\t9606",
+            "P29358\tP68251\treviewed\t1433B_SHEEP\t14-3-3 protein beta/alpha\tYWHAB\t9940",
+            "P29358\tP68250\treviewed\t1433B_BOVIN\t14-3-3 protein beta/alpha\tYWHAB\t9913",
+            "F5GXM8\tF5GXM8\tunreviewed\tF5GXM8_HUMAN\tdeleted\t\t9606",
+            "A0A024R161\tA0A024R161\tunreviewed\tA0A024R161_HUMAN\tGuanine nucleotide-binding protein subunit gamma\tDNAJC25-GNG10\t9606",
+            "");
+
+    @Test
+    public void testParseResult() {
+        Map<String, List<UniprotProtein>> result = UniProtMappingService.parseResult(toStream(RESULT), false);
+
+        assertEquals(Set.of("Q9H8P6", "P29358", "F5GXM8", "A0A024R161"), result.keySet());
+        assertEquals(
+                List.of(new UniprotProtein("Q9BXJ9", "NAA15_HUMAN", "NAA15", 9606, true)),
+                result.get("Q9H8P6"));
+        assertEquals(2, result.get("P29358").size());
+        assertFalse(result.get("A0A024R161").get(0).isReviewed());
+        assertEquals("DNAJC25-GNG10", result.get("A0A024R161").get(0).getGeneName());
+    }
+
+    @Test
+    public void testParseGzipResult() throws IOException {
+        Map<String, List<UniprotProtein>> result = UniProtMappingService.parseResult(toGzipStream(RESULT), true);
+
+        assertEquals(UniProtMappingService.parseResult(toStream(RESULT), false), result);
+    }
+
+    @Test
+    public void testDeletedEntriesAreMappedToNothing() {
+        Map<String, List<UniprotProtein>> result = UniProtMappingService.parseResult(toStream(RESULT), false);
+
+        assertNotNull(result.get("F5GXM8"), "Deleted entries should be in the result");
+        assertTrue(result.get("F5GXM8").isEmpty(), "Deleted entries should not be mapped to any protein");
+    }
+
+    @Test
+    public void testLinesWithMissingColumnsAreSkipped() {
+        String result = String.join("\n",
+                HEADER,
+                "Q9H8P6\tQ9BXJ9\treviewed\tNAA15_HUMAN\tN-alpha-acetyltransferase 15, NatA auxiliary subunit\tNAA15",
+                "P29358",
+                "",
+                "P68251\tP68251\treviewed\t1433B_SHEEP\t14-3-3 protein beta/alpha\tYWHAB\t9940");
+
+        Map<String, List<UniprotProtein>> mappings = UniProtMappingService.parseResult(toStream(result), false);
+
+        assertEquals(Set.of("P68251"), mappings.keySet());
+    }
+
+    @Test
+    public void testParseResultGivesSameMappingsAsCsvParser() throws IOException {
+        assertEquals(parseWithCsvReader(RESULT), UniProtMappingService.parseResult(toStream(RESULT), false));
+    }
+
+    @Test
+    public void testFindTabs() {
+        int[] tabs = new int[6];
+        assertTrue(UniProtMappingService.findTabs("a\tbb\t\tc\td\te\tf", tabs));
+        assertArrayEquals(new int[]{1, 4, 5, 7, 9, 11}, tabs);
+        assertFalse(UniProtMappingService.findTabs("a\tb\tc\td\te\tf", new int[6]));
+        assertFalse(UniProtMappingService.findTabs("", new int[6]));
+    }
+
+    @Test
+    public void testIsField() {
+        String line = "P68251\tP68251\treviewed\t1433B_SHEEP\tdeleted\tYWHAB\t9940";
+        int[] tabs = new int[6];
+        assertTrue(UniProtMappingService.findTabs(line, tabs));
+
+        assertTrue(UniProtMappingService.isField(line, tabs[1], tabs[2], "reviewed"));
+        assertFalse(UniProtMappingService.isField(line, tabs[1], tabs[2], "review"));
+        assertFalse(UniProtMappingService.isField(line, tabs[2], tabs[3], "reviewed"));
+        assertTrue(UniProtMappingService.isField(line, tabs[3], tabs[4], "deleted"));
+        assertFalse(UniProtMappingService.isField(line, tabs[4], tabs[5], "deleted"));
+    }
+
+    @Test
+    public void testFailedChunksAreCounted() {
+        UniProtMappingService service = new UniProtMappingService(null, 1);
+        Set<String> failedIds = new HashSet<>();
+
+        Map<String, List<UniprotProtein>> result = service.mapToUniprotProteins(
+                List.of("Q9H8P6", "P29358"),
+                ids -> {
+                    throw new IllegalStateException("Cannot build request");
+                },
+                failedIds);
+
+        assertTrue(result.isEmpty());
+        assertEquals(Set.of("Q9H8P6", "P29358"), failedIds);
+        assertEquals(1, service.getFailedChunks());
+    }
+
+    /**
+     * Parses the result with a CSV reader, as the service did before parsing the lines by their tabs.
+     */
+    private static Map<String, List<UniprotProtein>> parseWithCsvReader(String content) throws IOException {
+        Map<String, List<UniprotProtein>> result = new HashMap<>();
+        try (CSVReader csvReader = new CSVReaderBuilder(new StringReader(content))
+                .withCSVParser(new CSVParserBuilder().withSeparator('\t').build())
+                .withSkipLines(1)
+                .build()) {
+            for (String[] line : csvReader) {
+                if (line.length < 7) {
+                    continue;
+                }
+                List<UniprotProtein> mappings = result.computeIfAbsent(line[0], k -> new ArrayList<>());
+                if (!line[4].equals("deleted")) {
+                    mappings.add(new UniprotProtein(
+                            line[1], line[3], line[5], Integer.valueOf(line[6]), "reviewed".equals(line[2])));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream toGzipStream(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+}
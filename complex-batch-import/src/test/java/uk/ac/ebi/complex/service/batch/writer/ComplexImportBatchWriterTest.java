@@ -0,0 +1,338 @@
+package uk.ac.ebi.complex.service.batch.writer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import psidev.psi.mi.jami.model.Complex;
+import uk.ac.ebi.complex.service.batch.config.AppProperties;
+import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.manager.ComplexManager;
+import uk.ac.ebi.complex.service.batch.model.ComplexToImport;
+import uk.ac.ebi.complex.service.batch.model.ComplexWithMatches;
+import uk.ac.ebi.complex.service.finder.ComplexIndex;
+import uk.ac.ebi.complex.service.finder.ComplexSummary;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
+import uk.ac.ebi.intact.jami.service.IntactService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests of the complexes saved by the writer for each chunk, with a fake service running one statement per complex saved
+ * on an in-memory H2 database, so the statements counted for each chunk are known.
+ */
+public class ComplexImportBatchWriterTest {
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    @TempDir
+    Path tempDir;
+
+    private EntityManager entityManager;
+    private final List<List<String>> savedComplexAcs = new ArrayList<>();
+    private final List<Set<String>> prefetchedProteinIds = new ArrayList<>();
+    private final List<Set<String>> refreshedComplexAcs = new ArrayList<>();
+
+    private ComplexImportBatchWriter<Integer, ComplexToImport<Integer>> writer;
+
+    @BeforeAll
+    public static void createEntityManagerFactory() {
+        entityManagerFactory = Persistence.createEntityManagerFactory("complex-batch-import-test");
+    }
+
+    @AfterAll
+    public static void closeEntityManagerFactory() {
+        entityManagerFactory.close();
+    }
+
+    @BeforeEach
+    public void beginTransaction() {
+        entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+    }
+
+    @AfterEach
+    public void closeWriter() {
+        if (writer != null) {
+            writer.close();
+        }
+        entityManager.getTransaction().rollback();
+        entityManager.close();
+    }
+
+    @Test
+    public void testBulkModeSavesEachComplexOnce() throws Exception {
+        writer = newWriter(true);
+
+        writer.write(newChunk());
+
+        assertEquals(List.of(List.of("CPX-1", "CPX-3", "CPX-2")), savedComplexAcs);
+        assertEquals(3, writer.getTotalPersistenceStatistics().getExecutedStatementCount());
+        assertEquals(List.of(Set.of("CPX-1", "CPX-2", "CPX-3")), refreshedComplexAcs);
+    }
+
+    @Test
+    public void testComplexesAreSavedByGroupWithoutBulkMode() throws Exception {
+        writer = newWriter(false);
+
+        writer.write(newChunk());
+
+        // new complexes, and complexes updated with identity, subset and complex cluster xrefs
+        assertEquals(List.of(List.of("CPX-1", "CPX-3"), List.of("CPX-2"), List.of("CPX-2"), List.of()), savedComplexAcs);
+        assertEquals(4, writer.getTotalPersistenceStatistics().getExecutedStatementCount());
+        assertEquals(List.of(Set.of("CPX-1", "CPX-2", "CPX-3")), refreshedComplexAcs);
+    }
+
+    @Test
+    public void testOnlyProteinsOfNewComplexesArePrefetched() throws Exception {
+        writer = newWriter(true);
+
+        writer.write(newChunk());
+
+        assertEquals(List.of(Set.of("P00001", "P00002", "P00003")), prefetchedProteinIds);
+    }
+
+    @Test
+    public void testStatementsAreCountedOncePerSession() throws Exception {
+        writer = newWriter(true);
+
+        writer.write(newChunk());
+        writer.write(newChunk());
+        assertEquals(6, writer.getTotalPersistenceStatistics().getExecutedStatementCount());
+
+        // statements of the next chunk are counted in its own session
+        entityManager.getTransaction().rollback();
+        entityManager.close();
+        entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+
+        writer.write(newChunk());
+        assertEquals(9, writer.getTotalPersistenceStatistics().getExecutedStatementCount());
+    }
+
+    @Test
+    public void testIndexIsRefreshedAfterCommit() throws Exception {
+        writer = newWriter(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.write(newChunk());
+
+            assertEquals(List.of(), refreshedComplexAcs);
+            assertEquals(0, writer.getTotalPersistenceStatistics().getExecutedStatementCount());
+
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(Set.of("CPX-1", "CPX-2", "CPX-3")), refreshedComplexAcs);
+        assertEquals(3, writer.getTotalPersistenceStatistics().getExecutedStatementCount());
+    }
+
+    @Test
+    public void testIndexIsNotRefreshedAfterRollback() throws Exception {
+        writer = newWriter(true);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.write(newChunk());
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(), refreshedComplexAcs);
+        assertEquals(0, writer.getTotalPersistenceStatistics().getExecutedStatementCount());
+    }
+
+    /**
+     * Two new complexes, and a complex updated with identity and subset xrefs for two of the complexes to import.
+     */
+    private static List<ComplexWithMatches<Integer, ComplexToImport<Integer>>> newChunk() {
+        ComplexSummary existingComplex = new ComplexSummary("CPX-2", "1", LifeCycleStatus.RELEASED, true, List.of("P00004"));
+        return List.of(
+                new ComplexWithMatches<>(newComplexToImport("IMP-1", "P00001", "P00002"), List.of(), List.of(), List.of()),
+                new ComplexWithMatches<>(newComplexToImport("IMP-2", "P00004"), List.of(existingComplex), List.of(), List.of()),
+                new ComplexWithMatches<>(newComplexToImport("IMP-3", "P00003"), List.of(), List.of(existingComplex), List.of()));
+    }
+
+    private static ComplexToImport<Integer> newComplexToImport(String complexId, String... proteinIds) {
+        return new ComplexToImport<>(List.of(complexId), 1, List.of(proteinIds));
+    }
+
+    private static IntactComplex newIntactComplex(String complexAc) {
+        IntactComplex complex = new IntactComplex(complexAc);
+        complex.assignComplexAc(complexAc);
+        complex.setPredictedComplex(true);
+        return complex;
+    }
+
+    private ComplexImportBatchWriter<Integer, ComplexToImport<Integer>> newWriter(boolean bulkPersistenceMode) {
+        ComplexImportBatchWriter<Integer, ComplexToImport<Integer>> newWriter =
+                ComplexImportBatchWriter.<Integer, ComplexToImport<Integer>>builder()
+                        .complexManager(newComplexManager())
+                        .complexIndex(new ComplexIndex(null) {
+                            @Override
+                            public synchronized void refresh(Collection<String> complexAcs) {
+                                refreshedComplexAcs.add(new HashSet<>(complexAcs));
+                            }
+                        })
+                        .intactService(newIntactService())
+                        .fileConfiguration(FileConfiguration.builder()
+                                .reportDirectory(tempDir.toString())
+                                .separator("\t")
+                                .header(true)
+                                .build())
+                        .appProperties(new AppProperties() {
+                            @Override
+                            public boolean isDryRunMode() {
+                                return false;
+                            }
+
+                            @Override
+                            public boolean isBulkPersistenceMode() {
+                                return bulkPersistenceMode;
+                            }
+                        })
+                        .build();
+        newWriter.open(new ExecutionContext());
+        return newWriter;
+    }
+
+    /**
+     * Manager creating the complexes to import as CPX-n for IMP-n, and updating all the existing complexes.
+     */
+    private ComplexManager<Integer, ComplexToImport<Integer>> newComplexManager() {
+        return new ComplexManager<Integer, ComplexToImport<Integer>>(null, null, null, null, null) {
+            @Override
+            public void prefetchProteins(Collection<String> proteinIds) {
+                prefetchedProteinIds.add(new HashSet<>(proteinIds));
+            }
+
+            @Override
+            public IntactComplex newComplex(ComplexToImport<Integer> newComplex) {
+                return newIntactComplex(newComplex.getComplexIds().iterator().next().replace("IMP-", "CPX-"));
+            }
+
+            @Override
+            public IntactComplex getExistingComplex(String complexAc) {
+                return newIntactComplex(complexAc);
+            }
+
+            @Override
+            public IntactComplex mergeComplexWithExistingComplex(ComplexToImport<Integer> newComplex, IntactComplex existingComplex) {
+                return existingComplex;
+            }
+
+            @Override
+            public boolean doesComplexHasIdentityXref(ComplexToImport<Integer> newComplex, IntactComplex existingComplex) {
+                return false;
+            }
+
+            @Override
+            public boolean doesComplexNeedUpdating(ComplexToImport<Integer> newComplex, IntactComplex existingComplex) {
+                return true;
+            }
+
+            @Override
+            public boolean doesComplexNeedSubsetXref(ComplexToImport<Integer> newComplex, IntactComplex existingComplex) {
+                return true;
+            }
+
+            @Override
+            public boolean doesComplexNeedComplexClusterXref(ComplexToImport<Integer> newComplex, IntactComplex existingComplex) {
+                return true;
+            }
+
+            @Override
+            public IntactComplex addSubsetXrefs(ComplexToImport<Integer> newComplex, IntactComplex existingComplex) {
+                return existingComplex;
+            }
+
+            @Override
+            public IntactComplex addComplexClusterXrefs(ComplexToImport<Integer> newComplex, IntactComplex existingComplex) {
+                return existingComplex;
+            }
+
+            @Override
+            protected void addIdentityXrefs(ComplexToImport<Integer> newComplex, IntactComplex existingComplex) {
+            }
+
+            @Override
+            protected void addConfidenceAnnotation(ComplexToImport<Integer> newComplex, IntactComplex exsitingComplex) {
+            }
+
+            @Override
+            protected void setComplexSource(IntactComplex complex) {
+            }
+        };
+    }
+
+    /**
+     * Service recording the complexes saved, and running one statement for each of them.
+     */
+    @SuppressWarnings("unchecked")
+    private IntactService<Complex> newIntactService() {
+        IntactDao intactDao = (IntactDao) Proxy.newProxyInstance(
+                IntactDao.class.getClassLoader(),
+                new Class<?>[]{IntactDao.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getEntityManager":
+                            return entityManager;
+                        case "getSynchronizerContext":
+                            // Only used to initialise the statistics listener of the synchronizers
+                            return Proxy.newProxyInstance(
+                                    method.getReturnType().getClassLoader(),
+                                    new Class<?>[]{method.getReturnType()},
+                                    (contextProxy, contextMethod, contextArgs) -> null);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        return (IntactService<Complex>) Proxy.newProxyInstance(
+                IntactService.class.getClassLoader(),
+                new Class<?>[]{IntactService.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getIntactDao")) {
+                        return intactDao;
+                    }
+                    if (method.getName().equals("saveOrUpdate") && args[0] instanceof Collection) {
+                        List<String> complexAcs = ((Collection<IntactComplex>) args[0])
+                                .stream()
+                                .map(IntactComplex::getComplexAc)
+                                .collect(Collectors.toList());
+                        for (int i = 0; i < complexAcs.size(); i++) {
+                            entityManager.createNativeQuery("select 1").getSingleResult();
+                        }
+                        savedComplexAcs.add(complexAcs);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,121 @@
+package uk.ac.ebi.complex.service.finder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.complex.service.finder.ComplexClusterSolver;
+import uk.ac.ebi.complex.service.finder.ComplexFinderResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link ComplexClusterSolver#findClusters} with adversarial partial matches: pairs of equivalent matches
+ * sharing a hub protein, giving an exponential number of minimal clusters, random overlapping matches, and matches
+ * that can never cover the proteins searched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1)
+public class ComplexClusterSolverBenchmark {
+
+    private static final long SEED = 7L;
+
+    @Param({"10", "20", "30"})
+    private int matchCount;
+
+    @Param({"EQUIVALENT_PAIRS", "OVERLAPPING", "UNCOVERABLE"})
+    private MatchSetup matchSetup;
+
+    @Param({"100000"})
+    private int maxStates;
+
+    private ComplexClusterSolver complexClusterSolver;
+    private List<String> proteins;
+    private List<ComplexFinderResult.PartialMatch<String>> matches;
+
+    public enum MatchSetup {
+        EQUIVALENT_PAIRS,
+        OVERLAPPING,
+        UNCOVERABLE
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        complexClusterSolver = new ComplexClusterSolver(maxStates);
+        proteins = new ArrayList<>();
+        matches = new ArrayList<>();
+        Random random = new Random(SEED);
+
+        switch (matchSetup) {
+            case EQUIVALENT_PAIRS:
+                // Each pair of matches covers the same two proteins, plus a hub protein shared by all of them
+                proteins.add("P0");
+                for (int i = 0; i < matchCount; i++) {
+                    int pair = i / 2;
+                    String firstProtein = "P" + (2 * pair + 1);
+                    String secondProtein = "P" + (2 * pair + 2);
+                    if (i % 2 == 0) {
+                        proteins.add(firstProtein);
+                        proteins.add(secondProtein);
+                    }
+                    matches.add(partialMatch("CPX-" + i, List.of("P0", firstProtein, secondProtein)));
+                }
+                break;
+            case OVERLAPPING:
+                // Random subsets of half of the proteins searched
+                int proteinCount = 12;
+                for (int i = 0; i < proteinCount; i++) {
+                    proteins.add("P" + i);
+                }
+                for (int i = 0; i < matchCount; i++) {
+                    Set<String> matchingProteins = new LinkedHashSet<>();
+                    while (matchingProteins.size() < proteinCount / 2) {
+                        matchingProteins.add(proteins.get(random.nextInt(proteinCount)));
+                    }
+                    matches.add(partialMatch("CPX-" + i, new ArrayList<>(matchingProteins)));
+                }
+                break;
+            default:
+                // All the matches share the first protein, and none of them has the last one
+                for (int i = 0; i <= matchCount; i++) {
+                    proteins.add("P" + i);
+                }
+                for (int i = 0; i < matchCount; i++) {
+                    matches.add(partialMatch("CPX-" + i, List.of("P0", "P" + (1 + random.nextInt(matchCount - 1)))));
+                }
+        }
+    }
+
+    @Benchmark
+    public ComplexClusterSolver.Solution<String> findClusters() {
+        return complexClusterSolver.findClusters(proteins, matches);
+    }
+
+    private static ComplexFinderResult.PartialMatch<String> partialMatch(String complexAc, List<String> proteins) {
+        return new ComplexFinderResult.PartialMatch<>(
+                complexAc,
+                false,
+                ComplexFinderResult.MatchType.PARTIAL_MATCH_PROTEINS_MISSING_IN_COMPLEX,
+                proteins,
+                List.of(),
+                List.of(),
+                complexAc);
+    }
+}
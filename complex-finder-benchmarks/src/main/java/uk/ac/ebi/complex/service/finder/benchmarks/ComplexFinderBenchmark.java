@@ -0,0 +1,141 @@
+package uk.ac.ebi.complex.service.finder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.complex.service.finder.ComplexContainmentGraph;
+import uk.ac.ebi.complex.service.finder.ComplexFinder;
+import uk.ac.ebi.complex.service.finder.ComplexFinderOptions;
+import uk.ac.ebi.complex.service.finder.ComplexFinderResult;
+import uk.ac.ebi.complex.service.finder.ComplexIndex;
+import uk.ac.ebi.complex.service.finder.ComplexParticipantCache;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link ComplexFinder#findComplexWithMatchingProteins(Collection, ComplexFinderOptions)} against a
+ * synthetic population of complexes, for exact matches, partial matches and proteins of complexes used as sub-complex
+ * in many other complexes.
+ * <p>
+ * The finder can be set up as it is used by the import jobs, only with the database, or with the optional cache,
+ * containment graph and index, to measure the effect of each of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class ComplexFinderBenchmark {
+
+    private static final long SEED = 7L;
+    private static final int QUERY_COUNT = 1000;
+
+    @Param({"1000", "10000", "50000", "200000"})
+    private int complexCount;
+
+    @Param({"DATABASE", "CACHE", "GRAPH", "INDEX"})
+    private FinderSetup finderSetup;
+
+    private ComplexFinder complexFinder;
+    private ComplexFinderOptions complexFinderOptions;
+
+    private List<Collection<String>> exactMatchQueries;
+    private List<Collection<String>> partialMatchQueries;
+    private List<Collection<String>> subComplexQueries;
+    private int queryIndex;
+
+    public enum FinderSetup {
+        DATABASE,
+        CACHE,
+        GRAPH,
+        INDEX
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticComplexPopulation population = new SyntheticComplexPopulation(complexCount);
+        IntactDao intactDao = InMemoryIntactDao.create(population);
+
+        switch (finderSetup) {
+            case CACHE:
+                complexFinder = new ComplexFinder(intactDao, null, null, new ComplexParticipantCache());
+                break;
+            case GRAPH:
+                complexFinder = new ComplexFinder(
+                        intactDao, null, new ComplexContainmentGraph(intactDao), new ComplexParticipantCache());
+                break;
+            case INDEX:
+                ComplexIndex complexIndex = new ComplexIndex(intactDao);
+                complexIndex.build();
+                complexFinder = new ComplexFinder(intactDao, complexIndex, new ComplexContainmentGraph(intactDao));
+                break;
+            default:
+                complexFinder = new ComplexFinder(intactDao);
+        }
+
+        complexFinderOptions = ComplexFinderOptions.builder()
+                .checkPredictedComplexes(true)
+                .checkAnyStatusForExactMatches(true)
+                .checkPartialMatches(true)
+                .build();
+
+        Random random = new Random(SEED);
+        List<IntactComplex> complexes = population.getComplexes();
+        List<IntactComplex> hubComplexes = population.getHubComplexes();
+
+        exactMatchQueries = new ArrayList<>();
+        partialMatchQueries = new ArrayList<>();
+        subComplexQueries = new ArrayList<>();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            List<String> proteinIds = population.getProteinIds(complexes.get(random.nextInt(complexes.size())));
+            exactMatchQueries.add(proteinIds);
+
+            // One protein is replaced with a protein from another complex
+            List<String> partialProteinIds = new ArrayList<>(proteinIds);
+            List<String> otherProteinIds = population.getProteinIds(complexes.get(random.nextInt(complexes.size())));
+            partialProteinIds.set(random.nextInt(partialProteinIds.size()), otherProteinIds.get(0));
+            partialMatchQueries.add(partialProteinIds);
+
+            // Proteins of a hub complex plus an extra protein, so all the complexes including the hub are checked
+            List<String> subComplexProteinIds = population.getProteinIds(hubComplexes.get(random.nextInt(hubComplexes.size())));
+            subComplexProteinIds.add(otherProteinIds.get(0));
+            subComplexQueries.add(subComplexProteinIds);
+        }
+    }
+
+    @Benchmark
+    public ComplexFinderResult<IntactComplex> exactMatch() {
+        return complexFinder.findComplexWithMatchingProteins(nextQuery(exactMatchQueries), complexFinderOptions);
+    }
+
+    @Benchmark
+    public ComplexFinderResult<IntactComplex> partialMatch() {
+        return complexFinder.findComplexWithMatchingProteins(nextQuery(partialMatchQueries), complexFinderOptions);
+    }
+
+    @Benchmark
+    public ComplexFinderResult<IntactComplex> subComplexHeavy() {
+        return complexFinder.findComplexWithMatchingProteins(nextQuery(subComplexQueries), complexFinderOptions);
+    }
+
+    private Collection<String> nextQuery(List<Collection<String>> queries) {
+        queryIndex = (queryIndex + 1) % QUERY_COUNT;
+        return queries.get(queryIndex);
+    }
+}
@@ -0,0 +1,90 @@
+package uk.ac.ebi.complex.service.finder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ebi.complex.service.finder.ComplexContainmentGraph;
+import uk.ac.ebi.complex.service.finder.ComplexOrthologFinder;
+import uk.ac.ebi.complex.service.finder.ComplexOrthologIndex;
+import uk.ac.ebi.complex.service.finder.ComplexOrthologSignatureCache;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link ComplexOrthologFinder#findComplexOrthologs(String, Integer, ComplexOrthologFinder.Config)}
+ * against a synthetic population of complexes, looking for the orthologs of complexes known to have one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class ComplexOrthologFinderBenchmark {
+
+    private static final long SEED = 7L;
+    private static final int QUERY_COUNT = 1000;
+
+    @Param({"1000", "10000", "50000", "200000"})
+    private int complexCount;
+
+    @Param({"false", "true"})
+    private boolean useContainmentGraph;
+
+    @Param({"false", "true"})
+    private boolean useOrthologIndex;
+
+    @Param({"false", "true"})
+    private boolean useSignatureCache;
+
+    private ComplexOrthologFinder complexOrthologFinder;
+    private ComplexOrthologFinder.Config config;
+
+    private List<String> complexAcs;
+    private int queryIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticComplexPopulation population = new SyntheticComplexPopulation(complexCount);
+        IntactDao intactDao = InMemoryIntactDao.create(population);
+
+        complexOrthologFinder = new ComplexOrthologFinder(
+                intactDao,
+                useContainmentGraph ? new ComplexContainmentGraph(intactDao) : null,
+                useOrthologIndex ? new ComplexOrthologIndex(intactDao) : null,
+                useSignatureCache ? new ComplexOrthologSignatureCache() : null,
+                null);
+        config = ComplexOrthologFinder.Config.builder()
+                .checkCellularComponentsForCurated(false)
+                .checkCellularComponentsForPredicted(false)
+                .build();
+
+        Random random = new Random(SEED);
+        List<IntactComplex> complexesWithOrthologs = population.getComplexesWithOrthologs();
+        complexAcs = new ArrayList<>();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            complexAcs.add(complexesWithOrthologs.get(random.nextInt(complexesWithOrthologs.size())).getComplexAc());
+        }
+    }
+
+    @Benchmark
+    public Collection<IntactComplex> findComplexOrthologs() {
+        queryIndex = (queryIndex + 1) % QUERY_COUNT;
+        return complexOrthologFinder.findComplexOrthologs(complexAcs.get(queryIndex), null, config);
+    }
+}
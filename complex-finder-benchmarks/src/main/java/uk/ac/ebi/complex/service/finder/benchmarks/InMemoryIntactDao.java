@@ -0,0 +1,241 @@
+package uk.ac.ebi.complex.service.finder.benchmarks;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import uk.ac.ebi.intact.jami.dao.ComplexDao;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.dao.ProteinDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * {@link IntactDao} answering the DAO methods and queries used by the finders from a {@link SyntheticComplexPopulation}.
+ * <p>
+ * Queries are recognised by their parameters, so any new query used by the finders has to be added here.
+ */
+public class InMemoryIntactDao {
+
+    private final SyntheticComplexPopulation population;
+
+    private InMemoryIntactDao(SyntheticComplexPopulation population) {
+        this.population = population;
+    }
+
+    public static IntactDao create(SyntheticComplexPopulation population) {
+        return new InMemoryIntactDao(population).buildIntactDao();
+    }
+
+    private IntactDao buildIntactDao() {
+        ComplexDao complexDao = Mockito.mock(ComplexDao.class, this::answerComplexDao);
+        ProteinDao proteinDao = Mockito.mock(ProteinDao.class, this::answerProteinDao);
+        EntityManager entityManager = Mockito.mock(EntityManager.class, this::answerEntityManager);
+
+        return Mockito.mock(IntactDao.class, invocation -> {
+            switch (invocation.getMethod().getName()) {
+                case "getComplexDao":
+                    return complexDao;
+                case "getProteinDao":
+                    return proteinDao;
+                case "getEntityManager":
+                    return entityManager;
+                default:
+                    return unsupported(invocation);
+            }
+        });
+    }
+
+    private Object answerComplexDao(InvocationOnMock invocation) throws Throwable {
+        switch (invocation.getMethod().getName()) {
+            case "getLatestComplexVersionByComplexAc":
+                return population.getComplexesByComplexAc().get(invocation.<String>getArgument(0));
+            case "getByAc":
+                return population.getComplexesByAc().get(invocation.<String>getArgument(0));
+            case "getComplexesInvolvingSubComplex": {
+                IntactComplex subComplex = population.getComplexesByComplexAc().get(invocation.<String>getArgument(0));
+                return subComplex == null
+                        ? List.of()
+                        : population.getComplexesByAc(population.getComplexAcsBySubComplexAc().getOrDefault(subComplex.getAc(), Set.of()));
+            }
+            case "getComplexesInvolvingProteinsWithEbiAcs": {
+                Set<String> complexAcs = new HashSet<>();
+                for (String proteinAc : invocation.<Collection<String>>getArgument(0)) {
+                    complexAcs.addAll(population.getComplexAcsByProteinAc().getOrDefault(proteinAc, Set.of()));
+                }
+                return population.getComplexesByAc(complexAcs);
+            }
+            default:
+                return unsupported(invocation);
+        }
+    }
+
+    private Object answerProteinDao(InvocationOnMock invocation) throws Throwable {
+        switch (invocation.getMethod().getName()) {
+            case "getByAc":
+                return population.getProteinsByAc().get(invocation.<String>getArgument(0));
+            case "getByCanonicalIds":
+                return invocation.<Collection<String>>getArgument(1)
+                        .stream()
+                        .map(population.getProteinsByUniprotAc()::get)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
+            default:
+                return unsupported(invocation);
+        }
+    }
+
+    private Object answerEntityManager(InvocationOnMock invocation) throws Throwable {
+        if ("createQuery".equals(invocation.getMethod().getName()) && invocation.getArguments().length == 1) {
+            return Mockito.mock(Query.class, new InMemoryQuery(invocation.getArgument(0))::answer);
+        }
+        if ("clear".equals(invocation.getMethod().getName())) {
+            // Nothing is managed by the in-memory DAO
+            return null;
+        }
+        return unsupported(invocation);
+    }
+
+    private static Object unsupported(InvocationOnMock invocation) throws Throwable {
+        if ("toString".equals(invocation.getMethod().getName())) {
+            return Mockito.RETURNS_DEFAULTS.answer(invocation);
+        }
+        throw new UnsupportedOperationException("Not supported by the in-memory DAO: " + invocation.getMethod());
+    }
+
+    private class InMemoryQuery {
+
+        private final String queryString;
+        private final Map<String, Object> parameters = new HashMap<>();
+        private int firstResult = 0;
+        private int maxResults = Integer.MAX_VALUE;
+
+        private InMemoryQuery(String queryString) {
+            this.queryString = queryString;
+        }
+
+        private Object answer(InvocationOnMock invocation) throws Throwable {
+            switch (invocation.getMethod().getName()) {
+                case "setParameter":
+                    parameters.put(invocation.getArgument(0), invocation.getArgument(1));
+                    return invocation.getMock();
+                case "setFirstResult":
+                    firstResult = invocation.getArgument(0);
+                    return invocation.getMock();
+                case "setMaxResults":
+                    maxResults = invocation.getArgument(0);
+                    return invocation.getMock();
+                case "getResultList":
+                    return getResultList();
+                default:
+                    return unsupported(invocation);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<?> getResultList() {
+            if (parameters.containsKey("orthologIds")) {
+                return new ArrayList<>(population.getComplexesWithOrthologsIn((Collection<String>) parameters.get("orthologIds")));
+            }
+            if (parameters.containsKey("subcomplexesAcs")) {
+                // Latest version of the complexes including the sub-complexes with the given complex ACs, as loaded by
+                // the ortholog finder without a graph
+                Set<String> complexAcs = new HashSet<>();
+                for (String subComplexId : (Collection<String>) parameters.get("subcomplexesAcs")) {
+                    IntactComplex subComplex = population.getComplexesByComplexAc().get(subComplexId);
+                    if (subComplex != null) {
+                        complexAcs.addAll(population.getComplexAcsBySubComplexAc().getOrDefault(subComplex.getAc(), Set.of()));
+                    }
+                }
+                return population.getComplexesByAc(complexAcs)
+                        .stream()
+                        .map(complex -> new Object[]{complex, complex.getComplexAc(), complex.getComplexVersion()})
+                        .collect(Collectors.toList());
+            }
+            if (parameters.containsKey("lastAc")) {
+                // Complex ACs and versions, paginated by database AC, as loaded by the complex index
+                String lastAc = (String) parameters.get("lastAc");
+                return population.getComplexes()
+                        .stream()
+                        .filter(complex -> complex.getAc().compareTo(lastAc) > 0)
+                        .sorted(Comparator.comparing(IntactComplex::getAc))
+                        .limit(maxResults)
+                        .map(complex -> new Object[]{complex.getAc(), complex.getComplexAc(), complex.getComplexVersion()})
+                        .collect(Collectors.toList());
+            }
+            if (parameters.containsKey("complexPortalAcs")) {
+                // Latest version of the complexes with the given complex ACs, as loaded by the bulk complex finder
+                return ((Collection<String>) parameters.get("complexPortalAcs"))
+                        .stream()
+                        .map(population.getComplexesByComplexAc()::get)
+                        .filter(Objects::nonNull)
+                        .map(complex -> new Object[]{complex, complex.getComplexAc(), complex.getComplexVersion()})
+                        .collect(Collectors.toList());
+            }
+            if (parameters.containsKey("summaryComplexAcs")) {
+                // Fields of the complex summaries of the latest version of the given complexes
+                return ((Collection<String>) parameters.get("summaryComplexAcs"))
+                        .stream()
+                        .map(population.getComplexesByComplexAc()::get)
+                        .filter(Objects::nonNull)
+                        .map(complex -> new Object[]{
+                                complex.getComplexAc(), complex.getComplexVersion(), complex.isPredictedComplex(), complex.getCvStatus()})
+                        .collect(Collectors.toList());
+            }
+            if (parameters.containsKey("subComplexAcs")) {
+                // Sub-complex edges of the given sub-complexes, as loaded by the bulk complex finder without a graph
+                List<Object[]> edges = new ArrayList<>();
+                for (String subComplexId : (Collection<String>) parameters.get("subComplexAcs")) {
+                    IntactComplex subComplex = population.getComplexesByComplexAc().get(subComplexId);
+                    if (subComplex != null) {
+                        Set<String> complexAcs = population.getComplexAcsBySubComplexAc().getOrDefault(subComplex.getAc(), Set.of());
+                        for (IntactComplex complex : population.getComplexesByAc(complexAcs)) {
+                            edges.add(new Object[]{subComplexId, complex.getComplexAc()});
+                        }
+                    }
+                }
+                return edges;
+            }
+            if (parameters.containsKey("complexPortalMi")) {
+                // Sub-complex edges of the containment graph, as pairs of sub-complex and complex ACs
+                List<Object[]> edges = new ArrayList<>();
+                population.getComplexAcsBySubComplexAc().forEach((subComplexAc, complexAcs) -> {
+                    String subComplexId = population.getComplexesByAc().get(subComplexAc).getComplexAc();
+                    for (IntactComplex complex : population.getComplexesByAc(complexAcs)) {
+                        edges.add(new Object[]{subComplexId, complex.getComplexAc()});
+                    }
+                });
+                return edges;
+            }
+            if (parameters.containsKey("orthologQualifierId")) {
+                // Orthology xrefs of the proteins of complexes, as loaded by the ortholog index
+                List<Object[]> orthologXrefs = new ArrayList<>();
+                population.getComplexAcsByProteinAc().forEach((proteinAc, complexAcs) -> {
+                    for (String orthologId : population.getOrthologIds(population.getProteinsByAc().get(proteinAc))) {
+                        for (String complexAc : complexAcs) {
+                            orthologXrefs.add(new Object[]{complexAc, proteinAc, orthologId});
+                        }
+                    }
+                });
+                return orthologXrefs;
+            }
+            if (parameters.containsKey("complexAcs")) {
+                return population.getComplexesByAc((Collection<String>) parameters.get("complexAcs"));
+            }
+            if (parameters.containsKey("acs")) {
+                return population.getComplexesByAc((Collection<String>) parameters.get("acs"));
+            }
+            throw new UnsupportedOperationException("Query not supported by the in-memory DAO: " + queryString);
+        }
+    }
+}
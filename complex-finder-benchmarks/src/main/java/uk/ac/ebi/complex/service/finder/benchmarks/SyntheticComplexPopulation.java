@@ -0,0 +1,197 @@
+package uk.ac.ebi.complex.service.finder.benchmarks;
+
+import lombok.Getter;
+import psidev.psi.mi.jami.model.CvTerm;
+import psidev.psi.mi.jami.model.Interactor;
+import psidev.psi.mi.jami.model.ModelledParticipant;
+import psidev.psi.mi.jami.model.Xref;
+import psidev.psi.mi.jami.model.impl.DefaultCvTerm;
+import psidev.psi.mi.jami.model.impl.DefaultXref;
+import psidev.psi.mi.jami.utils.CvTermUtils;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactModelledParticipant;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Synthetic population of complexes, used to run the benchmarks without a database.
+ * <p>
+ * Proteins are split in two halves, with each protein of the first half sharing an orthology group with one protein of
+ * the second half. Complexes are built from proteins of the first half, and some of them get an ortholog complex built
+ * with the matching proteins of the second half. Some complexes also include another complex as sub-complex, and a few
+ * hub complexes are used as sub-complex by many complexes.
+ * <p>
+ * The population is generated from a fixed seed, so it is the same for every run with the same size.
+ */
+@Getter
+public class SyntheticComplexPopulation {
+
+    static final String ORTHOLOGY_MI = "MI:2426";
+
+    private static final long SEED = 42L;
+    private static final int PROTEINS_PER_COMPLEX = 2;
+    private static final int MIN_COMPLEX_SIZE = 2;
+    private static final int MAX_COMPLEX_SIZE = 6;
+    private static final double ORTHOLOG_COMPLEX_RATIO = 0.3;
+    private static final double COMPLEX_WITH_SUB_COMPLEX_RATIO = 0.1;
+    private static final double HUB_SUB_COMPLEX_RATIO = 0.5;
+    private static final int HUB_COMPLEX_COUNT = 10;
+
+    private final int complexCount;
+
+    private final List<IntactProtein> proteins = new ArrayList<>();
+    private final List<IntactComplex> complexes = new ArrayList<>();
+    private final List<IntactComplex> hubComplexes = new ArrayList<>();
+    private final List<IntactComplex> complexesWithOrthologs = new ArrayList<>();
+
+    private final Map<String, IntactProtein> proteinsByAc = new HashMap<>();
+    private final Map<String, IntactProtein> proteinsByUniprotAc = new HashMap<>();
+    private final Map<String, IntactComplex> complexesByAc = new HashMap<>();
+    private final Map<String, IntactComplex> complexesByComplexAc = new HashMap<>();
+    // Complexes are indexed by their database AC, as entities are not meant to be used as keys
+    private final Map<String, Set<String>> complexAcsByProteinAc = new HashMap<>();
+    private final Map<String, Set<String>> complexAcsBySubComplexAc = new HashMap<>();
+    private final Map<String, Set<String>> complexAcsByOrthologId = new HashMap<>();
+
+    public SyntheticComplexPopulation(int complexCount) {
+        this.complexCount = complexCount;
+        Random random = new Random(SEED);
+
+        CvTerm proteinType = CvTermUtils.createProteinInteractorType();
+        CvTerm orthologDatabase = new DefaultCvTerm("panther");
+        CvTerm orthologQualifier = new DefaultCvTerm("orthology group");
+        orthologQualifier.setMIIdentifier(ORTHOLOGY_MI);
+
+        int proteinCount = complexCount * PROTEINS_PER_COMPLEX;
+        int orthologGroupCount = proteinCount / 2;
+        for (int i = 0; i < proteinCount; i++) {
+            IntactProtein protein = new IntactProtein("protein-" + i, proteinType);
+            protein.setAc("EBI-P" + i);
+            protein.setUniprotkb(String.format("P%07d", i));
+            protein.getXrefs().add(new DefaultXref(orthologDatabase, "PTHR" + (i % orthologGroupCount), orthologQualifier));
+            proteins.add(protein);
+            proteinsByAc.put(protein.getAc(), protein);
+            proteinsByUniprotAc.put(protein.getUniprotkb(), protein);
+        }
+
+        while (complexes.size() < complexCount) {
+            Set<Integer> proteinIndexes = new LinkedHashSet<>();
+            int complexSize = MIN_COMPLEX_SIZE + random.nextInt(MAX_COMPLEX_SIZE - MIN_COMPLEX_SIZE + 1);
+            while (proteinIndexes.size() < complexSize) {
+                proteinIndexes.add(random.nextInt(orthologGroupCount));
+            }
+
+            IntactComplex subComplex = null;
+            if (hubComplexes.size() == HUB_COMPLEX_COUNT && random.nextDouble() < COMPLEX_WITH_SUB_COMPLEX_RATIO) {
+                subComplex = random.nextDouble() < HUB_SUB_COMPLEX_RATIO
+                        ? hubComplexes.get(random.nextInt(hubComplexes.size()))
+                        : complexes.get(random.nextInt(complexes.size()));
+            }
+
+            IntactComplex complex = addComplex(getProteins(proteinIndexes, 0), subComplex);
+            if (hubComplexes.size() < HUB_COMPLEX_COUNT) {
+                hubComplexes.add(complex);
+            }
+
+            if (subComplex == null && complexes.size() < complexCount && random.nextDouble() < ORTHOLOG_COMPLEX_RATIO) {
+                addComplex(getProteins(proteinIndexes, orthologGroupCount), null);
+                complexesWithOrthologs.add(complex);
+            }
+        }
+    }
+
+    /**
+     * Returns the UniProt accessions of the proteins of the complex, including the ones in its sub-complexes.
+     */
+    public List<String> getProteinIds(IntactComplex complex) {
+        List<String> proteinIds = new ArrayList<>();
+        for (ModelledParticipant participant : complex.getParticipants()) {
+            Interactor interactor = participant.getInteractor();
+            if (interactor instanceof IntactProtein) {
+                proteinIds.add(((IntactProtein) interactor).getUniprotkb());
+            } else if (interactor instanceof IntactComplex) {
+                proteinIds.addAll(getProteinIds((IntactComplex) interactor));
+            }
+        }
+        return proteinIds;
+    }
+
+    /**
+     * Returns the complexes whose proteins all have an ortholog in the given orthology groups, and at least one of them.
+     */
+    public Collection<IntactComplex> getComplexesWithOrthologsIn(Collection<String> orthologIds) {
+        Set<String> candidateAcs = new HashSet<>();
+        for (String orthologId : orthologIds) {
+            candidateAcs.addAll(complexAcsByOrthologId.getOrDefault(orthologId, Set.of()));
+        }
+        return getComplexesByAc(candidateAcs)
+                .stream()
+                .filter(complex -> orthologIds.containsAll(getOrthologIds(complex)))
+                .collect(Collectors.toList());
+    }
+
+    public List<IntactComplex> getComplexesByAc(Collection<String> complexAcs) {
+        return complexAcs.stream()
+                .sorted()
+                .map(complexesByAc::get)
+                .collect(Collectors.toList());
+    }
+
+    private List<IntactProtein> getProteins(Collection<Integer> proteinIndexes, int offset) {
+        return proteinIndexes.stream()
+                .map(proteinIndex -> proteins.get(proteinIndex + offset))
+                .collect(Collectors.toList());
+    }
+
+    private IntactComplex addComplex(Collection<IntactProtein> complexProteins, IntactComplex subComplex) {
+        int index = complexes.size();
+        IntactComplex complex = new IntactComplex("complex-" + index);
+        complex.setAc("EBI-C" + index);
+        complex.assignComplexAc(String.format("CPX-%07d", index));
+        for (IntactProtein protein : complexProteins) {
+            complex.addParticipant(new IntactModelledParticipant(protein));
+            complexAcsByProteinAc.computeIfAbsent(protein.getAc(), key -> new HashSet<>()).add(complex.getAc());
+        }
+        if (subComplex != null) {
+            complex.addParticipant(new IntactModelledParticipant(subComplex));
+            complexAcsBySubComplexAc.computeIfAbsent(subComplex.getAc(), key -> new HashSet<>()).add(complex.getAc());
+        }
+        for (String orthologId : getOrthologIds(complex)) {
+            complexAcsByOrthologId.computeIfAbsent(orthologId, key -> new HashSet<>()).add(complex.getAc());
+        }
+
+        complexes.add(complex);
+        complexesByAc.put(complex.getAc(), complex);
+        complexesByComplexAc.put(complex.getComplexAc(), complex);
+        return complex;
+    }
+
+    public Set<String> getOrthologIds(IntactProtein protein) {
+        return protein.getXrefs()
+                .stream()
+                .filter(xref -> xref.getQualifier() != null && ORTHOLOGY_MI.equals(xref.getQualifier().getMIIdentifier()))
+                .map(Xref::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<String> getOrthologIds(IntactComplex complex) {
+        // Only the proteins directly in the complex, as the ortholog query only looks at direct participants
+        Set<String> orthologIds = new HashSet<>();
+        for (ModelledParticipant participant : complex.getParticipants()) {
+            if (participant.getInteractor() instanceof IntactProtein) {
+                orthologIds.addAll(getOrthologIds((IntactProtein) participant.getInteractor()));
+            }
+        }
+        return orthologIds;
+    }
+}
@@ -0,0 +1,199 @@
+package uk.ac.ebi.complex.service.finder;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Solver of complex clusters: groups of complexes, each of them a partial match with proteins missing in the complex,
+ * that together cover all the proteins of a query.
+ * <p>
+ * Matches are added to a cluster in the order given, as long as each match covers at least one protein still missing,
+ * and shares at least one protein with the matches already in the cluster. Only minimal clusters are returned, those
+ * that do not contain all the complexes of another cluster, sorted by number of complexes.
+ * <p>
+ * Proteins are encoded as bit positions, and each match as a bitmask of its proteins. Partial clusters are pruned
+ * when the remaining matches cannot cover the missing proteins, when the same matches at the same position were
+ * already explored with a subset of the complexes, as any cluster found would not be minimal, and when it is already
+ * known that no cluster can be found from them. Up to {@code maxStates} partial clusters are explored, after which the
+ * clusters found so far are returned, flagged as truncated.
+ */
+public class ComplexClusterSolver {
+
+    public static final int DEFAULT_MAX_STATES = 100_000;
+
+    private final int maxStates;
+
+    public ComplexClusterSolver() {
+        this(DEFAULT_MAX_STATES);
+    }
+
+    public ComplexClusterSolver(int maxStates) {
+        if (maxStates <= 0) {
+            throw new IllegalArgumentException("The maximum number of states must be greater than 0: " + maxStates);
+        }
+        this.maxStates = maxStates;
+    }
+
+    public <T> Solution<T> findClusters(
+            Collection<String> proteins,
+            List<ComplexFinderResult.PartialMatch<T>> matches) {
+
+        Map<String, Integer> proteinBits = new HashMap<>();
+        BitSet proteinsMask = toMask(proteins, proteinBits);
+        BitSet[] matchMasks = new BitSet[matches.size()];
+        for (int i = 0; i < matches.size(); i++) {
+            matchMasks[i] = toMask(matches.get(i).getMatchingProteins(), proteinBits);
+        }
+
+        Search search = new Search(matchMasks);
+        search.explore(0, new BitSet(), proteinsMask, new BitSet());
+
+        List<List<ComplexFinderResult.PartialMatch<T>>> clusters = new ArrayList<>();
+        for (List<BitSet> coversOfSize : search.coversBySize.values()) {
+            for (BitSet cover : coversOfSize) {
+                clusters.add(cover.stream().mapToObj(matches::get).collect(Collectors.toList()));
+            }
+        }
+        return new Solution<>(clusters, search.states, search.truncated);
+    }
+
+    private static BitSet toMask(Collection<String> proteins, Map<String, Integer> proteinBits) {
+        BitSet mask = new BitSet();
+        for (String protein : proteins) {
+            mask.set(proteinBits.computeIfAbsent(protein, key -> proteinBits.size()));
+        }
+        return mask;
+    }
+
+    private class Search {
+
+        private final BitSet[] matchMasks;
+        // Proteins of all the matches from each position to the end
+        private final BitSet[] remainingMasks;
+
+        private final Map<State, List<BitSet>> exploredMatches = new HashMap<>();
+        private final Map<State, Boolean> coverableStates = new HashMap<>();
+        // Minimal clusters found, by number of matches, in the order they were found
+        private final TreeMap<Integer, List<BitSet>> coversBySize = new TreeMap<>();
+
+        private int states = 0;
+        private boolean truncated = false;
+
+        private Search(BitSet[] matchMasks) {
+            this.matchMasks = matchMasks;
+            this.remainingMasks = new BitSet[matchMasks.length + 1];
+            this.remainingMasks[matchMasks.length] = new BitSet();
+            for (int i = matchMasks.length - 1; i >= 0; i--) {
+                remainingMasks[i] = (BitSet) remainingMasks[i + 1].clone();
+                remainingMasks[i].or(matchMasks[i]);
+            }
+        }
+
+        /**
+         * Explores the clusters made of the given matches, plus matches from the given position. Returns whether any
+         * cluster can be found from them.
+         */
+        private boolean explore(int start, BitSet matchingProteins, BitSet missingProteins, BitSet clusterMatches) {
+            if (!containsAll(remainingMasks[start], missingProteins)) {
+                return false;
+            }
+            if (states >= maxStates) {
+                truncated = true;
+                return true;
+            }
+
+            State state = new State(start, matchingProteins);
+            Boolean coverable = coverableStates.get(state);
+            if (Boolean.FALSE.equals(coverable)) {
+                return false;
+            }
+            List<BitSet> explored = exploredMatches.computeIfAbsent(state, key -> new ArrayList<>());
+            for (BitSet exploredClusterMatches : explored) {
+                if (containsAll(clusterMatches, exploredClusterMatches)) {
+                    return coverable == null || coverable;
+                }
+            }
+            explored.add(clusterMatches);
+            states++;
+
+            boolean found = false;
+            for (int i = start; i < matchMasks.length && !truncated; i++) {
+                BitSet matchMask = matchMasks[i];
+                if (!matchMask.intersects(missingProteins)) {
+                    continue;
+                }
+                if (!matchingProteins.isEmpty() && !matchMask.intersects(matchingProteins)) {
+                    continue;
+                }
+
+                BitSet newClusterMatches = (BitSet) clusterMatches.clone();
+                newClusterMatches.set(i);
+                BitSet newMissingProteins = (BitSet) missingProteins.clone();
+                newMissingProteins.andNot(matchMask);
+                if (newMissingProteins.isEmpty()) {
+                    addCover(newClusterMatches);
+                    found = true;
+                } else if (matchMasks.length - start > 1) {
+                    BitSet newMatchingProteins = (BitSet) matchingProteins.clone();
+                    newMatchingProteins.or(matchMask);
+                    found |= explore(i + 1, newMatchingProteins, newMissingProteins, newClusterMatches);
+                }
+            }
+
+            if (!truncated) {
+                coverableStates.put(state, found);
+            }
+            return found;
+        }
+
+        private void addCover(BitSet clusterMatches) {
+            // Clusters can only contain smaller clusters, or be contained by larger ones
+            int size = clusterMatches.cardinality();
+            for (List<BitSet> smallerCovers : coversBySize.headMap(size).values()) {
+                for (BitSet cover : smallerCovers) {
+                    if (containsAll(clusterMatches, cover)) {
+                        return;
+                    }
+                }
+            }
+            for (List<BitSet> largerCovers : coversBySize.tailMap(size, false).values()) {
+                largerCovers.removeIf(cover -> containsAll(cover, clusterMatches));
+            }
+            coversBySize.computeIfAbsent(size, key -> new ArrayList<>()).add(clusterMatches);
+        }
+    }
+
+    private static boolean containsAll(BitSet set, BitSet subset) {
+        for (int i = subset.nextSetBit(0); i >= 0; i = subset.nextSetBit(i + 1)) {
+            if (!set.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class State {
+        private final int start;
+        private final BitSet matchingProteins;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Solution<T> {
+        private final List<List<ComplexFinderResult.PartialMatch<T>>> clusters;
+        private final int exploredStates;
+        private final boolean truncated;
+    }
+}
@@ -0,0 +1,84 @@
+package uk.ac.ebi.complex.service.finder;
+
+import psidev.psi.mi.jami.model.Xref;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+
+import javax.persistence.Query;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Graph of complexes used as sub-complexes in other complexes, from sub-complex AC to the ACs of the complexes
+ * including it.
+ * <p>
+ * The graph is built with a single query the first time it is used, and it is then kept in memory, so finders
+ * can look for super-complexes without querying the database for every sub-complex.
+ */
+public class ComplexContainmentGraph {
+
+    private final IntactDao intactDao;
+
+    private volatile Map<String, Set<String>> parentComplexAcs;
+
+    public ComplexContainmentGraph(IntactDao intactDao) {
+        this.intactDao = intactDao;
+    }
+
+    public synchronized void build() {
+        Map<String, Set<String>> parents = new HashMap<>();
+        for (Object[] edge : getSubComplexEdges()) {
+            String subComplexAc = (String) edge[0];
+            String complexAc = (String) edge[1];
+            if (!subComplexAc.equals(complexAc)) {
+                parents.computeIfAbsent(subComplexAc, key -> new HashSet<>()).add(complexAc);
+            }
+        }
+        this.parentComplexAcs = parents;
+    }
+
+    public boolean isLoaded() {
+        return parentComplexAcs != null;
+    }
+
+    /**
+     * Returns the ACs of the complexes that use the given complex directly as a sub-complex.
+     */
+    public Collection<String> getParentComplexAcs(String complexAc) {
+        return getGraph().getOrDefault(complexAc, Set.of());
+    }
+
+    private Map<String, Set<String>> getGraph() {
+        if (!isLoaded()) {
+            synchronized (this) {
+                if (!isLoaded()) {
+                    build();
+                }
+            }
+        }
+        return parentComplexAcs;
+    }
+
+    private List<Object[]> getSubComplexEdges() {
+        Query query = intactDao.getEntityManager().createQuery("select distinct subComplexXref.id, complexXref.id " +
+                "from IntactComplex complex " +
+                "join complex.dbXrefs as complexXref " +
+                "join complexXref.database as complexDatabase " +
+                "join complexXref.qualifier as complexQualifier " +
+                "join complex.participants as participant " +
+                "join participant.interactor as interactor " +
+                "join interactor.dbXrefs as subComplexXref " +
+                "join subComplexXref.database as subComplexDatabase " +
+                "join subComplexXref.qualifier as subComplexQualifier " +
+                "where complexDatabase.identifier = :complexPortalMi " +
+                "and complexQualifier.identifier = :complexPrimaryMi " +
+                "and subComplexDatabase.identifier = :complexPortalMi " +
+                "and subComplexQualifier.identifier = :complexPrimaryMi");
+        query.setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+        query.setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+        return query.getResultList();
+    }
+}
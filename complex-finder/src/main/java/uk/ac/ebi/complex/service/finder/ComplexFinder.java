@@ -1,197 +1,510 @@
 package uk.ac.ebi.complex.service.finder;
 
-import psidev.psi.mi.jami.model.ModelledComparableParticipant;
-import psidev.psi.mi.jami.model.Protein;
+import lombok.AllArgsConstructor;
+import psidev.psi.mi.jami.model.CvTerm;
 import psidev.psi.mi.jami.model.Xref;
-import psidev.psi.mi.jami.model.impl.DefaultCvTerm;
-import psidev.psi.mi.jami.model.impl.DefaultXref;
-import psidev.psi.mi.jami.utils.CvTermUtils;
-import psidev.psi.mi.jami.utils.comparator.CollectionComparator;
-import psidev.psi.mi.jami.utils.comparator.participant.ModelledComparableParticipantComparator;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
 import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
 import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
 import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
 
+import javax.persistence.Query;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class ComplexFinder {
 
+    public static final String QUERY_TIMER = "complexFinder.query";
+    public static final String CANDIDATE_LOOKUP_TIMER = "complexFinder.candidateLookup";
+    public static final String COMPLEX_LOAD_TIMER = "complexFinder.complexLoad";
+    public static final String PARTICIPANT_EXPANSION_TIMER = "complexFinder.participantExpansion";
+    public static final String COMPARISON_TIMER = "complexFinder.comparison";
+    public static final String SUPER_COMPLEX_LOOKUP_TIMER = "complexFinder.superComplexLookup";
+    public static final String DAO_CALLS_PER_QUERY = "complexFinder.daoCallsPerQuery";
+    public static final String CANDIDATES_PER_QUERY = "complexFinder.candidatesPerQuery";
+    public static final String SUB_COMPLEX_DEPTH = "complexFinder.subComplexDepth";
+    public static final String COMPLEXES_FROM_INDEX = "complexFinder.complexesFromIndex";
+    public static final String COMPLEXES_FROM_DATABASE = "complexFinder.complexesFromDatabase";
+    public static final String PARTIAL_MATCHES_SKIPPED = "complexFinder.partialMatchesSkipped";
+
+    public static final int DEFAULT_IN_LIST_BATCH_SIZE = 500;
+
     private final IntactDao intactDao;
-    private final CollectionComparator<ModelledComparableParticipant> comparableParticipantsComparator;
+    private final ComplexIndex complexIndex;
+    private final ComplexContainmentGraph complexContainmentGraph;
+    private final ComplexParticipantCache complexParticipantCache;
+    private final FinderMetrics finderMetrics;
+
+    private int inListBatchSize = DEFAULT_IN_LIST_BATCH_SIZE;
 
     public ComplexFinder(IntactDao intactDao) {
+        this(intactDao, null, null, null);
+    }
+
+    public ComplexFinder(IntactDao intactDao, ComplexIndex complexIndex) {
+        this(intactDao, complexIndex, null, null);
+    }
+
+    public ComplexFinder(IntactDao intactDao, ComplexIndex complexIndex, ComplexContainmentGraph complexContainmentGraph) {
+        this(intactDao, complexIndex, complexContainmentGraph, null);
+    }
+
+    public ComplexFinder(
+            IntactDao intactDao,
+            ComplexIndex complexIndex,
+            ComplexContainmentGraph complexContainmentGraph,
+            ComplexParticipantCache complexParticipantCache) {
+
+        this(intactDao, complexIndex, complexContainmentGraph, complexParticipantCache, null);
+    }
+
+    public ComplexFinder(
+            IntactDao intactDao,
+            ComplexIndex complexIndex,
+            ComplexContainmentGraph complexContainmentGraph,
+            ComplexParticipantCache complexParticipantCache,
+            FinderMetrics finderMetrics) {
+
         this.intactDao = intactDao;
-        ModelledComparableParticipantComparator participantComparator = new ModelledComparableParticipantComparator();
-        // Ignore stoichiometry for now
-        participantComparator.setIgnoreStoichiometry(true);
-        this.comparableParticipantsComparator = new CollectionComparator<>(participantComparator);
+        this.complexIndex = complexIndex;
+        this.complexContainmentGraph = complexContainmentGraph;
+        this.complexParticipantCache = complexParticipantCache;
+        this.finderMetrics = finderMetrics != null ? finderMetrics : FinderMetrics.NO_OP;
+
+        if (complexParticipantCache != null) {
+            registerCacheGauges("complexFinder.complexProteinCache", complexParticipantCache.getComplexProteinCache());
+        }
     }
 
     public ComplexFinderResult<IntactComplex> findComplexWithMatchingProteins(
             Collection<String> proteinIds,
             ComplexFinderOptions complexFinderOptions) {
 
-        Collection<IntactComplex> allComplexes = getComplexesInvolvingProteins(proteinIds);
+        long start = System.nanoTime();
+        Map<String, IntactProtein> proteinCacheMap = new HashMap<>();
+        AtomicInteger daoCalls = new AtomicInteger();
+
+        ComplexFinderResult<IntactComplex> result = findComplexWithMatchingProteins(
+                proteinIds,
+                getComplexAcsInvolvingProteins(proteinIds, complexFinderOptions, daoCalls),
+                complexAc -> getComplex(complexAc, proteinCacheMap, daoCalls),
+                complexAc -> getComplexAcsInvolvingSubComplex(complexAc, daoCalls),
+                ComplexIndex.IndexedComplex::getComplex,
+                complexFinderOptions);
+
+        setComplexesInResult(result, new HashMap<>(), daoCalls);
+
+        finderMetrics.recordValue(DAO_CALLS_PER_QUERY, daoCalls.get());
+        finderMetrics.recordTimeSince(QUERY_TIMER, start);
+        return result;
+    }
+
+    /**
+     * Projection mode of {@link #findComplexWithMatchingProteins(Collection, ComplexFinderOptions)}.
+     * <p>
+     * Matches only include a {@link ComplexSummary} of each complex, and not the complex entity, so callers can load
+     * the entities they actually need to modify. The summaries are built from a scalar query on the matching complexes,
+     * with the protein ids they were compared by, so they never reference complex entities, with or without a
+     * {@link ComplexIndex}.
+     */
+    public ComplexFinderResult<ComplexSummary> findComplexSummariesWithMatchingProteins(
+            Collection<String> proteinIds,
+            ComplexFinderOptions complexFinderOptions) {
+
+        long start = System.nanoTime();
+        Map<String, IntactProtein> proteinCacheMap = new HashMap<>();
+        AtomicInteger daoCalls = new AtomicInteger();
+
+        ComplexFinderResult<ComplexIndex.IndexedComplex> indexedResult = findComplexWithMatchingProteins(
+                proteinIds,
+                getComplexAcsInvolvingProteins(proteinIds, complexFinderOptions, daoCalls),
+                complexAc -> getComplex(complexAc, proteinCacheMap, daoCalls, false),
+                complexAc -> getComplexAcsInvolvingSubComplex(complexAc, daoCalls),
+                Function.identity(),
+                complexFinderOptions);
+
+        ComplexFinderResult<ComplexSummary> result = toSummaryResult(
+                indexedResult, getComplexSummaryFields(getMatchingComplexAcs(indexedResult), daoCalls));
+
+        finderMetrics.recordValue(DAO_CALLS_PER_QUERY, daoCalls.get());
+        finderMetrics.recordTimeSince(QUERY_TIMER, start);
+        return result;
+    }
 
-        Collection<IntactComplex> complexes;
-        if (complexFinderOptions.isCheckPredictedComplexes()) {
-            complexes = allComplexes;
+    /**
+     * Bulk version of {@link #findComplexWithMatchingProteins(Collection, ComplexFinderOptions)}.
+     * <p>
+     * All the candidate complexes for all the sets of proteins are loaded once, in batches, and then matches for each
+     * set of proteins are searched one after the other in the calling thread, as the entity manager of the
+     * {@link IntactDao} is bound to it. Results are returned keyed by the given sets of proteins.
+     */
+    public Map<Collection<String>, ComplexFinderResult<IntactComplex>> findComplexesWithMatchingProteins(
+            Collection<Collection<String>> proteinIdsCollection,
+            ComplexFinderOptions complexFinderOptions) {
+
+        // DAO calls are counted for the whole bulk query, as they are not made for a single set of proteins
+        AtomicInteger daoCalls = new AtomicInteger();
+        Map<Collection<String>, ComplexFinderResult<IntactComplex>> results = findComplexesWithMatchingProteins(
+                proteinIdsCollection, ComplexIndex.IndexedComplex::getComplex, true, complexFinderOptions, daoCalls);
+
+        setComplexesInResults(results.values(), daoCalls);
+
+        finderMetrics.recordValue(DAO_CALLS_PER_QUERY, daoCalls.get());
+        return results;
+    }
+
+    /**
+     * Projection mode of {@link #findComplexesWithMatchingProteins(Collection, ComplexFinderOptions)}, with matches
+     * including only a {@link ComplexSummary} of each complex, as
+     * {@link #findComplexSummariesWithMatchingProteins(Collection, ComplexFinderOptions)}. The summary fields of the
+     * matching complexes of all the sets of proteins are loaded together, in batches.
+     */
+    public Map<Collection<String>, ComplexFinderResult<ComplexSummary>> findComplexSummariesWithMatchingProteinSets(
+            Collection<Collection<String>> proteinIdsCollection,
+            ComplexFinderOptions complexFinderOptions) {
+
+        AtomicInteger daoCalls = new AtomicInteger();
+        Map<Collection<String>, ComplexFinderResult<ComplexIndex.IndexedComplex>> indexedResults = findComplexesWithMatchingProteins(
+                proteinIdsCollection, Function.identity(), false, complexFinderOptions, daoCalls);
+
+        Set<String> complexAcs = new HashSet<>();
+        for (ComplexFinderResult<ComplexIndex.IndexedComplex> indexedResult : indexedResults.values()) {
+            complexAcs.addAll(getMatchingComplexAcs(indexedResult));
+        }
+        Map<String, Object[]> summaryFields = getComplexSummaryFields(complexAcs, daoCalls);
+
+        Map<Collection<String>, ComplexFinderResult<ComplexSummary>> results = new LinkedHashMap<>();
+        indexedResults.forEach((proteinIds, indexedResult) -> results.put(proteinIds, toSummaryResult(indexedResult, summaryFields)));
+
+        finderMetrics.recordValue(DAO_CALLS_PER_QUERY, daoCalls.get());
+        return results;
+    }
+
+    private <T> Map<Collection<String>, ComplexFinderResult<T>> findComplexesWithMatchingProteins(
+            Collection<Collection<String>> proteinIdsCollection,
+            Function<ComplexIndex.IndexedComplex, T> complexMapper,
+            boolean keepComplexes,
+            ComplexFinderOptions complexFinderOptions,
+            AtomicInteger daoCalls) {
+
+        Function<Collection<String>, Collection<String>> candidatesLoader;
+        Function<String, ComplexIndex.IndexedComplex> complexLoader;
+        Function<String, Collection<String>> superComplexesLoader;
+
+        if (isComplexIndexLoaded()) {
+            Map<String, IntactProtein> proteinCacheMap = new HashMap<>();
+            candidatesLoader = proteinIds -> getComplexAcsInvolvingProteins(proteinIds, complexFinderOptions, daoCalls);
+            // Complexes not in the index, such as complexes created after it was built, are loaded from the database
+            complexLoader = complexAc -> getComplex(complexAc, proteinCacheMap, daoCalls, keepComplexes);
+            superComplexesLoader = complexAc -> getComplexAcsInvolvingSubComplex(complexAc, daoCalls);
         } else {
-            complexes = allComplexes.stream()
-                    .filter(complex -> !complex.isPredictedComplex()) // Filter out predicted complexes
-                    .collect(Collectors.toList());
+            // All the candidate complexes, and the complexes they are sub-complexes of, are loaded before looking
+            // for matches, so each complex is only loaded once for all the sets of proteins
+            Set<String> allProteinIds = proteinIdsCollection.stream()
+                    .flatMap(Collection::stream)
+                    .collect(Collectors.toSet());
+
+            Map<String, ComplexIndex.IndexedComplex> complexes = new HashMap<>();
+            Map<String, Collection<String>> superComplexes = new HashMap<>();
+            Map<String, Set<String>> complexAcsByProteinId = new HashMap<>();
+            loadComplexesInvolvingProteins(
+                    allProteinIds, complexFinderOptions, keepComplexes, complexes, superComplexes, complexAcsByProteinId, daoCalls);
+
+            candidatesLoader = proteinIds -> proteinIds.stream()
+                    .flatMap(proteinId -> complexAcsByProteinId.getOrDefault(proteinId, Set.of()).stream())
+                    .collect(Collectors.toSet());
+            complexLoader = complexes::get;
+            superComplexesLoader = complexAc -> superComplexes.getOrDefault(complexAc, List.of());
         }
 
-        Collection<ModelledComparableParticipant> proteins = proteinIds.stream()
-                .map(proteinId -> new ModelledComparableParticipant(
-                        proteinId,
-                        List.of(new DefaultXref(
-                                new DefaultCvTerm(Xref.UNIPROTKB, Xref.UNIPROTKB_MI),
-                                proteinId,
-                                new DefaultCvTerm(Xref.IDENTITY, Xref.IDENTITY_MI))),
-                        1,
-                        CvTermUtils.createProteinInteractorType()))
-                .collect(Collectors.toList());
+        Map<Collection<String>, ComplexFinderResult<T>> results = new LinkedHashMap<>();
+        for (Collection<String> proteinIds : proteinIdsCollection) {
+            if (!results.containsKey(proteinIds)) {
+                results.put(proteinIds, findComplexWithMatchingProteins(
+                        proteinIds,
+                        candidatesLoader.apply(proteinIds),
+                        complexLoader,
+                        superComplexesLoader,
+                        complexMapper,
+                        complexFinderOptions));
+            }
+        }
+        return results;
+    }
 
-        Map<String, IntactProtein> proteinCacheMap = new HashMap<>();
-        Map<String, ComplexFinderResult.ExactMatch<IntactComplex>> exactMatchesMap = new HashMap<>();
-        Map<String, ComplexFinderResult.PartialMatch<IntactComplex>> partialMatchesMap = new HashMap<>();
+    private <T> ComplexFinderResult<T> findComplexWithMatchingProteins(
+            Collection<String> proteinIds,
+            Collection<String> complexAcs,
+            Function<String, ComplexIndex.IndexedComplex> complexLoader,
+            Function<String, Collection<String>> superComplexesLoader,
+            Function<ComplexIndex.IndexedComplex, T> complexMapper,
+            ComplexFinderOptions complexFinderOptions) {
 
-        for (IntactComplex complex : complexes) {
-            findComplexMatches(complex.getComplexAc(), proteins, proteinCacheMap, exactMatchesMap, partialMatchesMap, complexFinderOptions);
+        ProteinSetFingerprint proteins = ProteinSetFingerprint.ofAccessions(proteinIds);
+        Predicate<ComplexIndex.IndexedComplex> sameProteins = getSameProteinsMatcher(proteins);
+
+        Map<String, ComplexFinderResult.ExactMatch<T>> exactMatchesMap = new HashMap<>();
+        PartialMatches<T> partialMatchesToKeep = new PartialMatches<>(
+                complexFinderOptions.getMaxPartialMatches(), complexFinderOptions.getMinPartialMatchSimilarity());
+
+        // Super-complexes of matching complexes are checked one level at a time, instead of being checked
+        // recursively, the depth being the number of levels of super-complexes checked. Complexes already checked are
+        // skipped, so complexes reached through several sub-complexes are only evaluated once, and cycles of
+        // sub-complexes end.
+        Set<String> checkedComplexAcs = new HashSet<>();
+        Collection<String> complexAcsToCheck = complexAcs;
+        int candidates = 0;
+        int depth = -1;
+        while (!complexAcsToCheck.isEmpty()) {
+            List<String> superComplexAcsToCheck = new ArrayList<>();
+            for (String complexAc : complexAcsToCheck) {
+                if (!checkedComplexAcs.add(complexAc)) {
+                    continue;
+                }
+                candidates++;
+                superComplexAcsToCheck.addAll(findComplexMatches(
+                        complexAc,
+                        proteins,
+                        sameProteins,
+                        complexLoader,
+                        superComplexesLoader,
+                        complexMapper,
+                        exactMatchesMap,
+                        partialMatchesToKeep,
+                        complexFinderOptions));
+            }
+            depth++;
+            complexAcsToCheck = superComplexAcsToCheck;
         }
+        finderMetrics.recordValue(CANDIDATES_PER_QUERY, candidates);
+        finderMetrics.recordValue(SUB_COMPLEX_DEPTH, Math.max(depth, 0));
 
-        List<ComplexFinderResult.ExactMatch<IntactComplex>> exactMatches = new ArrayList<>(exactMatchesMap.values());
-        List<ComplexFinderResult.PartialMatch<IntactComplex>> partialMatches = complexFinderOptions.isCheckPartialMatches()
-                ? new ArrayList<>(partialMatchesMap.values())
+        List<ComplexFinderResult.ExactMatch<T>> exactMatches = new ArrayList<>(exactMatchesMap.values());
+        List<ComplexFinderResult.PartialMatch<T>> partialMatches = complexFinderOptions.isCheckPartialMatches()
+                ? partialMatchesToKeep.getTopPartialMatches()
                 : List.of();
 
         return new ComplexFinderResult<>(proteinIds, exactMatches, partialMatches);
     }
 
-    private void findComplexMatches(
+    private <T> Collection<String> findComplexMatches(
             String complexAc,
-            Collection<ModelledComparableParticipant> proteins,
-            Map<String, IntactProtein> proteinCacheMap,
-            Map<String, ComplexFinderResult.ExactMatch<IntactComplex>> exactMatches,
-            Map<String, ComplexFinderResult.PartialMatch<IntactComplex>> partialMatches,
+            ProteinSetFingerprint proteins,
+            Predicate<ComplexIndex.IndexedComplex> sameProteins,
+            Function<String, ComplexIndex.IndexedComplex> complexLoader,
+            Function<String, Collection<String>> superComplexesLoader,
+            Function<ComplexIndex.IndexedComplex, T> complexMapper,
+            Map<String, ComplexFinderResult.ExactMatch<T>> exactMatches,
+            PartialMatches<T> partialMatches,
             ComplexFinderOptions complexFinderOptions) {
 
         // First we check we haven't already found a match for this complex
         if (!exactMatches.containsKey(complexAc) && !partialMatches.containsKey(complexAc)) {
-            IntactComplex complex = intactDao.getComplexDao().getLatestComplexVersionByComplexAc(complexAc);
+            long loadStart = System.nanoTime();
+            ComplexIndex.IndexedComplex complex = complexLoader.apply(complexAc);
+            finderMetrics.recordTimeSince(COMPLEX_LOAD_TIMER, loadStart);
+            if (complex == null) {
+                return List.of();
+            }
 
             // By default, we only compare against complexes released or ready for release
             if (!complexFinderOptions.isCheckAnyStatusForExactMatches() &&
                     !LifeCycleStatus.RELEASED.equals(complex.getStatus()) &&
                     !LifeCycleStatus.READY_FOR_RELEASE.equals(complex.getStatus())) {
-                return;
+                return List.of();
             }
 
-            Collection<ModelledComparableParticipant> curatedComplexProteins = getProteinComponents(complex, proteinCacheMap);
+            long comparisonStart = System.nanoTime();
+            boolean checkSuperComplexes = compareComplex(
+                    complex, proteins, sameProteins, complexMapper, exactMatches, partialMatches, complexFinderOptions);
+            finderMetrics.recordTimeSince(COMPARISON_TIMER, comparisonStart);
+
+            if (checkSuperComplexes) {
+                // We check if it is used as a sub-complex in any other complex,
+                // and we check for matches on those super-complexes
+                long superComplexLookupStart = System.nanoTime();
+                Collection<String> superComplexAcs = superComplexesLoader.apply(complex.getComplexAc());
+                finderMetrics.recordTimeSince(SUPER_COMPLEX_LOOKUP_TIMER, superComplexLookupStart);
+                return superComplexAcs;
+            }
+        }
+        return List.of();
+    }
 
-            // First we search for exact matches
-            ComplexFinderResult.ExactMatch<IntactComplex> exactMatch = findExactMatch(complex, curatedComplexProteins, proteins);
+    /**
+     * Compares the complex with the proteins, adding it to the exact or partial matches if it matches, and returns
+     * whether the complexes including it as sub-complex have to be checked as well.
+     */
+    private <T> boolean compareComplex(
+            ComplexIndex.IndexedComplex complex,
+            ProteinSetFingerprint proteins,
+            Predicate<ComplexIndex.IndexedComplex> sameProteins,
+            Function<ComplexIndex.IndexedComplex, T> complexMapper,
+            Map<String, ComplexFinderResult.ExactMatch<T>> exactMatches,
+            PartialMatches<T> partialMatches,
+            ComplexFinderOptions complexFinderOptions) {
 
-            if (exactMatch != null) {
-                // If there is an exact match, we add it to the results
-                exactMatches.put(complex.getComplexAc(), exactMatch);
+        ProteinSetFingerprint curatedComplexProteins = complex.getFingerprint();
 
-                // We also check if it is used as a sub-complex in any other complex,
-                // and we check for matches on those super-complexes
-                Collection<IntactComplex> complexesWithMatchComplexAsSubComplex =
-                        this.intactDao.getComplexDao().getComplexesInvolvingSubComplex(complex.getComplexAc());
+        // First we search for exact matches
+        ComplexFinderResult.ExactMatch<T> exactMatch = findExactMatch(complex, sameProteins, complexMapper);
 
-                for (IntactComplex complexB : complexesWithMatchComplexAsSubComplex) {
-                    findComplexMatches(complexB.getComplexAc(), proteins, proteinCacheMap, exactMatches, partialMatches, complexFinderOptions);
+        if (exactMatch != null) {
+            // If there is an exact match, we add it to the results, and we check for matches on its super-complexes
+            exactMatches.put(complex.getComplexAc(), exactMatch);
+            return true;
+        } else {
+            // If no exact matches, we look for partial matches
+
+            // For partial matches, we only consider complexes released or ready for release, and only curated complexes
+            if (!complex.isPredictedComplex() &&
+                    (LifeCycleStatus.RELEASED.equals(complex.getStatus()) || LifeCycleStatus.READY_FOR_RELEASE.equals(complex.getStatus()))) {
+
+                // Complexes that could not be kept even if all their proteins were in common are skipped without
+                // counting the proteins in common. We only check whether all their proteins are in the query, stopping
+                // at the first one missing, to know if their super-complexes have to be checked.
+                if (!complexFinderOptions.isCheckPartialMatches() || !partialMatches.isToKeep(
+                        complex.getComplexAc(), getMaxSimilarity(proteins, curatedComplexProteins, complexFinderOptions))) {
+                    finderMetrics.increment(PARTIAL_MATCHES_SKIPPED);
+                    return curatedComplexProteins.distinctSize() > 0 &&
+                            curatedComplexProteins.distinctSize() < proteins.distinctSize() &&
+                            curatedComplexProteins.isSubsetOf(proteins);
                 }
-            } else {
-                // If no exact matches, we look for partial matches
 
-                // For partial matches, we only consider complexes released or ready for release, and only curated complexes
-                if (!complex.isPredictedComplex() &&
-                        (LifeCycleStatus.RELEASED.equals(complex.getStatus()) || LifeCycleStatus.READY_FOR_RELEASE.equals(complex.getStatus()))) {
+                // Counts are computed first from the protein ids, the lists of proteins are only built
+                // for the partial matches we keep
+                int commonProteins = proteins.countCommonProteins(curatedComplexProteins);
 
-                    ComplexFinderResult.PartialMatch<IntactComplex> partialMatch = findPartialMatch(complex, curatedComplexProteins, proteins);
+                if (commonProteins > 0) {
+                    ComplexFinderResult.MatchType matchType = getPartialMatchType(
+                            commonProteins,
+                            proteins.distinctSize() - commonProteins,
+                            curatedComplexProteins.distinctSize() - commonProteins);
+                    double similarity = getSimilarity(
+                            commonProteins, proteins, curatedComplexProteins, complexFinderOptions);
 
-                    if (partialMatch != null) {
+                    if (partialMatches.isToKeep(complex.getComplexAc(), similarity)) {
                         // If there is a partial match, we add it to the results
-                        partialMatches.put(complex.getComplexAc(), partialMatch);
-
-                        // If the matching complex does not have extra proteins, we check if it is used
-                        // as a sub-complex in any other complex, and we check for matches on those super-complexes
-                        if (partialMatch.getMatchType().equals(ComplexFinderResult.MatchType.PARTIAL_MATCH_PROTEINS_MISSING_IN_COMPLEX)) {
-                            Collection<IntactComplex> complexesWithMatchComplexAsSubComplex =
-                                    this.intactDao.getComplexDao().getComplexesInvolvingSubComplex(complex.getComplexAc());
-
-                            for (IntactComplex complexB : complexesWithMatchComplexAsSubComplex) {
-                                findComplexMatches(complexB.getComplexAc(), proteins, proteinCacheMap, exactMatches, partialMatches, complexFinderOptions);
-                            }
-                        }
+                        partialMatches.add(
+                                complex.getComplexAc(),
+                                similarity,
+                                buildPartialMatch(complex, matchType, curatedComplexProteins, proteins, complexMapper));
                     }
+
+                    // If the matching complex does not have extra proteins, we check for matches on its super-complexes
+                    return matchType.equals(ComplexFinderResult.MatchType.PARTIAL_MATCH_PROTEINS_MISSING_IN_COMPLEX);
                 }
             }
         }
+        return false;
     }
 
-    private ComplexFinderResult.ExactMatch<IntactComplex> findExactMatch(
-            IntactComplex complex,
-            Collection<ModelledComparableParticipant> curatedComplexProteins,
-            Collection<ModelledComparableParticipant> proteins) {
+    private <T> ComplexFinderResult.ExactMatch<T> findExactMatch(
+            ComplexIndex.IndexedComplex complex,
+            Predicate<ComplexIndex.IndexedComplex> sameProteins,
+            Function<ComplexIndex.IndexedComplex, T> complexMapper) {
 
-        if (this.comparableParticipantsComparator.compare(curatedComplexProteins, proteins) == 0) {
+        if (sameProteins.test(complex)) {
             // Exact match at protein level
             return new ComplexFinderResult.ExactMatch<>(
                     complex.getComplexAc(),
                     complex.isPredictedComplex(),
                     getExactMatchType(complex),
-                    complex);
+                    complexMapper.apply(complex));
         }
         return null;
     }
 
-    private ComplexFinderResult.PartialMatch<IntactComplex> findPartialMatch(
-            IntactComplex complex,
-            Collection<ModelledComparableParticipant> curatedComplexProteins,
-            Collection<ModelledComparableParticipant> proteins) {
+    /**
+     * Returns whether a complex has the same proteins as the given fingerprint. With the index, the complexes with the
+     * same proteins are looked up once by fingerprint, and the complexes in the index are matched against them.
+     * Complexes loaded from the database, as they are not in the index, are compared by fingerprint, that is by hash
+     * first and then by accessions in case of collision.
+     */
+    private Predicate<ComplexIndex.IndexedComplex> getSameProteinsMatcher(ProteinSetFingerprint proteins) {
+        if (isComplexIndexLoaded()) {
+            Collection<String> sameProteinsComplexAcs = complexIndex.getComplexAcsWithSameProteins(proteins);
+            return complex -> complex == complexIndex.getComplex(complex.getComplexAc())
+                    ? sameProteinsComplexAcs.contains(complex.getComplexAc())
+                    : proteins.equals(complex.getFingerprint());
+        }
+        return complex -> proteins.equals(complex.getFingerprint());
+    }
+
+    private <T> ComplexFinderResult.PartialMatch<T> buildPartialMatch(
+            ComplexIndex.IndexedComplex complex,
+            ComplexFinderResult.MatchType matchType,
+            ProteinSetFingerprint curatedComplexProteins,
+            ProteinSetFingerprint proteins,
+            Function<ComplexIndex.IndexedComplex, T> complexMapper) {
 
         List<String> matchingProteins = new ArrayList<>();
         List<String> proteinMissingInComplex = new ArrayList<>();
 
-        for (ModelledComparableParticipant protein: proteins) {
-            if (curatedComplexProteins.stream().anyMatch(complexProtein -> complexProtein.getInteractorId().equals(protein.getInteractorId()))) {
-                matchingProteins.add(protein.getInteractorId());
+        for (String proteinId: proteins.getAccessions()) {
+            if (curatedComplexProteins.contains(proteinId)) {
+                matchingProteins.add(proteinId);
             } else {
-                proteinMissingInComplex.add(protein.getInteractorId());
+                proteinMissingInComplex.add(proteinId);
             }
         }
-        if (!matchingProteins.isEmpty()) {
-            List<String> extraProteinsInComplex = curatedComplexProteins.stream()
-                    .map(ModelledComparableParticipant::getInteractorId)
-                    .filter(proteinId -> proteins.stream().noneMatch(protein -> proteinId.equals(protein.getInteractorId())))
-                    .collect(Collectors.toList());
+        List<String> extraProteinsInComplex = curatedComplexProteins.getAccessions()
+                .stream()
+                .filter(proteinId -> !proteins.contains(proteinId))
+                .collect(Collectors.toList());
 
-            return new ComplexFinderResult.PartialMatch<>(
-                    complex.getComplexAc(),
-                    complex.isPredictedComplex(),
-                    getPartialMatchType(matchingProteins, proteinMissingInComplex, extraProteinsInComplex),
-                    matchingProteins,
-                    extraProteinsInComplex,
-                    proteinMissingInComplex,
-                    complex);
+        return new ComplexFinderResult.PartialMatch<>(
+                complex.getComplexAc(),
+                complex.isPredictedComplex(),
+                matchType,
+                matchingProteins,
+                extraProteinsInComplex,
+                proteinMissingInComplex,
+                complexMapper.apply(complex));
+    }
+
+    private double getSimilarity(
+            int commonProteins,
+            ProteinSetFingerprint proteins,
+            ProteinSetFingerprint curatedComplexProteins,
+            ComplexFinderOptions complexFinderOptions) {
+
+        if (ComplexFinderOptions.SimilarityMeasure.OVERLAP.equals(complexFinderOptions.getPartialMatchSimilarityMeasure())) {
+            return (double) commonProteins / Math.min(proteins.distinctSize(), curatedComplexProteins.distinctSize());
         }
-        return null;
+        return (double) commonProteins / (proteins.distinctSize() + curatedComplexProteins.distinctSize() - commonProteins);
+    }
+
+    /**
+     * Returns the highest similarity the complex could have with the proteins, from the number of proteins only.
+     */
+    private double getMaxSimilarity(
+            ProteinSetFingerprint proteins,
+            ProteinSetFingerprint curatedComplexProteins,
+            ComplexFinderOptions complexFinderOptions) {
+
+        if (ComplexFinderOptions.SimilarityMeasure.OVERLAP.equals(complexFinderOptions.getPartialMatchSimilarityMeasure())) {
+            return 1;
+        }
+        return (double) Math.min(proteins.distinctSize(), curatedComplexProteins.distinctSize()) /
+                Math.max(proteins.distinctSize(), curatedComplexProteins.distinctSize());
     }
 
-    private ComplexFinderResult.MatchType getExactMatchType(IntactComplex complex) {
-        Collection<ModelledComparableParticipant> notProteinComponentIds = getNotProteinComponents(complex);
-        if (notProteinComponentIds.isEmpty()) {
+    private ComplexFinderResult.MatchType getExactMatchType(ComplexIndex.IndexedComplex complex) {
+        if (!complex.isWithNonProteinComponents()) {
             return ComplexFinderResult.MatchType.EXACT_MATCH;
         } else {
             return ComplexFinderResult.MatchType.EXACT_MATCH_AT_PROTEIN_LEVEL;
@@ -199,20 +512,20 @@ public class ComplexFinder {
     }
 
     private ComplexFinderResult.MatchType getPartialMatchType(
-            List<String> matchingProteins,
-            List<String> proteinMissingInComplex,
-            List<String> extraProteinsInComplex) {
+            int matchingProteins,
+            int proteinMissingInComplex,
+            int extraProteinsInComplex) {
 
-        if (!matchingProteins.isEmpty()) {
-            if (proteinMissingInComplex.isEmpty()) {
-                if (extraProteinsInComplex.isEmpty()) {
+        if (matchingProteins > 0) {
+            if (proteinMissingInComplex == 0) {
+                if (extraProteinsInComplex == 0) {
                     // This should had been an exact match
                     throw new RuntimeException("Unexpected exact match");
                 } else {
                     return ComplexFinderResult.MatchType.PARTIAL_MATCH_SUBSET_OF_COMPLEX;
                 }
             } else {
-                if (extraProteinsInComplex.isEmpty()) {
+                if (extraProteinsInComplex == 0) {
                     return ComplexFinderResult.MatchType.PARTIAL_MATCH_PROTEINS_MISSING_IN_COMPLEX;
                 } else {
                     return ComplexFinderResult.MatchType.PARTIAL_MATCH_OTHER;
@@ -222,32 +535,475 @@ public class ComplexFinder {
         return null;
     }
 
-    private Collection<ModelledComparableParticipant> getProteinComponents(
+    private ComplexIndex.IndexedComplex getComplex(
+            String complexAc,
+            Map<String, IntactProtein> proteinCacheMap,
+            AtomicInteger daoCalls) {
+
+        return getComplex(complexAc, proteinCacheMap, daoCalls, true);
+    }
+
+    private ComplexIndex.IndexedComplex getComplex(
+            String complexAc,
+            Map<String, IntactProtein> proteinCacheMap,
+            AtomicInteger daoCalls,
+            boolean keepComplex) {
+
+        if (isComplexIndexLoaded()) {
+            ComplexIndex.IndexedComplex indexedComplex = complexIndex.getComplex(complexAc);
+            if (indexedComplex != null) {
+                finderMetrics.increment(COMPLEXES_FROM_INDEX);
+                return indexedComplex;
+            }
+        }
+        // The complex is not in the index, so we load it from the database
+        finderMetrics.increment(COMPLEXES_FROM_DATABASE);
+        daoCalls.incrementAndGet();
+        IntactComplex complex = intactDao.getComplexDao().getLatestComplexVersionByComplexAc(complexAc);
+        if (complex == null) {
+            return null;
+        }
+        return ComplexIndex.indexComplex(complex, getProteinComponents(complex, proteinCacheMap, daoCalls), keepComplex);
+    }
+
+    private Set<String> getMatchingComplexAcs(ComplexFinderResult<?> result) {
+        Set<String> complexAcs = new HashSet<>();
+        result.getExactMatches().forEach(exactMatch -> complexAcs.add(exactMatch.getComplexAc()));
+        result.getPartialMatches().forEach(partialMatch -> complexAcs.add(partialMatch.getComplexAc()));
+        return complexAcs;
+    }
+
+    private ComplexFinderResult<ComplexSummary> toSummaryResult(
+            ComplexFinderResult<ComplexIndex.IndexedComplex> result,
+            Map<String, Object[]> summaryFields) {
+
+        List<ComplexFinderResult.ExactMatch<ComplexSummary>> exactMatches = result.getExactMatches()
+                .stream()
+                .map(exactMatch -> new ComplexFinderResult.ExactMatch<>(
+                        exactMatch.getComplexAc(),
+                        exactMatch.isPredictedComplex(),
+                        exactMatch.getMatchType(),
+                        buildComplexSummary(exactMatch.getComplex(), summaryFields)))
+                .collect(Collectors.toList());
+        List<ComplexFinderResult.PartialMatch<ComplexSummary>> partialMatches = result.getPartialMatches()
+                .stream()
+                .map(partialMatch -> new ComplexFinderResult.PartialMatch<>(
+                        partialMatch.getComplexAc(),
+                        partialMatch.isPredictedComplex(),
+                        partialMatch.getMatchType(),
+                        partialMatch.getMatchingProteins(),
+                        partialMatch.getExtraProteinsInComplex(),
+                        partialMatch.getProteinMissingInComplex(),
+                        buildComplexSummary(partialMatch.getComplex(), summaryFields)))
+                .collect(Collectors.toList());
+
+        return new ComplexFinderResult<>(result.getProteins(), exactMatches, partialMatches);
+    }
+
+    private ComplexSummary buildComplexSummary(ComplexIndex.IndexedComplex complex, Map<String, Object[]> summaryFields) {
+        Object[] fields = summaryFields.get(complex.getComplexAc());
+        if (fields == null) {
+            // The complex has been deleted since it was compared
+            return ComplexSummary.of(complex);
+        }
+        return new ComplexSummary(
+                complex.getComplexAc(),
+                (String) fields[1],
+                LifeCycleStatus.toLifeCycleStatus((CvTerm) fields[3]),
+                (Boolean) fields[2],
+                complex.getFingerprint().getAccessions());
+    }
+
+    /**
+     * Returns the complex AC, version, predicted flag and status of the latest version of the given complexes, keyed by
+     * complex AC, without loading the complexes.
+     */
+    private Map<String, Object[]> getComplexSummaryFields(Collection<String> complexAcs, AtomicInteger daoCalls) {
+        Map<String, Object[]> summaryFields = new HashMap<>();
+
+        List<String> complexAcsToLoad = new ArrayList<>(complexAcs);
+        for (int i = 0; i < complexAcsToLoad.size(); i += inListBatchSize) {
+            daoCalls.incrementAndGet();
+            Query query = intactDao.getEntityManager().createQuery("select complexXref.id, complexXref.version, complex.predictedComplex, status " +
+                    "from IntactComplex complex " +
+                    "join complex.dbXrefs as complexXref " +
+                    "join complexXref.database as complexDatabase " +
+                    "join complexXref.qualifier as complexQualifier " +
+                    "left join complex.cvStatus as status " +
+                    "where complexDatabase.identifier = :complexPortalMi " +
+                    "and complexQualifier.identifier = :complexPrimaryMi " +
+                    "and complexXref.id in (:summaryComplexAcs)");
+            query.setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+            query.setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+            query.setParameter("summaryComplexAcs", complexAcsToLoad.subList(i, Math.min(i + inListBatchSize, complexAcsToLoad.size())));
+
+            List<Object[]> complexFields = query.getResultList();
+            for (Object[] fields : complexFields) {
+                String complexAc = (String) fields[0];
+                Object[] otherFields = summaryFields.get(complexAc);
+                if (otherFields == null || ComplexIndex.isLaterVersion((String) fields[1], (String) otherFields[1])) {
+                    summaryFields.put(complexAc, fields);
+                }
+            }
+        }
+        return summaryFields;
+    }
+
+    private ProteinSetFingerprint getProteinComponents(
             IntactComplex complex,
-            Map<String, IntactProtein> proteinCacheMap) {
-
-        return complex.getComparableParticipants(
-                true,
-                proteinAc -> {
-                    if (!proteinCacheMap.containsKey(proteinAc)) {
-                        IntactProtein protein = intactDao.getProteinDao().getByAc(proteinAc);
-                        proteinCacheMap.put(proteinAc, protein);
-                    }
-                    return proteinCacheMap.get(proteinAc);
+            Map<String, IntactProtein> proteinCacheMap,
+            AtomicInteger daoCalls) {
+
+        long start = System.nanoTime();
+        // Proteins are only cached for the current search, as they are bound to its transaction
+        Function<String, IntactProtein> proteinLoader = proteinAc -> {
+            if (!proteinCacheMap.containsKey(proteinAc)) {
+                daoCalls.incrementAndGet();
+                IntactProtein protein = intactDao.getProteinDao().getByAc(proteinAc);
+                proteinCacheMap.put(proteinAc, protein);
+            }
+            return proteinCacheMap.get(proteinAc);
+        };
+        ProteinSetFingerprint proteinComponents = complexParticipantCache != null
+                ? complexParticipantCache.getComplexProteins(complex, proteinLoader)
+                : ProteinSetFingerprint.ofComplex(complex, proteinLoader);
+        finderMetrics.recordTimeSince(PARTICIPANT_EXPANSION_TIMER, start);
+        return proteinComponents;
+    }
+
+    private void setComplexesInResult(
+            ComplexFinderResult<IntactComplex> result,
+            Map<String, IntactComplex> complexCacheMap,
+            AtomicInteger daoCalls) {
+
+        // Complexes in the index do not keep the entity, so we only load it from the database for matching complexes
+        for (ComplexFinderResult.ExactMatch<IntactComplex> exactMatch : result.getExactMatches()) {
+            if (exactMatch.getComplex() == null) {
+                exactMatch.setComplex(getComplexEntity(exactMatch.getComplexAc(), complexCacheMap, daoCalls));
+            }
+        }
+        for (ComplexFinderResult.PartialMatch<IntactComplex> partialMatch : result.getPartialMatches()) {
+            if (partialMatch.getComplex() == null) {
+                partialMatch.setComplex(getComplexEntity(partialMatch.getComplexAc(), complexCacheMap, daoCalls));
+            }
+        }
+    }
+
+    private void setComplexesInResults(
+            Collection<ComplexFinderResult<IntactComplex>> results,
+            AtomicInteger daoCalls) {
+
+        // The complexes of the matches of all the results are loaded together, in batches
+        Set<String> complexAcs = new HashSet<>();
+        for (ComplexFinderResult<IntactComplex> result : results) {
+            result.getExactMatches().stream()
+                    .filter(exactMatch -> exactMatch.getComplex() == null)
+                    .forEach(exactMatch -> complexAcs.add(exactMatch.getComplexAc()));
+            result.getPartialMatches().stream()
+                    .filter(partialMatch -> partialMatch.getComplex() == null)
+                    .forEach(partialMatch -> complexAcs.add(partialMatch.getComplexAc()));
+        }
+        Map<String, IntactComplex> complexCacheMap = getLatestComplexVersions(complexAcs, daoCalls);
+        for (ComplexFinderResult<IntactComplex> result : results) {
+            setComplexesInResult(result, complexCacheMap, daoCalls);
+        }
+    }
+
+    private IntactComplex getComplexEntity(
+            String complexAc,
+            Map<String, IntactComplex> complexCacheMap,
+            AtomicInteger daoCalls) {
+
+        if (!complexCacheMap.containsKey(complexAc)) {
+            daoCalls.incrementAndGet();
+            complexCacheMap.put(complexAc, intactDao.getComplexDao().getLatestComplexVersionByComplexAc(complexAc));
+        }
+        return complexCacheMap.get(complexAc);
+    }
+
+    private void loadComplexesInvolvingProteins(
+            Collection<String> proteinIds,
+            ComplexFinderOptions complexFinderOptions,
+            boolean keepComplexes,
+            Map<String, ComplexIndex.IndexedComplex> complexes,
+            Map<String, Collection<String>> superComplexes,
+            Map<String, Set<String>> complexAcsByProteinId,
+            AtomicInteger daoCalls) {
+
+        Map<String, IntactProtein> proteinCacheMap = new HashMap<>();
+
+        // Complexes are loaded one level of super-complexes at a time, all the complexes of a level in batches
+        Collection<String> candidateComplexAcs = getComplexAcsInvolvingProteins(proteinIds, complexFinderOptions, daoCalls);
+        Set<String> complexAcsToLoad = new HashSet<>(candidateComplexAcs);
+        while (!complexAcsToLoad.isEmpty()) {
+            long loadStart = System.nanoTime();
+            Map<String, IntactComplex> loadedComplexes = getLatestComplexVersions(complexAcsToLoad, daoCalls);
+            finderMetrics.recordTimeSince(COMPLEX_LOAD_TIMER, loadStart);
+
+            for (String complexAc : complexAcsToLoad) {
+                IntactComplex complex = loadedComplexes.get(complexAc);
+                if (complex == null) {
+                    complexes.put(complexAc, null);
+                    continue;
+                }
+                finderMetrics.increment(COMPLEXES_FROM_DATABASE);
+                complexes.put(complexAc, ComplexIndex.indexComplex(complex, getProteinComponents(complex, proteinCacheMap, daoCalls), keepComplexes));
+            }
+
+            // Super-complexes are loaded as well, as they are checked when the sub-complex matches. They are looked up
+            // for all the complexes of the level together
+            long superComplexLookupStart = System.nanoTime();
+            Map<String, Set<String>> superComplexAcsBySubComplexAc = getComplexAcsInvolvingSubComplexes(loadedComplexes.keySet(), daoCalls);
+            finderMetrics.recordTimeSince(SUPER_COMPLEX_LOOKUP_TIMER, superComplexLookupStart);
+            Set<String> superComplexAcsToLoad = new HashSet<>();
+            for (String complexAc : loadedComplexes.keySet()) {
+                Collection<String> superComplexAcs = superComplexAcsBySubComplexAc.getOrDefault(complexAc, Set.of());
+                superComplexes.put(complexAc, superComplexAcs);
+                superComplexAcsToLoad.addAll(superComplexAcs);
+            }
+            superComplexAcsToLoad.removeAll(complexes.keySet());
+            complexAcsToLoad = superComplexAcsToLoad;
+        }
+
+        for (String complexAc : new HashSet<>(candidateComplexAcs)) {
+            ComplexIndex.IndexedComplex complex = complexes.get(complexAc);
+            if (complex != null) {
+                for (String proteinId : complex.getProteinIds()) {
+                    complexAcsByProteinId.computeIfAbsent(proteinId, key -> new HashSet<>()).add(complexAc);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the latest version of the given complexes, keyed by complex AC. The complex ACs are split in batches,
+     * so the IN lists of the queries stay bounded.
+     */
+    private Map<String, IntactComplex> getLatestComplexVersions(Collection<String> complexAcs, AtomicInteger daoCalls) {
+        Map<String, IntactComplex> complexesByComplexAc = new HashMap<>();
+        Map<String, String> versionsByComplexAc = new HashMap<>();
+
+        List<String> complexAcsToLoad = new ArrayList<>(complexAcs);
+        for (int i = 0; i < complexAcsToLoad.size(); i += inListBatchSize) {
+            daoCalls.incrementAndGet();
+            Query query = intactDao.getEntityManager().createQuery("select complex, complexXref.id, complexXref.version " +
+                    "from IntactComplex complex " +
+                    "join complex.dbXrefs as complexXref " +
+                    "join complexXref.database as complexDatabase " +
+                    "join complexXref.qualifier as complexQualifier " +
+                    "where complexDatabase.identifier = :complexPortalMi " +
+                    "and complexQualifier.identifier = :complexPrimaryMi " +
+                    "and complexXref.id in (:complexPortalAcs)");
+            query.setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+            query.setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+            query.setParameter("complexPortalAcs", complexAcsToLoad.subList(i, Math.min(i + inListBatchSize, complexAcsToLoad.size())));
+
+            List<Object[]> complexVersions = query.getResultList();
+            for (Object[] complexVersion : complexVersions) {
+                IntactComplex complex = (IntactComplex) complexVersion[0];
+                String complexAc = (String) complexVersion[1];
+                String version = (String) complexVersion[2];
+                if (!complexesByComplexAc.containsKey(complexAc) ||
+                        ComplexIndex.isLaterVersion(version, versionsByComplexAc.get(complexAc))) {
+                    complexesByComplexAc.put(complexAc, complex);
+                    versionsByComplexAc.put(complexAc, version);
                 }
-        );
+            }
+        }
+        return complexesByComplexAc;
     }
 
-    private Collection<ModelledComparableParticipant> getNotProteinComponents(IntactComplex complex) {
-        return complex.getAllExpandedParticipants()
+    private Collection<String> getComplexAcsInvolvingSubComplex(String complexAc, AtomicInteger daoCalls) {
+        if (complexContainmentGraph != null) {
+            return complexContainmentGraph.getParentComplexAcs(complexAc);
+        }
+        if (isComplexIndexLoaded()) {
+            return complexIndex.getComplexAcsInvolvingSubComplex(complexAc);
+        }
+        daoCalls.incrementAndGet();
+        return this.intactDao.getComplexDao().getComplexesInvolvingSubComplex(complexAc)
                 .stream()
-                .filter(component -> !Protein.PROTEIN_MI.equals(component.getInteractorType().getMIIdentifier()))
+                .map(IntactComplex::getComplexAc)
                 .collect(Collectors.toList());
     }
 
-    private Collection<IntactComplex> getComplexesInvolvingProteins(Collection<String> proteinIds) {
-        Collection<IntactProtein> proteins = this.intactDao.getProteinDao().getByCanonicalIds(Xref.UNIPROTKB_MI, proteinIds);
-        Collection<String> proteinAcs = proteins.stream().map(IntactProtein::getAc).collect(Collectors.toList());
-        return this.intactDao.getComplexDao().getComplexesInvolvingProteinsWithEbiAcs(proteinAcs);
+    /**
+     * Returns the ACs of the complexes using each of the given complexes directly as a sub-complex, keyed by sub-complex
+     * AC. Without a containment graph, they are loaded with one query per batch of sub-complexes.
+     */
+    private Map<String, Set<String>> getComplexAcsInvolvingSubComplexes(Collection<String> complexAcs, AtomicInteger daoCalls) {
+        Map<String, Set<String>> superComplexAcs = new HashMap<>();
+        if (complexContainmentGraph != null) {
+            for (String complexAc : complexAcs) {
+                superComplexAcs.put(complexAc, new HashSet<>(complexContainmentGraph.getParentComplexAcs(complexAc)));
+            }
+            return superComplexAcs;
+        }
+
+        List<String> subComplexAcsToLoad = new ArrayList<>(complexAcs);
+        for (int i = 0; i < subComplexAcsToLoad.size(); i += inListBatchSize) {
+            daoCalls.incrementAndGet();
+            Query query = intactDao.getEntityManager().createQuery("select distinct subComplexXref.id, complexXref.id " +
+                    "from IntactComplex complex " +
+                    "join complex.dbXrefs as complexXref " +
+                    "join complexXref.database as complexDatabase " +
+                    "join complexXref.qualifier as complexQualifier " +
+                    "join complex.participants as participant " +
+                    "join participant.interactor as interactor " +
+                    "join interactor.dbXrefs as subComplexXref " +
+                    "join subComplexXref.database as subComplexDatabase " +
+                    "join subComplexXref.qualifier as subComplexQualifier " +
+                    "where complexDatabase.identifier = :complexPortalMi " +
+                    "and complexQualifier.identifier = :complexPrimaryMi " +
+                    "and subComplexDatabase.identifier = :complexPortalMi " +
+                    "and subComplexQualifier.identifier = :complexPrimaryMi " +
+                    "and subComplexXref.id in (:subComplexAcs)");
+            query.setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+            query.setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+            query.setParameter("subComplexAcs", subComplexAcsToLoad.subList(i, Math.min(i + inListBatchSize, subComplexAcsToLoad.size())));
+
+            List<Object[]> edges = query.getResultList();
+            for (Object[] edge : edges) {
+                String subComplexAc = (String) edge[0];
+                String complexAc = (String) edge[1];
+                if (!subComplexAc.equals(complexAc)) {
+                    superComplexAcs.computeIfAbsent(subComplexAc, key -> new HashSet<>()).add(complexAc);
+                }
+            }
+        }
+        return superComplexAcs;
+    }
+
+    private Collection<String> getComplexAcsInvolvingProteins(
+            Collection<String> proteinIds,
+            ComplexFinderOptions complexFinderOptions,
+            AtomicInteger daoCalls) {
+
+        long start = System.nanoTime();
+        Collection<String> complexAcs;
+        if (isComplexIndexLoaded()) {
+            complexAcs = complexIndex.getComplexAcsInvolvingProteins(proteinIds)
+                    .stream()
+                    .filter(complexAc -> complexFinderOptions.isCheckPredictedComplexes() ||
+                            isCuratedComplex(complexIndex.getComplex(complexAc))) // Filter out predicted complexes
+                    .collect(Collectors.toList());
+        } else {
+            // Proteins and complexes are looked up in batches, so the IN lists of the queries stay bounded
+            List<String> proteinIdsToLoad = new ArrayList<>(new LinkedHashSet<>(proteinIds));
+            List<String> proteinAcs = new ArrayList<>();
+            for (int i = 0; i < proteinIdsToLoad.size(); i += inListBatchSize) {
+                daoCalls.incrementAndGet();
+                this.intactDao.getProteinDao()
+                        .getByCanonicalIds(Xref.UNIPROTKB_MI, proteinIdsToLoad.subList(i, Math.min(i + inListBatchSize, proteinIdsToLoad.size())))
+                        .forEach(protein -> proteinAcs.add(protein.getAc()));
+            }
+            Set<String> candidateComplexAcs = new LinkedHashSet<>();
+            for (int i = 0; i < proteinAcs.size(); i += inListBatchSize) {
+                daoCalls.incrementAndGet();
+                this.intactDao.getComplexDao()
+                        .getComplexesInvolvingProteinsWithEbiAcs(proteinAcs.subList(i, Math.min(i + inListBatchSize, proteinAcs.size())))
+                        .stream()
+                        .filter(complex -> complexFinderOptions.isCheckPredictedComplexes() || !complex.isPredictedComplex()) // Filter out predicted complexes
+                        .forEach(complex -> candidateComplexAcs.add(complex.getComplexAc()));
+            }
+            complexAcs = new ArrayList<>(candidateComplexAcs);
+        }
+        finderMetrics.recordTimeSince(CANDIDATE_LOOKUP_TIMER, start);
+        return complexAcs;
+    }
+
+    private boolean isCuratedComplex(ComplexIndex.IndexedComplex complex) {
+        // Complexes removed from the index while it is refreshed are kept, and they are loaded from the database
+        return complex == null || !complex.isPredictedComplex();
+    }
+
+    private boolean isComplexIndexLoaded() {
+        return complexIndex != null && complexIndex.isLoaded();
+    }
+
+    public int getInListBatchSize() {
+        return inListBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of ids in the IN lists of the queries used to look up proteins, complexes and
+     * super-complexes.
+     */
+    public void setInListBatchSize(int inListBatchSize) {
+        if (inListBatchSize <= 0) {
+            throw new IllegalArgumentException("IN list batch size must be greater than 0: " + inListBatchSize);
+        }
+        this.inListBatchSize = inListBatchSize;
+    }
+
+    private void registerCacheGauges(String name, LruCache<?, ?> cache) {
+        finderMetrics.gauge(name + ".hits", cache::getHits);
+        finderMetrics.gauge(name + ".misses", cache::getMisses);
+        finderMetrics.gauge(name + ".evictions", cache::getEvictions);
+        finderMetrics.gauge(name + ".size", cache::size);
+    }
+
+    /**
+     * Partial matches kept for a search. Partial matches are ranked by similarity, and then by complex AC, so ties are
+     * always broken the same way. When there is a maximum number of partial matches, only the best ones are kept, in a
+     * min-heap bounded to that size, so each new partial match is only compared with the worst partial match kept.
+     */
+    private static class PartialMatches<T> {
+
+        private static final Comparator<RankedPartialMatch<?>> RANKING = Comparator
+                .comparingDouble((RankedPartialMatch<?> rankedPartialMatch) -> rankedPartialMatch.similarity)
+                .reversed()
+                .thenComparing(rankedPartialMatch -> rankedPartialMatch.complexAc);
+
+        private final Integer maxPartialMatches;
+        private final Double minSimilarity;
+        private final Map<String, RankedPartialMatch<T>> partialMatchesByComplexAc = new HashMap<>();
+        // The worst partial match kept is at the head of the queue
+        private final PriorityQueue<RankedPartialMatch<T>> partialMatches = new PriorityQueue<>(RANKING.reversed());
+
+        private PartialMatches(Integer maxPartialMatches, Double minSimilarity) {
+            this.maxPartialMatches = maxPartialMatches;
+            this.minSimilarity = minSimilarity;
+        }
+
+        private boolean containsKey(String complexAc) {
+            return partialMatchesByComplexAc.containsKey(complexAc);
+        }
+
+        private boolean isToKeep(String complexAc, double similarity) {
+            if (minSimilarity != null && similarity < minSimilarity) {
+                return false;
+            }
+            if (maxPartialMatches == null || partialMatches.size() < maxPartialMatches) {
+                return true;
+            }
+            // Once we have enough partial matches, we skip any partial match not better than the worst one we have
+            RankedPartialMatch<T> worstPartialMatch = partialMatches.peek();
+            return worstPartialMatch != null &&
+                    RANKING.compare(new RankedPartialMatch<>(complexAc, similarity, null), worstPartialMatch) < 0;
+        }
+
+        private void add(String complexAc, double similarity, ComplexFinderResult.PartialMatch<T> partialMatch) {
+            RankedPartialMatch<T> rankedPartialMatch = new RankedPartialMatch<>(complexAc, similarity, partialMatch);
+            partialMatchesByComplexAc.put(complexAc, rankedPartialMatch);
+            partialMatches.add(rankedPartialMatch);
+            if (maxPartialMatches != null && partialMatches.size() > maxPartialMatches) {
+                partialMatchesByComplexAc.remove(partialMatches.poll().complexAc);
+            }
+        }
+
+        private List<ComplexFinderResult.PartialMatch<T>> getTopPartialMatches() {
+            return partialMatches.stream()
+                    .sorted(RANKING)
+                    .map(rankedPartialMatch -> rankedPartialMatch.partialMatch)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @AllArgsConstructor
+    private static class RankedPartialMatch<T> {
+        private final String complexAc;
+        private final double similarity;
+        private final ComplexFinderResult.PartialMatch<T> partialMatch;
     }
 }
@@ -13,4 +13,17 @@ public class ComplexFinderOptions {
     private boolean checkPredictedComplexes;
     private boolean checkAnyStatusForExactMatches;
     private boolean checkPartialMatches;
+    // Maximum number of partial matches to return, the ones with the highest similarity are kept. No limit if null.
+    private Integer maxPartialMatches;
+    // Minimum similarity for partial matches to be returned. No minimum if null.
+    private Double minPartialMatchSimilarity;
+    // Similarity used to rank partial matches, Jaccard index if null.
+    private SimilarityMeasure partialMatchSimilarityMeasure;
+
+    public enum SimilarityMeasure {
+        // Proteins in common divided by the number of proteins in either the complex or the given proteins
+        JACCARD,
+        // Proteins in common divided by the number of proteins in the smallest of the complex and the given proteins
+        OVERLAP
+    }
 }
@@ -0,0 +1,317 @@
+package uk.ac.ebi.complex.service.finder;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import psidev.psi.mi.jami.model.Interactor;
+import psidev.psi.mi.jami.model.ModelledParticipant;
+import psidev.psi.mi.jami.model.Protein;
+import psidev.psi.mi.jami.model.Xref;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactInteractorPool;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
+
+import javax.persistence.Query;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the composition of all complexes, used by {@link ComplexFinder} to avoid
+ * going to the database for every complex it needs to compare.
+ * <p>
+ * The index has to be built with {@link #build()} before being used, and it can be kept up to date
+ * by calling {@link #refresh(Collection)} with the complex ACs that have been created or modified.
+ * <p>
+ * The latest version of each complex is found first from the complex ACs and versions only, paging by database AC,
+ * and then those complexes are loaded in pages to index their composition. The persistence context is cleared after
+ * each page, so {@link #build()} has to be called in its own transaction.
+ */
+public class ComplexIndex {
+
+    private static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final IntactDao intactDao;
+    private final int pageSize;
+
+    // Replaced as a whole when the index is built, so the index is never used while it is only partially built
+    private volatile Entries entries;
+
+    public ComplexIndex(IntactDao intactDao) {
+        this(intactDao, DEFAULT_PAGE_SIZE);
+    }
+
+    public ComplexIndex(IntactDao intactDao, int pageSize) {
+        this.intactDao = intactDao;
+        this.pageSize = pageSize;
+    }
+
+    public synchronized void build() {
+        Entries newEntries = new Entries();
+
+        List<String> acs = new ArrayList<>(getLatestComplexVersionAcs().values());
+        acs.sort(String::compareTo);
+        for (int i = 0; i < acs.size(); i += pageSize) {
+            // Proteins are only cached within a page, as they are detached when the page is cleared
+            Map<String, IntactProtein> proteinCacheMap = new HashMap<>();
+            for (IntactComplex complex : getComplexes(acs.subList(i, Math.min(i + pageSize, acs.size())))) {
+                newEntries.addComplex(indexComplex(complex, getFingerprint(complex, proteinCacheMap), false));
+            }
+            intactDao.getEntityManager().clear();
+        }
+
+        this.entries = newEntries;
+    }
+
+    public synchronized void refresh(Collection<String> complexAcs) {
+        Entries currentEntries = entries;
+        if (currentEntries == null) {
+            // The index has not been built, so there is nothing to keep up to date
+            return;
+        }
+
+        // Complexes including the modified complexes as sub-complexes include their proteins, so they are
+        // refreshed as well
+        Set<String> complexAcsToRefresh = new HashSet<>();
+        Deque<String> complexAcsToCheck = new ArrayDeque<>(complexAcs);
+        while (!complexAcsToCheck.isEmpty()) {
+            String complexAc = complexAcsToCheck.poll();
+            if (complexAcsToRefresh.add(complexAc)) {
+                complexAcsToCheck.addAll(currentEntries.complexAcsBySubComplexAc.getOrDefault(complexAc, Set.of()));
+            }
+        }
+
+        Map<String, IntactProtein> proteinCacheMap = new HashMap<>();
+        for (String complexAc : complexAcsToRefresh) {
+            currentEntries.removeComplex(complexAc);
+            IntactComplex complex = intactDao.getComplexDao().getLatestComplexVersionByComplexAc(complexAc);
+            if (complex != null) {
+                currentEntries.addComplex(indexComplex(complex, getFingerprint(complex, proteinCacheMap), false));
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        this.entries = null;
+    }
+
+    public boolean isLoaded() {
+        return entries != null;
+    }
+
+    public int size() {
+        Entries currentEntries = entries;
+        return currentEntries != null ? currentEntries.complexesByAc.size() : 0;
+    }
+
+    public IndexedComplex getComplex(String complexAc) {
+        Entries currentEntries = entries;
+        return currentEntries != null ? currentEntries.complexesByAc.get(complexAc) : null;
+    }
+
+    public Collection<String> getComplexAcsInvolvingProteins(Collection<String> proteinIds) {
+        Entries currentEntries = entries;
+        Set<String> complexAcs = new HashSet<>();
+        if (currentEntries != null) {
+            for (String proteinId : proteinIds) {
+                complexAcs.addAll(currentEntries.complexAcsByProteinId.getOrDefault(proteinId, Set.of()));
+            }
+        }
+        return complexAcs;
+    }
+
+    public Collection<String> getComplexAcsWithSameProteins(ProteinSetFingerprint fingerprint) {
+        Entries currentEntries = entries;
+        return currentEntries != null
+                ? Set.copyOf(currentEntries.complexAcsByFingerprint.getOrDefault(fingerprint, Set.of()))
+                : Set.of();
+    }
+
+    public Collection<String> getComplexAcsInvolvingSubComplex(String complexAc) {
+        Entries currentEntries = entries;
+        return currentEntries != null
+                ? Set.copyOf(currentEntries.complexAcsBySubComplexAc.getOrDefault(complexAc, Set.of()))
+                : Set.of();
+    }
+
+    static IndexedComplex indexComplex(
+            IntactComplex complex,
+            ProteinSetFingerprint fingerprint,
+            boolean keepComplex) {
+
+        Set<String> proteinIds = new HashSet<>();
+        Set<String> subComplexAcs = new HashSet<>();
+        for (ModelledParticipant participant : complex.getParticipants()) {
+            Interactor interactor = participant.getInteractor();
+            if (interactor instanceof IntactProtein) {
+                addProteinId((IntactProtein) interactor, proteinIds);
+            } else if (interactor instanceof IntactInteractorPool) {
+                for (Interactor subInteractor : (IntactInteractorPool) interactor) {
+                    if (subInteractor instanceof IntactProtein) {
+                        addProteinId((IntactProtein) subInteractor, proteinIds);
+                    }
+                }
+            } else if (interactor instanceof IntactComplex) {
+                String subComplexAc = ((IntactComplex) interactor).getComplexAc();
+                if (subComplexAc != null) {
+                    subComplexAcs.add(subComplexAc);
+                }
+            }
+        }
+
+        boolean withNonProteinComponents = complex.getAllExpandedParticipants()
+                .stream()
+                .anyMatch(component -> !Protein.PROTEIN_MI.equals(component.getInteractorType().getMIIdentifier()));
+
+        return new IndexedComplex(
+                complex.getComplexAc(),
+                complex.getComplexVersion(),
+                complex.getStatus(),
+                complex.isPredictedComplex(),
+                withNonProteinComponents,
+                fingerprint,
+                proteinIds,
+                subComplexAcs,
+                keepComplex ? complex : null);
+    }
+
+    private static void addProteinId(IntactProtein protein, Set<String> proteinIds) {
+        if (protein.getUniprotkb() != null) {
+            proteinIds.add(protein.getUniprotkb());
+        }
+    }
+
+    private ProteinSetFingerprint getFingerprint(IntactComplex complex, Map<String, IntactProtein> proteinCacheMap) {
+        return ProteinSetFingerprint.ofComplex(
+                complex,
+                proteinAc -> proteinCacheMap.computeIfAbsent(proteinAc, intactDao.getProteinDao()::getByAc));
+    }
+
+    /**
+     * Returns the database AC of the latest version of each complex, keyed by complex AC.
+     */
+    private Map<String, String> getLatestComplexVersionAcs() {
+        Map<String, String> acsByComplexAc = new HashMap<>();
+        Map<String, String> versionsByComplexAc = new HashMap<>();
+
+        List<Object[]> complexVersions = getComplexVersions("");
+        while (!complexVersions.isEmpty()) {
+            for (Object[] complexVersion : complexVersions) {
+                String ac = (String) complexVersion[0];
+                String complexAc = (String) complexVersion[1];
+                String version = (String) complexVersion[2];
+                if (!acsByComplexAc.containsKey(complexAc) || isLaterVersion(version, versionsByComplexAc.get(complexAc))) {
+                    acsByComplexAc.put(complexAc, ac);
+                    versionsByComplexAc.put(complexAc, version);
+                }
+            }
+            String lastAc = (String) complexVersions.get(complexVersions.size() - 1)[0];
+            complexVersions = getComplexVersions(lastAc);
+        }
+        return acsByComplexAc;
+    }
+
+    static boolean isLaterVersion(String version, String otherVersion) {
+        if (version == null || otherVersion == null) {
+            return otherVersion == null && version != null;
+        }
+        try {
+            return Integer.parseInt(version) > Integer.parseInt(otherVersion);
+        } catch (NumberFormatException e) {
+            return version.compareTo(otherVersion) > 0;
+        }
+    }
+
+    private List<Object[]> getComplexVersions(String lastAc) {
+        Query query = intactDao.getEntityManager().createQuery("select complex.ac, complexXref.id, complexXref.version " +
+                "from IntactComplex complex " +
+                "join complex.dbXrefs as complexXref " +
+                "join complexXref.database as complexDatabase " +
+                "join complexXref.qualifier as complexQualifier " +
+                "where complexDatabase.identifier = :complexPortalMi " +
+                "and complexQualifier.identifier = :complexPrimaryMi " +
+                "and complex.ac > :lastAc " +
+                "order by complex.ac");
+        query.setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+        query.setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+        query.setParameter("lastAc", lastAc);
+        query.setMaxResults(pageSize);
+        return query.getResultList();
+    }
+
+    private List<IntactComplex> getComplexes(Collection<String> acs) {
+        Query query = intactDao.getEntityManager().createQuery("select complex " +
+                "from IntactComplex complex " +
+                "where complex.ac in (:acs)");
+        query.setParameter("acs", acs);
+        return query.getResultList();
+    }
+
+    /**
+     * Complexes in the index and the lookup maps built from them.
+     */
+    private static class Entries {
+        private final Map<String, IndexedComplex> complexesByAc = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> complexAcsByProteinId = new ConcurrentHashMap<>();
+        private final Map<String, Set<String>> complexAcsBySubComplexAc = new ConcurrentHashMap<>();
+        private final Map<ProteinSetFingerprint, Set<String>> complexAcsByFingerprint = new ConcurrentHashMap<>();
+
+        private void addComplex(IndexedComplex indexedComplex) {
+            String complexAc = indexedComplex.getComplexAc();
+            complexesByAc.put(complexAc, indexedComplex);
+            for (String proteinId : indexedComplex.getProteinIds()) {
+                complexAcsByProteinId.computeIfAbsent(proteinId, key -> ConcurrentHashMap.newKeySet()).add(complexAc);
+            }
+            for (String subComplexAc : indexedComplex.getSubComplexAcs()) {
+                complexAcsBySubComplexAc.computeIfAbsent(subComplexAc, key -> ConcurrentHashMap.newKeySet()).add(complexAc);
+            }
+            complexAcsByFingerprint.computeIfAbsent(indexedComplex.getFingerprint(), key -> ConcurrentHashMap.newKeySet()).add(complexAc);
+        }
+
+        private void removeComplex(String complexAc) {
+            IndexedComplex indexedComplex = complexesByAc.remove(complexAc);
+            if (indexedComplex != null) {
+                for (String proteinId : indexedComplex.getProteinIds()) {
+                    removeFromIndex(complexAcsByProteinId, proteinId, complexAc);
+                }
+                for (String subComplexAc : indexedComplex.getSubComplexAcs()) {
+                    removeFromIndex(complexAcsBySubComplexAc, subComplexAc, complexAc);
+                }
+                removeFromIndex(complexAcsByFingerprint, indexedComplex.getFingerprint(), complexAc);
+            }
+        }
+
+        private <K> void removeFromIndex(Map<K, Set<String>> index, K key, String complexAc) {
+            Set<String> complexAcs = index.get(key);
+            if (complexAcs != null) {
+                complexAcs.remove(complexAc);
+                if (complexAcs.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class IndexedComplex {
+        private final String complexAc;
+        private final String complexVersion;
+        private final LifeCycleStatus status;
+        private final boolean predictedComplex;
+        private final boolean withNonProteinComponents;
+        private final ProteinSetFingerprint fingerprint;
+        private final Collection<String> proteinIds;
+        private final Collection<String> subComplexAcs;
+        // Only set when the complex has been loaded on demand, complexes in the index do not keep the entity
+        private final IntactComplex complex;
+    }
+}
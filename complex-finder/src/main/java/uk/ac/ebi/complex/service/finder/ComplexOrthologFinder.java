@@ -4,147 +4,340 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import psidev.psi.mi.jami.model.Interactor;
 import psidev.psi.mi.jami.model.ModelledParticipant;
 import psidev.psi.mi.jami.model.Xref;
-import psidev.psi.mi.jami.utils.XrefUtils;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
 import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
-import uk.ac.ebi.intact.jami.model.extension.IntactInteractorPool;
-import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
 
 import javax.persistence.Query;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-@AllArgsConstructor
 public class ComplexOrthologFinder {
 
     public static final String GO_MI_REF = "MI:0448";
     public static final String CELLULAR_COMPONENT_MI_REF = "MI:0354";
     protected static final String ORTHOLOGY_MI = "MI:2426";
 
+    public static final String QUERY_TIMER = "complexOrthologFinder.query";
+    public static final String COMPLEX_LOAD_TIMER = "complexOrthologFinder.complexLoad";
+    public static final String CANDIDATE_LOOKUP_TIMER = "complexOrthologFinder.candidateLookup";
+    public static final String COMPARISON_TIMER = "complexOrthologFinder.comparison";
+    public static final String SUPER_COMPLEX_LOOKUP_TIMER = "complexOrthologFinder.superComplexLookup";
+    public static final String DAO_CALLS_PER_QUERY = "complexOrthologFinder.daoCallsPerQuery";
+    public static final String CANDIDATES_PER_QUERY = "complexOrthologFinder.candidatesPerQuery";
+    public static final String SUB_COMPLEX_DEPTH = "complexOrthologFinder.subComplexDepth";
+    public static final String SUPER_COMPLEX_QUERIES_PER_QUERY = "complexOrthologFinder.superComplexQueriesPerQuery";
+    public static final String SPECIES_QUERY_TIMER = "complexOrthologFinder.speciesQuery";
+    public static final String SPECIES_COMPLEXES = "complexOrthologFinder.speciesComplexes";
+
+    public static final int DEFAULT_IN_LIST_BATCH_SIZE = 500;
+
     private final IntactDao intactDao;
+    private final ComplexContainmentGraph complexContainmentGraph;
+    private final ComplexOrthologIndex complexOrthologIndex;
+    private final ComplexOrthologSignatureCache complexOrthologSignatureCache;
+    private final FinderMetrics finderMetrics;
+
+    private int inListBatchSize = DEFAULT_IN_LIST_BATCH_SIZE;
+
+    public ComplexOrthologFinder(IntactDao intactDao) {
+        this(intactDao, null);
+    }
+
+    public ComplexOrthologFinder(IntactDao intactDao, ComplexContainmentGraph complexContainmentGraph) {
+        this(intactDao, complexContainmentGraph, null);
+    }
+
+    public ComplexOrthologFinder(
+            IntactDao intactDao,
+            ComplexContainmentGraph complexContainmentGraph,
+            FinderMetrics finderMetrics) {
+
+        this(intactDao, complexContainmentGraph, null, finderMetrics);
+    }
+
+    public ComplexOrthologFinder(
+            IntactDao intactDao,
+            ComplexContainmentGraph complexContainmentGraph,
+            ComplexOrthologIndex complexOrthologIndex,
+            FinderMetrics finderMetrics) {
+
+        this(intactDao, complexContainmentGraph, complexOrthologIndex, null, finderMetrics);
+    }
+
+    public ComplexOrthologFinder(
+            IntactDao intactDao,
+            ComplexContainmentGraph complexContainmentGraph,
+            ComplexOrthologIndex complexOrthologIndex,
+            ComplexOrthologSignatureCache complexOrthologSignatureCache,
+            FinderMetrics finderMetrics) {
+
+        this.intactDao = intactDao;
+        this.complexContainmentGraph = complexContainmentGraph;
+        this.complexOrthologIndex = complexOrthologIndex;
+        this.complexOrthologSignatureCache = complexOrthologSignatureCache;
+        this.finderMetrics = finderMetrics != null ? finderMetrics : FinderMetrics.NO_OP;
+
+        if (complexOrthologSignatureCache != null) {
+            LruCache<?, ?> signatureCache = complexOrthologSignatureCache.getSignatureCache();
+            this.finderMetrics.gauge("complexOrthologFinder.signatureCache.hits", signatureCache::getHits);
+            this.finderMetrics.gauge("complexOrthologFinder.signatureCache.misses", signatureCache::getMisses);
+            this.finderMetrics.gauge("complexOrthologFinder.signatureCache.evictions", signatureCache::getEvictions);
+            this.finderMetrics.gauge("complexOrthologFinder.signatureCache.size", signatureCache::size);
+        }
+    }
 
     public Collection<IntactComplex> findComplexOrthologs(String complexId, Integer taxId, Config config) {
+        long start = System.nanoTime();
+        AtomicInteger daoCalls = new AtomicInteger();
+
         final IntactComplex complex;
+        daoCalls.incrementAndGet();
         if (complexId.startsWith("CPX-")) {
             complex = intactDao.getComplexDao().getLatestComplexVersionByComplexAc(complexId);
         } else {
             complex = intactDao.getComplexDao().getByAc(complexId);
         }
-        Collection<String> proteinOrthologIds = getOrthologIds(complex);
-        Collection<String> cellularComponents = XrefUtils
-                .collectAllXrefsHavingDatabaseAndQualifier(
-                        complex.getXrefs(), GO_MI_REF, null, CELLULAR_COMPONENT_MI_REF, null)
-                .stream()
-                .map(Xref::getId)
-                .collect(Collectors.toList());
+        finderMetrics.recordTimeSince(COMPLEX_LOAD_TIMER, start);
 
-        Collection<IntactComplex> complexes = findAllComplexesWithSameOrthologs(config, taxId, proteinOrthologIds, cellularComponents);
-        return complexes.stream()
+        ComplexOrthologSignature signature = getSignature(complex, new ComplexOrthologSignature.Terms());
+
+        Collection<IntactComplex> complexes = findAllComplexesWithSameOrthologs(config, taxId, signature, daoCalls);
+        Collection<IntactComplex> complexOrthologs = complexes.stream()
                 .filter(complexMatch -> !complexMatch.getComplexAc().equals(complex.getComplexAc()))
                 .collect(Collectors.toList());
+
+        finderMetrics.recordValue(DAO_CALLS_PER_QUERY, daoCalls.get());
+        finderMetrics.recordTimeSince(QUERY_TIMER, start);
+        return complexOrthologs;
     }
 
-    private Collection<String> getOrthologIds(IntactComplex complex) {
-        Map<String, Collection<String>> proteinToOrthologsMap = getOrthologIdsByProtein(complex);
+    /**
+     * Finds the orthologs of all the complexes of a species in one pass, instead of running
+     * {@link #findComplexOrthologs(String, Integer, Config)} for each of them.
+     * <p>
+     * The complexes of both species are loaded with one query each, and the orthologs of their proteins are computed
+     * once. Complexes of the output species are then joined with the input complexes by their orthology groups. As in
+     * the search for a single complex, a complex only matches when the orthologs of the proteins directly in it, or
+     * the orthologs of one of its sub-complexes, are a subset of the orthologs of the input complex.
+     * <p>
+     * Results are keyed by the database AC of the input complexes, so every version of a complex gets its own orthologs.
+     */
+    public Map<String, Collection<IntactComplex>> findComplexOrthologsOfSpecies(
+            Integer inputTaxId,
+            Integer taxId,
+            Config config) {
 
-        Set<String> orthologIds = new HashSet<>();
-        for (String proteinId: proteinToOrthologsMap.keySet()) {
-            Collection<String> proteinOrthologIds = proteinToOrthologsMap.get(proteinId);
-            if (proteinOrthologIds.isEmpty()) {
-                return Set.of();
-            } else {
-                orthologIds.add(proteinOrthologIds.iterator().next());
+        long start = System.nanoTime();
+        Collection<IntactComplex> complexes = getComplexesOfSpecies(taxId);
+        Collection<IntactComplex> inputComplexes = inputTaxId.equals(taxId) ? complexes : getComplexesOfSpecies(inputTaxId);
+        finderMetrics.recordTimeSince(COMPLEX_LOAD_TIMER, start);
+        finderMetrics.recordValue(SPECIES_COMPLEXES, complexes.size());
+
+        // Signatures are only computed once per complex, for the join and for the sub-complexes, and they are all built
+        // with the same terms, as complexes are grouped by the bit sets of their orthologs. The terms of the cache are
+        // kept for the whole run, even if the cache replaces them in the meantime.
+        Map<String, ComplexOrthologSignature> signaturesByComplexAc = new HashMap<>();
+        ComplexOrthologSignature.Terms terms = complexOrthologSignatureCache != null
+                ? complexOrthologSignatureCache.getTerms()
+                : new ComplexOrthologSignature.Terms();
+
+        long comparisonStart = System.nanoTime();
+        Map<Object, List<IntactComplex>> complexesByOrthologs = new HashMap<>();
+        for (IntactComplex complex : complexes) {
+            ComplexOrthologSignature signature = getSignature(complex, signaturesByComplexAc, terms);
+            if (signature.hasOrthologs()) {
+                complexesByOrthologs.computeIfAbsent(signature.getOrthologsKey(), key -> new ArrayList<>()).add(complex);
             }
         }
-        return orthologIds;
-    }
-
-    private Map<String, Collection<String>> getOrthologIdsByProtein(IntactComplex complex) {
-        Map<String, Collection<String>> proteinToOrthologsMap = new HashMap<>();
-        for (ModelledParticipant participant: complex.getParticipants()) {
-            Interactor interactor = participant.getInteractor();
-            if (interactor instanceof IntactProtein) {
-                IntactProtein protein = (IntactProtein) interactor;
-                Collection<Xref> orthologXrefs = XrefUtils.collectAllXrefsHavingQualifier(protein.getXrefs(), ORTHOLOGY_MI, null);
-                proteinToOrthologsMap.put(protein.getAc(), orthologXrefs.stream().map(Xref::getId).collect(Collectors.toList()));
-            } else if (interactor instanceof IntactInteractorPool) {
-                IntactInteractorPool pool = (IntactInteractorPool) interactor;
-                for (Interactor subInteractor: pool) {
-                    if (subInteractor instanceof IntactProtein) {
-                        IntactProtein protein = (IntactProtein) subInteractor;
-                        Collection<Xref> orthologXrefs = XrefUtils.collectAllXrefsHavingQualifier(protein.getXrefs(), ORTHOLOGY_MI, null);
-                        proteinToOrthologsMap.put(protein.getAc(), orthologXrefs.stream().map(Xref::getId).collect(Collectors.toList()));
+
+        Map<String, Collection<IntactComplex>> complexOrthologsByComplexAc = new HashMap<>();
+        Map<Object, Map<String, Boolean>> candidatesByOrthologs = new HashMap<>();
+        for (IntactComplex inputComplex : inputComplexes) {
+            ComplexOrthologSignature inputSignature = getSignature(inputComplex, signaturesByComplexAc, terms);
+
+            List<IntactComplex> complexOrthologs = new ArrayList<>();
+            if (inputSignature.hasOrthologs()) {
+                Map<String, Boolean> candidates = candidatesByOrthologs.computeIfAbsent(
+                        inputSignature.getOrthologsKey(), key -> new HashMap<>());
+                for (IntactComplex complex : complexesByOrthologs.getOrDefault(inputSignature.getOrthologsKey(), List.of())) {
+                    if (!complex.getComplexAc().equals(inputComplex.getComplexAc()) &&
+                            isCandidate(complex, inputSignature, taxId, signaturesByComplexAc, candidates) &&
+                            doComplexMatch(config, inputSignature, complex, signaturesByComplexAc.get(complex.getAc()))) {
+                        complexOrthologs.add(complex);
                     }
                 }
-            } else if (interactor instanceof IntactComplex) {
-                proteinToOrthologsMap.putAll(getOrthologIdsByProtein((IntactComplex) interactor));
             }
+            complexOrthologsByComplexAc.put(inputComplex.getAc(), complexOrthologs);
         }
-        return proteinToOrthologsMap;
+        finderMetrics.recordTimeSince(COMPARISON_TIMER, comparisonStart);
+        finderMetrics.recordTimeSince(SPECIES_QUERY_TIMER, start);
+
+        return complexOrthologsByComplexAc;
+    }
+
+    /**
+     * A complex with the same orthologs is only found by {@link #findComplexOrthologs(String, Integer, Config)} when
+     * the orthologs of the proteins directly in it are a subset of the orthologs searched, or when it includes a
+     * sub-complex of the species found in the same way.
+     */
+    private boolean isCandidate(
+            IntactComplex complex,
+            ComplexOrthologSignature signature,
+            Integer taxId,
+            Map<String, ComplexOrthologSignature> signaturesByComplexAc,
+            Map<String, Boolean> candidates) {
+
+        Boolean candidate = candidates.get(complex.getAc());
+        if (candidate != null) {
+            return candidate;
+        }
+        // Set to false while the complex is being checked, in case of cycles of sub-complexes
+        candidates.put(complex.getAc(), false);
+
+        candidate = getSignature(complex, signaturesByComplexAc, signature.getTerms()).hasDirectOrthologsIn(signature);
+
+        for (ModelledParticipant participant : complex.getParticipants()) {
+            if (candidate) {
+                break;
+            }
+            if (participant.getInteractor() instanceof IntactComplex) {
+                IntactComplex subComplex = (IntactComplex) participant.getInteractor();
+                if (subComplex.getOrganism() != null && taxId.equals(subComplex.getOrganism().getTaxId())) {
+                    ComplexOrthologSignature subComplexSignature = getSignature(subComplex, signaturesByComplexAc, signature.getTerms());
+                    candidate = subComplexSignature.hasOrthologs() &&
+                            subComplexSignature.hasOrthologsIn(signature) &&
+                            isCandidate(subComplex, signature, taxId, signaturesByComplexAc, candidates);
+                }
+            }
+        }
+
+        candidates.put(complex.getAc(), candidate);
+        return candidate;
+    }
+
+    private Collection<IntactComplex> getComplexesOfSpecies(Integer taxId) {
+        Query query = intactDao.getEntityManager().createQuery("select complex " +
+                "from IntactComplex complex " +
+                "join complex.organism as organism " +
+                "where organism.dbTaxid = :taxId");
+        query.setParameter("taxId", String.valueOf(taxId));
+        return query.getResultList();
+    }
+
+    /**
+     * Returns the signature of the complex from the cache, if there is one, or builds it with the given terms.
+     */
+    private ComplexOrthologSignature getSignature(IntactComplex complex, ComplexOrthologSignature.Terms terms) {
+        if (complexOrthologSignatureCache != null) {
+            return complexOrthologSignatureCache.getSignature(complex);
+        }
+        return ComplexOrthologSignature.ofComplex(complex, terms);
+    }
+
+    /**
+     * Returns the signature of the complex built with the given terms, from the cache if there is one and it was built
+     * with them, so the bit sets of all the signatures of a run can be compared.
+     */
+    private ComplexOrthologSignature getSignature(
+            IntactComplex complex,
+            Map<String, ComplexOrthologSignature> signaturesByComplexAc,
+            ComplexOrthologSignature.Terms terms) {
+
+        return signaturesByComplexAc.computeIfAbsent(complex.getAc(), key -> complexOrthologSignatureCache != null
+                ? complexOrthologSignatureCache.getSignature(complex, terms)
+                : ComplexOrthologSignature.ofComplex(complex, terms));
     }
 
     private Collection<IntactComplex> findAllComplexesWithSameOrthologs(
             Config config,
             Integer taxId,
-            Collection<String> orthologIds,
-            Collection<String> cellularComponents) {
+            ComplexOrthologSignature signature,
+            AtomicInteger daoCalls) {
+
+        long start = System.nanoTime();
+        Collection<IntactComplex> complexes = findComplexesWithSameOrthologs(signature.getOrthologIds(), daoCalls);
+        finderMetrics.recordTimeSince(CANDIDATE_LOOKUP_TIMER, start);
 
-        Collection<IntactComplex> complexes = findComplexesWithSameOrthologs(orthologIds);
-        return findAllComplexesWithAllOrthologsMatching(config, taxId, orthologIds, cellularComponents, complexes);
+        return findAllComplexesWithAllOrthologsMatching(config, taxId, signature, complexes, daoCalls);
     }
 
     private Collection<IntactComplex> findAllComplexesWithAllOrthologsMatching(
             Config config,
             Integer taxId,
-            Collection<String> orthologIds,
-            Collection<String> cellularComponents,
-            Collection<IntactComplex> complexesPartiallyMatching) {
+            ComplexOrthologSignature signature,
+            Collection<IntactComplex> complexesPartiallyMatching,
+            AtomicInteger daoCalls) {
 
         List<IntactComplex> complexesWithAllMatchingOrthologs = new ArrayList<>();
-        List<String> complexesAcsToCheckAsSubcomplexes = new ArrayList<>();
-
-        for (IntactComplex complex : complexesPartiallyMatching) {
-            if (taxId == null || taxId.equals(complex.getOrganism().getTaxId())) {
-                Collection<String> complexOrthologIds = getOrthologIds(complex);
-                if (!complexOrthologIds.isEmpty() && orthologIds.containsAll(complexOrthologIds)) {
-                    if (complexOrthologIds.containsAll(orthologIds)) {
-                        if ((complex.isPredictedComplex() && !config.isCheckCellularComponentsForPredicted()) ||
-                                (!complex.isPredictedComplex() && !config.isCheckCellularComponentsForCurated())) {
-                            complexesWithAllMatchingOrthologs.add(complex);
-                        } else if (doComplexMatchCellularComponent(cellularComponents, complex)) {
+        Collection<IntactComplex> complexesToCheck = complexesPartiallyMatching;
+        Set<String> visitedComplexAcs = new HashSet<>();
+        int candidates = 0;
+        int depth = -1;
+        int superComplexQueries = 0;
+
+        // Complexes are checked one level at a time, the complexes including the complexes of one level
+        // as sub-complexes are checked in the next iteration
+        while (!complexesToCheck.isEmpty()) {
+            Set<String> complexesAcsToCheckAsSubcomplexes = new LinkedHashSet<>();
+            candidates += complexesToCheck.size();
+            depth++;
+
+            long comparisonStart = System.nanoTime();
+
+            for (IntactComplex complex : complexesToCheck) {
+                // Complexes reached through more than one sub-complex are only checked once
+                if (complex.getAc() != null && !visitedComplexAcs.add(complex.getAc())) {
+                    continue;
+                }
+                if (taxId == null || taxId.equals(complex.getOrganism().getTaxId())) {
+                    ComplexOrthologSignature complexSignature = getSignature(complex, signature.getTerms());
+                    if (complexSignature.hasOrthologs() && complexSignature.hasOrthologsIn(signature)) {
+                        if (complexSignature.hasSameOrthologs(signature) &&
+                                doComplexMatch(config, signature, complex, complexSignature)) {
                             complexesWithAllMatchingOrthologs.add(complex);
                         }
+                        complexesAcsToCheckAsSubcomplexes.add(complex.getComplexAc());
                     }
-                    complexesAcsToCheckAsSubcomplexes.add(complex.getComplexAc());
                 }
             }
-        }
+            finderMetrics.recordTimeSince(COMPARISON_TIMER, comparisonStart);
 
-        if (!complexesAcsToCheckAsSubcomplexes.isEmpty()) {
-            Collection<IntactComplex> complexesWithSubcomplex = findComplexesWithSubComplexes(complexesAcsToCheckAsSubcomplexes);
-            if (!complexesWithSubcomplex.isEmpty()) {
-                complexesWithAllMatchingOrthologs.addAll(findAllComplexesWithAllOrthologsMatching(
-                        config,
-                        taxId,
-                        orthologIds,
-                        cellularComponents,
-                        complexesWithSubcomplex));
+            if (!complexesAcsToCheckAsSubcomplexes.isEmpty()) {
+                long superComplexLookupStart = System.nanoTime();
+                int daoCallsBefore = daoCalls.get();
+                complexesToCheck = findComplexesWithSubComplexes(complexesAcsToCheckAsSubcomplexes, daoCalls);
+                superComplexQueries += daoCalls.get() - daoCallsBefore;
+                finderMetrics.recordTimeSince(SUPER_COMPLEX_LOOKUP_TIMER, superComplexLookupStart);
+            } else {
+                complexesToCheck = List.of();
             }
         }
 
+        finderMetrics.recordValue(CANDIDATES_PER_QUERY, candidates);
+        finderMetrics.recordValue(SUB_COMPLEX_DEPTH, Math.max(depth, 0));
+        finderMetrics.recordValue(SUPER_COMPLEX_QUERIES_PER_QUERY, superComplexQueries);
         return complexesWithAllMatchingOrthologs;
     }
 
-    private Collection<IntactComplex> findComplexesWithSameOrthologs(Collection<String> orthologIds) {
+    private Collection<IntactComplex> findComplexesWithSameOrthologs(Collection<String> orthologIds, AtomicInteger daoCalls) {
+        if (complexOrthologIndex != null) {
+            // With the ortholog index we only go to the database to load the complexes with the same orthologs
+            return getComplexesByAc(complexOrthologIndex.getComplexAcsWithOrthologsIn(orthologIds), daoCalls);
+        }
+
+        daoCalls.incrementAndGet();
         Query query = intactDao.getEntityManager().createQuery("select distinct complex " +
                 "from IntactComplex complex " +
                 "join complex.participants as participant " +
@@ -169,37 +362,154 @@ public class ComplexOrthologFinder {
         return query.getResultList();
     }
 
-    private Collection<IntactComplex> findComplexesWithSubComplexes(Collection<String> subcomplexesAcs) {
-        Query query = intactDao.getEntityManager().createQuery("select distinct complex " +
-                "from IntactComplex complex " +
-                "join complex.participants as participant " +
-                "join participant.interactor as interactor " +
-                "where interactor.ac in (:subcomplexesAcs)");
-        query.setParameter("subcomplexesAcs", subcomplexesAcs);
-        return query.getResultList();
+    private Collection<IntactComplex> findComplexesWithSubComplexes(Collection<String> subcomplexesAcs, AtomicInteger daoCalls) {
+        if (complexContainmentGraph != null) {
+            // With the containment graph we only go to the database to load the complexes including the sub-complexes
+            Set<String> complexAcs = subcomplexesAcs.stream()
+                    .flatMap(subcomplexAc -> complexContainmentGraph.getParentComplexAcs(subcomplexAc).stream())
+                    .collect(Collectors.toSet());
+            return getLatestComplexVersions(complexAcs, daoCalls);
+        }
+
+        // The sub-complexes are matched by complex AC, as in the containment graph, and the latest version of each
+        // complex including them in any of its versions is returned. The sub-complex ACs are split in batches, so the
+        // IN lists of the queries stay bounded.
+        List<List<String>> batches = splitInBatches(subcomplexesAcs);
+        daoCalls.addAndGet(batches.size());
+        List<Object[]> complexVersions = runBatches(batches, batch -> {
+            Query query = intactDao.getEntityManager().createQuery("select complex, complexXref.id, complexXref.version " +
+                    "from IntactComplex complex " +
+                    "join complex.dbXrefs as complexXref " +
+                    "join complexXref.database as complexDatabase " +
+                    "join complexXref.qualifier as complexQualifier " +
+                    "where complexDatabase.identifier = :complexPortalMi " +
+                    "and complexQualifier.identifier = :complexPrimaryMi " +
+                    "and complexXref.id in (" +
+                    "  select superComplexXref.id " +
+                    "  from IntactComplex superComplex " +
+                    "  join superComplex.dbXrefs as superComplexXref " +
+                    "  join superComplexXref.database as superComplexDatabase " +
+                    "  join superComplexXref.qualifier as superComplexQualifier " +
+                    "  join superComplex.participants as participant " +
+                    "  join participant.interactor as interactor " +
+                    "  join interactor.dbXrefs as subComplexXref " +
+                    "  join subComplexXref.database as subComplexDatabase " +
+                    "  join subComplexXref.qualifier as subComplexQualifier " +
+                    "  where superComplexDatabase.identifier = :complexPortalMi " +
+                    "  and superComplexQualifier.identifier = :complexPrimaryMi " +
+                    "  and subComplexDatabase.identifier = :complexPortalMi " +
+                    "  and subComplexQualifier.identifier = :complexPrimaryMi " +
+                    "  and subComplexXref.id in (:subcomplexesAcs) " +
+                    "  and superComplexXref.id <> subComplexXref.id " +
+                    ")");
+            query.setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+            query.setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+            query.setParameter("subcomplexesAcs", batch);
+            return query.getResultList();
+        });
+        // Complexes with sub-complexes in different batches are returned more than once, only their latest version is kept
+        return getLatestVersions(complexVersions);
     }
 
-    private boolean doComplexMatchCellularComponent(
-            Collection<String> cellularComponents,
-            IntactComplex complexToCompare) {
+    private Collection<IntactComplex> getComplexesByAc(Collection<String> complexAcs, AtomicInteger daoCalls) {
+        List<List<String>> batches = splitInBatches(complexAcs);
+        daoCalls.addAndGet(batches.size());
+        return runBatches(batches, batch -> {
+            Query query = intactDao.getEntityManager().createQuery("select complex " +
+                    "from IntactComplex complex " +
+                    "where complex.ac in (:complexAcs)");
+            query.setParameter("complexAcs", batch);
+            return query.getResultList();
+        });
+    }
 
-        if (cellularComponents.isEmpty()) {
-            return false;
+    /**
+     * Loads the latest version of the complexes with the given complex ACs, in batches of complex ACs.
+     */
+    private Collection<IntactComplex> getLatestComplexVersions(Collection<String> complexAcs, AtomicInteger daoCalls) {
+        List<List<String>> batches = splitInBatches(complexAcs);
+        daoCalls.addAndGet(batches.size());
+        List<Object[]> complexVersions = runBatches(batches, batch -> {
+            Query query = intactDao.getEntityManager().createQuery("select complex, complexXref.id, complexXref.version " +
+                    "from IntactComplex complex " +
+                    "join complex.dbXrefs as complexXref " +
+                    "join complexXref.database as complexDatabase " +
+                    "join complexXref.qualifier as complexQualifier " +
+                    "where complexDatabase.identifier = :complexPortalMi " +
+                    "and complexQualifier.identifier = :complexPrimaryMi " +
+                    "and complexXref.id in (:complexPortalAcs)");
+            query.setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+            query.setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+            query.setParameter("complexPortalAcs", batch);
+            return query.getResultList();
+        });
+        return getLatestVersions(complexVersions);
+    }
+
+    /**
+     * Returns the latest version of each complex, from rows of complex, complex AC and version.
+     */
+    private Collection<IntactComplex> getLatestVersions(List<Object[]> complexVersions) {
+        Map<String, IntactComplex> complexesByComplexAc = new LinkedHashMap<>();
+        Map<String, String> versionsByComplexAc = new HashMap<>();
+        for (Object[] complexVersion : complexVersions) {
+            IntactComplex complex = (IntactComplex) complexVersion[0];
+            String complexAc = (String) complexVersion[1];
+            String version = (String) complexVersion[2];
+            if (!complexesByComplexAc.containsKey(complexAc) ||
+                    ComplexIndex.isLaterVersion(version, versionsByComplexAc.get(complexAc))) {
+                complexesByComplexAc.put(complexAc, complex);
+                versionsByComplexAc.put(complexAc, version);
+            }
         }
+        return complexesByComplexAc.values();
+    }
 
-        Collection<String> cellularComponentsToCompare = XrefUtils
-                .collectAllXrefsHavingDatabaseAndQualifier(
-                        complexToCompare.getXrefs(), GO_MI_REF, null, CELLULAR_COMPONENT_MI_REF, null)
-                .stream()
-                .map(Xref::getId)
-                .collect(Collectors.toList());
+    private List<List<String>> splitInBatches(Collection<String> acs) {
+        List<String> acsToSplit = new ArrayList<>(acs);
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < acsToSplit.size(); i += inListBatchSize) {
+            batches.add(acsToSplit.subList(i, Math.min(i + inListBatchSize, acsToSplit.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * Runs the query of each batch, one after the other, and returns all the results in the order of the batches.
+     */
+    private <T> List<T> runBatches(List<List<String>> batches, Function<List<String>, Collection<T>> batchQuery) {
+        List<T> results = new ArrayList<>();
+        for (List<String> batch : batches) {
+            results.addAll(batchQuery.apply(batch));
+        }
+        return results;
+    }
+
+    private boolean doComplexMatch(
+            Config config,
+            ComplexOrthologSignature signature,
+            IntactComplex complexToCompare,
+            ComplexOrthologSignature signatureToCompare) {
 
-        if (cellularComponentsToCompare.isEmpty()) {
-            return false;
+        if ((complexToCompare.isPredictedComplex() && !config.isCheckCellularComponentsForPredicted()) ||
+                (!complexToCompare.isPredictedComplex() && !config.isCheckCellularComponentsForCurated())) {
+            return true;
         }
+        return signature.sharesCellularComponent(signatureToCompare);
+    }
 
-        return cellularComponents.stream()
-                .anyMatch(cellularComponentsToCompare::contains);
+    public int getInListBatchSize() {
+        return inListBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of ACs in the IN lists of the queries used to load complexes and super-complexes.
+     */
+    public void setInListBatchSize(int inListBatchSize) {
+        if (inListBatchSize <= 0) {
+            throw new IllegalArgumentException("IN list batch size must be greater than 0: " + inListBatchSize);
+        }
+        this.inListBatchSize = inListBatchSize;
     }
 
     @Data
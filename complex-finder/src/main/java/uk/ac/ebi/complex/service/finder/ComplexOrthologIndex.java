@@ -0,0 +1,124 @@
+package uk.ac.ebi.complex.service.finder;
+
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+
+import javax.persistence.Query;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Index of the orthology groups of proteins, and of the orthology groups of the proteins of each complex, its
+ * signature.
+ * <p>
+ * The index is built with a single scan of the orthology xrefs of the interactors of complexes the first time it is
+ * used, and it is then kept in memory, so the {@link ComplexOrthologFinder} can find the complexes with the same
+ * orthologs without running a query for every complex.
+ * <p>
+ * As in the query used without the index, only the interactors directly participating in a complex are part of its
+ * signature, and complexes are indexed by their database AC, so all versions of a complex are indexed.
+ */
+public class ComplexOrthologIndex {
+
+    private final IntactDao intactDao;
+
+    private volatile Map<String, Set<String>> orthologGroupsByProteinAc;
+    private volatile Map<String, Set<String>> signaturesByComplexAc;
+    private volatile Map<String, Set<String>> complexAcsByOrthologGroup;
+
+    public ComplexOrthologIndex(IntactDao intactDao) {
+        this.intactDao = intactDao;
+    }
+
+    public synchronized void build() {
+        Map<String, Set<String>> orthologGroups = new HashMap<>();
+        Map<String, Set<String>> proteinAcsByComplexAc = new HashMap<>();
+        for (Object[] row : getOrthologXrefs()) {
+            String complexAc = (String) row[0];
+            String proteinAc = (String) row[1];
+            String orthologGroup = ((String) row[2]).intern();
+            orthologGroups.computeIfAbsent(proteinAc, key -> new HashSet<>()).add(orthologGroup);
+            proteinAcsByComplexAc.computeIfAbsent(complexAc, key -> new HashSet<>()).add(proteinAc);
+        }
+
+        Map<String, Set<String>> signatures = new HashMap<>();
+        Map<String, Set<String>> complexAcs = new HashMap<>();
+        proteinAcsByComplexAc.forEach((complexAc, proteinAcs) -> {
+            Set<String> signature = proteinAcs.stream()
+                    .flatMap(proteinAc -> orthologGroups.get(proteinAc).stream())
+                    .collect(Collectors.toUnmodifiableSet());
+            signatures.put(complexAc, signature);
+            for (String orthologGroup : signature) {
+                complexAcs.computeIfAbsent(orthologGroup, key -> new HashSet<>()).add(complexAc);
+            }
+        });
+
+        this.signaturesByComplexAc = signatures;
+        this.complexAcsByOrthologGroup = complexAcs;
+        this.orthologGroupsByProteinAc = orthologGroups;
+    }
+
+    public boolean isLoaded() {
+        return orthologGroupsByProteinAc != null;
+    }
+
+    /**
+     * Returns the orthology groups of the protein with the given database AC.
+     */
+    public Collection<String> getOrthologGroups(String proteinAc) {
+        return getIndex().getOrDefault(proteinAc, Set.of());
+    }
+
+    /**
+     * Returns the orthology groups of the proteins of the complex with the given database AC.
+     */
+    public Collection<String> getSignature(String complexAc) {
+        getIndex();
+        return signaturesByComplexAc.getOrDefault(complexAc, Set.of());
+    }
+
+    /**
+     * Returns the database ACs of the complexes whose signature is not empty and only has orthology groups in the
+     * given ones, the same complexes returned by the query used without the index.
+     */
+    public Collection<String> getComplexAcsWithOrthologsIn(Collection<String> orthologGroups) {
+        getIndex();
+        Set<String> orthologGroupSet = new HashSet<>(orthologGroups);
+        Set<String> complexAcs = new HashSet<>();
+        for (String orthologGroup : orthologGroupSet) {
+            for (String complexAc : complexAcsByOrthologGroup.getOrDefault(orthologGroup, Set.of())) {
+                if (!complexAcs.contains(complexAc) && orthologGroupSet.containsAll(signaturesByComplexAc.get(complexAc))) {
+                    complexAcs.add(complexAc);
+                }
+            }
+        }
+        return complexAcs;
+    }
+
+    private Map<String, Set<String>> getIndex() {
+        if (!isLoaded()) {
+            synchronized (this) {
+                if (!isLoaded()) {
+                    build();
+                }
+            }
+        }
+        return orthologGroupsByProteinAc;
+    }
+
+    private List<Object[]> getOrthologXrefs() {
+        Query query = intactDao.getEntityManager().createQuery("select distinct complex.ac, interactor.ac, xref.id " +
+                "from IntactComplex complex " +
+                "join complex.participants as participant " +
+                "join participant.interactor as interactor " +
+                "join interactor.dbXrefs as xref " +
+                "join xref.qualifier as qualifier " +
+                "where qualifier.identifier = :orthologQualifierId");
+        query.setParameter("orthologQualifierId", ComplexOrthologFinder.ORTHOLOGY_MI);
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,213 @@
+package uk.ac.ebi.complex.service.finder;
+
+import psidev.psi.mi.jami.model.Interactor;
+import psidev.psi.mi.jami.model.ModelledParticipant;
+import psidev.psi.mi.jami.model.Xref;
+import psidev.psi.mi.jami.utils.XrefUtils;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactInteractorPool;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Orthology groups and cellular components of a complex, extracted once from its xrefs, so
+ * {@link ComplexOrthologFinder} can compare complexes without walking their participants again.
+ * <p>
+ * Orthology group and GO ids are mapped to int ids by the {@link Terms} the signature is built with, and kept in bit
+ * sets, so checking if the orthologs of a complex are a subset of the orthologs of another one, or if two complexes
+ * share a cellular component, are bit set operations for signatures built with the same terms. Signatures built with
+ * different terms can still be compared, by mapping the ids of one of them to the terms of the other.
+ */
+public final class ComplexOrthologSignature {
+
+    private final Terms terms;
+    private final BitSet orthologIds;
+    private final BitSet directOrthologIds;
+    private final BitSet cellularComponents;
+
+    private ComplexOrthologSignature(Terms terms, BitSet orthologIds, BitSet directOrthologIds, BitSet cellularComponents) {
+        this.terms = terms;
+        this.orthologIds = orthologIds;
+        this.directOrthologIds = directOrthologIds;
+        this.cellularComponents = cellularComponents;
+    }
+
+    public static ComplexOrthologSignature ofComplex(IntactComplex complex) {
+        return ofComplex(complex, new Terms());
+    }
+
+    public static ComplexOrthologSignature ofComplex(IntactComplex complex, Terms terms) {
+        return new ComplexOrthologSignature(
+                terms,
+                terms.toBitSet(getOrthologIds(complex)),
+                terms.toBitSet(getDirectOrthologIds(complex)),
+                terms.toBitSet(XrefUtils
+                        .collectAllXrefsHavingDatabaseAndQualifier(
+                                complex.getXrefs(),
+                                ComplexOrthologFinder.GO_MI_REF,
+                                null,
+                                ComplexOrthologFinder.CELLULAR_COMPONENT_MI_REF,
+                                null)
+                        .stream()
+                        .map(Xref::getId)
+                        .collect(Collectors.toList())));
+    }
+
+    /**
+     * Returns the orthology groups of the complex, one for each of its proteins, including the proteins of its
+     * sub-complexes, or an empty collection if any protein has no orthology group.
+     */
+    public Collection<String> getOrthologIds() {
+        return terms.toTerms(orthologIds);
+    }
+
+    public Terms getTerms() {
+        return terms;
+    }
+
+    public boolean hasOrthologs() {
+        return !orthologIds.isEmpty();
+    }
+
+    public boolean hasSameOrthologs(ComplexOrthologSignature other) {
+        return orthologIds.equals(other.toTermIds(terms, other.orthologIds));
+    }
+
+    /**
+     * Checks if all the orthology groups of the complex are orthology groups of the other complex.
+     */
+    public boolean hasOrthologsIn(ComplexOrthologSignature other) {
+        return isSubset(orthologIds, other.toTermIds(terms, other.orthologIds));
+    }
+
+    /**
+     * Checks if the complex has proteins directly in it with orthology groups, and all those groups, not only the first
+     * one of each protein, are orthology groups of the other complex.
+     */
+    public boolean hasDirectOrthologsIn(ComplexOrthologSignature other) {
+        return !directOrthologIds.isEmpty() && isSubset(directOrthologIds, other.toTermIds(terms, other.orthologIds));
+    }
+
+    public boolean sharesCellularComponent(ComplexOrthologSignature other) {
+        return cellularComponents.intersects(other.toTermIds(terms, other.cellularComponents));
+    }
+
+    /**
+     * Key to group complexes with the same orthology groups. Keys can only be compared between signatures built with
+     * the same terms.
+     */
+    public Object getOrthologsKey() {
+        return orthologIds;
+    }
+
+    /**
+     * Returns the ids of a bit set of this signature in the given terms.
+     */
+    private BitSet toTermIds(Terms otherTerms, BitSet bitSet) {
+        if (otherTerms == terms) {
+            return bitSet;
+        }
+        return otherTerms.toBitSet(terms.toTerms(bitSet));
+    }
+
+    private static boolean isSubset(BitSet subset, BitSet set) {
+        BitSet difference = (BitSet) subset.clone();
+        difference.andNot(set);
+        return difference.isEmpty();
+    }
+
+    private static Collection<String> getOrthologIds(IntactComplex complex) {
+        Map<String, Collection<String>> proteinToOrthologsMap = getOrthologIdsByProtein(complex);
+
+        Set<String> orthologIds = new HashSet<>();
+        for (String proteinId: proteinToOrthologsMap.keySet()) {
+            Collection<String> proteinOrthologIds = proteinToOrthologsMap.get(proteinId);
+            if (proteinOrthologIds.isEmpty()) {
+                return Set.of();
+            } else {
+                orthologIds.add(proteinOrthologIds.iterator().next());
+            }
+        }
+        return orthologIds;
+    }
+
+    private static Map<String, Collection<String>> getOrthologIdsByProtein(IntactComplex complex) {
+        Map<String, Collection<String>> proteinToOrthologsMap = new HashMap<>();
+        for (ModelledParticipant participant: complex.getParticipants()) {
+            Interactor interactor = participant.getInteractor();
+            if (interactor instanceof IntactProtein) {
+                IntactProtein protein = (IntactProtein) interactor;
+                proteinToOrthologsMap.put(protein.getAc(), getProteinOrthologIds(protein));
+            } else if (interactor instanceof IntactInteractorPool) {
+                IntactInteractorPool pool = (IntactInteractorPool) interactor;
+                for (Interactor subInteractor: pool) {
+                    if (subInteractor instanceof IntactProtein) {
+                        IntactProtein protein = (IntactProtein) subInteractor;
+                        proteinToOrthologsMap.put(protein.getAc(), getProteinOrthologIds(protein));
+                    }
+                }
+            } else if (interactor instanceof IntactComplex) {
+                proteinToOrthologsMap.putAll(getOrthologIdsByProtein((IntactComplex) interactor));
+            }
+        }
+        return proteinToOrthologsMap;
+    }
+
+    private static Collection<String> getProteinOrthologIds(IntactProtein protein) {
+        return XrefUtils.collectAllXrefsHavingQualifier(protein.getXrefs(), ComplexOrthologFinder.ORTHOLOGY_MI, null)
+                .stream()
+                .map(Xref::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static Collection<String> getDirectOrthologIds(IntactComplex complex) {
+        Set<String> orthologIds = new HashSet<>();
+        for (ModelledParticipant participant: complex.getParticipants()) {
+            XrefUtils.collectAllXrefsHavingQualifier(
+                    participant.getInteractor().getXrefs(), ComplexOrthologFinder.ORTHOLOGY_MI, null)
+                    .forEach(xref -> orthologIds.add(xref.getId()));
+        }
+        return orthologIds;
+    }
+
+    /**
+     * Dictionary of the orthology group and GO ids of the signatures built with it, mapping each id to the bit used for
+     * it in their bit sets. Terms are only kept as long as the signatures and caches using them, instead of being
+     * shared by all signatures.
+     */
+    public static final class Terms {
+
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final List<String> terms = new ArrayList<>();
+
+        public synchronized int size() {
+            return terms.size();
+        }
+
+        private synchronized BitSet toBitSet(Collection<String> termsToMap) {
+            BitSet bitSet = new BitSet();
+            for (String term : termsToMap) {
+                bitSet.set(termIds.computeIfAbsent(term, key -> {
+                    terms.add(key);
+                    return terms.size() - 1;
+                }));
+            }
+            return bitSet;
+        }
+
+        private synchronized Collection<String> toTerms(BitSet bitSet) {
+            Set<String> termsInBitSet = new HashSet<>();
+            bitSet.stream().forEach(termId -> termsInBitSet.add(terms.get(termId)));
+            return termsInBitSet;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package uk.ac.ebi.complex.service.finder;
+
+import psidev.psi.mi.jami.model.ModelledParticipant;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Cache of the {@link ComplexOrthologSignature} of complexes, so the orthologs and cellular components of complexes
+ * found as candidates for many searches are only extracted once.
+ * <p>
+ * Signatures are cached by complex AC and version, so different versions of the same complex are cached separately.
+ * As the signature of a complex includes the orthologs of its sub-complexes, the complex ACs and versions of its
+ * sub-complexes are part of the key as well, so a signature is not used anymore once one of its sub-complexes changes.
+ * <p>
+ * All the signatures of the cache are built with the same {@link ComplexOrthologSignature.Terms}, which are replaced,
+ * clearing the cache, when they grow over a maximum number of terms. Runs grouping signatures by their bit sets keep
+ * the terms of the cache when they start, with {@link #getTerms()}, and get all their signatures built with those terms
+ * with {@link #getSignature(IntactComplex, ComplexOrthologSignature.Terms)}, which never replaces them. The cache is
+ * thread-safe and bounded.
+ */
+public class ComplexOrthologSignatureCache {
+
+    public static final int DEFAULT_MAX_COMPLEXES = 50_000;
+    public static final int DEFAULT_MAX_TERMS = 1_000_000;
+
+    private final LruCache<String, ComplexOrthologSignature> signatures;
+    private final int maxTerms;
+
+    private volatile ComplexOrthologSignature.Terms terms = new ComplexOrthologSignature.Terms();
+
+    public ComplexOrthologSignatureCache() {
+        this(DEFAULT_MAX_COMPLEXES);
+    }
+
+    public ComplexOrthologSignatureCache(int maxComplexes) {
+        this(maxComplexes, DEFAULT_MAX_TERMS);
+    }
+
+    public ComplexOrthologSignatureCache(int maxComplexes, int maxTerms) {
+        this.signatures = new LruCache<>(maxComplexes);
+        this.maxTerms = maxTerms;
+    }
+
+    public ComplexOrthologSignature getSignature(IntactComplex complex) {
+        if (terms.size() > maxTerms) {
+            // Signatures built with the previous terms can still be compared with the new ones
+            clear();
+        }
+        ComplexOrthologSignature.Terms currentTerms = terms;
+        if (complex.getComplexAc() == null) {
+            // Complex without complex AC, we cannot cache it
+            return ComplexOrthologSignature.ofComplex(complex, currentTerms);
+        }
+        return signatures.get(getKey(complex), key -> ComplexOrthologSignature.ofComplex(complex, currentTerms));
+    }
+
+    /**
+     * Returns the signature of the complex built with the given terms, from the cache if they are the terms of the
+     * cache. Once the terms of the cache have been replaced, signatures are built with the given terms without being
+     * cached.
+     */
+    public ComplexOrthologSignature getSignature(IntactComplex complex, ComplexOrthologSignature.Terms signatureTerms) {
+        if (complex.getComplexAc() == null || signatureTerms != terms) {
+            return ComplexOrthologSignature.ofComplex(complex, signatureTerms);
+        }
+        ComplexOrthologSignature signature = signatures.get(
+                getKey(complex), key -> ComplexOrthologSignature.ofComplex(complex, signatureTerms));
+        if (signature.getTerms() != signatureTerms) {
+            // Cached with other terms while the terms were being replaced
+            return ComplexOrthologSignature.ofComplex(complex, signatureTerms);
+        }
+        return signature;
+    }
+
+    public ComplexOrthologSignature.Terms getTerms() {
+        return terms;
+    }
+
+    public void invalidateComplex(IntactComplex complex) {
+        if (complex.getComplexAc() != null) {
+            signatures.invalidate(getKey(complex));
+        }
+    }
+
+    public synchronized void clear() {
+        signatures.clear();
+        terms = new ComplexOrthologSignature.Terms();
+    }
+
+    public LruCache<String, ComplexOrthologSignature> getSignatureCache() {
+        return signatures;
+    }
+
+    @Override
+    public String toString() {
+        return "Complex ortholog signatures cache: [" + signatures + "], terms: " + terms.size();
+    }
+
+    private static String getKey(IntactComplex complex) {
+        Set<String> subComplexKeys = new TreeSet<>();
+        addSubComplexKeys(complex, subComplexKeys, Collections.newSetFromMap(new IdentityHashMap<>()));
+        String key = complex.getComplexAc() + "." + complex.getComplexVersion();
+        return subComplexKeys.isEmpty() ? key : key + subComplexKeys;
+    }
+
+    private static void addSubComplexKeys(IntactComplex complex, Set<String> subComplexKeys, Set<IntactComplex> visitedComplexes) {
+        if (!visitedComplexes.add(complex)) {
+            return;
+        }
+        for (ModelledParticipant participant : complex.getParticipants()) {
+            if (participant.getInteractor() instanceof IntactComplex) {
+                IntactComplex subComplex = (IntactComplex) participant.getInteractor();
+                subComplexKeys.add(subComplex.getComplexAc() + "." + subComplex.getComplexVersion());
+                addSubComplexKeys(subComplex, subComplexKeys, visitedComplexes);
+            }
+        }
+    }
+}
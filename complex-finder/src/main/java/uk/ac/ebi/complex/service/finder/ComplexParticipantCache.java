@@ -0,0 +1,65 @@
+package uk.ac.ebi.complex.service.finder;
+
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+
+import java.util.function.Function;
+
+/**
+ * Cache of the proteins of complexes, that can be shared by {@link ComplexFinder} and any other component comparing
+ * complexes by their proteins.
+ * <p>
+ * Proteins of a complex are cached by the database AC of the complex, so different versions of the same complex
+ * are cached separately. Only the protein ids are cached, and not the protein entities used to build them, as entities
+ * are bound to the transaction they were loaded in. The cache is thread-safe and bounded, so it can be shared by
+ * multi-threaded steps.
+ */
+public class ComplexParticipantCache {
+
+    public static final int DEFAULT_MAX_COMPLEXES = 50_000;
+
+    private final LruCache<String, ProteinSetFingerprint> complexProteins;
+
+    public ComplexParticipantCache() {
+        this(DEFAULT_MAX_COMPLEXES);
+    }
+
+    public ComplexParticipantCache(int maxComplexes) {
+        this.complexProteins = new LruCache<>(maxComplexes);
+    }
+
+    public ProteinSetFingerprint getComplexProteins(IntactComplex complex, Function<String, IntactProtein> proteinLoader) {
+        if (complex.getAc() == null) {
+            // Complex not saved yet, we cannot cache it
+            return ProteinSetFingerprint.ofComplex(complex, proteinLoader);
+        }
+        return complexProteins.get(complex.getAc(), ac -> ProteinSetFingerprint.ofComplex(complex, proteinLoader));
+    }
+
+    public void invalidateComplex(IntactComplex complex) {
+        if (complex.getAc() != null) {
+            complexProteins.invalidate(complex.getAc());
+        }
+    }
+
+    public void clear() {
+        complexProteins.clear();
+    }
+
+    public LruCache<String, ProteinSetFingerprint> getComplexProteinCache() {
+        return complexProteins;
+    }
+
+    public long getHits() {
+        return complexProteins.getHits();
+    }
+
+    public long getMisses() {
+        return complexProteins.getMisses();
+    }
+
+    @Override
+    public String toString() {
+        return "Complex proteins cache: [" + complexProteins + "]";
+    }
+}
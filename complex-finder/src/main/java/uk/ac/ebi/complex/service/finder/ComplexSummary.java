@@ -0,0 +1,35 @@
+package uk.ac.ebi.complex.service.finder;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
+
+import java.util.Collection;
+
+/**
+ * Lightweight view of a complex returned by {@link ComplexFinder} in projection mode, with only the fields needed to
+ * decide what to do with a match. Summaries are built from a scalar query, and not from the complex entity, which can be
+ * loaded from the database using the complex AC when needed.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class ComplexSummary {
+    private final String complexAc;
+    private final String complexVersion;
+    private final LifeCycleStatus status;
+    private final boolean predictedComplex;
+    private final Collection<String> proteinIds;
+
+    static ComplexSummary of(ComplexIndex.IndexedComplex complex) {
+        return new ComplexSummary(
+                complex.getComplexAc(),
+                complex.getComplexVersion(),
+                complex.getStatus(),
+                complex.isPredictedComplex(),
+                complex.getFingerprint().getAccessions());
+    }
+}
@@ -0,0 +1,42 @@
+package uk.ac.ebi.complex.service.finder;
+
+import java.util.function.Supplier;
+
+/**
+ * Metrics recorded by the finders on their hot paths: timers for each phase of a search, counters, and distributions
+ * of values such as the number of DAO calls or candidates examined per query.
+ * <p>
+ * Implementations must be thread-safe, as the finders record metrics from parallel threads. By default the finders
+ * use {@link #NO_OP}, which records nothing.
+ */
+public interface FinderMetrics {
+
+    FinderMetrics NO_OP = new NoOpFinderMetrics();
+
+    void recordTime(String name, long durationNanos);
+
+    void increment(String name, long amount);
+
+    void recordValue(String name, long value);
+
+    /**
+     * Registers a value read when the summary is built, such as the hits of a cache.
+     */
+    void gauge(String name, Supplier<Number> valueSupplier);
+
+    /**
+     * Clears all recorded values. Registered gauges are kept and not reset, as they read the state of long-lived
+     * components, such as caches shared by several steps.
+     */
+    void reset();
+
+    String summary();
+
+    default void increment(String name) {
+        increment(name, 1);
+    }
+
+    default void recordTimeSince(String name, long startNanos) {
+        recordTime(name, System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,32 @@
+package uk.ac.ebi.complex.service.finder;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+
+/**
+ * Logs the summary of the metrics recorded by the finders at the end of each step, starting each step from
+ * empty metrics.
+ * <p>
+ * Gauges are not reset between steps, as they read the state of caches shared by all the steps of a job, such as the
+ * {@link ComplexParticipantCache}, so they report the values since those caches were created.
+ */
+@Log4j
+@RequiredArgsConstructor
+public class FinderMetricsListener implements StepExecutionListener {
+
+    private final FinderMetrics finderMetrics;
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        finderMetrics.reset();
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        log.info(stepExecution.getStepName() + " - " + finderMetrics.summary());
+        return null;
+    }
+}
@@ -0,0 +1,103 @@
+package uk.ac.ebi.complex.service.finder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Thread-safe cache with a maximum number of entries, evicting the least recently used entry when it is full.
+ * <p>
+ * Values are loaded outside the lock, so a slow loader does not block other threads. Two threads may load the same
+ * key at the same time, in which case the first value stored is kept. Null values are cached as well, so keys that
+ * cannot be found are not loaded again.
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, V> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be greater than 0: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        synchronized (entries) {
+            if (entries.containsKey(key)) {
+                hits.incrementAndGet();
+                return entries.get(key);
+            }
+        }
+        misses.incrementAndGet();
+        V value = loader.apply(key);
+        synchronized (entries) {
+            if (entries.containsKey(key)) {
+                return entries.get(key);
+            }
+            entries.put(key, value);
+            return value;
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public double getHitRate() {
+        long requests = hits.get() + misses.get();
+        return requests == 0 ? 0.0 : (double) hits.get() / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("size=%d/%d, hits=%d, misses=%d, evictions=%d, hit rate=%.2f%%",
+                size(), maxSize, getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+}
@@ -0,0 +1,34 @@
+package uk.ac.ebi.complex.service.finder;
+
+import java.util.function.Supplier;
+
+/**
+ * {@link FinderMetrics} recording nothing, used by the finders when no metrics are configured.
+ */
+public class NoOpFinderMetrics implements FinderMetrics {
+
+    @Override
+    public void recordTime(String name, long durationNanos) {
+    }
+
+    @Override
+    public void increment(String name, long amount) {
+    }
+
+    @Override
+    public void recordValue(String name, long value) {
+    }
+
+    @Override
+    public void gauge(String name, Supplier<Number> valueSupplier) {
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    @Override
+    public String summary() {
+        return "No finder metrics recorded";
+    }
+}
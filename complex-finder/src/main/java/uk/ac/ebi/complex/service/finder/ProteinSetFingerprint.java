@@ -0,0 +1,153 @@
+package uk.ac.ebi.complex.service.finder;
+
+import psidev.psi.mi.jami.model.ModelledComparableParticipant;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Canonical representation of the proteins of a complex, or of a set of proteins to look for.
+ * <p>
+ * Accessions are sorted, keeping duplicates, and a 64-bit hash is computed once, so two fingerprints can be compared
+ * with a hash comparison followed by a check of the accessions in case of collision.
+ * Two fingerprints are equal when the collections they were built from are equal according to a
+ * {@link psidev.psi.mi.jami.utils.comparator.CollectionComparator} of
+ * {@link psidev.psi.mi.jami.utils.comparator.participant.ModelledComparableParticipantComparator} ignoring
+ * stoichiometry.
+ * <p>
+ * The distinct accessions are also kept sorted, so the number of proteins in common between two fingerprints can be
+ * computed with a linear merge. Fingerprints do not share any state, so they can be kept in caches of any lifetime.
+ */
+public final class ProteinSetFingerprint {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final String[] accessions;
+    private final String[] distinctAccessions;
+    private final long hash;
+
+    private ProteinSetFingerprint(String[] accessions) {
+        this.accessions = accessions;
+        // Accessions are already sorted, so the distinct accessions are sorted as well
+        this.distinctAccessions = Arrays.stream(accessions)
+                .distinct()
+                .toArray(String[]::new);
+        this.hash = computeHash(accessions);
+    }
+
+    public static ProteinSetFingerprint ofAccessions(Collection<String> proteinAcs) {
+        String[] accessions = proteinAcs.stream()
+                .sorted()
+                .toArray(String[]::new);
+        return new ProteinSetFingerprint(accessions);
+    }
+
+    public static ProteinSetFingerprint ofParticipants(Collection<ModelledComparableParticipant> participants) {
+        String[] accessions = participants.stream()
+                .map(ModelledComparableParticipant::getInteractorId)
+                .sorted()
+                .toArray(String[]::new);
+        return new ProteinSetFingerprint(accessions);
+    }
+
+    public static ProteinSetFingerprint ofComplex(IntactComplex complex, Function<String, IntactProtein> proteinLoader) {
+        return ofParticipants(complex.getComparableParticipants(true, proteinAc -> proteinLoader.apply(proteinAc)));
+    }
+
+    public List<String> getAccessions() {
+        return List.of(accessions);
+    }
+
+    public int size() {
+        return accessions.length;
+    }
+
+    public int distinctSize() {
+        return distinctAccessions.length;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    public int countCommonProteins(ProteinSetFingerprint other) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < distinctAccessions.length && j < other.distinctAccessions.length) {
+            int comparison = distinctAccessions[i].compareTo(other.distinctAccessions[j]);
+            if (comparison == 0) {
+                count++;
+                i++;
+                j++;
+            } else if (comparison < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether all the distinct proteins of this fingerprint are in the other one, stopping at the first
+     * protein missing.
+     */
+    public boolean isSubsetOf(ProteinSetFingerprint other) {
+        if (distinctAccessions.length > other.distinctAccessions.length) {
+            return false;
+        }
+        int j = 0;
+        for (String accession : distinctAccessions) {
+            while (j < other.distinctAccessions.length && other.distinctAccessions[j].compareTo(accession) < 0) {
+                j++;
+            }
+            if (j == other.distinctAccessions.length || !other.distinctAccessions[j].equals(accession)) {
+                return false;
+            }
+            j++;
+        }
+        return true;
+    }
+
+    public boolean contains(String proteinAc) {
+        return Arrays.binarySearch(accessions, proteinAc) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ProteinSetFingerprint that = (ProteinSetFingerprint) o;
+        return hash == that.hash && Arrays.equals(accessions, that.accessions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", accessions);
+    }
+
+    private static long computeHash(String[] accessions) {
+        long hash = FNV_OFFSET_BASIS;
+        for (String accession : accessions) {
+            for (int i = 0; i < accession.length(); i++) {
+                hash ^= accession.charAt(i);
+                hash *= FNV_PRIME;
+            }
+            // Separator, so ["AB", "C"] and ["A", "BC"] do not get the same hash
+            hash ^= ',';
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,120 @@
+package uk.ac.ebi.complex.service.finder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * In-memory registry of {@link FinderMetrics}, keeping for each timer and distribution its count, total and max,
+ * in the same way as a Micrometer registry does, without depending on one.
+ */
+public class SimpleFinderMetrics implements FinderMetrics {
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Statistics> timers = new ConcurrentHashMap<>();
+    private final Map<String, Statistics> distributions = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<Number>> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordTime(String name, long durationNanos) {
+        timers.computeIfAbsent(name, key -> new Statistics()).record(durationNanos);
+    }
+
+    @Override
+    public void increment(String name, long amount) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).add(amount);
+    }
+
+    @Override
+    public void recordValue(String name, long value) {
+        distributions.computeIfAbsent(name, key -> new Statistics()).record(value);
+    }
+
+    @Override
+    public void gauge(String name, Supplier<Number> valueSupplier) {
+        gauges.put(name, valueSupplier);
+    }
+
+    @Override
+    public void reset() {
+        counters.clear();
+        timers.clear();
+        distributions.clear();
+    }
+
+    public long getCount(String name) {
+        LongAdder counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    public Statistics getTimer(String name) {
+        return timers.get(name);
+    }
+
+    public Statistics getDistribution(String name) {
+        return distributions.get(name);
+    }
+
+    @Override
+    public String summary() {
+        StringBuilder summary = new StringBuilder("Finder metrics:");
+        new TreeMap<>(timers).forEach((name, timer) -> summary.append(String.format(
+                "%n  %s: count=%d, total=%dms, mean=%.3fms, max=%.3fms",
+                name,
+                timer.getCount(),
+                TimeUnit.NANOSECONDS.toMillis(timer.getTotal()),
+                timer.getMean() / 1_000_000,
+                timer.getMax() / 1_000_000.0)));
+        new TreeMap<>(distributions).forEach((name, distribution) -> summary.append(String.format(
+                "%n  %s: count=%d, total=%d, mean=%.2f, max=%d",
+                name,
+                distribution.getCount(),
+                distribution.getTotal(),
+                distribution.getMean(),
+                distribution.getMax())));
+        new TreeMap<>(counters).forEach((name, counter) -> summary.append(String.format(
+                "%n  %s: %d", name, counter.sum())));
+        new TreeMap<>(gauges).forEach((name, gauge) -> summary.append(String.format(
+                "%n  %s: %s", name, gauge.get())));
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+
+    public static class Statistics {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+        private void record(long value) {
+            count.increment();
+            total.add(value);
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotal() {
+            return total.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public double getMean() {
+            long currentCount = getCount();
+            return currentCount > 0 ? (double) getTotal() / currentCount : 0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ComplexClusterSolverTest {
+
+    @Test
+    public void minimalClustersAreFound() {
+        List<ComplexFinderResult.PartialMatch<String>> matches = List.of(
+                partialMatch("CPX-1", "P1", "P2"),
+                partialMatch("CPX-2", "P2", "P3"),
+                partialMatch("CPX-3", "P2", "P3", "P4"),
+                partialMatch("CPX-4", "P1", "P2", "P3"));
+
+        ComplexClusterSolver.Solution<String> solution = new ComplexClusterSolver()
+                .findClusters(List.of("P1", "P2", "P3", "P4"), matches);
+
+        // CPX-1, CPX-2 and CPX-3, and CPX-2, CPX-3 and CPX-4 are also clusters, but they contain the minimal ones
+        Assert.assertEquals(
+                List.of(List.of("CPX-1", "CPX-3"), List.of("CPX-3", "CPX-4")),
+                getComplexAcs(solution));
+        Assert.assertFalse(solution.isTruncated());
+    }
+
+    @Test
+    public void matchesMustShareProteinsWithTheCluster() {
+        List<ComplexFinderResult.PartialMatch<String>> matches = List.of(
+                partialMatch("CPX-1", "P1", "P2"),
+                partialMatch("CPX-2", "P3", "P4"),
+                partialMatch("CPX-3", "P2", "P3"));
+
+        ComplexClusterSolver.Solution<String> solution = new ComplexClusterSolver()
+                .findClusters(List.of("P1", "P2", "P3", "P4"), matches);
+
+        // CPX-2 is only added to the cluster after CPX-3, which comes later
+        Assert.assertEquals(List.of(), getComplexAcs(solution));
+    }
+
+    @Test
+    public void noClustersIfProteinsCannotBeCovered() {
+        List<ComplexFinderResult.PartialMatch<String>> matches = List.of(
+                partialMatch("CPX-1", "P1", "P2"),
+                partialMatch("CPX-2", "P2", "P3"));
+
+        ComplexClusterSolver.Solution<String> solution = new ComplexClusterSolver()
+                .findClusters(List.of("P1", "P2", "P3", "P4"), matches);
+
+        Assert.assertEquals(List.of(), getComplexAcs(solution));
+        Assert.assertEquals(0, solution.getExploredStates());
+    }
+
+    @Test
+    public void searchIsTruncatedAfterMaxStates() {
+        // Each pair of matches covers the same two proteins, plus a protein shared by all of them, so there are
+        // 2^10 minimal clusters
+        List<String> proteins = new ArrayList<>(List.of("P0"));
+        List<ComplexFinderResult.PartialMatch<String>> matches = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int pair = i / 2;
+            matches.add(partialMatch("CPX-" + i, "P0", "P" + (2 * pair + 1), "P" + (2 * pair + 2)));
+            if (i % 2 == 0) {
+                proteins.add("P" + (2 * pair + 1));
+                proteins.add("P" + (2 * pair + 2));
+            }
+        }
+
+        ComplexClusterSolver.Solution<String> solution = new ComplexClusterSolver().findClusters(proteins, matches);
+        Assert.assertEquals(1024, solution.getClusters().size());
+        Assert.assertFalse(solution.isTruncated());
+
+        ComplexClusterSolver.Solution<String> truncatedSolution = new ComplexClusterSolver(100)
+                .findClusters(proteins, matches);
+        Assert.assertTrue(truncatedSolution.isTruncated());
+        Assert.assertEquals(100, truncatedSolution.getExploredStates());
+        Assert.assertTrue(solution.getClusters().containsAll(truncatedSolution.getClusters()));
+    }
+
+    private static ComplexFinderResult.PartialMatch<String> partialMatch(String complexAc, String... proteins) {
+        return new ComplexFinderResult.PartialMatch<>(
+                complexAc,
+                false,
+                ComplexFinderResult.MatchType.PARTIAL_MATCH_PROTEINS_MISSING_IN_COMPLEX,
+                List.of(proteins),
+                List.of(),
+                List.of(),
+                complexAc);
+    }
+
+    private static List<List<String>> getComplexAcs(ComplexClusterSolver.Solution<String> solution) {
+        return solution.getClusters().stream()
+                .map(cluster -> cluster.stream()
+                        .map(ComplexFinderResult.PartialMatch::getComplexAc)
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,92 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import psidev.psi.mi.jami.model.Xref;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ComplexContainmentGraphTest {
+
+    @Mock
+    private Query query;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private IntactDao intactDao;
+
+    private ComplexContainmentGraph complexContainmentGraph;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.doReturn(query).when(entityManager).createQuery(Mockito.anyString());
+        Mockito.doReturn(query).when(query).setParameter(Mockito.anyString(), Mockito.any());
+        Mockito.doReturn(entityManager).when(intactDao).getEntityManager();
+        Mockito.doReturn(List.of(
+                new Object[]{"CPX-1", "CPX-3"},
+                new Object[]{"CPX-2", "CPX-3"},
+                new Object[]{"CPX-1", "CPX-4"},
+                new Object[]{"CPX-3", "CPX-5"},
+                // A version of the complex including an older version of itself
+                new Object[]{"CPX-5", "CPX-5"}))
+                .when(query).getResultList();
+
+        complexContainmentGraph = new ComplexContainmentGraph(intactDao);
+    }
+
+    @Test
+    public void parentComplexesAreTheComplexesUsingTheSubComplexDirectly() {
+        Assert.assertEquals(Set.of("CPX-3", "CPX-4"), new HashSet<>(complexContainmentGraph.getParentComplexAcs("CPX-1")));
+        Assert.assertEquals(Set.of("CPX-3"), new HashSet<>(complexContainmentGraph.getParentComplexAcs("CPX-2")));
+        Assert.assertEquals(Set.of("CPX-5"), new HashSet<>(complexContainmentGraph.getParentComplexAcs("CPX-3")));
+    }
+
+    @Test
+    public void complexesNotUsedAsSubComplexesHaveNoParents() {
+        Assert.assertTrue(complexContainmentGraph.getParentComplexAcs("CPX-4").isEmpty());
+        Assert.assertTrue(complexContainmentGraph.getParentComplexAcs("CPX-6").isEmpty());
+    }
+
+    @Test
+    public void complexesAreNotTheirOwnParents() {
+        Assert.assertTrue(complexContainmentGraph.getParentComplexAcs("CPX-5").isEmpty());
+    }
+
+    @Test
+    public void graphIsBuiltOnceOnFirstUse() {
+        Assert.assertFalse(complexContainmentGraph.isLoaded());
+        Mockito.verifyZeroInteractions(intactDao);
+
+        complexContainmentGraph.getParentComplexAcs("CPX-1");
+        complexContainmentGraph.getParentComplexAcs("CPX-2");
+        complexContainmentGraph.getParentComplexAcs("CPX-6");
+
+        Assert.assertTrue(complexContainmentGraph.isLoaded());
+        Mockito.verify(entityManager).createQuery(Mockito.anyString());
+        Mockito.verify(query).setParameter("complexPortalMi", Xref.COMPLEX_PORTAL_MI);
+        Mockito.verify(query).setParameter("complexPrimaryMi", Xref.COMPLEX_PRIMARY_MI);
+        Mockito.verify(query).getResultList();
+    }
+
+    @Test
+    public void buildReloadsTheGraph() {
+        complexContainmentGraph.getParentComplexAcs("CPX-1");
+        Mockito.doReturn(List.<Object[]>of(new Object[]{"CPX-1", "CPX-6"})).when(query).getResultList();
+
+        complexContainmentGraph.build();
+
+        Assert.assertEquals(Set.of("CPX-6"), new HashSet<>(complexContainmentGraph.getParentComplexAcs("CPX-1")));
+        Assert.assertTrue(complexContainmentGraph.getParentComplexAcs("CPX-2").isEmpty());
+        Mockito.verify(query, Mockito.times(2)).getResultList();
+    }
+}
@@ -0,0 +1,501 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import psidev.psi.mi.jami.model.Interactor;
+import psidev.psi.mi.jami.model.ModelledParticipant;
+import psidev.psi.mi.jami.utils.CvTermUtils;
+import uk.ac.ebi.intact.jami.dao.ComplexDao;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.dao.ProteinDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactModelledParticipant;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class ComplexFinderTest {
+
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private ComplexDao complexDao;
+    @Mock
+    private ProteinDao proteinDao;
+    @Mock
+    private IntactDao intactDao;
+
+    private final Map<String, IntactProtein> proteinsByUniprotAc = new LinkedHashMap<>();
+    private final Map<String, IntactComplex> complexesByComplexAc = new LinkedHashMap<>();
+    private final List<Collection<String>> latestVersionQueryAcs = new ArrayList<>();
+    private final List<Collection<String>> summaryQueryAcs = new ArrayList<>();
+    private final List<Collection<String>> subComplexQueryAcs = new ArrayList<>();
+    private final List<Collection<String>> canonicalIdQueryIds = new ArrayList<>();
+    private final List<Collection<String>> ebiAcQueryAcs = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.doAnswer(invocation -> mockComplexAcsQuery("complexPortalAcs", this::getLatestVersionRows))
+                .when(entityManager).createQuery(Mockito.contains("in (:complexPortalAcs)"));
+        Mockito.doAnswer(invocation -> mockComplexAcsQuery("summaryComplexAcs", this::getSummaryRows))
+                .when(entityManager).createQuery(Mockito.contains("in (:summaryComplexAcs)"));
+        Mockito.doAnswer(invocation -> mockComplexAcsQuery("subComplexAcs", this::getSubComplexRows))
+                .when(entityManager).createQuery(Mockito.contains("in (:subComplexAcs)"));
+        Mockito.doReturn(entityManager).when(intactDao).getEntityManager();
+        Mockito.doReturn(complexDao).when(intactDao).getComplexDao();
+        Mockito.doReturn(proteinDao).when(intactDao).getProteinDao();
+        mockDatabaseLookups();
+
+        for (int i = 1; i <= 5; i++) {
+            IntactProtein protein = new IntactProtein("protein-" + i, CvTermUtils.createProteinInteractorType());
+            protein.setAc("EBI-P" + i);
+            protein.setUniprotkb("P0000" + i);
+            proteinsByUniprotAc.put(protein.getUniprotkb(), protein);
+        }
+    }
+
+    @Test
+    public void bulkSearchGivesSameResultsAsSingleSearches() {
+        IntactComplex complex1 = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002");
+        buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00001", "P00002", "P00003");
+        IntactComplex complex3 = buildComplex("EBI-C3", "CPX-3", LifeCycleStatus.READY_FOR_RELEASE, "P00004");
+        complex3.addParticipant(new IntactModelledParticipant(complex1));
+        IntactComplex complex4 = buildComplex("EBI-C4", "CPX-4", LifeCycleStatus.RELEASED, "P00002", "P00005");
+        complex4.setPredictedComplex(true);
+        buildComplex("EBI-C5", "CPX-5", LifeCycleStatus.NEW, "P00001", "P00002");
+
+        ComplexFinder complexFinder = new ComplexFinder(intactDao);
+        complexFinder.setInListBatchSize(2);
+        ComplexFinderOptions complexFinderOptions = ComplexFinderOptions.builder()
+                .checkPredictedComplexes(true)
+                .checkPartialMatches(true)
+                .build();
+        List<Collection<String>> proteinIdsCollection = List.of(
+                List.of("P00001", "P00002"),
+                List.of("P00001", "P00002", "P00004"),
+                List.of("P00002"),
+                List.of("P00002", "P00005"),
+                List.of("P00003", "P00004"),
+                List.of("P00001", "P00002", "P00003"),
+                List.of("P00001", "P00002"));
+
+        Map<Collection<String>, ComplexFinderResult<IntactComplex>> bulkResults =
+                complexFinder.findComplexesWithMatchingProteins(proteinIdsCollection, complexFinderOptions);
+
+        // Proteins, complexes and super-complexes are only loaded in batches by the bulk search
+        Mockito.verify(complexDao, Mockito.never()).getLatestComplexVersionByComplexAc(Mockito.anyString());
+        Mockito.verify(complexDao, Mockito.never()).getComplexesInvolvingSubComplex(Mockito.anyString());
+        Assert.assertFalse(latestVersionQueryAcs.isEmpty());
+        Assert.assertTrue(latestVersionQueryAcs.stream().allMatch(complexAcs -> complexAcs.size() <= 2));
+        Assert.assertFalse(subComplexQueryAcs.isEmpty());
+        Assert.assertTrue(subComplexQueryAcs.stream().allMatch(complexAcs -> complexAcs.size() <= 2));
+        Assert.assertEquals(3, canonicalIdQueryIds.size());
+        Assert.assertTrue(canonicalIdQueryIds.stream().allMatch(proteinIds -> proteinIds.size() <= 2));
+        Assert.assertEquals(3, ebiAcQueryAcs.size());
+        Assert.assertTrue(ebiAcQueryAcs.stream().allMatch(proteinAcs -> proteinAcs.size() <= 2));
+
+        Assert.assertEquals(new HashSet<>(proteinIdsCollection), bulkResults.keySet());
+        for (Collection<String> proteinIds : proteinIdsCollection) {
+            ComplexFinderResult<IntactComplex> bulkResult = bulkResults.get(proteinIds);
+            ComplexFinderResult<IntactComplex> singleResult = complexFinder.findComplexWithMatchingProteins(proteinIds, complexFinderOptions);
+
+            Assert.assertEquals(proteinIds.toString(), new HashSet<>(singleResult.getExactMatches()), new HashSet<>(bulkResult.getExactMatches()));
+            Assert.assertEquals(proteinIds.toString(), new HashSet<>(singleResult.getPartialMatches()), new HashSet<>(bulkResult.getPartialMatches()));
+        }
+
+        // Matches are actually found, so the comparison is not between empty results
+        ComplexFinderResult<IntactComplex> result = bulkResults.get(List.of("P00001", "P00002", "P00004"));
+        Assert.assertEquals(1, result.getExactMatches().size());
+        Assert.assertEquals(complex3, result.getExactMatches().iterator().next().getComplex());
+    }
+
+    @Test
+    public void bulkSearchLoadsComplexesMissingInIndexFromDatabase() {
+        IntactComplex complex1 = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002");
+        IntactComplex complex2 = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00003");
+
+        ComplexIndex complexIndex = Mockito.mock(ComplexIndex.class);
+        Mockito.doReturn(true).when(complexIndex).isLoaded();
+        Mockito.doReturn(ComplexIndex.indexComplex(complex1, ProteinSetFingerprint.ofComplex(complex1, proteinAc -> null), false))
+                .when(complexIndex).getComplex("CPX-1");
+        Mockito.doReturn(Set.of("CPX-1")).when(complexIndex).getComplexAcsInvolvingProteins(List.of("P00001", "P00002"));
+        // CPX-2 was created after the index was built
+        Mockito.doReturn(Set.of("CPX-2")).when(complexIndex).getComplexAcsInvolvingProteins(List.of("P00003"));
+        Mockito.doReturn(Set.of()).when(complexIndex).getComplexAcsInvolvingSubComplex(Mockito.anyString());
+        Mockito.doReturn(Set.of("CPX-1"))
+                .when(complexIndex).getComplexAcsWithSameProteins(ProteinSetFingerprint.ofAccessions(List.of("P00001", "P00002")));
+
+        ComplexFinder complexFinder = new ComplexFinder(intactDao, complexIndex);
+        Map<Collection<String>, ComplexFinderResult<IntactComplex>> results = complexFinder.findComplexesWithMatchingProteins(
+                List.of(List.of("P00001", "P00002"), List.of("P00003")),
+                ComplexFinderOptions.builder().build());
+
+        Assert.assertEquals(complex1, results.get(List.of("P00001", "P00002")).getExactMatches().iterator().next().getComplex());
+        Assert.assertEquals(complex2, results.get(List.of("P00003")).getExactMatches().iterator().next().getComplex());
+        Mockito.verify(complexDao).getLatestComplexVersionByComplexAc("CPX-2");
+        Mockito.verify(complexDao, Mockito.never()).getLatestComplexVersionByComplexAc("CPX-1");
+        // Exact matches in the index are looked up by fingerprint, once for each set of proteins
+        Mockito.verify(complexIndex).getComplexAcsWithSameProteins(ProteinSetFingerprint.ofAccessions(List.of("P00001", "P00002")));
+        Mockito.verify(complexIndex).getComplexAcsWithSameProteins(ProteinSetFingerprint.ofAccessions(List.of("P00003")));
+    }
+
+    @Test
+    public void superComplexCyclesAreOnlyCheckedOnce() {
+        buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001");
+        buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00002");
+
+        // Each complex is a sub-complex of the other one, and both are partial matches below the min similarity,
+        // so they are not in the results and would be checked again on each level
+        ComplexContainmentGraph complexContainmentGraph = Mockito.mock(ComplexContainmentGraph.class);
+        Mockito.doReturn(Set.of("CPX-2")).when(complexContainmentGraph).getParentComplexAcs("CPX-1");
+        Mockito.doReturn(Set.of("CPX-1")).when(complexContainmentGraph).getParentComplexAcs("CPX-2");
+
+        SimpleFinderMetrics finderMetrics = new SimpleFinderMetrics();
+        ComplexFinder complexFinder = new ComplexFinder(intactDao, null, complexContainmentGraph, null, finderMetrics);
+        ComplexFinderResult<IntactComplex> result = complexFinder.findComplexWithMatchingProteins(
+                List.of("P00001", "P00002", "P00003", "P00004"),
+                ComplexFinderOptions.builder()
+                        .checkPartialMatches(true)
+                        .minPartialMatchSimilarity(0.9)
+                        .build());
+
+        Assert.assertTrue(result.getExactMatches().isEmpty());
+        Assert.assertTrue(result.getPartialMatches().isEmpty());
+        Assert.assertEquals(2, finderMetrics.getDistribution(ComplexFinder.CANDIDATES_PER_QUERY).getMax());
+        Mockito.verify(complexDao).getLatestComplexVersionByComplexAc("CPX-1");
+        Mockito.verify(complexDao).getLatestComplexVersionByComplexAc("CPX-2");
+    }
+
+    @Test
+    public void partialMatchesAreRankedBySimilarity() {
+        buildPartialMatchComplexes();
+
+        Assert.assertEquals(
+                List.of("CPX-1", "CPX-2", "CPX-5", "CPX-4", "CPX-3"),
+                findPartialMatchAcs(ComplexFinderOptions.builder().checkPartialMatches(true).build()));
+    }
+
+    @Test
+    public void onlyTopPartialMatchesAreKept() {
+        buildPartialMatchComplexes();
+
+        Assert.assertEquals(
+                List.of("CPX-1", "CPX-2"),
+                findPartialMatchAcs(ComplexFinderOptions.builder().checkPartialMatches(true).maxPartialMatches(2).build()));
+        Assert.assertEquals(
+                List.of("CPX-1", "CPX-2", "CPX-5"),
+                findPartialMatchAcs(ComplexFinderOptions.builder().checkPartialMatches(true).maxPartialMatches(3).build()));
+        Assert.assertEquals(
+                List.of(),
+                findPartialMatchAcs(ComplexFinderOptions.builder().checkPartialMatches(true).maxPartialMatches(0).build()));
+    }
+
+    @Test
+    public void partialMatchTiesAreBrokenByComplexAc() {
+        // CPX-2 and CPX-5 have the same similarity, and CPX-5 is found first
+        buildComplex("EBI-C5", "CPX-5", LifeCycleStatus.RELEASED, "P00003", "P00004");
+        buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00001", "P00002");
+
+        Assert.assertEquals(
+                List.of("CPX-2"),
+                findPartialMatchAcs(ComplexFinderOptions.builder().checkPartialMatches(true).maxPartialMatches(1).build()));
+        Assert.assertEquals(
+                List.of("CPX-2", "CPX-5"),
+                findPartialMatchAcs(ComplexFinderOptions.builder().checkPartialMatches(true).build()));
+    }
+
+    @Test
+    public void partialMatchesBelowMinSimilarityAreSkipped() {
+        buildPartialMatchComplexes();
+
+        Assert.assertEquals(
+                List.of("CPX-1", "CPX-2", "CPX-5"),
+                findPartialMatchAcs(ComplexFinderOptions.builder().checkPartialMatches(true).minPartialMatchSimilarity(0.5).build()));
+        Assert.assertEquals(
+                List.of("CPX-1", "CPX-2", "CPX-5", "CPX-4"),
+                findPartialMatchAcs(ComplexFinderOptions.builder()
+                        .checkPartialMatches(true)
+                        .maxPartialMatches(10)
+                        .minPartialMatchSimilarity(0.4)
+                        .build()));
+    }
+
+    @Test
+    public void partialMatchesThatCannotBeKeptAreSkippedBeforeCounting() {
+        buildPartialMatchComplexes();
+
+        SimpleFinderMetrics finderMetrics = new SimpleFinderMetrics();
+        ComplexFinderResult<IntactComplex> result = new ComplexFinder(intactDao, null, null, null, finderMetrics)
+                .findComplexWithMatchingProteins(
+                        List.of("P00001", "P00002", "P00003", "P00004"),
+                        ComplexFinderOptions.builder()
+                                .checkPartialMatches(true)
+                                .minPartialMatchSimilarity(0.6)
+                                .build());
+
+        // Only CPX-1 and CPX-4 have enough proteins to reach the min similarity, the others are skipped by size
+        Assert.assertEquals(
+                List.of("CPX-1"),
+                result.getPartialMatches().stream().map(ComplexFinderResult.PartialMatch::getComplexAc).collect(Collectors.toList()));
+        Assert.assertEquals(3, finderMetrics.getCount(ComplexFinder.PARTIAL_MATCHES_SKIPPED));
+    }
+
+    @Test
+    public void superComplexesOfSkippedPartialMatchesAreChecked() {
+        IntactComplex complex1 = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002");
+        IntactComplex complex2 = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00003");
+        // Only found through its sub-complexes, as it has no proteins directly in it
+        IntactComplex complex3 = buildComplex("EBI-C3", "CPX-3", LifeCycleStatus.RELEASED);
+        complex3.addParticipant(new IntactModelledParticipant(complex1));
+        complex3.addParticipant(new IntactModelledParticipant(complex2));
+
+        ComplexFinderResult<IntactComplex> result = new ComplexFinder(intactDao).findComplexWithMatchingProteins(
+                List.of("P00001", "P00002", "P00003"),
+                ComplexFinderOptions.builder()
+                        .checkPartialMatches(true)
+                        .minPartialMatchSimilarity(0.9)
+                        .build());
+
+        Assert.assertEquals(complex3, result.getExactMatches().iterator().next().getComplex());
+        Assert.assertTrue(result.getPartialMatches().isEmpty());
+    }
+
+    @Test
+    public void allPartialMatchesAreKeptWhenMaxIsGreaterThanMatches() {
+        buildPartialMatchComplexes();
+
+        Assert.assertEquals(
+                List.of("CPX-1", "CPX-2", "CPX-5", "CPX-4", "CPX-3"),
+                findPartialMatchAcs(ComplexFinderOptions.builder().checkPartialMatches(true).maxPartialMatches(10).build()));
+    }
+
+    @Test
+    public void summariesAreBuiltFromScalarQuery() {
+        buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002");
+        IntactComplex complex2 = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.READY_FOR_RELEASE, "P00001", "P00002", "P00003");
+        complex2.setPredictedComplex(true);
+        buildComplex("EBI-C3", "CPX-3", LifeCycleStatus.RELEASED, "P00001", "P00002", "P00003", "P00004");
+
+        ComplexFinderResult<ComplexSummary> result = new ComplexFinder(intactDao).findComplexSummariesWithMatchingProteins(
+                List.of("P00001", "P00002", "P00003"),
+                ComplexFinderOptions.builder().checkPredictedComplexes(true).checkPartialMatches(true).build());
+
+        Assert.assertEquals(1, summaryQueryAcs.size());
+        Assert.assertEquals(Set.of("CPX-1", "CPX-2", "CPX-3"), new HashSet<>(summaryQueryAcs.get(0)));
+
+        Assert.assertEquals(1, result.getExactMatches().size());
+        ComplexSummary exactMatch = result.getExactMatches().iterator().next().getComplex();
+        Assert.assertEquals("CPX-2", exactMatch.getComplexAc());
+        Assert.assertEquals("2", exactMatch.getComplexVersion());
+        Assert.assertEquals(LifeCycleStatus.READY_FOR_RELEASE, exactMatch.getStatus());
+        Assert.assertTrue(exactMatch.isPredictedComplex());
+        Assert.assertEquals(List.of("P00001", "P00002", "P00003"), new ArrayList<>(exactMatch.getProteinIds()));
+
+        Map<String, ComplexSummary> partialMatches = result.getPartialMatches()
+                .stream()
+                .collect(Collectors.toMap(ComplexFinderResult.PartialMatch::getComplexAc, ComplexFinderResult.PartialMatch::getComplex));
+        Assert.assertEquals(Set.of("CPX-1", "CPX-3"), partialMatches.keySet());
+        ComplexSummary partialMatch = partialMatches.get("CPX-3");
+        Assert.assertEquals("CPX-3", partialMatch.getComplexAc());
+        Assert.assertEquals("2", partialMatch.getComplexVersion());
+        Assert.assertEquals(LifeCycleStatus.RELEASED, partialMatch.getStatus());
+        Assert.assertFalse(partialMatch.isPredictedComplex());
+        Assert.assertEquals(List.of("P00001", "P00002", "P00003", "P00004"), new ArrayList<>(partialMatch.getProteinIds()));
+    }
+
+    @Test
+    public void bulkSummariesGiveSameResultsAsSingleSearches() {
+        IntactComplex complex1 = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002");
+        IntactComplex complex2 = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.READY_FOR_RELEASE, "P00003");
+        complex2.addParticipant(new IntactModelledParticipant(complex1));
+        buildComplex("EBI-C3", "CPX-3", LifeCycleStatus.RELEASED, "P00001", "P00002", "P00004");
+
+        ComplexFinder complexFinder = new ComplexFinder(intactDao);
+        complexFinder.setInListBatchSize(2);
+        ComplexFinderOptions complexFinderOptions = ComplexFinderOptions.builder().checkPartialMatches(true).build();
+        List<Collection<String>> proteinIdsCollection = List.of(
+                List.of("P00001", "P00002"),
+                List.of("P00001", "P00002", "P00003"),
+                List.of("P00004"));
+
+        Map<Collection<String>, ComplexFinderResult<ComplexSummary>> bulkResults =
+                complexFinder.findComplexSummariesWithMatchingProteinSets(proteinIdsCollection, complexFinderOptions);
+
+        // The summaries of all the matches are loaded together
+        Assert.assertEquals(2, summaryQueryAcs.size());
+        Assert.assertEquals(Set.of("CPX-1", "CPX-2", "CPX-3"), summaryQueryAcs.stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toSet()));
+
+        for (Collection<String> proteinIds : proteinIdsCollection) {
+            Assert.assertEquals(
+                    proteinIds.toString(),
+                    complexFinder.findComplexSummariesWithMatchingProteins(proteinIds, complexFinderOptions),
+                    bulkResults.get(proteinIds));
+        }
+        Assert.assertEquals("CPX-2", bulkResults.get(List.of("P00001", "P00002", "P00003")).getExactMatches().iterator().next().getComplexAc());
+    }
+
+    @Test
+    public void summariesDoNotDependOnComplexIndex() {
+        IntactComplex complex1 = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002");
+
+        // The complex is indexed with a status that has changed since the index was built
+        IntactComplex indexedComplex = new IntactComplex("test");
+        indexedComplex.setAc("EBI-C1");
+        indexedComplex.assignComplexAc("CPX-1");
+        indexedComplex.setStatus(LifeCycleStatus.READY_FOR_RELEASE);
+        complex1.getParticipants().forEach(participant ->
+                indexedComplex.addParticipant(new IntactModelledParticipant(participant.getInteractor())));
+        ComplexIndex complexIndex = Mockito.mock(ComplexIndex.class);
+        Mockito.doReturn(true).when(complexIndex).isLoaded();
+        Mockito.doReturn(Set.of("CPX-1")).when(complexIndex).getComplexAcsInvolvingProteins(Mockito.any());
+        Mockito.doReturn(Set.of("CPX-1")).when(complexIndex).getComplexAcsWithSameProteins(Mockito.any());
+        Mockito.doReturn(ComplexIndex.indexComplex(indexedComplex, ProteinSetFingerprint.ofComplex(indexedComplex, proteinAc -> null), false))
+                .when(complexIndex).getComplex("CPX-1");
+
+        ComplexFinderResult<ComplexSummary> result = new ComplexFinder(intactDao, complexIndex).findComplexSummariesWithMatchingProteins(
+                List.of("P00001", "P00002"), ComplexFinderOptions.builder().build());
+
+        ComplexSummary exactMatch = result.getExactMatches().iterator().next().getComplex();
+        Assert.assertEquals("CPX-1", exactMatch.getComplexAc());
+        Assert.assertEquals("2", exactMatch.getComplexVersion());
+        Assert.assertEquals(LifeCycleStatus.RELEASED, exactMatch.getStatus());
+        Mockito.verify(complexDao, Mockito.never()).getLatestComplexVersionByComplexAc(Mockito.anyString());
+    }
+
+    private void buildPartialMatchComplexes() {
+        // Jaccard similarities with P00001, P00002, P00003 and P00004
+        buildComplex("EBI-C3", "CPX-3", LifeCycleStatus.RELEASED, "P00001"); // 0.25
+        buildComplex("EBI-C4", "CPX-4", LifeCycleStatus.RELEASED, "P00001", "P00002", "P00005"); // 0.4
+        buildComplex("EBI-C5", "CPX-5", LifeCycleStatus.RELEASED, "P00003", "P00004"); // 0.5
+        buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00001", "P00002"); // 0.5
+        buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002", "P00003"); // 0.75
+    }
+
+    private List<String> findPartialMatchAcs(ComplexFinderOptions complexFinderOptions) {
+        ComplexFinderResult<IntactComplex> result = new ComplexFinder(intactDao).findComplexWithMatchingProteins(
+                List.of("P00001", "P00002", "P00003", "P00004"), complexFinderOptions);
+        Assert.assertTrue(result.getExactMatches().isEmpty());
+        return result.getPartialMatches()
+                .stream()
+                .map(ComplexFinderResult.PartialMatch::getComplexAc)
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Query mockComplexAcsQuery(String parameterName, Function<Collection<String>, List<Object[]>> rows) {
+        Query query = Mockito.mock(Query.class);
+        Map<String, Object> parameters = new HashMap<>();
+        Mockito.doAnswer(invocation -> {
+            parameters.put(invocation.getArgument(0), invocation.getArgument(1));
+            return query;
+        }).when(query).setParameter(Mockito.anyString(), Mockito.any());
+        Mockito.doAnswer(invocation -> rows.apply((Collection<String>) parameters.get(parameterName)))
+                .when(query).getResultList();
+        return query;
+    }
+
+    private List<Object[]> getLatestVersionRows(Collection<String> complexAcs) {
+        latestVersionQueryAcs.add(new ArrayList<>(complexAcs));
+        return complexAcs.stream()
+                .filter(complexesByComplexAc::containsKey)
+                .map(complexAc -> new Object[]{complexesByComplexAc.get(complexAc), complexAc, "1"})
+                .collect(Collectors.toList());
+    }
+
+    private List<Object[]> getSubComplexRows(Collection<String> complexAcs) {
+        subComplexQueryAcs.add(new ArrayList<>(complexAcs));
+        List<Object[]> rows = new ArrayList<>();
+        for (IntactComplex complex : complexesByComplexAc.values()) {
+            for (Interactor interactor : getInteractors(complex)) {
+                if (interactor instanceof IntactComplex && complexAcs.contains(((IntactComplex) interactor).getComplexAc())) {
+                    rows.add(new Object[]{((IntactComplex) interactor).getComplexAc(), complex.getComplexAc()});
+                }
+            }
+        }
+        return rows;
+    }
+
+    private List<Object[]> getSummaryRows(Collection<String> complexAcs) {
+        summaryQueryAcs.add(new ArrayList<>(complexAcs));
+        List<Object[]> rows = new ArrayList<>();
+        for (String complexAc : complexAcs) {
+            IntactComplex complex = complexesByComplexAc.get(complexAc);
+            if (complex != null) {
+                // Two versions of each complex, only the latest one is used
+                rows.add(new Object[]{complexAc, "1", !complex.isPredictedComplex(), null});
+                rows.add(new Object[]{complexAc, "2", complex.isPredictedComplex(), complex.getCvStatus()});
+            }
+        }
+        return rows;
+    }
+
+    private void mockDatabaseLookups() {
+        Mockito.doAnswer(invocation -> complexesByComplexAc.get(invocation.<String>getArgument(0)))
+                .when(complexDao).getLatestComplexVersionByComplexAc(Mockito.anyString());
+        Mockito.doAnswer(invocation -> {
+                    canonicalIdQueryIds.add(new ArrayList<>(invocation.<Collection<String>>getArgument(1)));
+                    return invocation.<Collection<String>>getArgument(1)
+                            .stream()
+                            .map(proteinsByUniprotAc::get)
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList());
+                })
+                .when(proteinDao).getByCanonicalIds(Mockito.anyString(), Mockito.any());
+        Mockito.doAnswer(invocation -> {
+                    ebiAcQueryAcs.add(new ArrayList<>(invocation.<Collection<String>>getArgument(0)));
+                    return complexesByComplexAc.values()
+                            .stream()
+                            .filter(complex -> getInteractors(complex).stream().anyMatch(interactor ->
+                                    interactor instanceof IntactProtein &&
+                                            invocation.<Collection<String>>getArgument(0).contains(((IntactProtein) interactor).getAc())))
+                            .collect(Collectors.toList());
+                })
+                .when(complexDao).getComplexesInvolvingProteinsWithEbiAcs(Mockito.any());
+        Mockito.doAnswer(invocation -> complexesByComplexAc.values()
+                        .stream()
+                        .filter(complex -> getInteractors(complex).stream().anyMatch(interactor ->
+                                interactor instanceof IntactComplex &&
+                                        invocation.<String>getArgument(0).equals(((IntactComplex) interactor).getComplexAc())))
+                        .collect(Collectors.toList()))
+                .when(complexDao).getComplexesInvolvingSubComplex(Mockito.anyString());
+    }
+
+    private IntactComplex buildComplex(String ac, String complexAc, LifeCycleStatus status, String... proteinIds) {
+        IntactComplex complex = new IntactComplex("test");
+        complex.setAc(ac);
+        complex.assignComplexAc(complexAc);
+        complex.setStatus(status);
+        for (String proteinId : proteinIds) {
+            complex.addParticipant(new IntactModelledParticipant(proteinsByUniprotAc.get(proteinId)));
+        }
+        complexesByComplexAc.put(complexAc, complex);
+        return complex;
+    }
+
+    private List<Interactor> getInteractors(IntactComplex complex) {
+        return complex.getParticipants()
+                .stream()
+                .map(ModelledParticipant::getInteractor)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,268 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import psidev.psi.mi.jami.model.Interactor;
+import psidev.psi.mi.jami.model.ModelledParticipant;
+import psidev.psi.mi.jami.utils.CvTermUtils;
+import uk.ac.ebi.intact.jami.dao.ComplexDao;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+import uk.ac.ebi.intact.jami.dao.ProteinDao;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactModelledParticipant;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ComplexIndexTest {
+
+    @Mock
+    private Query versionQuery;
+    @Mock
+    private Query complexQuery;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private ComplexDao complexDao;
+    @Mock
+    private ProteinDao proteinDao;
+    @Mock
+    private IntactDao intactDao;
+
+    private final Map<String, IntactProtein> proteinsByUniprotAc = new LinkedHashMap<>();
+    private final Map<String, IntactComplex> complexesByComplexAc = new LinkedHashMap<>();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.doReturn(versionQuery).when(entityManager).createQuery(Mockito.contains("complexXref.version"));
+        Mockito.doReturn(complexQuery).when(entityManager).createQuery(Mockito.contains("in (:acs)"));
+        Mockito.doReturn(entityManager).when(intactDao).getEntityManager();
+        Mockito.doReturn(complexDao).when(intactDao).getComplexDao();
+        Mockito.doReturn(proteinDao).when(intactDao).getProteinDao();
+
+        for (int i = 1; i <= 5; i++) {
+            IntactProtein protein = new IntactProtein("protein-" + i, CvTermUtils.createProteinInteractorType());
+            protein.setAc("EBI-P" + i);
+            protein.setUniprotkb("P0000" + i);
+            proteinsByUniprotAc.put(protein.getUniprotkb(), protein);
+        }
+    }
+
+    @Test
+    public void latestVersionOfComplexesIsIndexedInPages() {
+        IntactComplex complex2 = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00002");
+        IntactComplex complex1Version2 = buildComplex("EBI-C3", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002");
+
+        Mockito.doReturn(
+                List.of(new Object[]{"EBI-C1", "CPX-1", "1"}, new Object[]{"EBI-C2", "CPX-2", "1"}),
+                List.<Object[]>of(new Object[]{"EBI-C3", "CPX-1", "2"}),
+                List.of())
+                .when(versionQuery).getResultList();
+        Mockito.doReturn(List.of(complex2, complex1Version2)).when(complexQuery).getResultList();
+
+        ComplexIndex complexIndex = new ComplexIndex(intactDao, 2);
+        Assert.assertFalse(complexIndex.isLoaded());
+        complexIndex.build();
+
+        Assert.assertTrue(complexIndex.isLoaded());
+        Assert.assertEquals(2, complexIndex.size());
+        Assert.assertEquals(List.of("P00001", "P00002"), complexIndex.getComplex("CPX-1").getFingerprint().getAccessions());
+        Assert.assertNull(complexIndex.getComplex("CPX-1").getComplex());
+        Assert.assertEquals(Set.of("CPX-1", "CPX-2"), complexIndex.getComplexAcsInvolvingProteins(List.of("P00002")));
+        Assert.assertEquals(Set.of("CPX-1"), complexIndex.getComplexAcsInvolvingProteins(List.of("P00001")));
+        Assert.assertEquals(Set.of("CPX-1"), complexIndex.getComplexAcsWithSameProteins(ProteinSetFingerprint.ofAccessions(List.of("P00002", "P00001"))));
+        Assert.assertTrue(complexIndex.getComplexAcsWithSameProteins(ProteinSetFingerprint.ofAccessions(List.of("P00001"))).isEmpty());
+
+        // Complexes are paginated by database AC, and only the latest version of each complex is loaded
+        Mockito.verify(versionQuery).setParameter("lastAc", "");
+        Mockito.verify(versionQuery).setParameter("lastAc", "EBI-C2");
+        Mockito.verify(versionQuery).setParameter("lastAc", "EBI-C3");
+        Mockito.verify(versionQuery, Mockito.times(3)).setMaxResults(2);
+        Mockito.verify(versionQuery, Mockito.never()).setFirstResult(Mockito.anyInt());
+        Mockito.verify(complexQuery).setParameter("acs", List.of("EBI-C2", "EBI-C3"));
+        Mockito.verify(entityManager).clear();
+        Mockito.verifyZeroInteractions(complexDao);
+    }
+
+    @Test
+    public void indexIsReplacedWhenRebuilt() {
+        IntactComplex complex1 = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001");
+        IntactComplex complex2 = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00002");
+
+        Mockito.doReturn(
+                List.<Object[]>of(new Object[]{"EBI-C1", "CPX-1", "1"}),
+                List.of(),
+                List.<Object[]>of(new Object[]{"EBI-C2", "CPX-2", "1"}),
+                List.of())
+                .when(versionQuery).getResultList();
+        Mockito.doReturn(List.of(complex1), List.of(complex2)).when(complexQuery).getResultList();
+
+        ComplexIndex complexIndex = new ComplexIndex(intactDao);
+        complexIndex.build();
+        Assert.assertNotNull(complexIndex.getComplex("CPX-1"));
+
+        complexIndex.build();
+        Assert.assertTrue(complexIndex.isLoaded());
+        Assert.assertNull(complexIndex.getComplex("CPX-1"));
+        Assert.assertNotNull(complexIndex.getComplex("CPX-2"));
+        Assert.assertTrue(complexIndex.getComplexAcsInvolvingProteins(List.of("P00001")).isEmpty());
+
+        complexIndex.clear();
+        Assert.assertFalse(complexIndex.isLoaded());
+        Assert.assertNull(complexIndex.getComplex("CPX-2"));
+    }
+
+    @Test
+    public void refreshUpdatesComplexesIncludingRefreshedSubComplexes() {
+        IntactComplex subComplex = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001");
+        IntactComplex complex = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00002");
+        complex.addParticipant(new IntactModelledParticipant(subComplex));
+
+        Mockito.doReturn(
+                List.of(new Object[]{"EBI-C1", "CPX-1", "1"}, new Object[]{"EBI-C2", "CPX-2", "1"}),
+                List.of())
+                .when(versionQuery).getResultList();
+        Mockito.doReturn(List.of(subComplex, complex)).when(complexQuery).getResultList();
+
+        ComplexIndex complexIndex = new ComplexIndex(intactDao);
+        complexIndex.build();
+        Assert.assertEquals(Set.of("CPX-2"), complexIndex.getComplexAcsInvolvingSubComplex("CPX-1"));
+
+        IntactComplex updatedSubComplex = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00003");
+        IntactComplex updatedComplex = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00002");
+        updatedComplex.addParticipant(new IntactModelledParticipant(updatedSubComplex));
+        Mockito.doReturn(updatedSubComplex).when(complexDao).getLatestComplexVersionByComplexAc("CPX-1");
+        Mockito.doReturn(updatedComplex).when(complexDao).getLatestComplexVersionByComplexAc("CPX-2");
+
+        complexIndex.refresh(List.of("CPX-1"));
+
+        Assert.assertEquals(Set.of("CPX-1"), complexIndex.getComplexAcsInvolvingProteins(List.of("P00003")));
+        Assert.assertEquals(Set.of("CPX-1"), complexIndex.getComplexAcsWithSameProteins(ProteinSetFingerprint.ofAccessions(List.of("P00001", "P00003"))));
+        Assert.assertTrue(complexIndex.getComplexAcsWithSameProteins(ProteinSetFingerprint.ofAccessions(List.of("P00001"))).isEmpty());
+        Assert.assertEquals(
+                complexIndex.getComplex("CPX-2").getFingerprint(),
+                ProteinSetFingerprint.ofComplex(updatedComplex, proteinAc -> null));
+        Mockito.verify(complexDao).getLatestComplexVersionByComplexAc("CPX-1");
+        Mockito.verify(complexDao).getLatestComplexVersionByComplexAc("CPX-2");
+    }
+
+    @Test
+    public void refreshIsIgnoredWhenIndexIsNotBuilt() {
+        ComplexIndex complexIndex = new ComplexIndex(intactDao);
+        complexIndex.refresh(List.of("CPX-1"));
+
+        Assert.assertFalse(complexIndex.isLoaded());
+        Mockito.verifyZeroInteractions(complexDao, entityManager);
+    }
+
+    @Test
+    public void indexGivesSameResultsAsDatabaseLookups() {
+        IntactComplex complex1 = buildComplex("EBI-C1", "CPX-1", LifeCycleStatus.RELEASED, "P00001", "P00002");
+        IntactComplex complex2 = buildComplex("EBI-C2", "CPX-2", LifeCycleStatus.RELEASED, "P00001", "P00002", "P00003");
+        IntactComplex complex3 = buildComplex("EBI-C3", "CPX-3", LifeCycleStatus.READY_FOR_RELEASE, "P00004");
+        complex3.addParticipant(new IntactModelledParticipant(complex1));
+        IntactComplex complex4 = buildComplex("EBI-C4", "CPX-4", LifeCycleStatus.RELEASED, "P00002", "P00005");
+        complex4.setPredictedComplex(true);
+        buildComplex("EBI-C5", "CPX-5", LifeCycleStatus.NEW, "P00001", "P00002");
+        mockDatabaseLookups();
+
+        Mockito.doReturn(
+                complexesByComplexAc.values()
+                        .stream()
+                        .map(complex -> new Object[]{complex.getAc(), complex.getComplexAc(), "1"})
+                        .collect(Collectors.toList()),
+                List.of())
+                .when(versionQuery).getResultList();
+        Mockito.doReturn(new ArrayList<>(complexesByComplexAc.values())).when(complexQuery).getResultList();
+
+        ComplexIndex complexIndex = new ComplexIndex(intactDao);
+        complexIndex.build();
+        ComplexFinder indexFinder = new ComplexFinder(intactDao, complexIndex);
+        ComplexFinder databaseFinder = new ComplexFinder(intactDao);
+
+        ComplexFinderOptions complexFinderOptions = ComplexFinderOptions.builder()
+                .checkPredictedComplexes(true)
+                .checkPartialMatches(true)
+                .build();
+        for (List<String> proteinIds : List.of(
+                List.of("P00001", "P00002"),
+                List.of("P00001", "P00002", "P00004"),
+                List.of("P00002"),
+                List.of("P00002", "P00005"),
+                List.of("P00003", "P00004"),
+                List.of("P00001", "P00002", "P00003"))) {
+
+            ComplexFinderResult<IntactComplex> indexResult = indexFinder.findComplexWithMatchingProteins(proteinIds, complexFinderOptions);
+            ComplexFinderResult<IntactComplex> databaseResult = databaseFinder.findComplexWithMatchingProteins(proteinIds, complexFinderOptions);
+
+            Assert.assertEquals(proteinIds.toString(), new HashSet<>(databaseResult.getExactMatches()), new HashSet<>(indexResult.getExactMatches()));
+            Assert.assertEquals(proteinIds.toString(), new HashSet<>(databaseResult.getPartialMatches()), new HashSet<>(indexResult.getPartialMatches()));
+        }
+
+        // Matches are actually found, so the comparison is not between empty results
+        ComplexFinderResult<IntactComplex> result = indexFinder.findComplexWithMatchingProteins(
+                List.of("P00001", "P00002", "P00004"), complexFinderOptions);
+        Assert.assertEquals(
+                List.of("CPX-3"),
+                result.getExactMatches().stream().map(ComplexFinderResult.ExactMatch::getComplexAc).collect(Collectors.toList()));
+        Assert.assertEquals(complex3, result.getExactMatches().iterator().next().getComplex());
+    }
+
+    private void mockDatabaseLookups() {
+        Mockito.doAnswer(invocation -> complexesByComplexAc.get(invocation.<String>getArgument(0)))
+                .when(complexDao).getLatestComplexVersionByComplexAc(Mockito.anyString());
+        Mockito.doAnswer(invocation -> invocation.<Collection<String>>getArgument(1)
+                        .stream()
+                        .map(proteinsByUniprotAc::get)
+                        .collect(Collectors.toList()))
+                .when(proteinDao).getByCanonicalIds(Mockito.anyString(), Mockito.any());
+        Mockito.doAnswer(invocation -> complexesByComplexAc.values()
+                        .stream()
+                        .filter(complex -> getInteractors(complex).stream().anyMatch(interactor ->
+                                interactor instanceof IntactProtein &&
+                                        invocation.<Collection<String>>getArgument(0).contains(((IntactProtein) interactor).getAc())))
+                        .collect(Collectors.toList()))
+                .when(complexDao).getComplexesInvolvingProteinsWithEbiAcs(Mockito.any());
+        Mockito.doAnswer(invocation -> complexesByComplexAc.values()
+                        .stream()
+                        .filter(complex -> getInteractors(complex).stream().anyMatch(interactor ->
+                                interactor instanceof IntactComplex &&
+                                        invocation.<String>getArgument(0).equals(((IntactComplex) interactor).getComplexAc())))
+                        .collect(Collectors.toList()))
+                .when(complexDao).getComplexesInvolvingSubComplex(Mockito.anyString());
+    }
+
+    private IntactComplex buildComplex(String ac, String complexAc, LifeCycleStatus status, String... proteinIds) {
+        IntactComplex complex = new IntactComplex("test");
+        complex.setAc(ac);
+        complex.assignComplexAc(complexAc);
+        complex.setStatus(status);
+        for (String proteinId : proteinIds) {
+            complex.addParticipant(new IntactModelledParticipant(proteinsByUniprotAc.get(proteinId)));
+        }
+        complexesByComplexAc.put(complexAc, complex);
+        return complex;
+    }
+
+    private List<Interactor> getInteractors(IntactComplex complex) {
+        return complex.getParticipants()
+                .stream()
+                .map(ModelledParticipant::getInteractor)
+                .collect(Collectors.toList());
+    }
+}
@@ -24,6 +24,7 @@ import javax.persistence.EntityManager;
 import javax.persistence.Query;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -241,7 +242,12 @@ public class ComplexOrthologFinderTest {
                 buildComplexParticipant("EBI-8", List.of(buildOrthologXref("other-ortholog"))));
 
         Mockito.doReturn(complex).when(complexDao).getLatestComplexVersionByComplexAc(Mockito.anyString());
-        Mockito.doReturn(List.of(complex, subComplex), List.of(orthologComplex, noOrthologComplex), List.of())
+        Mockito.doReturn(
+                List.of(complex, subComplex),
+                List.of(
+                        new Object[]{orthologComplex, orthologComplexId, "1"},
+                        new Object[]{noOrthologComplex, noOrthologComplexId, "1"}),
+                List.of())
                 .when(query).getResultList();
 
         Collection<IntactComplex> orthologs = complexOrthologFinder.findComplexOrthologs(
@@ -349,6 +355,193 @@ public class ComplexOrthologFinderTest {
         Mockito.verify(complexDao).getLatestComplexVersionByComplexAc(complexId);
     }
 
+    @Test
+    public void findComplexOrthologWithOrthologIndex() {
+        String ortholog1 = "ortholog-1";
+        String complexId = "CPX-1";
+        IntactComplex complex = new IntactComplex("test");
+        complex.assignComplexAc(complexId);
+        complex.addParticipant(
+                buildComplexParticipant("EBI-1", List.of(buildOrthologXref(ortholog1))));
+
+        String orthologComplexId = "CPX-2";
+        IntactComplex orthologComplex = new IntactComplex("test");
+        orthologComplex.assignComplexAc(orthologComplexId);
+        orthologComplex.addParticipant(
+                buildComplexParticipant("EBI-2", List.of(buildOrthologXref(ortholog1))));
+
+        ComplexOrthologIndex complexOrthologIndex = Mockito.mock(ComplexOrthologIndex.class);
+        Mockito.doReturn(Set.of("EBI-10", "EBI-20")).when(complexOrthologIndex).getComplexAcsWithOrthologsIn(Set.of(ortholog1));
+        Mockito.doReturn(complex).when(complexDao).getLatestComplexVersionByComplexAc(Mockito.anyString());
+        Mockito.doReturn(List.of(complex, orthologComplex), List.of()).when(query).getResultList();
+
+        complexOrthologFinder = new ComplexOrthologFinder(intactDao, null, complexOrthologIndex, null);
+        Collection<IntactComplex> orthologs = complexOrthologFinder.findComplexOrthologs(
+                complexId,
+                null,
+                ComplexOrthologFinder.Config.builder().checkCellularComponentsForCurated(false).checkCellularComponentsForPredicted(false).build());
+
+        Assert.assertEquals(1, orthologs.size());
+        Assert.assertEquals(orthologComplex, orthologs.iterator().next());
+
+        Mockito.verify(complexOrthologIndex).getComplexAcsWithOrthologsIn(Set.of(ortholog1));
+        Mockito.verify(query).setParameter(Mockito.eq("complexAcs"), Mockito.anyCollection());
+        Mockito.verify(query, Mockito.never()).setParameter(Mockito.eq("orthologIds"), Mockito.any());
+        Mockito.verify(query, Mockito.times(2)).getResultList();
+    }
+
+    @Test
+    public void findComplexOrthologRecordsMetrics() {
+        String ortholog1 = "ortholog-1";
+        String complexId = "CPX-1";
+        IntactComplex complex = new IntactComplex("test");
+        complex.assignComplexAc(complexId);
+        complex.addParticipant(
+                buildComplexParticipant("EBI-1", List.of(buildOrthologXref(ortholog1))));
+
+        IntactComplex orthologComplex = new IntactComplex("test");
+        orthologComplex.assignComplexAc("CPX-2");
+        orthologComplex.addParticipant(
+                buildComplexParticipant("EBI-2", List.of(buildOrthologXref(ortholog1))));
+
+        Mockito.doReturn(complex).when(complexDao).getLatestComplexVersionByComplexAc(Mockito.anyString());
+        Mockito.doReturn(List.of(complex, orthologComplex), List.of()).when(query).getResultList();
+
+        SimpleFinderMetrics finderMetrics = new SimpleFinderMetrics();
+        complexOrthologFinder = new ComplexOrthologFinder(intactDao, null, finderMetrics);
+        complexOrthologFinder.findComplexOrthologs(
+                complexId,
+                null,
+                ComplexOrthologFinder.Config.builder().checkCellularComponentsForCurated(false).checkCellularComponentsForPredicted(false).build());
+
+        // Complex, ortholog query and sub-complex query
+        Assert.assertEquals(3, finderMetrics.getDistribution(ComplexOrthologFinder.DAO_CALLS_PER_QUERY).getMax());
+        Assert.assertEquals(2, finderMetrics.getDistribution(ComplexOrthologFinder.CANDIDATES_PER_QUERY).getMax());
+        Assert.assertEquals(0, finderMetrics.getDistribution(ComplexOrthologFinder.SUB_COMPLEX_DEPTH).getMax());
+        Assert.assertEquals(1, finderMetrics.getTimer(ComplexOrthologFinder.QUERY_TIMER).getCount());
+        Assert.assertEquals(1, finderMetrics.getTimer(ComplexOrthologFinder.SUPER_COMPLEX_LOOKUP_TIMER).getCount());
+
+        Mockito.verify(query, Mockito.times(2)).getResultList();
+    }
+
+    @Test
+    public void findComplexOrthologWithSubComplexesInBatches() {
+        String ortholog1 = "ortholog-1";
+        String ortholog2 = "ortholog-2";
+        String complexId = "CPX-1";
+        IntactComplex complex = new IntactComplex("test");
+        complex.assignComplexAc(complexId);
+        complex.addParticipant(
+                buildComplexParticipant("EBI-1", List.of(buildOrthologXref(ortholog1))));
+        complex.addParticipant(
+                buildComplexParticipant("EBI-2", List.of(buildOrthologXref(ortholog2))));
+
+        IntactComplex subComplex1 = new IntactComplex("test");
+        subComplex1.assignComplexAc("CPX-2");
+        subComplex1.addParticipant(
+                buildComplexParticipant("EBI-3", List.of(buildOrthologXref(ortholog1))));
+
+        IntactComplex subComplex2 = new IntactComplex("test");
+        subComplex2.assignComplexAc("CPX-3");
+        subComplex2.addParticipant(
+                buildComplexParticipant("EBI-4", List.of(buildOrthologXref(ortholog2))));
+
+        String orthologComplexId = "CPX-4";
+        IntactComplex orthologComplex = new IntactComplex("test");
+        orthologComplex.setAc("EBI-5");
+        orthologComplex.assignComplexAc(orthologComplexId);
+        orthologComplex.addParticipant(new IntactModelledParticipant(subComplex1));
+        orthologComplex.addParticipant(new IntactModelledParticipant(subComplex2));
+
+        Mockito.doReturn(complex).when(complexDao).getLatestComplexVersionByComplexAc(Mockito.anyString());
+        // The super-complex is found through both sub-complexes, one in each batch
+        Mockito.doReturn(
+                List.of(subComplex1, subComplex2),
+                List.<Object[]>of(new Object[]{orthologComplex, orthologComplexId, "1"}),
+                List.<Object[]>of(new Object[]{orthologComplex, orthologComplexId, "1"}),
+                List.of())
+                .when(query).getResultList();
+
+        SimpleFinderMetrics finderMetrics = new SimpleFinderMetrics();
+        complexOrthologFinder = new ComplexOrthologFinder(intactDao, null, finderMetrics);
+        complexOrthologFinder.setInListBatchSize(1);
+        Collection<IntactComplex> orthologs = complexOrthologFinder.findComplexOrthologs(
+                complexId,
+                null,
+                ComplexOrthologFinder.Config.builder().checkCellularComponentsForCurated(false).checkCellularComponentsForPredicted(false).build());
+
+        Assert.assertEquals(List.of(orthologComplex), orthologs);
+        Assert.assertEquals(3, finderMetrics.getDistribution(ComplexOrthologFinder.SUPER_COMPLEX_QUERIES_PER_QUERY).getMax());
+        Assert.assertEquals(5, finderMetrics.getDistribution(ComplexOrthologFinder.DAO_CALLS_PER_QUERY).getMax());
+
+        Mockito.verify(query).setParameter("subcomplexesAcs", List.of("CPX-2"));
+        Mockito.verify(query).setParameter("subcomplexesAcs", List.of("CPX-3"));
+        Mockito.verify(query).setParameter("subcomplexesAcs", List.of(orthologComplexId));
+        Mockito.verify(query, Mockito.times(4)).getResultList();
+    }
+
+    @Test
+    public void findComplexOrthologWithSubComplexesFromContainmentGraph() {
+        String ortholog1 = "ortholog-1";
+        String ortholog2 = "ortholog-2";
+        String complexId = "CPX-1";
+        IntactComplex complex = new IntactComplex("test");
+        complex.assignComplexAc(complexId);
+        complex.addParticipant(
+                buildComplexParticipant("EBI-1", List.of(buildOrthologXref(ortholog1))));
+        complex.addParticipant(
+                buildComplexParticipant("EBI-2", List.of(buildOrthologXref(ortholog2))));
+
+        IntactComplex subComplex1 = new IntactComplex("test");
+        subComplex1.assignComplexAc("CPX-2");
+        subComplex1.addParticipant(
+                buildComplexParticipant("EBI-3", List.of(buildOrthologXref(ortholog1))));
+
+        IntactComplex subComplex2 = new IntactComplex("test");
+        subComplex2.assignComplexAc("CPX-3");
+        subComplex2.addParticipant(
+                buildComplexParticipant("EBI-4", List.of(buildOrthologXref(ortholog2))));
+
+        // Only the latest version of the super-complex includes both sub-complexes
+        String orthologComplexId = "CPX-4";
+        IntactComplex oldOrthologComplex = new IntactComplex("test");
+        oldOrthologComplex.setAc("EBI-5");
+        oldOrthologComplex.assignComplexAc(orthologComplexId, "1");
+        oldOrthologComplex.addParticipant(new IntactModelledParticipant(subComplex1));
+        IntactComplex orthologComplex = new IntactComplex("test");
+        orthologComplex.setAc("EBI-6");
+        orthologComplex.assignComplexAc(orthologComplexId, "2");
+        orthologComplex.addParticipant(new IntactModelledParticipant(subComplex1));
+        orthologComplex.addParticipant(new IntactModelledParticipant(subComplex2));
+
+        ComplexContainmentGraph complexContainmentGraph = Mockito.mock(ComplexContainmentGraph.class);
+        Mockito.doReturn(Set.of(orthologComplexId)).when(complexContainmentGraph).getParentComplexAcs("CPX-2");
+        Mockito.doReturn(Set.of(orthologComplexId)).when(complexContainmentGraph).getParentComplexAcs("CPX-3");
+        Mockito.doReturn(complex).when(complexDao).getLatestComplexVersionByComplexAc(Mockito.anyString());
+        Mockito.doReturn(
+                List.of(subComplex1, subComplex2),
+                List.of(
+                        new Object[]{orthologComplex, orthologComplexId, "2"},
+                        new Object[]{oldOrthologComplex, orthologComplexId, "1"}))
+                .when(query).getResultList();
+
+        SimpleFinderMetrics finderMetrics = new SimpleFinderMetrics();
+        complexOrthologFinder = new ComplexOrthologFinder(intactDao, complexContainmentGraph, finderMetrics);
+        Collection<IntactComplex> orthologs = complexOrthologFinder.findComplexOrthologs(
+                complexId,
+                null,
+                ComplexOrthologFinder.Config.builder().checkCellularComponentsForCurated(false).checkCellularComponentsForPredicted(false).build());
+
+        Assert.assertEquals(List.of(orthologComplex), orthologs);
+        Assert.assertEquals(1, finderMetrics.getDistribution(ComplexOrthologFinder.SUPER_COMPLEX_QUERIES_PER_QUERY).getMax());
+
+        // The super-complexes are loaded with one query, instead of one DAO call per super-complex
+        Mockito.verify(query).setParameter("complexPortalAcs", List.of(orthologComplexId));
+        Mockito.verify(query, Mockito.times(2)).getResultList();
+        Mockito.verify(complexDao).getLatestComplexVersionByComplexAc(complexId);
+        Mockito.verifyNoMoreInteractions(complexDao);
+    }
+
     @Test
     public void findComplexOrthologsNoComplexesFound() {
         String complexId = "CPX-1";
@@ -511,6 +704,118 @@ public class ComplexOrthologFinderTest {
         Mockito.verify(complexDao).getLatestComplexVersionByComplexAc(complexId);
     }
 
+    @Test
+    public void findComplexOrthologsOfSpecies() {
+        Organism human = new DefaultOrganism(9606);
+        Organism mouse = new DefaultOrganism(10090);
+        String ortholog1 = "ortholog-1";
+        String ortholog2 = "ortholog-2";
+
+        IntactComplex complex = buildComplex("EBI-C1", "CPX-1", human);
+        complex.addParticipant(
+                buildComplexParticipant("EBI-1", List.of(buildOrthologXref(ortholog1))));
+        complex.addParticipant(
+                buildComplexParticipant("EBI-2", List.of(buildOrthologXref(ortholog2))));
+
+        IntactComplex noOrthologsComplex = buildComplex("EBI-C2", "CPX-2", human);
+        noOrthologsComplex.addParticipant(
+                buildComplexParticipant("EBI-3", List.of()));
+
+        IntactComplex orthologComplex = buildComplex("EBI-C3", "CPX-3", mouse);
+        orthologComplex.addParticipant(
+                buildComplexParticipant("EBI-4", List.of(buildOrthologXref(ortholog1))));
+        orthologComplex.addParticipant(
+                buildComplexParticipant("EBI-5", List.of(buildOrthologXref(ortholog2))));
+
+        IntactComplex partialOrthologComplex = buildComplex("EBI-C4", "CPX-4", mouse);
+        partialOrthologComplex.addParticipant(
+                buildComplexParticipant("EBI-6", List.of(buildOrthologXref(ortholog1))));
+
+        IntactComplex subComplex = buildComplex("EBI-C5", "CPX-5", mouse);
+        subComplex.addParticipant(
+                buildComplexParticipant("EBI-7", List.of(buildOrthologXref(ortholog2))));
+
+        // Only found through its sub-complexes, as it has no proteins directly in it
+        IntactComplex superComplex = buildComplex("EBI-C6", "CPX-6", mouse);
+        superComplex.addParticipant(new IntactModelledParticipant(partialOrthologComplex));
+        superComplex.addParticipant(new IntactModelledParticipant(subComplex));
+
+        // Not found, as its sub-complex is not a mouse complex
+        IntactComplex otherSpeciesSuperComplex = buildComplex("EBI-C7", "CPX-7", mouse);
+        otherSpeciesSuperComplex.addParticipant(new IntactModelledParticipant(complex));
+
+        Mockito.doReturn(
+                List.of(orthologComplex, partialOrthologComplex, subComplex, superComplex, otherSpeciesSuperComplex),
+                List.of(complex, noOrthologsComplex))
+                .when(query).getResultList();
+
+        Map<String, Collection<IntactComplex>> orthologs = complexOrthologFinder.findComplexOrthologsOfSpecies(
+                human.getTaxId(),
+                mouse.getTaxId(),
+                ComplexOrthologFinder.Config.builder().checkCellularComponentsForCurated(false).checkCellularComponentsForPredicted(false).build());
+
+        Assert.assertEquals(Set.of("EBI-C1", "EBI-C2"), orthologs.keySet());
+        Assert.assertEquals(
+                Set.of("CPX-3", "CPX-6"),
+                orthologs.get("EBI-C1").stream().map(IntactComplex::getComplexAc).collect(Collectors.toSet()));
+        Assert.assertTrue(orthologs.get("EBI-C2").isEmpty());
+
+        Mockito.verify(intactDao, Mockito.times(2)).getEntityManager();
+        Mockito.verify(entityManager, Mockito.times(2)).createQuery(Mockito.anyString());
+        Mockito.verify(query).setParameter("taxId", "10090");
+        Mockito.verify(query).setParameter("taxId", "9606");
+        Mockito.verify(query, Mockito.times(2)).getResultList();
+        Mockito.verifyZeroInteractions(complexDao);
+    }
+
+    @Test
+    public void findComplexOrthologsOfSpeciesWithSignatureCacheOverMaxTerms() {
+        Organism human = new DefaultOrganism(9606);
+        Organism mouse = new DefaultOrganism(10090);
+        // The terms of the cache are over the maximum after the mouse complexes, so the human complex would get its
+        // signature with new terms, and other bit sets, if the run did not keep them
+        ComplexOrthologSignatureCache signatureCache = new ComplexOrthologSignatureCache(10, 2);
+        complexOrthologFinder = new ComplexOrthologFinder(intactDao, null, null, signatureCache, null);
+
+        IntactComplex complex = buildComplex("EBI-C1", "CPX-1", human);
+        complex.addParticipant(
+                buildComplexParticipant("EBI-1", List.of(buildOrthologXref("ortholog-1"))));
+        complex.addParticipant(
+                buildComplexParticipant("EBI-2", List.of(buildOrthologXref("ortholog-2"))));
+
+        IntactComplex otherComplex = buildComplex("EBI-C2", "CPX-2", mouse);
+        otherComplex.addParticipant(
+                buildComplexParticipant("EBI-3", List.of(buildOrthologXref("ortholog-3"))));
+
+        IntactComplex orthologComplex = buildComplex("EBI-C3", "CPX-3", mouse);
+        orthologComplex.addParticipant(
+                buildComplexParticipant("EBI-4", List.of(buildOrthologXref("ortholog-1"))));
+        orthologComplex.addParticipant(
+                buildComplexParticipant("EBI-5", List.of(buildOrthologXref("ortholog-2"))));
+
+        Mockito.doReturn(List.of(otherComplex, orthologComplex), List.of(complex)).when(query).getResultList();
+
+        ComplexOrthologSignature.Terms terms = signatureCache.getTerms();
+        Map<String, Collection<IntactComplex>> orthologs = complexOrthologFinder.findComplexOrthologsOfSpecies(
+                human.getTaxId(),
+                mouse.getTaxId(),
+                ComplexOrthologFinder.Config.builder().checkCellularComponentsForCurated(false).checkCellularComponentsForPredicted(false).build());
+
+        Assert.assertEquals(
+                List.of("CPX-3"),
+                orthologs.get("EBI-C1").stream().map(IntactComplex::getComplexAc).collect(Collectors.toList()));
+        Assert.assertSame(terms, signatureCache.getTerms());
+        Assert.assertEquals(3, terms.size());
+    }
+
+    private IntactComplex buildComplex(String ac, String complexId, Organism organism) {
+        IntactComplex complex = new IntactComplex("test");
+        complex.setAc(ac);
+        complex.assignComplexAc(complexId);
+        complex.setOrganism(organism);
+        return complex;
+    }
+
     private IntactModelledParticipant buildComplexParticipant(
             String interactorAc,
             Collection<Xref> xrefs) {
@@ -0,0 +1,72 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import uk.ac.ebi.intact.jami.dao.IntactDao;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import java.util.List;
+import java.util.Set;
+
+public class ComplexOrthologIndexTest {
+
+    @Mock
+    private Query query;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private IntactDao intactDao;
+
+    private ComplexOrthologIndex complexOrthologIndex;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.doReturn(query).when(entityManager).createQuery(Mockito.anyString());
+        Mockito.doReturn(entityManager).when(intactDao).getEntityManager();
+        Mockito.doReturn(List.of(
+                new Object[]{"EBI-C1", "EBI-P1", "ortholog-1"},
+                new Object[]{"EBI-C2", "EBI-P1", "ortholog-1"},
+                new Object[]{"EBI-C2", "EBI-P2", "ortholog-2"},
+                new Object[]{"EBI-C3", "EBI-P1", "ortholog-1"},
+                new Object[]{"EBI-C3", "EBI-P3", "ortholog-3"},
+                new Object[]{"EBI-C4", "EBI-P4", "ortholog-2"},
+                new Object[]{"EBI-C4", "EBI-P4", "ortholog-4"}))
+                .when(query).getResultList();
+
+        complexOrthologIndex = new ComplexOrthologIndex(intactDao);
+    }
+
+    @Test
+    public void indexIsBuiltWithOneQuery() {
+        Assert.assertFalse(complexOrthologIndex.isLoaded());
+
+        Assert.assertEquals(Set.of("ortholog-2", "ortholog-4"), complexOrthologIndex.getOrthologGroups("EBI-P4"));
+        Assert.assertEquals(Set.of("ortholog-1", "ortholog-2"), complexOrthologIndex.getSignature("EBI-C2"));
+        Assert.assertTrue(complexOrthologIndex.getSignature("EBI-C5").isEmpty());
+        Assert.assertTrue(complexOrthologIndex.isLoaded());
+
+        Mockito.verify(entityManager).createQuery(Mockito.anyString());
+        Mockito.verify(query).setParameter("orthologQualifierId", ComplexOrthologFinder.ORTHOLOGY_MI);
+        Mockito.verify(query).getResultList();
+    }
+
+    @Test
+    public void complexesWithOrthologsInGroupsAreFound() {
+        Assert.assertEquals(
+                Set.of("EBI-C1", "EBI-C2"),
+                complexOrthologIndex.getComplexAcsWithOrthologsIn(List.of("ortholog-1", "ortholog-2")));
+        Assert.assertEquals(
+                Set.of("EBI-C1"),
+                complexOrthologIndex.getComplexAcsWithOrthologsIn(List.of("ortholog-1")));
+        Assert.assertEquals(
+                Set.of("EBI-C2", "EBI-C4", "EBI-C1"),
+                complexOrthologIndex.getComplexAcsWithOrthologsIn(List.of("ortholog-1", "ortholog-2", "ortholog-4")));
+        Assert.assertTrue(complexOrthologIndex.getComplexAcsWithOrthologsIn(List.of()).isEmpty());
+    }
+}
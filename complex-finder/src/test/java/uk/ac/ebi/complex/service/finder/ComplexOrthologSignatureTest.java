@@ -0,0 +1,206 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Test;
+import psidev.psi.mi.jami.model.CvTerm;
+import psidev.psi.mi.jami.model.Xref;
+import psidev.psi.mi.jami.model.impl.DefaultCvTerm;
+import psidev.psi.mi.jami.model.impl.DefaultXref;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+import uk.ac.ebi.intact.jami.model.extension.IntactModelledParticipant;
+import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public class ComplexOrthologSignatureTest {
+
+    @Test
+    public void orthologsIncludeSubComplexes() {
+        IntactComplex subComplex = buildComplex("CPX-2");
+        subComplex.addParticipant(buildParticipant("EBI-2", List.of(buildOrthologXref("ortholog-2"))));
+        IntactComplex complex = buildComplex("CPX-1");
+        complex.addParticipant(buildParticipant("EBI-1", List.of(buildOrthologXref("ortholog-1"))));
+        complex.addParticipant(new IntactModelledParticipant(subComplex));
+
+        ComplexOrthologSignature signature = ComplexOrthologSignature.ofComplex(complex);
+        ComplexOrthologSignature subComplexSignature = ComplexOrthologSignature.ofComplex(subComplex);
+
+        Assert.assertEquals(Set.of("ortholog-1", "ortholog-2"), signature.getOrthologIds());
+        Assert.assertTrue(signature.hasOrthologs());
+        Assert.assertTrue(subComplexSignature.hasOrthologsIn(signature));
+        Assert.assertFalse(signature.hasOrthologsIn(subComplexSignature));
+        Assert.assertFalse(signature.hasSameOrthologs(subComplexSignature));
+        Assert.assertTrue(signature.hasDirectOrthologsIn(signature));
+        Assert.assertFalse(signature.hasDirectOrthologsIn(subComplexSignature));
+    }
+
+    @Test
+    public void noOrthologsIfAnyProteinHasNone() {
+        IntactComplex complex = buildComplex("CPX-1");
+        complex.addParticipant(buildParticipant("EBI-1", List.of(buildOrthologXref("ortholog-1"))));
+        complex.addParticipant(buildParticipant("EBI-2", List.of()));
+
+        ComplexOrthologSignature signature = ComplexOrthologSignature.ofComplex(complex);
+
+        Assert.assertFalse(signature.hasOrthologs());
+        Assert.assertTrue(signature.getOrthologIds().isEmpty());
+    }
+
+    @Test
+    public void cellularComponentsAreIntersected() {
+        IntactComplex complex1 = buildComplex("CPX-1");
+        complex1.getXrefs().add(buildCellularComponentXref("GO:0001"));
+        complex1.getXrefs().add(buildCellularComponentXref("GO:0002"));
+        IntactComplex complex2 = buildComplex("CPX-2");
+        complex2.getXrefs().add(buildCellularComponentXref("GO:0002"));
+        IntactComplex complex3 = buildComplex("CPX-3");
+        complex3.getXrefs().add(buildCellularComponentXref("GO:0003"));
+        IntactComplex complex4 = buildComplex("CPX-4");
+
+        ComplexOrthologSignature signature1 = ComplexOrthologSignature.ofComplex(complex1);
+
+        Assert.assertTrue(signature1.sharesCellularComponent(ComplexOrthologSignature.ofComplex(complex2)));
+        Assert.assertFalse(signature1.sharesCellularComponent(ComplexOrthologSignature.ofComplex(complex3)));
+        Assert.assertFalse(signature1.sharesCellularComponent(ComplexOrthologSignature.ofComplex(complex4)));
+    }
+
+    @Test
+    public void signaturesAreCachedByComplexAcAndVersion() {
+        ComplexOrthologSignatureCache cache = new ComplexOrthologSignatureCache(10);
+        IntactComplex complex = new IntactComplex("test");
+        complex.assignComplexAc("CPX-1", "1");
+        IntactComplex newComplexVersion = new IntactComplex("test");
+        newComplexVersion.assignComplexAc("CPX-1", "2");
+
+        ComplexOrthologSignature signature = cache.getSignature(complex);
+        Assert.assertSame(signature, cache.getSignature(complex));
+        Assert.assertNotSame(signature, cache.getSignature(newComplexVersion));
+        Assert.assertEquals(2, cache.getSignatureCache().size());
+        Assert.assertEquals(1, cache.getSignatureCache().getHits());
+    }
+
+    @Test
+    public void signaturesWithDifferentTermsAreCompared() {
+        ComplexOrthologSignature.Terms terms = new ComplexOrthologSignature.Terms();
+        ComplexOrthologSignature.Terms otherTerms = new ComplexOrthologSignature.Terms();
+        IntactComplex complex1 = buildComplex("CPX-1");
+        complex1.addParticipant(buildParticipant("EBI-1", List.of(buildOrthologXref("ortholog-1"))));
+        complex1.addParticipant(buildParticipant("EBI-2", List.of(buildOrthologXref("ortholog-2"))));
+        IntactComplex complex2 = buildComplex("CPX-2");
+        complex2.addParticipant(buildParticipant("EBI-3", List.of(buildOrthologXref("ortholog-2"))));
+        complex2.addParticipant(buildParticipant("EBI-4", List.of(buildOrthologXref("ortholog-1"))));
+
+        // Terms get different ids in each dictionary
+        ComplexOrthologSignature signature1 = ComplexOrthologSignature.ofComplex(complex1, terms);
+        ComplexOrthologSignature signature2 = ComplexOrthologSignature.ofComplex(complex2, otherTerms);
+
+        Assert.assertSame(terms, signature1.getTerms());
+        Assert.assertEquals(2, terms.size());
+        Assert.assertEquals(2, otherTerms.size());
+        Assert.assertTrue(signature1.hasSameOrthologs(signature2));
+        Assert.assertTrue(signature2.hasOrthologsIn(signature1));
+        Assert.assertEquals(
+                signature1.getOrthologsKey(),
+                ComplexOrthologSignature.ofComplex(complex2, terms).getOrthologsKey());
+    }
+
+    @Test
+    public void signaturesAreNotCachedAcrossSubComplexVersions() {
+        ComplexOrthologSignatureCache cache = new ComplexOrthologSignatureCache(10);
+        IntactComplex complex = buildComplexWithSubComplex("1");
+        IntactComplex complexWithNewSubComplexVersion = buildComplexWithSubComplex("2");
+
+        ComplexOrthologSignature signature = cache.getSignature(complex);
+        Assert.assertSame(signature, cache.getSignature(complex));
+        Assert.assertNotSame(signature, cache.getSignature(complexWithNewSubComplexVersion));
+        Assert.assertEquals(2, cache.getSignatureCache().size());
+    }
+
+    @Test
+    public void termsAreResetWhenOverMaxTerms() {
+        ComplexOrthologSignatureCache cache = new ComplexOrthologSignatureCache(10, 1);
+        IntactComplex complex1 = buildComplex("CPX-1");
+        complex1.addParticipant(buildParticipant("EBI-1", List.of(buildOrthologXref("ortholog-1"))));
+        complex1.addParticipant(buildParticipant("EBI-2", List.of(buildOrthologXref("ortholog-2"))));
+        IntactComplex complex2 = buildComplex("CPX-2");
+        complex2.addParticipant(buildParticipant("EBI-3", List.of(buildOrthologXref("ortholog-1"))));
+        complex2.addParticipant(buildParticipant("EBI-4", List.of(buildOrthologXref("ortholog-2"))));
+
+        ComplexOrthologSignature signature1 = cache.getSignature(complex1);
+        ComplexOrthologSignature signature2 = cache.getSignature(complex2);
+
+        Assert.assertNotSame(signature1.getTerms(), signature2.getTerms());
+        Assert.assertEquals(1, cache.getSignatureCache().size());
+        Assert.assertTrue(signature1.hasSameOrthologs(signature2));
+    }
+
+    @Test
+    public void signaturesOfARunAreBuiltWithTheTermsOfTheRun() {
+        ComplexOrthologSignatureCache cache = new ComplexOrthologSignatureCache(10, 1);
+        IntactComplex complex1 = buildComplex("CPX-1");
+        complex1.addParticipant(buildParticipant("EBI-1", List.of(buildOrthologXref("ortholog-1"))));
+        complex1.addParticipant(buildParticipant("EBI-2", List.of(buildOrthologXref("ortholog-2"))));
+        IntactComplex complex2 = buildComplex("CPX-2");
+        complex2.addParticipant(buildParticipant("EBI-3", List.of(buildOrthologXref("ortholog-3"))));
+        IntactComplex complex3 = buildComplex("CPX-3");
+        complex3.addParticipant(buildParticipant("EBI-4", List.of(buildOrthologXref("ortholog-2"))));
+        complex3.addParticipant(buildParticipant("EBI-5", List.of(buildOrthologXref("ortholog-1"))));
+
+        ComplexOrthologSignature.Terms terms = cache.getTerms();
+        ComplexOrthologSignature signature1 = cache.getSignature(complex1, terms);
+        Assert.assertSame(signature1, cache.getSignature(complex1, terms));
+
+        // The terms of the cache are replaced by another search, but the run keeps building signatures with its terms
+        cache.getSignature(complex2);
+        Assert.assertNotSame(terms, cache.getTerms());
+        ComplexOrthologSignature signature3 = cache.getSignature(complex3, terms);
+
+        Assert.assertSame(terms, signature3.getTerms());
+        Assert.assertEquals(signature1.getOrthologsKey(), signature3.getOrthologsKey());
+        // Signatures built with the terms replaced are not cached
+        Assert.assertNotSame(signature3, cache.getSignature(complex3, terms));
+        Assert.assertEquals(1, cache.getSignatureCache().size());
+    }
+
+    private IntactComplex buildComplex(String complexId) {
+        IntactComplex complex = new IntactComplex("test");
+        complex.assignComplexAc(complexId);
+        return complex;
+    }
+
+    private IntactComplex buildComplexWithSubComplex(String subComplexVersion) {
+        IntactComplex subComplex = new IntactComplex("test");
+        subComplex.assignComplexAc("CPX-2", subComplexVersion);
+        IntactComplex complex = new IntactComplex("test");
+        complex.assignComplexAc("CPX-1", "1");
+        complex.addParticipant(new IntactModelledParticipant(subComplex));
+        return complex;
+    }
+
+    private IntactModelledParticipant buildParticipant(String interactorAc, Collection<Xref> xrefs) {
+        CvTerm interactorTypeCv = new DefaultCvTerm("");
+        interactorTypeCv.setFullName("test type");
+        interactorTypeCv.setMIIdentifier("MI:1");
+        IntactProtein interactor = new IntactProtein("test", interactorTypeCv);
+        interactor.setAc(interactorAc);
+        interactor.getXrefs().addAll(xrefs);
+        return new IntactModelledParticipant(interactor);
+    }
+
+    private Xref buildOrthologXref(String xrefId) {
+        CvTerm database = new DefaultCvTerm("test db");
+        CvTerm qualifier = new DefaultCvTerm("orthology group");
+        qualifier.setMIIdentifier(ComplexOrthologFinder.ORTHOLOGY_MI);
+        return new DefaultXref(database, xrefId, qualifier);
+    }
+
+    private Xref buildCellularComponentXref(String xrefId) {
+        CvTerm database = new DefaultCvTerm("go");
+        database.setMIIdentifier(ComplexOrthologFinder.GO_MI_REF);
+        CvTerm qualifier = new DefaultCvTerm("cellular component");
+        qualifier.setMIIdentifier(ComplexOrthologFinder.CELLULAR_COMPONENT_MI_REF);
+        return new DefaultXref(database, xrefId, qualifier);
+    }
+}
@@ -0,0 +1,68 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class LruCacheTest {
+
+    @Test
+    public void valuesAreLoadedOnce() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        List<String> loadedKeys = new ArrayList<>();
+
+        Assert.assertEquals("A1", cache.get("A", key -> load(key, loadedKeys)));
+        Assert.assertEquals("A1", cache.get("A", key -> load(key, loadedKeys)));
+        Assert.assertEquals("B1", cache.get("B", key -> load(key, loadedKeys)));
+
+        Assert.assertEquals(List.of("A", "B"), loadedKeys);
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void nullValuesAreCached() {
+        LruCache<String, String> cache = new LruCache<>(10);
+        List<String> loadedKeys = new ArrayList<>();
+
+        Assert.assertNull(cache.get("A", key -> {
+            loadedKeys.add(key);
+            return null;
+        }));
+        Assert.assertNull(cache.get("A", key -> load(key, loadedKeys)));
+
+        Assert.assertEquals(List.of("A"), loadedKeys);
+        Assert.assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        LruCache<String, String> cache = new LruCache<>(2);
+        List<String> loadedKeys = new ArrayList<>();
+
+        cache.get("A", key -> load(key, loadedKeys));
+        cache.get("B", key -> load(key, loadedKeys));
+        // A is used again, so B is the least recently used entry when C is added
+        cache.get("A", key -> load(key, loadedKeys));
+        cache.get("C", key -> load(key, loadedKeys));
+        cache.get("A", key -> load(key, loadedKeys));
+        cache.get("B", key -> load(key, loadedKeys));
+
+        Assert.assertEquals(List.of("A", "B", "C", "B"), loadedKeys);
+        Assert.assertEquals(2, cache.getEvictions());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cacheSizeMustBePositive() {
+        new LruCache<String, String>(0);
+    }
+
+    private String load(String key, List<String> loadedKeys) {
+        loadedKeys.add(key);
+        return key + "1";
+    }
+}
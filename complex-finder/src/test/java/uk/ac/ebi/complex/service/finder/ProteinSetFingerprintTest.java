@@ -0,0 +1,127 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import psidev.psi.mi.jami.model.ModelledComparableParticipant;
+import psidev.psi.mi.jami.model.Xref;
+import psidev.psi.mi.jami.model.impl.DefaultCvTerm;
+import psidev.psi.mi.jami.model.impl.DefaultXref;
+import psidev.psi.mi.jami.utils.CvTermUtils;
+import psidev.psi.mi.jami.utils.comparator.CollectionComparator;
+import psidev.psi.mi.jami.utils.comparator.participant.ModelledComparableParticipantComparator;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class ProteinSetFingerprintTest {
+
+    private static final List<List<String>> PROTEIN_SETS = List.of(
+            List.of(),
+            List.of("P12345"),
+            List.of("P12345", "Q67890"),
+            List.of("Q67890", "P12345"),
+            List.of("P12345", "P12345", "Q67890"),
+            List.of("P12345", "Q67890", "Q67890"),
+            List.of("P12345", "Q67890", "O11111"),
+            List.of("O11111", "Q67890", "P12345"),
+            List.of("P1234", "5Q67890"),
+            List.of("P12345-2", "Q67890"),
+            List.of("P12345-PRO_0000000001", "Q67890"));
+
+    private CollectionComparator<ModelledComparableParticipant> comparableParticipantsComparator;
+
+    @Before
+    public void setUp() {
+        ModelledComparableParticipantComparator participantComparator = new ModelledComparableParticipantComparator();
+        participantComparator.setIgnoreStoichiometry(true);
+        comparableParticipantsComparator = new CollectionComparator<>(participantComparator);
+    }
+
+    @Test
+    public void fingerprintEqualityMatchesComparator() {
+        for (List<String> proteinSetA : PROTEIN_SETS) {
+            for (List<String> proteinSetB : PROTEIN_SETS) {
+                boolean equalByComparator = comparableParticipantsComparator.compare(
+                        buildParticipants(proteinSetA, 1), buildParticipants(proteinSetB, 1)) == 0;
+                boolean equalByFingerprint = ProteinSetFingerprint.ofAccessions(proteinSetA)
+                        .equals(ProteinSetFingerprint.ofAccessions(proteinSetB));
+
+                Assert.assertEquals(proteinSetA + " vs " + proteinSetB, equalByComparator, equalByFingerprint);
+            }
+        }
+    }
+
+    @Test
+    public void fingerprintIgnoresStoichiometry() {
+        List<String> proteinIds = List.of("P12345", "Q67890");
+        Collection<ModelledComparableParticipant> participantsA = buildParticipants(proteinIds, 1);
+        Collection<ModelledComparableParticipant> participantsB = buildParticipants(proteinIds, 3);
+
+        Assert.assertEquals(0, comparableParticipantsComparator.compare(participantsA, participantsB));
+        Assert.assertEquals(
+                ProteinSetFingerprint.ofParticipants(participantsA),
+                ProteinSetFingerprint.ofParticipants(participantsB));
+    }
+
+    @Test
+    public void fingerprintFromParticipantsEqualsFingerprintFromAccessions() {
+        for (List<String> proteinSet : PROTEIN_SETS) {
+            ProteinSetFingerprint fromAccessions = ProteinSetFingerprint.ofAccessions(proteinSet);
+            ProteinSetFingerprint fromParticipants = ProteinSetFingerprint.ofParticipants(buildParticipants(proteinSet, 2));
+
+            Assert.assertEquals(fromAccessions, fromParticipants);
+            Assert.assertEquals(fromAccessions.hashCode(), fromParticipants.hashCode());
+        }
+    }
+
+    @Test
+    public void fingerprintKeepsDuplicatedProteins() {
+        ProteinSetFingerprint fingerprint = ProteinSetFingerprint.ofAccessions(List.of("Q67890", "P12345", "P12345"));
+
+        Assert.assertEquals(List.of("P12345", "P12345", "Q67890"), fingerprint.getAccessions());
+        Assert.assertEquals(3, fingerprint.size());
+        Assert.assertTrue(fingerprint.contains("Q67890"));
+        Assert.assertFalse(fingerprint.contains("O11111"));
+    }
+
+    @Test
+    public void countCommonProteinsIgnoresDuplicates() {
+        ProteinSetFingerprint fingerprintA = ProteinSetFingerprint.ofAccessions(List.of("P12345", "P12345", "Q67890", "O11111"));
+        ProteinSetFingerprint fingerprintB = ProteinSetFingerprint.ofAccessions(List.of("Q67890", "P12345", "Q99999"));
+        ProteinSetFingerprint fingerprintC = ProteinSetFingerprint.ofAccessions(List.of("Q99999"));
+
+        Assert.assertEquals(3, fingerprintA.distinctSize());
+        Assert.assertEquals(2, fingerprintA.countCommonProteins(fingerprintB));
+        Assert.assertEquals(2, fingerprintB.countCommonProteins(fingerprintA));
+        Assert.assertEquals(0, fingerprintA.countCommonProteins(fingerprintC));
+        Assert.assertEquals(1, fingerprintB.countCommonProteins(fingerprintC));
+    }
+
+    @Test
+    public void isSubsetOfIgnoresDuplicates() {
+        ProteinSetFingerprint fingerprintA = ProteinSetFingerprint.ofAccessions(List.of("P12345", "P12345", "Q67890"));
+        ProteinSetFingerprint fingerprintB = ProteinSetFingerprint.ofAccessions(List.of("Q67890", "P12345", "Q99999"));
+        ProteinSetFingerprint fingerprintC = ProteinSetFingerprint.ofAccessions(List.of("O11111", "P12345"));
+
+        Assert.assertTrue(fingerprintA.isSubsetOf(fingerprintB));
+        Assert.assertTrue(fingerprintA.isSubsetOf(fingerprintA));
+        Assert.assertFalse(fingerprintB.isSubsetOf(fingerprintA));
+        Assert.assertFalse(fingerprintC.isSubsetOf(fingerprintB));
+        Assert.assertTrue(ProteinSetFingerprint.ofAccessions(List.of()).isSubsetOf(fingerprintC));
+    }
+
+    private Collection<ModelledComparableParticipant> buildParticipants(List<String> proteinIds, int stoichiometry) {
+        return proteinIds.stream()
+                .map(proteinId -> new ModelledComparableParticipant(
+                        proteinId,
+                        List.of(new DefaultXref(
+                                new DefaultCvTerm(Xref.UNIPROTKB, Xref.UNIPROTKB_MI),
+                                proteinId,
+                                new DefaultCvTerm(Xref.IDENTITY, Xref.IDENTITY_MI))),
+                        stoichiometry,
+                        CvTermUtils.createProteinInteractorType()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,44 @@
+package uk.ac.ebi.complex.service.finder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SimpleFinderMetricsTest {
+
+    @Test
+    public void valuesAreAggregated() {
+        SimpleFinderMetrics finderMetrics = new SimpleFinderMetrics();
+
+        finderMetrics.recordValue("candidates", 3);
+        finderMetrics.recordValue("candidates", 7);
+        finderMetrics.recordTime("query", 2_000_000);
+        finderMetrics.increment("loads");
+        finderMetrics.increment("loads", 4);
+
+        Assert.assertEquals(2, finderMetrics.getDistribution("candidates").getCount());
+        Assert.assertEquals(10, finderMetrics.getDistribution("candidates").getTotal());
+        Assert.assertEquals(7, finderMetrics.getDistribution("candidates").getMax());
+        Assert.assertEquals(5.0, finderMetrics.getDistribution("candidates").getMean(), 0.0);
+        Assert.assertEquals(2_000_000, finderMetrics.getTimer("query").getTotal());
+        Assert.assertEquals(5, finderMetrics.getCount("loads"));
+        Assert.assertEquals(0, finderMetrics.getCount("unknown"));
+    }
+
+    @Test
+    public void resetKeepsGauges() {
+        SimpleFinderMetrics finderMetrics = new SimpleFinderMetrics();
+        AtomicLong hits = new AtomicLong(12);
+
+        finderMetrics.gauge("cache.hits", hits::get);
+        finderMetrics.increment("loads");
+        finderMetrics.reset();
+
+        Assert.assertEquals(0, finderMetrics.getCount("loads"));
+        Assert.assertTrue(finderMetrics.summary().contains("cache.hits: 12"));
+
+        hits.set(20);
+        Assert.assertTrue(finderMetrics.summary().contains("cache.hits: 20"));
+    }
+}
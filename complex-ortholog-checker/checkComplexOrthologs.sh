@@ -9,10 +9,10 @@
 #SBATCH --mail-user=intact-dev@ebi.ac.uk   # email address
 #SBATCH --mail-type=ALL
 
-if [ $# -ne 7 ]; then
+if [ $# -ne 7 ] && [ $# -ne 8 ]; then
       echo ""
       echo "ERROR: wrong number of parameters ($#)."
-      echo "usage: $0 PROFILE USER_ID INPUT_TAX_ID OUTPUT_TAX_ID OUTPUT_DIRECTORY SEPARATOR[',', '\t'] HEADER[true, false]"
+      echo "usage: $0 PROFILE USER_ID INPUT_TAX_ID OUTPUT_TAX_ID OUTPUT_DIRECTORY SEPARATOR[',', '\t'] HEADER[true, false] [BULK_MODE[true, false]]"
       echo ""
       exit 1
 fi
@@ -24,6 +24,7 @@ OUTPUT_TAX_ID=$4
 OUTPUT_DIRECTORY=$5
 SEPARATOR=$6
 HEADER=$7
+BULK_MODE=${8:-false}
 
 echo "Profile: $PROFILE"
 echo "User id: $USER_ID"
@@ -32,8 +33,9 @@ echo "Output tax id: $OUTPUT_TAX_ID"
 echo "Output directory: $OUTPUT_DIRECTORY"
 echo "Separator: $SEPARATOR"
 echo "Header: $HEADER"
+echo "Bulk mode: $BULK_MODE"
 
 MAVEN_OPTS="$MAVEN_OPTS -Dmaven.wagon.http.ssl.insecure=true"
 MAVEN_OPTS="$MAVEN_OPTS -Dmaven.wagon.http.ssl.allowall=true"
 
-mvn clean install -P check-complex-orthologs,${PROFILE} -Djami.user.context.id=${USER_ID} -Djob.name=checkOrthologsJob -Dinput.tax.id=$INPUT_TAX_ID -Doutput.tax.id=$OUTPUT_TAX_ID -Doutput.directory=$OUTPUT_DIRECTORY -Dseparator=$SEPARATOR -Dheader=$HEADER -DskipTests
+mvn clean install -P check-complex-orthologs,${PROFILE} -Djami.user.context.id=${USER_ID} -Djob.name=checkOrthologsJob -Dinput.tax.id=$INPUT_TAX_ID -Doutput.tax.id=$OUTPUT_TAX_ID -Doutput.directory=$OUTPUT_DIRECTORY -Dseparator=$SEPARATOR -Dheader=$HEADER -Dbulk.mode=$BULK_MODE -DskipTests
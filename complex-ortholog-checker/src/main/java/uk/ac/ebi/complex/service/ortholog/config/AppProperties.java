@@ -37,4 +37,7 @@ public class AppProperties {
 
     @Value("${output.tax.id}")
     private String outputTaxId;
+
+    @Value("${bulk.mode}")
+    private boolean bulkMode;
 }
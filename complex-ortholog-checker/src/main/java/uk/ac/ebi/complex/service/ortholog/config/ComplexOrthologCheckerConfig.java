@@ -30,8 +30,15 @@ import psidev.psi.mi.jami.batch.BasicChunkLoggerListener;
 import psidev.psi.mi.jami.batch.MIBatchJobManager;
 import psidev.psi.mi.jami.batch.SimpleJobListener;
 import psidev.psi.mi.jami.batch.SimpleJobRegistry;
+import uk.ac.ebi.complex.service.finder.ComplexContainmentGraph;
 import uk.ac.ebi.complex.service.finder.ComplexOrthologFinder;
+import uk.ac.ebi.complex.service.finder.ComplexOrthologIndex;
+import uk.ac.ebi.complex.service.finder.ComplexOrthologSignatureCache;
+import uk.ac.ebi.complex.service.finder.FinderMetrics;
+import uk.ac.ebi.complex.service.finder.FinderMetricsListener;
+import uk.ac.ebi.complex.service.finder.SimpleFinderMetrics;
 import uk.ac.ebi.complex.service.ortholog.model.ComplexOrthologs;
+import uk.ac.ebi.complex.service.ortholog.processor.ComplexOrthologsBulkProcessor;
 import uk.ac.ebi.complex.service.ortholog.processor.ComplexOrthologsProcessor;
 import uk.ac.ebi.complex.service.ortholog.reader.ComplexReader;
 import uk.ac.ebi.complex.service.ortholog.writer.ComplexOrthologsWriter;
@@ -123,6 +130,16 @@ public class ComplexOrthologCheckerConfig {
         return new SimpleJobListener();
     }
 
+    @Bean
+    public FinderMetrics finderMetrics() {
+        return new SimpleFinderMetrics();
+    }
+
+    @Bean
+    public FinderMetricsListener finderMetricsListener(FinderMetrics finderMetrics) {
+        return new FinderMetricsListener(finderMetrics);
+    }
+
     @Bean
     public MIBatchJobManager psiMIJobManager(
             JobRepositoryFactoryBean basicBatchJobRepository,
@@ -216,8 +233,30 @@ public class ComplexOrthologCheckerConfig {
     }
 
     @Bean
-    public ComplexOrthologFinder complexOrthologFinder(IntactDao intactDao) {
-        return new ComplexOrthologFinder(intactDao);
+    public ComplexContainmentGraph complexContainmentGraph(IntactDao intactDao) {
+        return new ComplexContainmentGraph(intactDao);
+    }
+
+    @Bean
+    public ComplexOrthologIndex complexOrthologIndex(IntactDao intactDao) {
+        return new ComplexOrthologIndex(intactDao);
+    }
+
+    @Bean
+    public ComplexOrthologSignatureCache complexOrthologSignatureCache() {
+        return new ComplexOrthologSignatureCache();
+    }
+
+    @Bean
+    public ComplexOrthologFinder complexOrthologFinder(
+            IntactDao intactDao,
+            ComplexContainmentGraph complexContainmentGraph,
+            ComplexOrthologIndex complexOrthologIndex,
+            ComplexOrthologSignatureCache complexOrthologSignatureCache,
+            FinderMetrics finderMetrics) {
+
+        return new ComplexOrthologFinder(
+                intactDao, complexContainmentGraph, complexOrthologIndex, complexOrthologSignatureCache, finderMetrics);
     }
 
     @Bean
@@ -230,6 +269,10 @@ public class ComplexOrthologCheckerConfig {
 
     @Bean
     public ComplexOrthologsProcessor complexOrthologsProcessor(ComplexOrthologFinder complexOrthologFinder, AppProperties appProperties) {
+        if (appProperties.isBulkMode()) {
+            return new ComplexOrthologsBulkProcessor(
+                    complexOrthologFinder, appProperties.getInputTaxId(), appProperties.getOutputTaxId());
+        }
         return new ComplexOrthologsProcessor(complexOrthologFinder, appProperties.getOutputTaxId());
     }
 
@@ -243,6 +286,7 @@ public class ComplexOrthologCheckerConfig {
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
             BasicChunkLoggerListener basicChunkLoggerListener,
+            FinderMetricsListener finderMetricsListener,
             ComplexReader complexReader,
             ComplexOrthologsProcessor complexOrthologsProcessor,
             ComplexOrthologsWriter complexOrthologsWriter) throws Exception {
@@ -263,6 +307,7 @@ public class ComplexOrthologCheckerConfig {
                 .retry(javax.net.ssl.SSLHandshakeException.class)
                 .listener((StepExecutionListener) basicChunkLoggerListener)
                 .listener((ChunkListener) basicChunkLoggerListener)
+                .listener((StepExecutionListener) finderMetricsListener)
                 .build();
     }
 
@@ -0,0 +1,56 @@
+package uk.ac.ebi.complex.service.ortholog.processor;
+
+import lombok.extern.log4j.Log4j;
+import uk.ac.ebi.complex.service.finder.ComplexOrthologFinder;
+import uk.ac.ebi.complex.service.ortholog.model.ComplexOrthologs;
+import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Processor finding the orthologs of all the complexes of the input species in a single pass, the first time a
+ * complex is processed, instead of searching the orthologs of each complex separately.
+ * <p>
+ * The orthologs found are kept already mapped, so the complexes loaded in the first chunk are not needed in the
+ * following ones.
+ */
+@Log4j
+public class ComplexOrthologsBulkProcessor extends ComplexOrthologsProcessor {
+
+    private final String inputTaxId;
+
+    private Map<String, Collection<ComplexOrthologs.ComplexWithXrefs>> complexOrthologsByComplexAc;
+
+    public ComplexOrthologsBulkProcessor(ComplexOrthologFinder complexOrthologFinder, String inputTaxId, String taxId) {
+        super(complexOrthologFinder, taxId);
+        this.inputTaxId = inputTaxId;
+    }
+
+    @Override
+    protected Collection<ComplexOrthologs.ComplexWithXrefs> findComplexOrthologs(IntactComplex complex) {
+        if (complexOrthologsByComplexAc == null) {
+            complexOrthologsByComplexAc = findComplexOrthologsOfSpecies();
+        }
+        return complexOrthologsByComplexAc.getOrDefault(complex.getAc(), List.of());
+    }
+
+    private Map<String, Collection<ComplexOrthologs.ComplexWithXrefs>> findComplexOrthologsOfSpecies() {
+        log.info("Finding orthologs of all complexes of species " + inputTaxId + " in species " + taxId);
+        Map<String, Collection<IntactComplex>> complexOrthologs = this.complexOrthologFinder.findComplexOrthologsOfSpecies(
+                Integer.valueOf(inputTaxId),
+                Integer.valueOf(taxId),
+                FINDER_CONFIG);
+
+        Map<String, Collection<ComplexOrthologs.ComplexWithXrefs>> mappedComplexOrthologs = new HashMap<>();
+        complexOrthologs.forEach((complexAc, complexes) -> mappedComplexOrthologs.put(
+                complexAc,
+                complexes.stream().map(this::mapComplex).collect(Collectors.toList())));
+        log.info("Orthologs found for " + mappedComplexOrthologs.values().stream().filter(complexes -> !complexes.isEmpty()).count() +
+                " out of " + mappedComplexOrthologs.size() + " complexes");
+        return mappedComplexOrthologs;
+    }
+}
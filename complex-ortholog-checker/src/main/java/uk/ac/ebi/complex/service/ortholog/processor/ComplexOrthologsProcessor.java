@@ -33,28 +33,37 @@ public class ComplexOrthologsProcessor implements ItemProcessor<IntactComplex, C
             LifeCycleStatus.READY_FOR_RELEASE,
             LifeCycleStatus.RELEASED);
 
-    private final ComplexOrthologFinder complexOrthologFinder;
-    private final String taxId;
+    protected static final ComplexOrthologFinder.Config FINDER_CONFIG = ComplexOrthologFinder.Config.builder()
+            .checkCellularComponentsForCurated(false)
+            .checkCellularComponentsForPredicted(false)
+            .build();
+
+    protected final ComplexOrthologFinder complexOrthologFinder;
+    protected final String taxId;
 
     @Override
     public ComplexOrthologs process(IntactComplex item) {
-        if (!item.isPredictedComplex() && STATUSES_TO_CONSIDER.contains(item.getStatus())) {
-            Collection<IntactComplex> complexes = this.complexOrthologFinder.findComplexOrthologs(
-                    item.getComplexAc(),
-                    Integer.valueOf(taxId),
-                    ComplexOrthologFinder.Config.builder()
-                            .checkCellularComponentsForCurated(false)
-                            .checkCellularComponentsForPredicted(false)
-                            .build());
-
+        if (isComplexToCheck(item)) {
             return ComplexOrthologs.builder()
                     .inputComplex(mapComplex(item))
-                    .outputComplexes(complexes.stream().map(this::mapComplex).collect(Collectors.toList()))
+                    .outputComplexes(findComplexOrthologs(item))
                     .build();
         }
         return null;
     }
 
+    protected boolean isComplexToCheck(IntactComplex complex) {
+        return !complex.isPredictedComplex() && STATUSES_TO_CONSIDER.contains(complex.getStatus());
+    }
+
+    protected Collection<ComplexOrthologs.ComplexWithXrefs> findComplexOrthologs(IntactComplex complex) {
+        Collection<IntactComplex> complexes = this.complexOrthologFinder.findComplexOrthologs(
+                complex.getComplexAc(),
+                Integer.valueOf(taxId),
+                FINDER_CONFIG);
+        return complexes.stream().map(this::mapComplex).collect(Collectors.toList());
+    }
+
     @Override
     public void open(ExecutionContext executionContext) throws ItemStreamException {
         Assert.notNull(executionContext, "ExecutionContext must not be null");
@@ -69,7 +78,7 @@ public class ComplexOrthologsProcessor implements ItemProcessor<IntactComplex, C
     public void close() throws ItemStreamException {
     }
 
-    private ComplexOrthologs.ComplexWithXrefs mapComplex(IntactComplex complex) {
+    protected ComplexOrthologs.ComplexWithXrefs mapComplex(IntactComplex complex) {
         Collection<String> cellularComponents = XrefUtils
                 .collectAllXrefsHavingDatabaseAndQualifier(
                         complex.getXrefs(),
@@ -19,24 +19,38 @@ import psidev.psi.mi.jami.batch.SimpleJobListener;
 import psidev.psi.mi.jami.bridges.uniprot.UniprotProteinFetcher;
 import uk.ac.ebi.complex.service.batch.config.AppProperties;
 import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.listener.ComplexAcGeneratorListener;
+import uk.ac.ebi.complex.service.batch.listener.ComplexIndexListener;
+import uk.ac.ebi.complex.service.batch.listener.ReferenceDataCacheListener;
+import uk.ac.ebi.complex.service.batch.manager.ComplexAcGenerator;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
+import uk.ac.ebi.complex.service.batch.model.ComplexWithOldXrefIds;
 import uk.ac.ebi.complex.service.batch.model.ComplexWithXrefsToDelete;
 import uk.ac.ebi.complex.service.batch.processor.ComplexXrefDeleteProcessor;
-import uk.ac.ebi.complex.service.batch.reader.ComplexIteratorBatchReader;
+import uk.ac.ebi.complex.service.batch.reader.ComplexXrefDeleteBatchReader;
 import uk.ac.ebi.complex.service.batch.writer.ComplexXrefDeleteWriter;
+import uk.ac.ebi.complex.service.finder.ComplexClusterSolver;
+import uk.ac.ebi.complex.service.finder.ComplexContainmentGraph;
 import uk.ac.ebi.complex.service.finder.ComplexFinder;
+import uk.ac.ebi.complex.service.finder.ComplexIndex;
+import uk.ac.ebi.complex.service.finder.FinderMetrics;
+import uk.ac.ebi.complex.service.finder.FinderMetricsListener;
 import uk.ac.ebi.complex.service.music.manager.MusicComplexManager;
 import uk.ac.ebi.complex.service.batch.model.ComplexWithMatches;
 import uk.ac.ebi.complex.service.music.model.MusicComplexToImport;
 import uk.ac.ebi.complex.service.batch.processor.ComplexImportBatchProcessor;
+import uk.ac.ebi.complex.service.batch.processor.ParallelBatchProcessor;
 import uk.ac.ebi.complex.service.music.processor.MusicFileProcessorTasklet;
 import uk.ac.ebi.complex.service.batch.reader.ComplexImportBatchReader;
 import uk.ac.ebi.complex.service.music.reader.MusicComplexReader;
 import uk.ac.ebi.complex.service.batch.writer.ComplexImportBatchWriter;
+import uk.ac.ebi.complex.service.batch.writer.ParallelBatchWriter;
 import uk.ac.ebi.complex.service.music.writer.MusicComplexWriter;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
-import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
 import uk.ac.ebi.intact.jami.service.ComplexService;
 
+import java.util.concurrent.Future;
+
 @Configuration
 public class MusicImportConfig {
 
@@ -49,8 +63,18 @@ public class MusicImportConfig {
     }
 
     @Bean
-    public ComplexFinder complexFinder(IntactDao intactDao) {
-        return new ComplexFinder(intactDao);
+    public ComplexContainmentGraph complexContainmentGraph(IntactDao intactDao) {
+        return new ComplexContainmentGraph(intactDao);
+    }
+
+    @Bean
+    public ComplexFinder complexFinder(
+            IntactDao intactDao,
+            ComplexIndex complexIndex,
+            ComplexContainmentGraph complexContainmentGraph,
+            FinderMetrics finderMetrics) {
+
+        return new ComplexFinder(intactDao, complexIndex, complexContainmentGraph, null, finderMetrics);
     }
 
     @Bean
@@ -63,12 +87,16 @@ public class MusicImportConfig {
             IntactDao intactDao,
             UniprotProteinFetcher uniprotProteinFetcher,
             AppProperties appProperties,
+            ReferenceDataCache referenceDataCache,
+            ComplexAcGenerator complexAcGenerator,
             MusicImportAppProperties musicImportAppProperties) {
 
         return MusicComplexManager.builder()
                 .intactDao(intactDao)
                 .uniprotProteinFetcher(uniprotProteinFetcher)
                 .appProperties(appProperties)
+                .referenceDataCache(referenceDataCache)
+                .complexAcGenerator(complexAcGenerator)
                 .musicImportAppProperties(musicImportAppProperties)
                 .build();
     }
@@ -77,11 +105,13 @@ public class MusicImportConfig {
     public ComplexImportBatchProcessor<Double, MusicComplexToImport> musicBatchProcessor(
             ComplexFinder complexFinder,
             MusicComplexManager musicComplexManager,
-            FileConfiguration fileConfiguration) {
+            FileConfiguration fileConfiguration,
+            AppProperties appProperties) {
 
         return ComplexImportBatchProcessor.<Double, MusicComplexToImport>builder()
                 .complexFinder(complexFinder)
                 .complexManager(musicComplexManager)
+                .complexClusterSolver(new ComplexClusterSolver(appProperties.getComplexClusterMaxStates()))
                 .fileConfiguration(fileConfiguration)
                 .build();
     }
@@ -120,20 +150,26 @@ public class MusicImportConfig {
     public ComplexImportBatchWriter<Double, MusicComplexToImport> musicBatchWriter(
             MusicComplexManager musicComplexManager,
             ComplexService complexService,
+            ComplexIndex complexIndex,
             FileConfiguration fileConfiguration,
             AppProperties appProperties) {
 
         return ComplexImportBatchWriter.<Double, MusicComplexToImport>builder()
                 .complexManager(musicComplexManager)
                 .intactService(complexService)
+                .complexIndex(complexIndex)
                 .fileConfiguration(fileConfiguration)
                 .appProperties(appProperties)
                 .build();
     }
 
     @Bean
-    public ComplexIteratorBatchReader complexIteratorBatchReader(ComplexService complexService) {
-        return new ComplexIteratorBatchReader(complexService);
+    public ComplexXrefDeleteBatchReader complexXrefDeleteBatchReader(
+            IntactDao intactDao,
+            ReferenceDataCache referenceDataCache,
+            FileConfiguration fileConfiguration) {
+
+        return new ComplexXrefDeleteBatchReader(intactDao, referenceDataCache, fileConfiguration, MusicComplexManager.MUSIC_DATABASE_ID, 50);
     }
 
     @Bean
@@ -166,26 +202,35 @@ public class MusicImportConfig {
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
             BasicChunkLoggerListener basicChunkLoggerListener,
+            FinderMetricsListener finderMetricsListener,
+            ReferenceDataCacheListener referenceDataCacheListener,
+            ComplexIndexListener complexIndexListener,
+            ComplexAcGeneratorListener complexAcGeneratorListener,
             ComplexImportBatchReader<Double, MusicComplexToImport> musicBatchReader,
             ComplexImportBatchProcessor<Double, MusicComplexToImport> musicBatchProcessor,
-            ComplexImportBatchWriter<Double, MusicComplexToImport> musicBatchWriter) throws Exception {
+            ComplexImportBatchWriter<Double, MusicComplexToImport> musicBatchWriter,
+            AppProperties appProperties) throws Exception {
 
         StepBuilder basicStep = basicStepBuilder(
                 "musicComplexesImportStep",
                 jamiTransactionManager,
                 basicBatchJobRepository);
 
-        return new SimpleStepBuilder<MusicComplexToImport, ComplexWithMatches<Double, MusicComplexToImport>>(basicStep)
+        return new SimpleStepBuilder<MusicComplexToImport, Future<ComplexWithMatches<Double, MusicComplexToImport>>>(basicStep)
                 .chunk(50)
                 .reader(musicBatchReader)
-                .processor(musicBatchProcessor)
-                .writer(musicBatchWriter)
+                .processor(new ParallelBatchProcessor<>(musicBatchProcessor, appProperties.getImportThreads(), jamiTransactionManager))
+                .writer(new ParallelBatchWriter<>(musicBatchWriter))
                 .faultTolerant()
                 .retryLimit(10)
                 .retry(org.springframework.batch.item.ItemStreamException.class)
                 .retry(javax.net.ssl.SSLHandshakeException.class)
                 .listener((StepExecutionListener) basicChunkLoggerListener)
                 .listener((ChunkListener) basicChunkLoggerListener)
+                .listener((StepExecutionListener) finderMetricsListener)
+                .listener((StepExecutionListener) referenceDataCacheListener)
+                .listener((StepExecutionListener) complexIndexListener)
+                .listener((StepExecutionListener) complexAcGeneratorListener)
                 .build();
     }
 
@@ -205,7 +250,7 @@ public class MusicImportConfig {
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
             BasicChunkLoggerListener basicChunkLoggerListener,
-            ComplexIteratorBatchReader complexIteratorBatchReader,
+            ComplexXrefDeleteBatchReader complexXrefDeleteBatchReader,
             ComplexXrefDeleteProcessor<Double, MusicComplexToImport> complexXrefDeleteProcessor,
             ComplexXrefDeleteWriter complexXrefDeleteWriter) throws Exception {
 
@@ -214,9 +259,9 @@ public class MusicImportConfig {
                 jamiTransactionManager,
                 basicBatchJobRepository);
 
-        return new SimpleStepBuilder<IntactComplex, ComplexWithXrefsToDelete>(basicStep)
+        return new SimpleStepBuilder<ComplexWithOldXrefIds, ComplexWithXrefsToDelete>(basicStep)
                 .chunk(50)
-                .reader(complexIteratorBatchReader)
+                .reader(complexXrefDeleteBatchReader)
                 .processor(complexXrefDeleteProcessor)
                 .writer(complexXrefDeleteWriter)
                 .faultTolerant()
@@ -18,7 +18,15 @@ import psidev.psi.mi.jami.batch.BasicChunkLoggerListener;
 import psidev.psi.mi.jami.batch.SimpleJobListener;
 import uk.ac.ebi.complex.service.batch.config.AppProperties;
 import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.listener.ComplexIndexListener;
+import uk.ac.ebi.complex.service.batch.listener.ReferenceDataCacheListener;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
+import uk.ac.ebi.complex.service.finder.ComplexContainmentGraph;
+import uk.ac.ebi.complex.service.finder.ComplexParticipantCache;
 import uk.ac.ebi.complex.service.finder.ComplexFinder;
+import uk.ac.ebi.complex.service.finder.ComplexIndex;
+import uk.ac.ebi.complex.service.finder.FinderMetrics;
+import uk.ac.ebi.complex.service.finder.FinderMetricsListener;
 import uk.ac.ebi.complex.service.pdb.model.ComplexWithAssemblies;
 import uk.ac.ebi.complex.service.pdb.model.ComplexWithAssemblyXrefs;
 import uk.ac.ebi.complex.service.pdb.processor.PdbAssembliesProcessor;
@@ -40,19 +48,37 @@ public class PdbImportConfig {
     }
 
     @Bean
-    public ComplexFinder complexFinder(IntactDao intactDao) {
-        return new ComplexFinder(intactDao);
+    public ComplexContainmentGraph complexContainmentGraph(IntactDao intactDao) {
+        return new ComplexContainmentGraph(intactDao);
+    }
+
+    @Bean
+    public ComplexParticipantCache complexParticipantCache() {
+        return new ComplexParticipantCache();
+    }
+
+    @Bean
+    public ComplexFinder complexFinder(
+            IntactDao intactDao,
+            ComplexIndex complexIndex,
+            ComplexContainmentGraph complexContainmentGraph,
+            ComplexParticipantCache complexParticipantCache,
+            FinderMetrics finderMetrics) {
+
+        return new ComplexFinder(intactDao, complexIndex, complexContainmentGraph, complexParticipantCache, finderMetrics);
     }
 
     @Bean
     public PdbAssembliesProcessor pdbAssembliesProcessor(
             IntactDao intactDao,
             PdbAssembliesFileReader pdbAssembliesFileReader,
+            ComplexParticipantCache complexParticipantCache,
             FileConfiguration fileConfiguration) {
 
         return PdbAssembliesProcessor.builder()
                 .intactDao(intactDao)
                 .pdbAssembliesFileReader(pdbAssembliesFileReader)
+                .complexParticipantCache(complexParticipantCache)
                 .fileConfiguration(fileConfiguration)
                 .build();
     }
@@ -62,10 +88,12 @@ public class PdbImportConfig {
             IntactDao intactDao,
             AppProperties appProperties,
             FileConfiguration fileConfiguration,
-            ComplexService complexService) {
+            ComplexService complexService,
+            ReferenceDataCache referenceDataCache) {
 
         return PdbAssembliesWriter.builder()
                 .intactDao(intactDao)
+                .referenceDataCache(referenceDataCache)
                 .appProperties(appProperties)
                 .fileConfiguration(fileConfiguration)
                 .intactService(complexService)
@@ -78,6 +106,7 @@ public class PdbImportConfig {
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
             BasicChunkLoggerListener basicChunkLoggerListener,
+            ReferenceDataCacheListener referenceDataCacheListener,
             PdbAssembliesReader pdbAssembliesReader,
             PdbAssembliesProcessor pdbAssembliesProcessor,
             PdbAssembliesWriter pdbAssembliesWriter) throws Exception {
@@ -98,6 +127,7 @@ public class PdbImportConfig {
                 .retry(javax.net.ssl.SSLHandshakeException.class)
                 .listener((StepExecutionListener) basicChunkLoggerListener)
                 .listener((ChunkListener) basicChunkLoggerListener)
+                .listener(referenceDataCacheListener)
                 .build();
     }
 
@@ -105,9 +135,15 @@ public class PdbImportConfig {
     public Step processPdbFile(
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
+            FinderMetricsListener finderMetricsListener,
+            ReferenceDataCacheListener referenceDataCacheListener,
+            ComplexIndexListener complexIndexListener,
             PdbFileProcessorTasklet pdbFileProcessorTasklet) throws Exception {
 
         return basicStepBuilder("processPdbFile", jamiTransactionManager, basicBatchJobRepository)
+                .listener(finderMetricsListener)
+                .listener(referenceDataCacheListener)
+                .listener(complexIndexListener)
                 .tasklet(pdbFileProcessorTasklet)
                 .build();
     }
@@ -5,16 +5,13 @@ import lombok.extern.log4j.Log4j;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamException;
 import org.springframework.util.Assert;
-import psidev.psi.mi.jami.model.ModelledComparableParticipant;
 import psidev.psi.mi.jami.model.Xref;
-import psidev.psi.mi.jami.model.impl.DefaultCvTerm;
-import psidev.psi.mi.jami.model.impl.DefaultXref;
-import psidev.psi.mi.jami.utils.CvTermUtils;
 import psidev.psi.mi.jami.utils.XrefUtils;
-import psidev.psi.mi.jami.utils.comparator.CollectionComparator;
-import psidev.psi.mi.jami.utils.comparator.participant.ModelledComparableParticipantComparator;
 import uk.ac.ebi.complex.service.batch.manager.ComplexManager;
+import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
 import uk.ac.ebi.complex.service.batch.processor.AbstractBatchProcessor;
+import uk.ac.ebi.complex.service.finder.ComplexParticipantCache;
+import uk.ac.ebi.complex.service.finder.ProteinSetFingerprint;
 import uk.ac.ebi.complex.service.pdb.logging.ErrorsReportWriter;
 import uk.ac.ebi.complex.service.pdb.logging.ProcessReportWriter;
 import uk.ac.ebi.complex.service.pdb.model.AssemblyEntry;
@@ -23,7 +20,6 @@ import uk.ac.ebi.complex.service.pdb.model.ComplexWithAssemblyXrefs;
 import uk.ac.ebi.complex.service.pdb.reader.PdbAssembliesFileReader;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
 import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
-import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
 import uk.ac.ebi.intact.jami.model.extension.InteractorXref;
 
 import java.io.File;
@@ -48,6 +44,7 @@ public class PdbAssembliesProcessor extends AbstractBatchProcessor<ComplexWithAs
 
     private final IntactDao intactDao;
     private final PdbAssembliesFileReader pdbAssembliesFileReader;
+    private final ComplexParticipantCache complexParticipantCache;
 
     private ProcessReportWriter noChangesReportWriter;
     private ProcessReportWriter complexesMissingAssembliesReportWriter;
@@ -57,9 +54,8 @@ public class PdbAssembliesProcessor extends AbstractBatchProcessor<ComplexWithAs
     private ProcessReportWriter ecoCodeChangesReportWriter;
     private ErrorsReportWriter errorReportWriter;
 
-    private CollectionComparator<ModelledComparableParticipant> comparableParticipantsComparator;
-    private Map<String, IntactProtein> proteinCacheMap;
     private Set<AssemblyEntry> assemblies;
+    private Map<Integer, Map<ProteinSetFingerprint, Set<String>>> assembliesByTaxIdAndProteins;
 
     @Override
     public ComplexWithAssemblyXrefs process(ComplexWithAssemblies item) throws Exception {
@@ -81,27 +77,11 @@ public class PdbAssembliesProcessor extends AbstractBatchProcessor<ComplexWithAs
             item.getAssembliesFromFile().forEach(assembly -> checkIfAssemblyMatchesAnyXref(
                     pdbXrefs, assembly, matchesFound, xrefsToAdd, xrefsToUpdate, xrefsToReview));
 
-            Collection<ModelledComparableParticipant> complexProteins = getProteinComponents(complex, proteinCacheMap);
-
-            Set<String> assembliesToCheck = new HashSet<>();
-            for (AssemblyEntry assemblyEntry : assemblies) {
-                Collection<ModelledComparableParticipant> assemblyProteins = assemblyEntry.getProteins().stream()
-                        .filter(protein ->
-                                protein.getOrganism() == null || protein.getOrganism() == complex.getOrganism().getTaxId())
-                        .map(protein -> new ModelledComparableParticipant(
-                                protein.getProteinAc(),
-                                List.of(new DefaultXref(
-                                        new DefaultCvTerm(Xref.UNIPROTKB, Xref.UNIPROTKB_MI),
-                                        protein.getProteinAc(),
-                                        new DefaultCvTerm(Xref.IDENTITY, Xref.IDENTITY_MI))),
-                                1,
-                                CvTermUtils.createProteinInteractorType()))
-                        .collect(Collectors.toList());
-
-                if (this.comparableParticipantsComparator.compare(complexProteins, assemblyProteins) == 0) {
-                    assemblyEntry.getAssemblies().forEach(assembly -> assembliesToCheck.add(assembly.toLowerCase()));
-                }
-            }
+            ProteinSetFingerprint complexProteins = getProteinComponents(complex);
+
+            Set<String> assembliesToCheck = assembliesByTaxIdAndProteins
+                    .computeIfAbsent(complex.getOrganism().getTaxId(), this::getAssembliesByProteins)
+                    .getOrDefault(complexProteins, Set.of());
 
             for (Xref xref: pdbXrefs) {
                 if (xref.getQualifier() != null) {
@@ -190,15 +170,10 @@ public class PdbAssembliesProcessor extends AbstractBatchProcessor<ComplexWithAs
         super.open(executionContext);
 
         try {
-            ModelledComparableParticipantComparator participantComparator = new ModelledComparableParticipantComparator();
-            // Ignore stoichiometry for now
-            participantComparator.setIgnoreStoichiometry(true);
-            this.comparableParticipantsComparator = new CollectionComparator<>(participantComparator);
-
             File parsedFile = fileConfiguration.outputPath().toFile();
             assemblies = pdbAssembliesFileReader.readAssembliesFromParsedFile(parsedFile);
 
-            proteinCacheMap = new HashMap<>();
+            assembliesByTaxIdAndProteins = new HashMap<>();
         } catch (IOException e) {
             throw new ItemStreamException("Input file could not be read: " + fileConfiguration.outputPath(), e);
         }
@@ -282,20 +257,25 @@ public class PdbAssembliesProcessor extends AbstractBatchProcessor<ComplexWithAs
         return false;
     }
 
-    private Collection<ModelledComparableParticipant> getProteinComponents(
-            IntactComplex complex,
-            Map<String, IntactProtein> proteinCacheMap) {
+    private Map<ProteinSetFingerprint, Set<String>> getAssembliesByProteins(int taxId) {
+        // Proteins from other organisms are ignored when comparing an assembly against a complex of the given organism
+        Map<ProteinSetFingerprint, Set<String>> assembliesByProteins = new HashMap<>();
+        for (AssemblyEntry assemblyEntry : assemblies) {
+            ProteinSetFingerprint assemblyProteins = ProteinSetFingerprint.ofAccessions(assemblyEntry.getProteins()
+                    .stream()
+                    .filter(protein -> protein.getOrganism() == null || protein.getOrganism() == taxId)
+                    .map(UniprotProtein::getProteinAc)
+                    .collect(Collectors.toList()));
+            Set<String> assembliesToCheck = assembliesByProteins.computeIfAbsent(assemblyProteins, key -> new HashSet<>());
+            assemblyEntry.getAssemblies().forEach(assembly -> assembliesToCheck.add(assembly.toLowerCase()));
+        }
+        return assembliesByProteins;
+    }
 
-        return complex.getComparableParticipants(
-                true,
-                proteinAc -> {
-                    if (!proteinCacheMap.containsKey(proteinAc)) {
-                        IntactProtein protein = intactDao.getProteinDao().getByAc(proteinAc);
-                        proteinCacheMap.put(proteinAc, protein);
-                    }
-                    return proteinCacheMap.get(proteinAc);
-                }
-        );
+    private ProteinSetFingerprint getProteinComponents(IntactComplex complex) {
+        return complexParticipantCache.getComplexProteins(
+                complex,
+                proteinAc -> intactDao.getProteinDao().getByAc(proteinAc));
     }
 
     @Override
@@ -5,6 +5,7 @@ import org.springframework.stereotype.Component;
 import uk.ac.ebi.complex.service.finder.ComplexFinder;
 import uk.ac.ebi.complex.service.finder.ComplexFinderOptions;
 import uk.ac.ebi.complex.service.finder.ComplexFinderResult;
+import uk.ac.ebi.complex.service.finder.ComplexSummary;
 import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
 import uk.ac.ebi.complex.service.batch.logging.FailedWriter;
 import uk.ac.ebi.complex.service.pdb.model.AssemblyEntry;
@@ -12,7 +13,6 @@ import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
 import uk.ac.ebi.complex.service.pdb.reader.PdbAssembliesFileReader;
 import uk.ac.ebi.complex.service.batch.service.UniProtMappingService;
 import uk.ac.ebi.complex.service.pdb.writer.PdbAssembliesFileWriter;
-import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
 
 import java.io.File;
 import java.io.IOException;
@@ -29,6 +29,9 @@ import java.util.stream.Stream;
 @Component
 public class PdbFileProcessor {
 
+    // Number of assemblies matched with each call to the complex finder
+    private static final int MATCHING_CHUNK_SIZE = 1000;
+
     private final FileConfiguration fileConfiguration;
     private final PdbAssembliesFileReader pdbAssembliesFileReader;
     private final PdbAssembliesFileWriter pdbAssembliesFileWriter;
@@ -71,33 +74,50 @@ public class PdbFileProcessor {
         Collection<AssemblyEntry> assembliesWithoutDuplicates = mergeDuplicates(assembliesWithCleanUniprotAcs);
         log.info("Duplicates found = " + mergedAssemblies);
         log.info("Number of assemblies after merging duplicates = " + assembliesWithoutDuplicates.size());
-//        log.info("Finding matches...");
-//        Collection<AssemblyEntry> assembliesWithMatches = findMatches(assembliesWithoutDuplicates);
-//        log.info("Number of assemblies after finding matches = " + assembliesWithMatches.size());
+        log.info("Finding matches...");
+        Collection<AssemblyEntry> assembliesWithMatches = findMatches(assembliesWithoutDuplicates);
+        log.info("Number of assemblies after finding matches = " + assembliesWithMatches.size());
         log.info("Writing output file...");
-        pdbAssembliesFileWriter.writeAssembliesToFile(assembliesWithoutDuplicates);
+        pdbAssembliesFileWriter.writeAssembliesToFile(assembliesWithMatches);
         // TODO: filter out low confidence complexes
     }
 
     private Collection<AssemblyEntry> findMatches(Collection<AssemblyEntry> assemblies) {
+        List<AssemblyEntry> assemblyList = new ArrayList<>(assemblies);
+        List<AssemblyEntry> assembliesWithMatches = new ArrayList<>();
+        for (int i = 0; i < assemblyList.size(); i += MATCHING_CHUNK_SIZE) {
+            List<AssemblyEntry> assemblyChunk = assemblyList.subList(i, Math.min(i + MATCHING_CHUNK_SIZE, assemblyList.size()));
+            assembliesWithMatches.addAll(findMatchesOfChunk(assemblyChunk));
+            log.info("Finding matches... " + (i + assemblyChunk.size()) + " / " + assemblyList.size());
+        }
+        return assembliesWithMatches;
+    }
+
+    private List<AssemblyEntry> findMatchesOfChunk(List<AssemblyEntry> assemblies) {
+        // All assemblies of the chunk are matched in one go, so proteins and candidate complexes shared by
+        // several assemblies are only loaded once. Only the ACs of the complexes are needed, so summaries are loaded.
+        Collection<Collection<String>> proteinIdsCollection = assemblies.stream()
+                .filter(assemblyEntry -> !assemblyEntry.getProteins().isEmpty())
+                .map(this::getAssemblyProteinIds)
+                .collect(Collectors.toList());
+
+        Map<Collection<String>, ComplexFinderResult<ComplexSummary>> complexFinderResults = complexFinder.findComplexSummariesWithMatchingProteinSets(
+                proteinIdsCollection,
+                ComplexFinderOptions.builder()
+                        .checkPredictedComplexes(true)
+                        .checkAnyStatusForExactMatches(false)
+                        .checkPartialMatches(false)
+                        .build());
+
         List<AssemblyEntry> assembliesWithMatches = new ArrayList<>();
-        long processed = 0;
         for (AssemblyEntry assemblyEntry : assemblies) {
             List<String> complexIds = new ArrayList<>(assemblyEntry.getComplexIds());
             if (!assemblyEntry.getProteins().isEmpty()) {
-                ComplexFinderResult<IntactComplex> complexFinderResult = complexFinder.findComplexWithMatchingProteins(
-                        assemblyEntry.getProteins().stream().map(UniprotProtein::getProteinAc).collect(Collectors.toSet()),
-                        ComplexFinderOptions.builder()
-                                .checkPredictedComplexes(true)
-                                .checkAnyStatusForExactMatches(false)
-                                .checkPartialMatches(false)
-                                .build());
-
-                if (!complexFinderResult.getExactMatches().isEmpty()) {
-                    for (ComplexFinderResult.ExactMatch<IntactComplex> exactMatch : complexFinderResult.getExactMatches()) {
-                        if (!complexIds.contains(exactMatch.getComplexAc())) {
-                            complexIds.add(exactMatch.getComplexAc());
-                        }
+                ComplexFinderResult<ComplexSummary> complexFinderResult = complexFinderResults.get(getAssemblyProteinIds(assemblyEntry));
+
+                for (ComplexFinderResult.ExactMatch<ComplexSummary> exactMatch : complexFinderResult.getExactMatches()) {
+                    if (!complexIds.contains(exactMatch.getComplexAc())) {
+                        complexIds.add(exactMatch.getComplexAc());
                     }
                 }
             }
@@ -105,14 +125,14 @@ public class PdbFileProcessor {
                 assemblyEntry.setComplexIds(complexIds);
                 assembliesWithMatches.add(assemblyEntry);
             }
-            processed++;
-            if (processed % 100 == 0) {
-                log.info("Finding matches... " + processed + " / " + assemblies.size());
-            }
         }
         return assembliesWithMatches;
     }
 
+    private Collection<String> getAssemblyProteinIds(AssemblyEntry assemblyEntry) {
+        return assemblyEntry.getProteins().stream().map(UniprotProtein::getProteinAc).collect(Collectors.toSet());
+    }
+
     private Collection<AssemblyEntry> mergeDuplicates(Collection<AssemblyEntry> assemblies) {
         mergedAssemblies = 0;
         // We convert the list of complexes to a map, indexed by the sorted uniprot ACs of each complex to
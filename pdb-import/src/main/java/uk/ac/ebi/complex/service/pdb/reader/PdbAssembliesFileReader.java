@@ -11,9 +11,10 @@ import psidev.psi.mi.jami.model.Annotation;
 import psidev.psi.mi.jami.model.Xref;
 import psidev.psi.mi.jami.utils.AnnotationUtils;
 import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.exception.CvTermNotFoundException;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
 import uk.ac.ebi.complex.service.pdb.model.AssemblyEntry;
 import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
-import uk.ac.ebi.intact.jami.dao.IntactDao;
 import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
 import uk.ac.ebi.intact.jami.utils.IntactUtils;
 
@@ -35,7 +36,7 @@ public class PdbAssembliesFileReader {
     private static final String DEFAULT_PROTEIN_ID_REGEX = "(([OPQ][0-9][A-Z0-9]{3}[0-9]|[A-NR-Z][0-9]([A-Z][A-Z0-9]{2}[0-9]){1,2})(-[0-9]+)?(-PRO_[0-9]{10})?)";
 
     private final FileConfiguration fileConfiguration;
-    private final IntactDao intactDao;
+    private final ReferenceDataCache referenceDataCache;
 
     public Set<AssemblyEntry> readAssembliesFromFile(File inputFile) throws IOException {
         BufferedReader reader = new BufferedReader(new FileReader(inputFile));
@@ -97,8 +98,8 @@ public class PdbAssembliesFileReader {
     }
 
     private String getUniprotRegex() {
-        IntactCvTerm uniprotCvTerm = intactDao.getCvTermDao().getByUniqueIdentifier(Xref.UNIPROTKB_MI, IntactUtils.DATABASE_OBJCLASS);
-        if (uniprotCvTerm != null) {
+        try {
+            IntactCvTerm uniprotCvTerm = referenceDataCache.findCvTerm(IntactUtils.DATABASE_OBJCLASS, Xref.UNIPROTKB_MI);
             Annotation regexAnnotation = AnnotationUtils.collectFirstAnnotationWithTopic(
                     uniprotCvTerm.getAnnotations(),
                     Annotation.VALIDATION_REGEXP_MI,
@@ -106,6 +107,8 @@ public class PdbAssembliesFileReader {
             if (regexAnnotation != null) {
                 return regexAnnotation.getValue();
             }
+        } catch (CvTermNotFoundException e) {
+            log.warn("UniProt database not found, using default UniProt id regex");
         }
         return DEFAULT_PROTEIN_ID_REGEX;
     }
@@ -9,24 +9,23 @@ import org.springframework.batch.item.ItemStreamException;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import psidev.psi.mi.jami.model.Complex;
-import psidev.psi.mi.jami.model.ModelledComparableParticipant;
 import psidev.psi.mi.jami.model.Xref;
-import psidev.psi.mi.jami.utils.CvTermUtils;
 import psidev.psi.mi.jami.utils.XrefUtils;
-import psidev.psi.mi.jami.utils.comparator.CollectionComparator;
-import psidev.psi.mi.jami.utils.comparator.participant.ModelledComparableParticipantComparator;
 import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
 import uk.ac.ebi.complex.service.batch.manager.ComplexManager;
+import uk.ac.ebi.complex.service.batch.model.UniprotProtein;
+import uk.ac.ebi.complex.service.finder.ComplexParticipantCache;
+import uk.ac.ebi.complex.service.finder.ProteinSetFingerprint;
 import uk.ac.ebi.complex.service.pdb.model.AssemblyEntry;
 import uk.ac.ebi.complex.service.pdb.model.ComplexWithAssemblies;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
 import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
-import uk.ac.ebi.intact.jami.model.extension.IntactProtein;
 import uk.ac.ebi.intact.jami.model.lifecycle.LifeCycleStatus;
 import uk.ac.ebi.intact.jami.service.ComplexService;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -45,11 +44,11 @@ public class PdbAssembliesReader implements ItemReader<ComplexWithAssemblies>, I
     private final ComplexService complexService;
     private final FileConfiguration fileConfiguration;
     private final PdbAssembliesFileReader pdbAssembliesFileReader;
+    private final ComplexParticipantCache complexParticipantCache;
 
-    private CollectionComparator<ModelledComparableParticipant> comparableParticipantsComparator;
     private Iterator<Complex> complexIterator;
-    private Map<String, IntactProtein> proteinCacheMap;
-    private Set<AssemblyEntry> assemblies;
+    private Map<String, List<AssemblyEntry>> assembliesByComplexId;
+    private Map<ProteinSetFingerprint, List<AssemblyEntry>> assembliesByProteins;
 
     @Override
     public ComplexWithAssemblies read() {
@@ -63,32 +62,18 @@ public class PdbAssembliesReader implements ItemReader<ComplexWithAssemblies>, I
 
             if (complexReleasedOrReadyForRelease) {
 
-                Collection<ModelledComparableParticipant> complexProteins = getProteinComponents(intactComplex, proteinCacheMap);
-
                 Set<String> assembliesFromFile = new HashSet<>();
                 Set<String> assembliesFromProteins = new HashSet<>();
-                for (AssemblyEntry assemblyEntry : assemblies) {
-
-                    boolean foundInFile = false;
 
-                    for (String complexId : assemblyEntry.getComplexIds()) {
-                        if (complexId.equals(complexAc)) {
-                            assembliesFromFile.addAll(assemblyEntry.getAssemblies());
-                            foundInFile = true;
-                        }
-                    }
+                for (AssemblyEntry assemblyEntry : assembliesByComplexId.getOrDefault(complexAc, List.of())) {
+                    assembliesFromFile.addAll(assemblyEntry.getAssemblies());
+                }
 
-                    // For predicted complexes, also check if any assembly matches the proteins in the complex
-                    if (!foundInFile && intactComplex.isPredictedComplex()) {
-                        Collection<ModelledComparableParticipant> assemblyProteins = assemblyEntry.getProteins().stream()
-                                .map(protein -> new ModelledComparableParticipant(
-                                        protein.getProteinAc(),
-                                        List.of(),
-                                        1,
-                                        CvTermUtils.createProteinInteractorType()))
-                                .collect(Collectors.toList());
-
-                        if (this.comparableParticipantsComparator.compare(complexProteins, assemblyProteins) == 0) {
+                // For predicted complexes, also check if any assembly matches the proteins in the complex
+                if (intactComplex.isPredictedComplex()) {
+                    ProteinSetFingerprint complexProteins = getProteinComponents(intactComplex);
+                    for (AssemblyEntry assemblyEntry : assembliesByProteins.getOrDefault(complexProteins, List.of())) {
+                        if (!assemblyEntry.getComplexIds().contains(complexAc)) {
                             assemblyEntry.getAssemblies().forEach(assembly -> assembliesFromProteins.add(assembly.toLowerCase()));
                         }
                     }
@@ -123,15 +108,22 @@ public class PdbAssembliesReader implements ItemReader<ComplexWithAssemblies>, I
         Assert.notNull(executionContext, "ExecutionContext must not be null");
 
         try {
-            ModelledComparableParticipantComparator participantComparator = new ModelledComparableParticipantComparator();
-            // Ignore stoichiometry for now
-            participantComparator.setIgnoreStoichiometry(true);
-            this.comparableParticipantsComparator = new CollectionComparator<>(participantComparator);
-
-            proteinCacheMap = new HashMap<>();
 
             File parsedFile = fileConfiguration.outputPath().toFile();
-            assemblies = pdbAssembliesFileReader.readAssembliesFromParsedFile(parsedFile);
+            Set<AssemblyEntry> assemblies = pdbAssembliesFileReader.readAssembliesFromParsedFile(parsedFile);
+
+            assembliesByComplexId = new HashMap<>();
+            assembliesByProteins = new HashMap<>();
+            for (AssemblyEntry assemblyEntry : assemblies) {
+                for (String complexId : assemblyEntry.getComplexIds()) {
+                    assembliesByComplexId.computeIfAbsent(complexId, key -> new ArrayList<>()).add(assemblyEntry);
+                }
+                ProteinSetFingerprint assemblyProteins = ProteinSetFingerprint.ofAccessions(assemblyEntry.getProteins()
+                        .stream()
+                        .map(UniprotProtein::getProteinAc)
+                        .collect(Collectors.toList()));
+                assembliesByProteins.computeIfAbsent(assemblyProteins, key -> new ArrayList<>()).add(assemblyEntry);
+            }
 
             this.complexIterator = complexService.iterateAll();
         } catch (IOException e) {
@@ -146,21 +138,13 @@ public class PdbAssembliesReader implements ItemReader<ComplexWithAssemblies>, I
 
     @Override
     public void close() throws ItemStreamException {
+        log.info("Complex participant cache hits: " + complexParticipantCache.getHits() +
+                ", misses: " + complexParticipantCache.getMisses());
     }
 
-    private Collection<ModelledComparableParticipant> getProteinComponents(
-            IntactComplex complex,
-            Map<String, IntactProtein> proteinCacheMap) {
-
-        return complex.getComparableParticipants(
-                true,
-                proteinAc -> {
-                    if (!proteinCacheMap.containsKey(proteinAc)) {
-                        IntactProtein protein = intactDao.getProteinDao().getByAc(proteinAc);
-                        proteinCacheMap.put(proteinAc, protein);
-                    }
-                    return proteinCacheMap.get(proteinAc);
-                }
-        );
+    private ProteinSetFingerprint getProteinComponents(IntactComplex complex) {
+        return complexParticipantCache.getComplexProteins(
+                complex,
+                proteinAc -> intactDao.getProteinDao().getByAc(proteinAc));
     }
 }
@@ -8,6 +8,7 @@ import psidev.psi.mi.jami.model.Complex;
 import psidev.psi.mi.jami.model.Xref;
 import uk.ac.ebi.complex.service.batch.exception.CvTermNotFoundException;
 import uk.ac.ebi.complex.service.batch.manager.ComplexManager;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
 import uk.ac.ebi.complex.service.batch.writer.AbstractBatchWriter;
 import uk.ac.ebi.complex.service.pdb.logging.ErrorsReportWriter;
 import uk.ac.ebi.complex.service.pdb.model.ComplexWithAssemblyXrefs;
@@ -20,17 +21,14 @@ import uk.ac.ebi.intact.jami.utils.IntactUtils;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Log4j
 @SuperBuilder
 public class PdbAssembliesWriter extends AbstractBatchWriter<ComplexWithAssemblyXrefs, Complex> {
 
     private final IntactDao intactDao;
-
-    private final Map<String, IntactCvTerm> cvTermMap = new HashMap<>();
+    private final ReferenceDataCache referenceDataCache;
 
     private ErrorsReportWriter errorReportWriter;
 
@@ -119,16 +117,7 @@ public class PdbAssembliesWriter extends AbstractBatchWriter<ComplexWithAssembly
     }
 
     private IntactCvTerm findCvTerm(String clazz, String id) throws CvTermNotFoundException {
-        String key = clazz + "_" + id;
-        if (cvTermMap.containsKey(key)) {
-            return cvTermMap.get(key);
-        }
-        IntactCvTerm cvTerm = intactDao.getCvTermDao().getByUniqueIdentifier(id, clazz);
-        if (cvTerm != null) {
-            cvTermMap.put(key, cvTerm);
-            return cvTerm;
-        }
-        throw new CvTermNotFoundException("CV Term not found with class '" + clazz + "' and id '" + id + "'");
+        return referenceDataCache.findCvTerm(clazz, id);
     }
 
     @Override
@@ -22,6 +22,8 @@ import org.springframework.transaction.PlatformTransactionManager;
 import psidev.psi.mi.jami.batch.BasicChunkLoggerListener;
 import psidev.psi.mi.jami.batch.SimpleJobListener;
 import uk.ac.ebi.complex.service.batch.config.AppProperties;
+import uk.ac.ebi.complex.service.batch.listener.ReferenceDataCacheListener;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
 import uk.ac.ebi.complex.service.covariation.model.ProteinCovariation;
 import uk.ac.ebi.complex.service.covariation.model.ProteinPairCovariation;
 import uk.ac.ebi.complex.service.covariation.partitioner.ProteinCovariationPartitioner;
@@ -102,6 +104,7 @@ public class ProteinCovariationConfig {
             AppProperties appProperties,
             CovariationFileConfiguration fileConfiguration,
             ProteinPairCovariationService proteinPairCovariationService,
+            ReferenceDataCache referenceDataCache,
             @Value("${database.id}") String databaseId) {
 
         return ProteinCovariationPairBatchWriter.builder()
@@ -109,6 +112,7 @@ public class ProteinCovariationConfig {
                 .fileConfiguration(fileConfiguration)
                 .intactService(proteinPairCovariationService)
                 .intactDao(intactDao)
+                .referenceDataCache(referenceDataCache)
                 .databaseId(databaseId)
                 .build();
     }
@@ -201,6 +205,7 @@ public class ProteinCovariationConfig {
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
             BasicChunkLoggerListener basicChunkLoggerListener,
+            ReferenceDataCacheListener referenceDataCacheListener,
             ProteinCovariationPairBatchReader proteinCovariationPairBatchReader,
             ProteinCovariationPairBatchWriter proteinCovariationPairBatchWriter) throws Exception {
 
@@ -219,6 +224,7 @@ public class ProteinCovariationConfig {
                 .retry(javax.net.ssl.SSLHandshakeException.class)
                 .listener((StepExecutionListener) basicChunkLoggerListener)
                 .listener((ChunkListener) basicChunkLoggerListener)
+                .listener(referenceDataCacheListener)
                 .build();
     }
 
@@ -5,11 +5,11 @@ import lombok.extern.log4j.Log4j;
 import org.springframework.batch.item.ExecutionContext;
 import org.springframework.batch.item.ItemStreamException;
 import psidev.psi.mi.jami.model.CvTerm;
-import uk.ac.ebi.complex.service.batch.exception.SourceNotFoundException;
+import uk.ac.ebi.complex.service.batch.exception.CvTermNotFoundException;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
 import uk.ac.ebi.complex.service.batch.writer.AbstractBatchWriter;
 import uk.ac.ebi.complex.service.covariation.model.ProteinPairCovariation;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
-import uk.ac.ebi.intact.jami.model.extension.IntactCvTerm;
 import uk.ac.ebi.intact.jami.model.extension.IntactProteinPairCovariation;
 import uk.ac.ebi.intact.jami.utils.IntactUtils;
 
@@ -25,6 +25,7 @@ import java.util.stream.Stream;
 public class ProteinCovariationPairBatchWriter extends AbstractBatchWriter<List<ProteinPairCovariation>, IntactProteinPairCovariation> {
 
     private final IntactDao intactDao;
+    private final ReferenceDataCache referenceDataCache;
     private final String databaseId;
 
     private CvTerm database;
@@ -34,8 +35,8 @@ public class ProteinCovariationPairBatchWriter extends AbstractBatchWriter<List<
         super.open(executionContext);
 
         try {
-            database = findDatabase();
-        } catch (SourceNotFoundException e) {
+            database = referenceDataCache.findCvTerm(IntactUtils.DATABASE_OBJCLASS, databaseId);
+        } catch (CvTermNotFoundException e) {
             throw new ItemStreamException(e);
         }
     }
@@ -116,12 +117,4 @@ public class ProteinCovariationPairBatchWriter extends AbstractBatchWriter<List<
                         }
                 )).values();
     }
-
-    private IntactCvTerm findDatabase() throws SourceNotFoundException {
-        IntactCvTerm databaseTerm = intactDao.getCvTermDao().getByMIIdentifier(databaseId, IntactUtils.DATABASE_OBJCLASS);
-        if (databaseTerm != null) {
-            return databaseTerm;
-        }
-        throw new SourceNotFoundException("Database not found with id '" + databaseId + "'");
-    }
 }
@@ -19,6 +19,8 @@ import psidev.psi.mi.jami.batch.BasicChunkLoggerListener;
 import psidev.psi.mi.jami.batch.SimpleJobListener;
 import uk.ac.ebi.complex.service.batch.config.AppProperties;
 import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.listener.ReferenceDataCacheListener;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
 import uk.ac.ebi.complex.service.qsproteome.model.ComplexWithProteomeStructures;
 import uk.ac.ebi.complex.service.qsproteome.processor.ComplexQsProteomeProcessor;
 import uk.ac.ebi.complex.service.qsproteome.reader.ComplexReader;
@@ -60,10 +62,12 @@ public class QsProteomeImportConfig {
             IntactDao intactDao,
             AppProperties appProperties,
             FileConfiguration fileConfiguration,
-            ComplexService complexService) {
+            ComplexService complexService,
+            ReferenceDataCache referenceDataCache) {
 
         return ComplexQsProteomeWriter.builder()
                 .intactDao(intactDao)
+                .referenceDataCache(referenceDataCache)
                 .appProperties(appProperties)
                 .fileConfiguration(fileConfiguration)
                 .intactService(complexService)
@@ -76,6 +80,7 @@ public class QsProteomeImportConfig {
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
             BasicChunkLoggerListener basicChunkLoggerListener,
+            ReferenceDataCacheListener referenceDataCacheListener,
             ComplexReader complexReader,
             ComplexQsProteomeProcessor complexQsProteomeProcessor,
             ComplexQsProteomeWriter complexQsProteomeWriter) throws Exception {
@@ -96,6 +101,7 @@ public class QsProteomeImportConfig {
                 .retry(javax.net.ssl.SSLHandshakeException.class)
                 .listener((StepExecutionListener) basicChunkLoggerListener)
                 .listener((ChunkListener) basicChunkLoggerListener)
+                .listener(referenceDataCacheListener)
                 .build();
     }
 
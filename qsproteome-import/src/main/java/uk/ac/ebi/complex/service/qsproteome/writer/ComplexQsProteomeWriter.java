@@ -9,6 +9,7 @@ import psidev.psi.mi.jami.model.Xref;
 import psidev.psi.mi.jami.utils.XrefUtils;
 import uk.ac.ebi.complex.service.batch.exception.CvTermNotFoundException;
 import uk.ac.ebi.complex.service.batch.logging.ErrorsReportWriter;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
 import uk.ac.ebi.complex.service.batch.writer.AbstractBatchWriter;
 import uk.ac.ebi.complex.service.qsproteome.logging.ProcessReportWriter;
 import uk.ac.ebi.complex.service.qsproteome.model.ComplexWithProteomeStructures;
@@ -23,10 +24,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -38,7 +37,7 @@ public class ComplexQsProteomeWriter extends AbstractBatchWriter<ComplexWithProt
     private static final String DATABASE_MI = "MI:2443";
 
     private final IntactDao intactDao;
-    private final Map<String, IntactCvTerm> cvTermMap = new HashMap<>();
+    private final ReferenceDataCache referenceDataCache;
 
     private ProcessReportWriter noChangesReportWriter;
     private ProcessReportWriter xrefsToAddReportWriter;
@@ -221,16 +220,7 @@ public class ComplexQsProteomeWriter extends AbstractBatchWriter<ComplexWithProt
     }
 
     private IntactCvTerm findCvTerm(String clazz, String id) throws CvTermNotFoundException {
-        String key = clazz + "_" + id;
-        if (cvTermMap.containsKey(key)) {
-            return cvTermMap.get(key);
-        }
-        IntactCvTerm cvTerm = intactDao.getCvTermDao().getByUniqueIdentifier(id, clazz);
-        if (cvTerm != null) {
-            cvTermMap.put(key, cvTerm);
-            return cvTerm;
-        }
-        throw new CvTermNotFoundException("CV Term not found with class '" + clazz + "' and id '" + id + "'");
+        return referenceDataCache.findCvTerm(clazz, id);
     }
 
     @Override
@@ -19,24 +19,38 @@ import psidev.psi.mi.jami.batch.SimpleJobListener;
 import psidev.psi.mi.jami.bridges.uniprot.UniprotProteinFetcher;
 import uk.ac.ebi.complex.service.batch.config.AppProperties;
 import uk.ac.ebi.complex.service.batch.config.FileConfiguration;
+import uk.ac.ebi.complex.service.batch.listener.ComplexAcGeneratorListener;
+import uk.ac.ebi.complex.service.batch.listener.ComplexIndexListener;
+import uk.ac.ebi.complex.service.batch.listener.ReferenceDataCacheListener;
+import uk.ac.ebi.complex.service.batch.manager.ComplexAcGenerator;
+import uk.ac.ebi.complex.service.batch.manager.ReferenceDataCache;
+import uk.ac.ebi.complex.service.finder.ComplexClusterSolver;
+import uk.ac.ebi.complex.service.finder.ComplexContainmentGraph;
 import uk.ac.ebi.complex.service.finder.ComplexFinder;
+import uk.ac.ebi.complex.service.finder.ComplexIndex;
+import uk.ac.ebi.complex.service.finder.FinderMetrics;
+import uk.ac.ebi.complex.service.finder.FinderMetricsListener;
 import uk.ac.ebi.complex.service.uniplex.manager.UniplexComplexManager;
 import uk.ac.ebi.complex.service.batch.model.ComplexWithMatches;
+import uk.ac.ebi.complex.service.batch.model.ComplexWithOldXrefIds;
 import uk.ac.ebi.complex.service.batch.model.ComplexWithXrefsToDelete;
 import uk.ac.ebi.complex.service.uniplex.model.UniplexCluster;
 import uk.ac.ebi.complex.service.batch.processor.ComplexImportBatchProcessor;
+import uk.ac.ebi.complex.service.batch.processor.ParallelBatchProcessor;
 import uk.ac.ebi.complex.service.batch.processor.ComplexXrefDeleteProcessor;
 import uk.ac.ebi.complex.service.uniplex.processor.UniplexFileProcessorTasklet;
 import uk.ac.ebi.complex.service.batch.reader.ComplexImportBatchReader;
-import uk.ac.ebi.complex.service.batch.reader.ComplexIteratorBatchReader;
+import uk.ac.ebi.complex.service.batch.reader.ComplexXrefDeleteBatchReader;
 import uk.ac.ebi.complex.service.uniplex.reader.UniplexClusterReader;
 import uk.ac.ebi.complex.service.batch.writer.ComplexImportBatchWriter;
+import uk.ac.ebi.complex.service.batch.writer.ParallelBatchWriter;
 import uk.ac.ebi.complex.service.batch.writer.ComplexXrefDeleteWriter;
 import uk.ac.ebi.complex.service.uniplex.writer.UniplexClusterWriter;
 import uk.ac.ebi.intact.jami.dao.IntactDao;
-import uk.ac.ebi.intact.jami.model.extension.IntactComplex;
 import uk.ac.ebi.intact.jami.service.ComplexService;
 
+import java.util.concurrent.Future;
+
 @Configuration
 public class UniPlexImportConfig {
 
@@ -48,8 +62,18 @@ public class UniPlexImportConfig {
     }
 
     @Bean
-    public ComplexFinder complexFinder(IntactDao intactDao) {
-        return new ComplexFinder(intactDao);
+    public ComplexContainmentGraph complexContainmentGraph(IntactDao intactDao) {
+        return new ComplexContainmentGraph(intactDao);
+    }
+
+    @Bean
+    public ComplexFinder complexFinder(
+            IntactDao intactDao,
+            ComplexIndex complexIndex,
+            ComplexContainmentGraph complexContainmentGraph,
+            FinderMetrics finderMetrics) {
+
+        return new ComplexFinder(intactDao, complexIndex, complexContainmentGraph, null, finderMetrics);
     }
 
     @Bean
@@ -61,12 +85,16 @@ public class UniPlexImportConfig {
     public UniplexComplexManager uniplexComplexManager(
             IntactDao intactDao,
             UniprotProteinFetcher uniprotProteinFetcher,
-            AppProperties appProperties) {
+            AppProperties appProperties,
+            ReferenceDataCache referenceDataCache,
+            ComplexAcGenerator complexAcGenerator) {
 
         return UniplexComplexManager.builder()
                 .intactDao(intactDao)
                 .uniprotProteinFetcher(uniprotProteinFetcher)
                 .appProperties(appProperties)
+                .referenceDataCache(referenceDataCache)
+                .complexAcGenerator(complexAcGenerator)
                 .build();
     }
 
@@ -74,11 +102,13 @@ public class UniPlexImportConfig {
     public ComplexImportBatchProcessor<Integer, UniplexCluster> uniplexBatchProcessor(
             ComplexFinder complexFinder,
             UniplexComplexManager uniplexComplexManager,
-            FileConfiguration fileConfiguration) {
+            FileConfiguration fileConfiguration,
+            AppProperties appProperties) {
 
         return ComplexImportBatchProcessor.<Integer, UniplexCluster>builder()
                 .complexFinder(complexFinder)
                 .complexManager(uniplexComplexManager)
+                .complexClusterSolver(new ComplexClusterSolver(appProperties.getComplexClusterMaxStates()))
                 .fileConfiguration(fileConfiguration)
                 .build();
     }
@@ -105,12 +135,14 @@ public class UniPlexImportConfig {
     public ComplexImportBatchWriter<Integer, UniplexCluster> uniplexBatchWriter(
             UniplexComplexManager uniplexComplexManager,
             ComplexService complexService,
+            ComplexIndex complexIndex,
             FileConfiguration fileConfiguration,
             AppProperties appProperties) {
 
         return ComplexImportBatchWriter.<Integer, UniplexCluster>builder()
                 .complexManager(uniplexComplexManager)
                 .intactService(complexService)
+                .complexIndex(complexIndex)
                 .fileConfiguration(fileConfiguration)
                 .appProperties(appProperties)
                 .build();
@@ -121,32 +153,45 @@ public class UniPlexImportConfig {
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
             BasicChunkLoggerListener basicChunkLoggerListener,
+            FinderMetricsListener finderMetricsListener,
+            ReferenceDataCacheListener referenceDataCacheListener,
+            ComplexIndexListener complexIndexListener,
+            ComplexAcGeneratorListener complexAcGeneratorListener,
             ComplexImportBatchReader<Integer, UniplexCluster> uniplexFileReader,
             ComplexImportBatchProcessor<Integer, UniplexCluster> uniplexClusterProcessor,
-            ComplexImportBatchWriter<Integer, UniplexCluster> uniplexComplexWriter) throws Exception {
+            ComplexImportBatchWriter<Integer, UniplexCluster> uniplexComplexWriter,
+            AppProperties appProperties) throws Exception {
 
         StepBuilder basicStep = basicStepBuilder(
                 "uniplexClusterImportStep",
                 jamiTransactionManager,
                 basicBatchJobRepository);
 
-        return new SimpleStepBuilder<UniplexCluster, ComplexWithMatches<Integer, UniplexCluster>>(basicStep)
+        return new SimpleStepBuilder<UniplexCluster, Future<ComplexWithMatches<Integer, UniplexCluster>>>(basicStep)
                 .chunk(50)
                 .reader(uniplexFileReader)
-                .processor(uniplexClusterProcessor)
-                .writer(uniplexComplexWriter)
+                .processor(new ParallelBatchProcessor<>(uniplexClusterProcessor, appProperties.getImportThreads(), jamiTransactionManager))
+                .writer(new ParallelBatchWriter<>(uniplexComplexWriter))
                 .faultTolerant()
                 .retryLimit(10)
                 .retry(org.springframework.batch.item.ItemStreamException.class)
                 .retry(javax.net.ssl.SSLHandshakeException.class)
                 .listener((StepExecutionListener) basicChunkLoggerListener)
                 .listener((ChunkListener) basicChunkLoggerListener)
+                .listener((StepExecutionListener) finderMetricsListener)
+                .listener((StepExecutionListener) referenceDataCacheListener)
+                .listener((StepExecutionListener) complexIndexListener)
+                .listener((StepExecutionListener) complexAcGeneratorListener)
                 .build();
     }
 
     @Bean
-    public ComplexIteratorBatchReader complexIteratorBatchReader(ComplexService complexService) {
-        return new ComplexIteratorBatchReader(complexService);
+    public ComplexXrefDeleteBatchReader complexXrefDeleteBatchReader(
+            IntactDao intactDao,
+            ReferenceDataCache referenceDataCache,
+            FileConfiguration fileConfiguration) {
+
+        return new ComplexXrefDeleteBatchReader(intactDao, referenceDataCache, fileConfiguration, UniplexComplexManager.HUMAP_DATABASE_ID, 50);
     }
 
     @Bean
@@ -179,7 +224,7 @@ public class UniPlexImportConfig {
             PlatformTransactionManager jamiTransactionManager,
             JobRepositoryFactoryBean basicBatchJobRepository,
             BasicChunkLoggerListener basicChunkLoggerListener,
-            ComplexIteratorBatchReader complexIteratorBatchReader,
+            ComplexXrefDeleteBatchReader complexXrefDeleteBatchReader,
             ComplexXrefDeleteProcessor<Integer, UniplexCluster> clusterComplexXrefDeleteProcessor,
             ComplexXrefDeleteWriter complexXrefDeleteWriter) throws Exception {
 
@@ -188,9 +233,9 @@ public class UniPlexImportConfig {
                 jamiTransactionManager,
                 basicBatchJobRepository);
 
-        return new SimpleStepBuilder<IntactComplex, ComplexWithXrefsToDelete>(basicStep)
+        return new SimpleStepBuilder<ComplexWithOldXrefIds, ComplexWithXrefsToDelete>(basicStep)
                 .chunk(50)
-                .reader(complexIteratorBatchReader)
+                .reader(complexXrefDeleteBatchReader)
                 .processor(clusterComplexXrefDeleteProcessor)
                 .writer(complexXrefDeleteWriter)
                 .faultTolerant()